@@ -15,6 +15,7 @@ package org.activiti.designer.eclipse.common;
 
 import java.net.URL;
 
+import org.activiti.designer.eclipse.navigator.cloudrepo.ActivitiCloudEditorUtil;
 import org.activiti.designer.eclipse.util.PaletteExtensionUtil;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.ResourcesPlugin;
@@ -87,6 +88,9 @@ public class ActivitiPlugin extends AbstractUIPlugin {
     // Allow the image cache to destroy itself so image references are cleaned
     // up
     imageCache.dispose();
+
+    // close the pooled connections to the cloud editor
+    ActivitiCloudEditorUtil.shutdown();
   }
 
   // ======================== static access methods ==========================
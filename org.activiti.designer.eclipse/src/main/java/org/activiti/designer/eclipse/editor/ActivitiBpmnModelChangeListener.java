@@ -29,13 +29,15 @@ import org.eclipse.graphiti.mm.pictograms.Diagram;
 import org.eclipse.graphiti.mm.pictograms.PictogramElement;
 import org.eclipse.graphiti.notification.INotificationService;
 import org.eclipse.graphiti.platform.IDiagramBehavior;
-import org.eclipse.graphiti.platform.IDiagramContainer;
-import org.eclipse.swt.widgets.Display;
-
 
+/**
+ * Updates the pictogram elements related to the objects changed in a transaction. The elements of all transactions
+ * are collected by a {@link DiagramRefreshScheduler}, which updates them once per run of the UI event loop.
+ */
 public class ActivitiBpmnModelChangeListener implements ResourceSetListener {
 
   private final IDiagramBehavior diagramBehavior;
+  private DiagramRefreshScheduler refreshScheduler;
 
   public ActivitiBpmnModelChangeListener(final IDiagramBehavior diagramBehavior) {
     super();
@@ -43,6 +45,16 @@ public class ActivitiBpmnModelChangeListener implements ResourceSetListener {
     this.diagramBehavior = diagramBehavior;
   }
 
+  /**
+   * @return the scheduler that updates the elements, which counts its flushes, updated elements and full refreshes
+   */
+  public synchronized DiagramRefreshScheduler getRefreshScheduler() {
+    if (refreshScheduler == null) {
+      refreshScheduler = new DiagramRefreshScheduler(diagramBehavior.getDiagramContainer().getDiagramTypeProvider());
+    }
+    return refreshScheduler;
+  }
+
   @Override
   public NotificationFilter getFilter() {
     return NotificationFilter.NOT_TOUCH;
@@ -88,22 +100,8 @@ public class ActivitiBpmnModelChangeListener implements ResourceSetListener {
     final INotificationService notificationService = provider.getNotificationService();
     final PictogramElement[] dirtyPEs = notificationService.calculateRelatedPictogramElements(changedBOs.toArray());
 
-    if (dirtyPEs.length > 0) {
-      // do an asynchronous update in the UI thread
-      Display.getDefault().asyncExec(new Runnable() {
-
-        @Override
-        public void run() {
-          IDiagramContainer diagramContainer = provider.getDiagramBehavior().getDiagramContainer();
-          if (provider.isAutoUpdateAtRuntime() && diagramContainer.isDirty()) {
-            notificationService.updatePictogramElements(dirtyPEs);
-          } else {
-            provider.getDiagramBehavior().refresh();
-          }
-        }
-
-      });
-    }
+    // the update runs asynchronously in the UI thread, together with the updates of other transactions
+    getRefreshScheduler().schedule(dirtyPEs);
   }
 
   @Override
@@ -14,21 +14,13 @@
 package org.activiti.designer.eclipse.editor;
 
 import java.awt.Point;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
-import javax.xml.stream.XMLInputFactory;
-import javax.xml.stream.XMLStreamReader;
 
 import org.activiti.bpmn.BpmnAutoLayout;
 import org.activiti.bpmn.converter.BpmnXMLConverter;
@@ -39,8 +31,6 @@ import org.activiti.bpmn.model.BoundaryEvent;
 import org.activiti.bpmn.model.BpmnModel;
 import org.activiti.bpmn.model.CustomProperty;
 import org.activiti.bpmn.model.DataObject;
-import org.activiti.bpmn.model.ExtensionAttribute;
-import org.activiti.bpmn.model.ExtensionElement;
 import org.activiti.bpmn.model.FieldExtension;
 import org.activiti.bpmn.model.FlowElement;
 import org.activiti.bpmn.model.FlowElementsContainer;
@@ -53,24 +43,22 @@ import org.activiti.bpmn.model.SequenceFlow;
 import org.activiti.bpmn.model.ServiceTask;
 import org.activiti.bpmn.model.SubProcess;
 import org.activiti.bpmn.model.UserTask;
+import org.activiti.designer.eclipse.Logger;
 import org.activiti.designer.eclipse.common.ActivitiPlugin;
-import org.activiti.designer.eclipse.extension.export.ExportMarshaller;
-import org.activiti.designer.eclipse.ui.ExportMarshallerRunnable;
-import org.activiti.designer.eclipse.util.ExtensionPointUtil;
+import org.activiti.designer.eclipse.editor.DiagramExportJob.ExportSnapshot;
 import org.activiti.designer.eclipse.util.FileService;
-import org.activiti.designer.integration.annotation.Property;
 import org.activiti.designer.integration.servicetask.CustomServiceTask;
 import org.activiti.designer.integration.usertask.CustomUserTask;
-import org.activiti.designer.util.bpmn.BpmnExtensions;
 import org.activiti.designer.util.eclipse.ActivitiUiUtil;
+import org.activiti.designer.util.eclipse.DeferredCommit;
 import org.activiti.designer.util.editor.BpmnMemoryModel;
+import org.activiti.designer.util.editor.BpmnModelIndex;
 import org.activiti.designer.util.editor.ModelHandler;
+import org.activiti.designer.util.extension.ExtensionDescriptor;
 import org.activiti.designer.util.extension.ExtensionUtil;
 import org.activiti.designer.util.preferences.Preferences;
 import org.activiti.designer.util.preferences.PreferencesUtil;
-import org.activiti.image.ProcessDiagramGenerator;
-import org.activiti.image.impl.DefaultProcessDiagramGenerator;
-import org.apache.commons.io.IOUtils;
+import org.activiti.designer.util.workspace.BpmnModelCache;
 import org.apache.commons.lang.StringUtils;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
@@ -78,6 +66,7 @@ import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.draw2d.IFigure;
 import org.eclipse.draw2d.SWTGraphics;
 import org.eclipse.draw2d.geometry.Rectangle;
@@ -100,21 +89,19 @@ import org.eclipse.graphiti.mm.pictograms.ChopboxAnchor;
 import org.eclipse.graphiti.mm.pictograms.ContainerShape;
 import org.eclipse.graphiti.mm.pictograms.Diagram;
 import org.eclipse.graphiti.mm.pictograms.PictogramElement;
+import org.eclipse.graphiti.ui.editor.DiagramBehavior;
 import org.eclipse.graphiti.ui.editor.DiagramEditor;
 import org.eclipse.graphiti.ui.editor.DiagramEditorInput;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.GC;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.ImageData;
-import org.eclipse.swt.graphics.ImageLoader;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.MessageBox;
 import org.eclipse.ui.IEditorInput;
 import org.eclipse.ui.IEditorSite;
 import org.eclipse.ui.PartInitException;
-import org.eclipse.ui.PlatformUI;
-import org.eclipse.ui.progress.IProgressService;
 
 public class ActivitiDiagramEditor extends DiagramEditor {
 
@@ -122,10 +109,45 @@ public class ActivitiDiagramEditor extends DiagramEditor {
 
   private TransactionalEditingDomain transactionalEditingDomain;
 
+  private DiagramImportJob importJob;
+
+  private DiagramChangeTracker changeTracker;
+
+  private ActivitiBpmnModelChangeListener modelChangeListener;
+
+  private DiagramExportJob exportJob;
+
+  private ExportFingerprints exportFingerprints;
+
   public ActivitiDiagramEditor() {
     super();
   }
 
+  @Override
+  protected DiagramBehavior createDiagramBehavior() {
+    return new DiagramBehavior(this) {
+
+      /**
+       * Registers the listener that batches the diagram updates after changes of the model, instead of the default
+       * listener of Graphiti, which updates the diagram once per transaction.
+       */
+      @Override
+      protected void registerBusinessObjectsListener() {
+        modelChangeListener = new ActivitiBpmnModelChangeListener(this);
+        getEditingDomain().addResourceSetListener(modelChangeListener);
+      }
+
+      @Override
+      protected void unregisterBusinessObjectsListener() {
+        if (modelChangeListener != null) {
+          getEditingDomain().removeResourceSetListener(modelChangeListener);
+          modelChangeListener.getRefreshScheduler().clear();
+          modelChangeListener = null;
+        }
+      }
+    };
+  }
+
   @Override
   public TransactionalEditingDomain getEditingDomain() {
     TransactionalEditingDomain ted = super.getEditingDomain();//// ͼmodeleditingDomain
@@ -177,6 +199,14 @@ public class ActivitiDiagramEditor extends DiagramEditor {
 
   @Override
   public void doSave(IProgressMonitor monitor) {
+    if (isImporting()) {
+      // the diagram is only partially drawn, saving now would drop the DI of the remaining elements
+      return;
+    }
+
+    // property edits that wait to be committed have to be in the saved model
+    DeferredCommit.commitAll(getEditingDomain());
+
     super.doSave(monitor);
 
     final ActivitiDiagramEditorInput adei = (ActivitiDiagramEditorInput) getEditorInput();
@@ -187,17 +217,16 @@ public class ActivitiDiagramEditor extends DiagramEditor {
       BpmnMemoryModel model = ModelHandler.getModel(EcoreUtil.getURI(getDiagramTypeProvider().getDiagram()));
 
       // Save the bpmn diagram file
-      doSaveToBpmn(model, diagramFileString);
-
-      // Save an image of the diagram
-      doSaveImage(diagramFileString, model);
+      final byte[] xmlBytes = doSaveToBpmn(model, diagramFileString);
 
-      // Refresh the resources in the workspace before invoking export
-      // marshallers, as they may need access to resources
-      dataFile.getProject().refreshLocal(IResource.DEPTH_INFINITE, null);
+      // Only the data file was written, the export job refreshes its own output
+      dataFile.refreshLocal(IResource.DEPTH_ZERO, null);
 
-      // Invoke export marshallers to produce additional output
-      doInvokeExportMarshallers(model);
+      // Save an image of the diagram and invoke export marshallers to produce
+      // additional output in the background
+      if (xmlBytes != null) {
+        doScheduleExport(dataFile, diagramFileString, xmlBytes, model);
+      }
 
     } catch (Exception e) {
       // TODO Auto-generated catch block
@@ -208,110 +237,98 @@ public class ActivitiDiagramEditor extends DiagramEditor {
     updateDirtyState();
   }
 
-  protected void doSaveToBpmn(final BpmnMemoryModel model, final String diagramFileString) throws Exception {
+  /**
+   * Writes the model to the data file.
+   *
+   * @return the XML that was written, or null when the file could not be written
+   */
+  protected byte[] doSaveToBpmn(final BpmnMemoryModel model, final String diagramFileString) throws Exception {
 
-    // add sequence flow bend-points to the model
+    // add sequence flow bend-points to the model, only the DI of the elements
+    // changed since the last save is updated when possible
     final IFeatureProvider featureProvider = getDiagramTypeProvider().getFeatureProvider();
-    new GraphitiToBpmnDI(model, featureProvider).processGraphitiElements();
+    final GraphitiToBpmnDI graphitiToBpmnDI = new GraphitiToBpmnDI(model, featureProvider);
+    if (changeTracker == null || !graphitiToBpmnDI.processChangedElements(changeTracker)) {
+      graphitiToBpmnDI.processGraphitiElements();
+      
+    } else if (ActivitiPlugin.getDefault().isDebugging()) {
+      // the full rebuild serves as a consistency check of the incremental synchronization
+      final Set<String> differences = graphitiToBpmnDI.checkConsistency();
+      if (!differences.isEmpty()) {
+        Logger.log(IStatus.WARNING, IStatus.OK, "Incremental DI synchronization of " + diagramFileString
+                + " differs from a full rebuild for " + differences, null);
+      }
+    }
+    if (changeTracker != null) {
+      changeTracker.synchronizationDone(graphitiToBpmnDI.isCoordinatesShifted());
+    }
 
     BpmnXMLConverter converter = new BpmnXMLConverter();
     byte[] xmlBytes = converter.convertToXML(model.getBpmnModel());
 
     File objectsFile = new File(diagramFileString);
     try {
-      FileOutputStream fos = new FileOutputStream(objectsFile);
-      fos.write(xmlBytes);
-      fos.close();
+      FileService.writeAtomically(objectsFile, xmlBytes);
     } catch (Exception e) {
       MessageBox messageBox = new MessageBox(Display.getCurrent().getActiveShell(), SWT.ICON_WARNING | SWT.OK);
       messageBox.setText("Warning");
       messageBox.setMessage("Error while saving the model " + e.getLocalizedMessage());
       messageBox.open();
+      return null;
     }
 
+    return xmlBytes;
   }
 
-  private void doSaveImage(final String diagramFileString, BpmnMemoryModel model) {
+  private void doScheduleExport(final IFile dataFile, final String diagramFileString, final byte[] xmlBytes,
+          final BpmnMemoryModel model) {
+
+    if (exportFingerprints == null) {
+      exportFingerprints = new ExportFingerprints(dataFile);
+    }
+    final ExportSnapshot snapshot = new ExportSnapshot(dataFile, diagramFileString, xmlBytes,
+            getDiagramTypeProvider().getFeatureProvider(), exportFingerprints);
+
     boolean saveImage = PreferencesUtil.getBooleanPreference(Preferences.SAVE_IMAGE, ActivitiPlugin.getDefault());
-    if (saveImage) {//PreferencesO˱rͬrDƬ
+    if (saveImage) {
       List<String> languages = PreferencesUtil.getStringArray(Preferences.ACTIVITI_LANGUAGES, ActivitiPlugin.getDefault());
       if (languages != null && languages.size() > 0) {
-        
-        for (String language : languages) {
-          for (Process process : model.getBpmnModel().getProcesses()) {
-            fillContainerWithLanguage(process, language);
-          }
-          
-          ProcessDiagramGenerator processDiagramGenerator = new DefaultProcessDiagramGenerator();
-          InputStream imageStream = processDiagramGenerator.generatePngDiagram(model.getBpmnModel());
-          
-          if (imageStream != null) {
-            String imageFileName = null;
-            if (diagramFileString.endsWith(".bpmn20.xml")) {
-              imageFileName = diagramFileString.substring(0, diagramFileString.length() - 11) + 
-                  "_" + language + ".png";
-            } else {
-              imageFileName = diagramFileString.substring(0, diagramFileString.lastIndexOf(".")) + 
-                  "_" + language + ".png";
-            }
-            File imageFile = new File(imageFileName);
-            FileOutputStream outStream = null;
-            ByteArrayOutputStream baos = null;
-            try {
-              outStream = new FileOutputStream(imageFile);
-              baos = new ByteArrayOutputStream();
-              IOUtils.copy(imageStream, baos);
-              baos.writeTo(outStream);
-              
-            } catch (Exception e) {
-              e.printStackTrace();
-            } finally {
-              if (outStream != null) {
-                IOUtils.closeQuietly(outStream);
-              }
-              if (baos != null) {
-                IOUtils.closeQuietly(baos);
-              }
-            }
-          }
-        }
- 
+        snapshot.setLanguageImages(languages);
       } else {
-        marshallImage(model, diagramFileString);
-      }
-    }
-  }
-  
-  protected void fillContainerWithLanguage(FlowElementsContainer container, String language) {
-    for (FlowElement flowElement : container.getFlowElements()) {
-      
-      List<ExtensionElement> languageElements = flowElement.getExtensionElements().get(BpmnExtensions.LANGUAGE_EXTENSION);
-      
-      if (languageElements != null && languageElements.size() > 0) {
-        for (ExtensionElement extensionElement : languageElements) {
-          List<ExtensionAttribute> languageAttributes = extensionElement.getAttributes().get("language");
-          if (languageAttributes != null && languageAttributes.size() == 1) {
-            String languageValue = languageAttributes.get(0).getValue();
-            if (language.equals(languageValue)) {
-              flowElement.setName(extensionElement.getElementText());
-            }
+        // the diagram can only be painted on the UI thread, so it's done right away unless
+        // nothing visible changed. The overlay shows the date, so it always changes.
+        String fingerprint = null;
+        if (!PreferencesUtil.getBooleanPreference(Preferences.SAVE_IMAGE_ADD_OVERLAY, ActivitiPlugin.getDefault())) {
+          fingerprint = ExportFingerprints.createVisualFingerprint(model.getBpmnModel(), null);
+        }
+        final File imageFile = new File(DiagramExportJob.getImageFileName(diagramFileString, ""));
+        if (!imageFile.exists() || !exportFingerprints.isUnchanged(ExportFingerprints.IMAGE_KEY, fingerprint)) {
+          final ImageData diagramImage = createDiagramImage(model, diagramFileString);
+          if (diagramImage != null) {
+            snapshot.setDiagramImage(diagramImage, fingerprint);
           }
         }
       }
-      
-      if (flowElement instanceof SubProcess) {
-        fillContainerWithLanguage((SubProcess) flowElement, language);
-      }
     }
+
+    if (exportJob == null) {
+      exportJob = new DiagramExportJob();
+    }
+    exportJob.export(snapshot);
   }
 
-  private void marshallImage(BpmnMemoryModel model, String modelFileName) {
+  /**
+   * Paints the diagram as shown by the editor.
+   *
+   * @return the image data of the diagram, or null when it could not be painted
+   */
+  private ImageData createDiagramImage(BpmnMemoryModel model, String modelFileName) {
     try {
       final GraphicalViewer graphicalViewer = (GraphicalViewer) ((DiagramEditor) model.getFeatureProvider().getDiagramTypeProvider().getDiagramEditor())
               .getAdapter(GraphicalViewer.class);
 
       if (graphicalViewer == null || graphicalViewer.getEditPartRegistry() == null) {
-        return;
+        return null;
       }
       //״༭
       final ScalableFreeformRootEditPart rootEditPart = (ScalableFreeformRootEditPart) graphicalViewer.getEditPartRegistry().get(LayerManager.ID);
@@ -346,12 +363,7 @@ public class ActivitiDiagramEditor extends DiagramEditor {
         }
       });
 
-      ImageLoader imgLoader = new ImageLoader();
-      imgLoader.data = new ImageData[] { img.getImageData() };
-
-      ByteArrayOutputStream baos = new ByteArrayOutputStream(imgLoader.data.length);
-
-      imgLoader.save(baos, SWT.IMAGE_PNG);
+      final ImageData imageData = img.getImageData();
 
       imageGC.dispose();
       img.dispose();
@@ -368,18 +380,11 @@ public class ActivitiDiagramEditor extends DiagramEditor {
         }
       });
 
-      String imageFileName = null;
-      if (modelFileName.endsWith(".bpmn20.xml")) {
-        imageFileName = modelFileName.substring(0, modelFileName.length() - 11) + ".png";
-      } else {
-        imageFileName = modelFileName.substring(0, modelFileName.lastIndexOf(".")) + ".png";
-      }
-      File imageFile = new File(imageFileName);
-      FileOutputStream outStream = new FileOutputStream(imageFile);
-      baos.writeTo(outStream);
+      return imageData;
 
     } catch (Exception e) {
       e.printStackTrace();
+      return null;
     }
   }
 
@@ -390,15 +395,11 @@ public class ActivitiDiagramEditor extends DiagramEditor {
     }
   }
 
-  private void doInvokeExportMarshallers(final BpmnMemoryModel model) throws InvocationTargetException, InterruptedException {
-    final Collection<ExportMarshaller> marshallers = ExtensionPointUtil.getExportMarshallers();
-    final ExportMarshallerRunnable runnable = new ExportMarshallerRunnable(model, marshallers);
-    final IProgressService progressService = PlatformUI.getWorkbench().getProgressService();
-    progressService.busyCursorWhile(runnable);
-  }
-
   @Override
   public boolean isDirty() {
+    if (isImporting()) {
+      return false;
+    }
     TransactionalEditingDomain editingDomain = getEditingDomain();
     // Check that the editor is not yet disposed
     if (editingDomain != null && editingDomain.getCommandStack() != null) {
@@ -425,20 +426,15 @@ public class ActivitiDiagramEditor extends DiagramEditor {
         model.addMainProcess();
         bpmnFile.createNewFile();
         dataFile.refreshLocal(IResource.DEPTH_INFINITE, null);
+      } else if (input instanceof DiagramEditorInput && bpmnFile.length() >= DiagramImportJob.PROGRESSIVE_IMPORT_THRESHOLD) {
+        // large diagrams are parsed on a worker job and drawn in batches, the
+        // empty model is replaced as soon as parsing has finished
+        model.setBpmnModel(new BpmnModel());
+        importJob = new DiagramImportJob(this, model, dataFile);
+        importJob.schedule();
+
       } else {
-        FileInputStream fileStream = new FileInputStream(bpmnFile);
-        XMLInputFactory xif = XMLInputFactory.newInstance();
-        InputStreamReader in = new InputStreamReader(fileStream, "UTF-8");
-        XMLStreamReader xtr = xif.createXMLStreamReader(in);
-        BpmnXMLConverter bpmnConverter = new BpmnXMLConverter();
-        bpmnConverter.setUserTaskFormTypes(PreferencesUtil.getStringArray(Preferences.ALFRESCO_FORMTYPES_USERTASK, ActivitiPlugin.getDefault()));
-        bpmnConverter.setStartEventFormTypes(PreferencesUtil.getStringArray(Preferences.ALFRESCO_FORMTYPES_STARTEVENT, ActivitiPlugin.getDefault()));
-        BpmnModel bpmnModel = null;
-        try {
-          bpmnModel = bpmnConverter.convertToBpmnModel(xtr);
-        } catch (Exception e) {
-          bpmnModel = new BpmnModel();
-        }
+        BpmnModel bpmnModel = readBpmnModel(dataFile);
         model.setBpmnModel(bpmnModel);
 
         if (bpmnModel.getLocationMap().size() == 0) {
@@ -462,11 +458,50 @@ public class ActivitiDiagramEditor extends DiagramEditor {
         basicCommandStack.flush();
       }
 
+      if (changeTracker != null) {
+        changeTracker.uninstall();
+      }
+      changeTracker = new DiagramChangeTracker(getDiagramTypeProvider().getFeatureProvider());
+      changeTracker.install(getEditingDomain(), model);
+
     } catch (Exception e) {
       e.printStackTrace();
     }
   }
 
+  /**
+   * Reads the BPMN model from the given data file. The editor modifies the model, so it gets its own copy of the
+   * model shared by the {@link BpmnModelCache}. When the content cannot be converted, an empty model is returned.
+   */
+  protected BpmnModel readBpmnModel(final IFile dataFile) throws Exception {
+    BpmnModel bpmnModel = null;
+    try {
+      bpmnModel = BpmnModelCache.getInstance().getPrivateModel(dataFile,
+              PreferencesUtil.getStringArray(Preferences.ALFRESCO_FORMTYPES_USERTASK, ActivitiPlugin.getDefault()),
+              PreferencesUtil.getStringArray(Preferences.ALFRESCO_FORMTYPES_STARTEVENT, ActivitiPlugin.getDefault()));
+    } catch (CoreException e) {
+      // the file can't be read, which is different from content that can't be converted
+      throw e;
+    } catch (Exception e) {
+      bpmnModel = new BpmnModel();
+    }
+    return bpmnModel;
+  }
+
+  /**
+   * @return true while a {@link DiagramImportJob} is still drawing the diagram of this editor.
+   */
+  public boolean isImporting() {
+    return importJob != null;
+  }
+
+  protected void importFinished(final DiagramImportJob job) {
+    if (importJob == job) {
+      importJob = null;
+      updateDirtyState();
+    }
+  }
+
   private void importDiagram(final BpmnMemoryModel model) {
     final Diagram diagram = getDiagramTypeProvider().getDiagram();
     diagram.setActive(true);
@@ -475,64 +510,8 @@ public class ActivitiDiagramEditor extends DiagramEditor {
 
       @Override
       protected void doExecute() {
-        if (model.getBpmnModel().getPools().size() > 0) {
-          for (Pool pool : model.getBpmnModel().getPools()) {
-            GraphicInfo graphicInfo = model.getBpmnModel().getGraphicInfo(pool.getId());
-
-            // if no graphic info is present we can try to calculate it from the
-            // lane DI info
-            if (graphicInfo == null && StringUtils.isNotEmpty(pool.getProcessRef())) {//getProcessRefȡӾضõĴprocess
-              Process process = model.getBpmnModel().getProcess(pool.getId());//ÿӾضӦһprocess,diagramӦһmain process
-              //ͨӾذӾӾصʼͳȺ͸߶
-              if (process != null && process.getLanes().size() > 0) {//ӾصӾ
-                Double minX = null, minY = null, width = null, height = null;
-                for (Lane lane : process.getLanes()) {//(minX,minY)ʾȡӾϽ꣬heightӦñʾӾصĸ߶ȣӾ߶֮ͣ
-                  GraphicInfo laneInfo = model.getBpmnModel().getGraphicInfo(lane.getId());
-                  if (laneInfo != null) {
-                    if (minX == null || laneInfo.getX() < minX) {
-                      minX = laneInfo.getX();
-                    }
-                    if (minY == null || laneInfo.getY() < minY) {
-                      minY = laneInfo.getY();
-                    }
-
-                    if (width == null || laneInfo.getWidth() > width) {
-                      width = laneInfo.getWidth();
-                    }
-                    if (height == null) {
-                      height = laneInfo.getHeight();
-                    } else {
-                      height += laneInfo.getHeight();
-                    }
-                  }
-                }
+        drawPoolsAndLanes(model, diagram);
 
-                if (width != null && width > 0) {
-                  graphicInfo = new GraphicInfo();
-                  graphicInfo.setX(minX);
-                  graphicInfo.setY(minY);
-                  graphicInfo.setWidth(width);
-                  graphicInfo.setHeight(height);
-                  model.getBpmnModel().addGraphicInfo(pool.getId(), graphicInfo);//ӾͳϢ
-                }
-              }
-            }
-
-            if (graphicInfo != null) {//Ӿ
-              PictogramElement poolElement = addContainerElement(pool, model, diagram);
-              if (poolElement == null) {
-                continue;
-              }
-              //ӾеӾ
-              Process process = model.getBpmnModel().getProcess(pool.getId());//ProcessָӾĴ
-              if (process != null) {
-                for (Lane lane : process.getLanes()) {//ӾĻͼûл
-                  addContainerElement(lane, model, (ContainerShape) poolElement);
-                }
-              }
-            }
-          }//һdiagramӦһprocessĬmyProcess,ԿͼļxmlԴ룬lanesubprocess,Ӧ1+process
-        }//BpmnMemoryModel.getBpmnModel()ֻһmodelӦdiagramprocessӦľSubprocessLane
         //ӾӾelements,Processes:ָǹ̹򣬾һ̣лͼprocess
         for (Process process : model.getBpmnModel().getProcesses()) {//CreatePoolFeature.getBpmMode.addProcess(newProcess)
           drawFlowElements(process.getFlowElements(), model.getBpmnModel().getLocationMap(), diagram, process);//ӾءsubProcess,process(diagram)Ԫ
@@ -544,6 +523,67 @@ public class ActivitiDiagramEditor extends DiagramEditor {
     });
   }
 
+  protected void drawPoolsAndLanes(final BpmnMemoryModel model, final Diagram diagram) {
+    if (model.getBpmnModel().getPools().size() > 0) {
+      for (Pool pool : model.getBpmnModel().getPools()) {
+        GraphicInfo graphicInfo = model.getBpmnModel().getGraphicInfo(pool.getId());
+
+        // if no graphic info is present we can try to calculate it from the
+        // lane DI info
+        if (graphicInfo == null && StringUtils.isNotEmpty(pool.getProcessRef())) {//getProcessRefȡӾضõĴprocess
+          Process process = model.getBpmnModel().getProcess(pool.getId());//ÿӾضӦһprocess,diagramӦһmain process
+          //ͨӾذӾӾصʼͳȺ͸߶
+          if (process != null && process.getLanes().size() > 0) {//ӾصӾ
+            Double minX = null, minY = null, width = null, height = null;
+            for (Lane lane : process.getLanes()) {//(minX,minY)ʾȡӾϽ꣬heightӦñʾӾصĸ߶ȣӾ߶֮ͣ
+              GraphicInfo laneInfo = model.getBpmnModel().getGraphicInfo(lane.getId());
+              if (laneInfo != null) {
+                if (minX == null || laneInfo.getX() < minX) {
+                  minX = laneInfo.getX();
+                }
+                if (minY == null || laneInfo.getY() < minY) {
+                  minY = laneInfo.getY();
+                }
+
+                if (width == null || laneInfo.getWidth() > width) {
+                  width = laneInfo.getWidth();
+                }
+                if (height == null) {
+                  height = laneInfo.getHeight();
+                } else {
+                  height += laneInfo.getHeight();
+                }
+              }
+            }
+
+            if (width != null && width > 0) {
+              graphicInfo = new GraphicInfo();
+              graphicInfo.setX(minX);
+              graphicInfo.setY(minY);
+              graphicInfo.setWidth(width);
+              graphicInfo.setHeight(height);
+              model.getBpmnModel().addGraphicInfo(pool.getId(), graphicInfo);//ӾͳϢ
+            }
+          }
+        }
+
+        if (graphicInfo != null) {//Ӿ
+          PictogramElement poolElement = addContainerElement(pool, model, diagram);
+          if (poolElement == null) {
+            continue;
+          }
+          //ӾеӾ
+          Process process = model.getBpmnModel().getProcess(pool.getId());//ProcessָӾĴ
+          if (process != null) {
+            for (Lane lane : process.getLanes()) {//ӾĻͼûл
+              addContainerElement(lane, model, (ContainerShape) poolElement);
+            }
+          }
+        }
+      }//һdiagramӦһprocessĬmyProcess,ԿͼļxmlԴ룬lanesubprocess,Ӧ1+process
+    }//BpmnMemoryModel.getBpmnModel()ֻһmodelӦdiagramprocessӦľSubprocessLane
+  }
+
   private PictogramElement addContainerElement(BaseElement element, BpmnMemoryModel model, ContainerShape parent) {
     GraphicInfo graphicInfo = model.getBpmnModel().getGraphicInfo(element.getId());
     if (graphicInfo == null) {
@@ -656,32 +696,12 @@ public class ActivitiDiagramEditor extends DiagramEditor {
 
             if (targetTask != null) {
               
-              final List<Class<CustomUserTask>> classHierarchy = new ArrayList<Class<CustomUserTask>>();
-              final List<String> fieldInfoObjects = new ArrayList<String>();
-
-              Class clazz = targetTask.getClass();
-              classHierarchy.add(clazz);
-
-              boolean hierarchyOpen = true;
-              while (hierarchyOpen) {
-                clazz = clazz.getSuperclass();
-                if (CustomUserTask.class.isAssignableFrom(clazz)) {
-                  classHierarchy.add(clazz);
-                } else {
-                  hierarchyOpen = false;
-                }
-              }
-              
-              for (final Class<CustomUserTask> currentClass : classHierarchy) {
-                for (final Field field : currentClass.getDeclaredFields()) {
-                  if (field.isAnnotationPresent(Property.class)) {
-                    fieldInfoObjects.add(field.getName());
-                  }
-                }
-              }
+              final ExtensionDescriptor descriptor = ExtensionDescriptor.forClass(targetTask.getClass());
+              final List<String> fieldNames = new ArrayList<String>();
               
               for (String fieldName : userTask.getExtensionElements().keySet()) {
-                if (fieldInfoObjects.contains(fieldName)) {
+                if (descriptor.hasProperty(fieldName)) {
+                  fieldNames.add(fieldName);
                   CustomProperty customFieldProperty = new CustomProperty();
                   customFieldProperty.setName(fieldName);
                   customFieldProperty.setSimpleValue(userTask.getExtensionElements().get(fieldName).get(0).getElementText());
@@ -689,7 +709,7 @@ public class ActivitiDiagramEditor extends DiagramEditor {
                 }
               }
               
-              for (String fieldName : fieldInfoObjects) {
+              for (String fieldName : fieldNames) {
                 userTask.getExtensionElements().remove(fieldName);
               }
             }
@@ -733,6 +753,9 @@ public class ActivitiDiagramEditor extends DiagramEditor {
     	  }
       }
     }
+    if (!noDIList.isEmpty()) {
+      ModelHandler.getModel(EcoreUtil.getURI(getDiagramTypeProvider().getDiagram())).getModelIndex().invalidate();
+    }
   }
 
   protected CustomServiceTask findCustomServiceTask(ServiceTask serviceTask) {
@@ -770,13 +793,7 @@ public class ActivitiDiagramEditor extends DiagramEditor {
   }
 
   protected ContainerShape getParentContainer(String flowElementId, Process process, Diagram diagram) {
-    Lane foundLane = null;
-    for (Lane lane : process.getLanes()) {
-      if (lane.getFlowReferences().contains(flowElementId)) {//LanesFlowReferencesŵǷڵͼã
-        foundLane = lane;
-        break;
-      }
-    }
+    Lane foundLane = ModelHandler.getModel(EcoreUtil.getURI(getDiagramTypeProvider().getDiagram())).getModelIndex().getLane(flowElementId);
     //elementλӾ򷵻Ӿ򷵻diagramΪ
     if (foundLane != null) {
       final IFeatureProvider featureProvider = getDiagramTypeProvider().getFeatureProvider();
@@ -854,6 +871,7 @@ public class ActivitiDiagramEditor extends DiagramEditor {
       final ContainerShape parent, final Process process) {
 
     final IFeatureProvider featureProvider = getDiagramTypeProvider().getFeatureProvider();
+    final BpmnModelIndex modelIndex = ModelHandler.getModel(EcoreUtil.getURI(getDiagramTypeProvider().getDiagram())).getModelIndex();
 
     final List<Artifact> artifactsWithoutDI = new ArrayList<Artifact>();
     for (final Artifact artifact : container.getArtifacts()) {
@@ -880,17 +898,19 @@ public class ActivitiDiagramEditor extends DiagramEditor {
         ContainerShape parentContainer = null;
         if (parent instanceof Diagram) {
           FlowElement connectingElement = null;
-          for (final Artifact associationArtifact : container.getArtifacts()) {
-            if (associationArtifact instanceof Association) {
-              Association association = (Association) associationArtifact;
+          for (final Association association : modelIndex.getAssociations(artifact.getId())) {
+            if (modelIndex.getContainer(association.getId()) != container) {
+              continue;
+            }
+            
+            String connectingElementId = null;
+            if (association.getSourceRef().equals(artifact.getId())) {
+              connectingElementId = association.getTargetRef();
               
-              if (association.getSourceRef().equals(artifact.getId())) {
-                connectingElement = container.getFlowElement(association.getTargetRef());
-                
-              } else if (association.getTargetRef().equals(artifact.getId())) {
-                connectingElement = container.getFlowElement(association.getSourceRef());
-              }
+            } else if (association.getTargetRef().equals(artifact.getId())) {
+              connectingElementId = association.getSourceRef();
             }
+            connectingElement = modelIndex.getContainer(connectingElementId) == container ? modelIndex.getFlowElement(connectingElementId) : null;
           }
           
           if (connectingElement != null) {
@@ -921,6 +941,9 @@ public class ActivitiDiagramEditor extends DiagramEditor {
     for (final Artifact artifact : artifactsWithoutDI) {
       container.getArtifacts().remove(artifact);
     }
+    if (!artifactsWithoutDI.isEmpty()) {
+      modelIndex.invalidate();
+    }
     
     for (FlowElement flowElement : container.getFlowElements()) {
       if (flowElement instanceof SubProcess) {
@@ -1098,6 +1121,17 @@ public class ActivitiDiagramEditor extends DiagramEditor {
 
   @Override
   public void dispose() {
+    if (importJob != null) {
+      importJob.cancel();
+      importJob = null;
+    }
+    if (changeTracker != null) {
+      changeTracker.uninstall();
+      changeTracker = null;
+    }
+    // property edits that wait to be committed belong to this editor, the sections may outlive it
+    DeferredCommit.commitAll(getEditingDomain());
+
     super.dispose();
 
     final ActivitiDiagramEditorInput adei = (ActivitiDiagramEditorInput) getEditorInput();
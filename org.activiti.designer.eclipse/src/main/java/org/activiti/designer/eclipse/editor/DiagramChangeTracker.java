@@ -0,0 +1,234 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.eclipse.editor;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.activiti.bpmn.model.Process;
+import org.activiti.designer.util.editor.BpmnMemoryModel;
+import org.activiti.designer.util.editor.BpmnMemoryModel.BpmnModelListener;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.transaction.ResourceSetChangeEvent;
+import org.eclipse.emf.transaction.ResourceSetListenerImpl;
+import org.eclipse.emf.transaction.TransactionalEditingDomain;
+import org.eclipse.graphiti.features.IFeatureProvider;
+import org.eclipse.graphiti.mm.pictograms.Anchor;
+import org.eclipse.graphiti.mm.pictograms.ConnectionDecorator;
+import org.eclipse.graphiti.mm.pictograms.ContainerShape;
+import org.eclipse.graphiti.mm.pictograms.Diagram;
+import org.eclipse.graphiti.mm.pictograms.PictogramElement;
+import org.eclipse.graphiti.mm.pictograms.PictogramsPackage;
+
+/**
+ * Records which pictogram elements were changed, added or removed since the last save, so
+ * {@link GraphitiToBpmnDI} only needs to synchronize the DI of those elements. Changes made by undo and redo
+ * are recorded as well, as they are committed in a transaction of the editing domain too.
+ *
+ * Until the first full synchronization, and whenever a change can't be synchronized incrementally, a full
+ * rebuild of the DI is requested instead.
+ */
+public class DiagramChangeTracker extends ResourceSetListenerImpl implements BpmnModelListener {
+
+  protected IFeatureProvider featureProvider;
+  protected TransactionalEditingDomain editingDomain;
+  protected BpmnMemoryModel model;
+
+  protected boolean fullRebuildRequired = true;
+  protected Set<PictogramElement> changedElements = new LinkedHashSet<PictogramElement>();
+  protected Set<Object> addedBusinessObjects = createIdentitySet();
+  protected Set<Object> removedBusinessObjects = createIdentitySet();
+  protected Set<Object> updatedBusinessObjects = createIdentitySet();
+
+  public DiagramChangeTracker(final IFeatureProvider featureProvider) {
+    this.featureProvider = featureProvider;
+  }
+
+  public void install(final TransactionalEditingDomain editingDomain, final BpmnMemoryModel model) {
+    this.editingDomain = editingDomain;
+    this.model = model;
+    editingDomain.addResourceSetListener(this);
+    model.addModelListener(this);
+  }
+
+  public void uninstall() {
+    if (editingDomain != null) {
+      editingDomain.removeResourceSetListener(this);
+      editingDomain = null;
+    }
+    if (model != null) {
+      model.removeModelListener(this);
+      model = null;
+    }
+    clear();
+  }
+
+  @Override
+  public boolean isPostcommitOnly() {
+    return true;
+  }
+
+  @Override
+  public void resourceSetChanged(ResourceSetChangeEvent event) {
+    if (fullRebuildRequired) {
+      // everything is synchronized on the next save anyway
+      return;
+    }
+
+    for (final Notification notification : event.getNotifications()) {
+      if (notification.isTouch() || notification.getNotifier() instanceof EObject == false) {
+        continue;
+      }
+
+      final Object feature = notification.getFeature();
+      if (feature == PictogramsPackage.Literals.CONTAINER_SHAPE__CHILDREN
+              || feature == PictogramsPackage.Literals.DIAGRAM__CONNECTIONS) {
+
+        switch (notification.getEventType()) {
+        case Notification.ADD:
+          elementAdded(notification.getNewValue());
+          break;
+        case Notification.ADD_MANY:
+          for (final Object added : (Collection<?>) notification.getNewValue()) {
+            elementAdded(added);
+          }
+          break;
+        case Notification.REMOVE:
+          elementRemoved(notification.getOldValue());
+          break;
+        case Notification.REMOVE_MANY:
+          for (final Object removed : (Collection<?>) notification.getOldValue()) {
+            elementRemoved(removed);
+          }
+          break;
+        default:
+          break;
+        }
+        continue;
+      }
+
+      final PictogramElement pictogramElement = getPictogramElement((EObject) notification.getNotifier());
+      if (pictogramElement != null && pictogramElement instanceof Diagram == false) {
+        changedElements.add(pictogramElement);
+      }
+    }
+  }
+
+  @Override
+  public void objectUpdated(Object object) {
+    if (fullRebuildRequired) {
+      return;
+    }
+
+    if (object instanceof Process) {
+      // pools and lanes are resolved through their process
+      fullRebuildRequired = true;
+    } else {
+      updatedBusinessObjects.add(object);
+    }
+  }
+
+  protected void elementAdded(final Object added) {
+    if (added instanceof PictogramElement) {
+      final PictogramElement pictogramElement = (PictogramElement) added;
+      changedElements.add(pictogramElement);
+      addedBusinessObjects.addAll(featureProvider.getAllBusinessObjectsForPictogramElement(pictogramElement));
+      if (pictogramElement instanceof ContainerShape) {
+        for (final PictogramElement child : ((ContainerShape) pictogramElement).getChildren()) {
+          elementAdded(child);
+        }
+      }
+    }
+  }
+
+  protected void elementRemoved(final Object removed) {
+    if (removed instanceof PictogramElement) {
+      final PictogramElement pictogramElement = (PictogramElement) removed;
+      changedElements.remove(pictogramElement);
+      removedBusinessObjects.addAll(featureProvider.getAllBusinessObjectsForPictogramElement(pictogramElement));
+      if (pictogramElement instanceof ContainerShape) {
+        for (final PictogramElement child : ((ContainerShape) pictogramElement).getChildren()) {
+          elementRemoved(child);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the pictogram element the DI of the given diagram object is derived from. Changes to graphics
+   *         algorithms, bendpoints, anchors and connection decorators all end up at their shape or connection.
+   */
+  protected PictogramElement getPictogramElement(final EObject eObject) {
+    EObject current = eObject;
+    while (current != null && current instanceof PictogramElement == false) {
+      current = current.eContainer();
+    }
+
+    if (current instanceof ConnectionDecorator) {
+      return ((ConnectionDecorator) current).getConnection();
+    } else if (current instanceof Anchor) {
+      return ((Anchor) current).getParent();
+    }
+    return (PictogramElement) current;
+  }
+
+  public boolean isFullRebuildRequired() {
+    return fullRebuildRequired;
+  }
+
+  public void requireFullRebuild() {
+    fullRebuildRequired = true;
+    clear();
+  }
+
+  public Set<PictogramElement> getChangedElements() {
+    return changedElements;
+  }
+
+  public Set<Object> getAddedBusinessObjects() {
+    return addedBusinessObjects;
+  }
+
+  public Set<Object> getRemovedBusinessObjects() {
+    return removedBusinessObjects;
+  }
+
+  public Set<Object> getUpdatedBusinessObjects() {
+    return updatedBusinessObjects;
+  }
+
+  /**
+   * Called after the DI was synchronized. The next save can be incremental, unless the full rebuild had to
+   * move all elements to get rid of negative coordinates; the diagram then no longer matches the DI one to one.
+   */
+  public void synchronizationDone(final boolean coordinatesShifted) {
+    fullRebuildRequired = coordinatesShifted;
+    clear();
+  }
+
+  protected void clear() {
+    changedElements.clear();
+    addedBusinessObjects.clear();
+    removedBusinessObjects.clear();
+    updatedBusinessObjects.clear();
+  }
+
+  protected static Set<Object> createIdentitySet() {
+    return Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+  }
+}
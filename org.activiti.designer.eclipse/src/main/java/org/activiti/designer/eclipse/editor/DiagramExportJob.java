@@ -0,0 +1,486 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.eclipse.editor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.activiti.bpmn.converter.BpmnXMLConverter;
+import org.activiti.bpmn.model.Artifact;
+import org.activiti.bpmn.model.BpmnModel;
+import org.activiti.bpmn.model.ExtensionAttribute;
+import org.activiti.bpmn.model.ExtensionElement;
+import org.activiti.bpmn.model.FlowElement;
+import org.activiti.bpmn.model.FlowNode;
+import org.activiti.bpmn.model.GraphicInfo;
+import org.activiti.bpmn.model.Process;
+import org.activiti.bpmn.model.SequenceFlow;
+import org.activiti.bpmn.model.SubProcess;
+import org.activiti.designer.eclipse.Logger;
+import org.activiti.designer.eclipse.common.ActivitiPlugin;
+import org.activiti.designer.eclipse.extension.export.ExportMarshaller;
+import org.activiti.designer.eclipse.ui.ExportMarshallerRunnable;
+import org.activiti.designer.eclipse.util.ExtensionPointUtil;
+import org.activiti.designer.eclipse.util.FileService;
+import org.activiti.designer.util.bpmn.BpmnExtensions;
+import org.activiti.designer.util.editor.BpmnMemoryModel;
+import org.activiti.designer.util.preferences.Preferences;
+import org.activiti.designer.util.preferences.PreferencesUtil;
+import org.activiti.image.ProcessDiagramGenerator;
+import org.activiti.image.impl.DefaultProcessDiagramGenerator;
+import org.apache.commons.io.IOUtils;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.graphiti.features.IFeatureProvider;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.ImageData;
+import org.eclipse.swt.graphics.ImageLoader;
+
+/**
+ * Produces the output that is derived from a saved diagram: the diagram images and the output of the export
+ * marshallers. The work is done on a snapshot of the saved model, parsed from the XML that was written, so the
+ * editor can continue while the export runs.
+ *
+ * Every editor uses a single export job. Saving again while an export is pending replaces the pending snapshot,
+ * so a series of quick saves only exports the last one. Output of which the input has the same
+ * {@link ExportFingerprints fingerprint} as at the previous export isn't produced again.
+ */
+public class DiagramExportJob extends Job {
+
+  /**
+   * Delay (in milliseconds) before an export starts, saves within this delay are exported once.
+   */
+  protected static final long COALESCE_DELAY = 500;
+
+  /**
+   * Maximum number of language images that are rendered at the same time.
+   */
+  protected static final int MAX_IMAGE_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+  protected ExportSnapshot pendingSnapshot;
+
+  public DiagramExportJob() {
+    super("Exporting diagram");
+    setPriority(Job.DECORATE);
+  }
+
+  /**
+   * Schedules the export of the given snapshot. A snapshot that has not been exported yet is discarded.
+   */
+  public synchronized void export(final ExportSnapshot snapshot) {
+    pendingSnapshot = snapshot;
+    schedule(COALESCE_DELAY);
+  }
+
+  protected synchronized ExportSnapshot takePendingSnapshot() {
+    final ExportSnapshot snapshot = pendingSnapshot;
+    pendingSnapshot = null;
+    return snapshot;
+  }
+
+  protected synchronized boolean hasPendingSnapshot() {
+    return pendingSnapshot != null;
+  }
+
+  @Override
+  protected IStatus run(IProgressMonitor monitor) {
+    final ExportSnapshot snapshot = takePendingSnapshot();
+    if (snapshot == null) {
+      return Status.OK_STATUS;
+    }
+
+    final SubMonitor progress = SubMonitor.convert(monitor, "Exporting " + snapshot.dataFile.getName(), 100);
+    try {
+      final BpmnModel bpmnModel = readSnapshot(snapshot.xmlBytes);
+      progress.worked(10);
+
+      if (snapshot.saveImage) {
+        progress.subTask("Saving diagram image");
+        saveImages(snapshot, bpmnModel);
+        snapshot.dataFile.getParent().refreshLocal(IResource.DEPTH_ONE, null);
+      }
+      progress.setWorkRemaining(80);
+
+      if (progress.isCanceled() || hasPendingSnapshot()) {
+        // a newer snapshot is exported by the next run
+        return Status.OK_STATUS;
+      }
+
+      invokeExportMarshallers(snapshot, bpmnModel, progress.newChild(80));
+
+    } catch (Exception e) {
+      Logger.logError("Error exporting " + snapshot.dataFile.getName(), e);
+      return Logger.createStatus(IStatus.ERROR, IStatus.OK, "Error exporting " + snapshot.dataFile.getName(), e);
+
+    } finally {
+      snapshot.fingerprints.save();
+      monitor.done();
+    }
+
+    if (monitor.isCanceled()) {
+      return Status.CANCEL_STATUS;
+    }
+    return Status.OK_STATUS;
+  }
+
+  /**
+   * Invokes the export marshallers, except those that exported the same XML with the same preferences before
+   * and of which the output still exists.
+   */
+  protected void invokeExportMarshallers(final ExportSnapshot snapshot, final BpmnModel bpmnModel, final IProgressMonitor monitor) {
+    final String xmlFingerprint = ExportFingerprints.createFingerprint(snapshot.xmlBytes);
+
+    final List<ExportMarshaller> marshallers = new ArrayList<ExportMarshaller>();
+    final Map<ExportMarshaller, String> marshallerFingerprints = new HashMap<ExportMarshaller, String>();
+    for (final ExportMarshaller marshaller : ExtensionPointUtil.getExportMarshallers()) {
+      final String key = getMarshallerKey(marshaller);
+      final String fingerprint = ExportFingerprints.createMarshallerFingerprint(xmlFingerprint, marshaller);
+      if (!snapshot.fingerprints.isUnchanged(key, fingerprint) || !snapshot.fingerprints.isOutputPresent(key)) {
+        marshallers.add(marshaller);
+        marshallerFingerprints.put(marshaller, fingerprint);
+      }
+    }
+    if (marshallers.isEmpty()) {
+      monitor.done();
+      return;
+    }
+
+    final BpmnMemoryModel model = new BpmnMemoryModel(snapshot.featureProvider, snapshot.dataFile);
+    model.setBpmnModel(bpmnModel);
+    final ExportMarshallerRunnable runnable = new ExportMarshallerRunnable(model, marshallers);
+    runnable.run(monitor);
+
+    for (final ExportMarshaller marshaller : marshallers) {
+      final String key = getMarshallerKey(marshaller);
+      if (!runnable.getMarshallers().contains(marshaller) || runnable.getFailedMarshallers().contains(marshaller)) {
+        // disabled or failed, so there is no current output
+        snapshot.fingerprints.update(key, null);
+        snapshot.fingerprints.updateOutput(key, null);
+      } else {
+        snapshot.fingerprints.update(key, marshallerFingerprints.get(marshaller));
+        snapshot.fingerprints.updateOutput(key, runnable.getSavedResources(marshaller));
+      }
+    }
+  }
+
+  protected String getMarshallerKey(final ExportMarshaller marshaller) {
+    return ExportFingerprints.MARSHALLER_KEY_PREFIX + marshaller.getMarshallerName();
+  }
+
+  protected BpmnModel readSnapshot(final byte[] xmlBytes) throws Exception {
+    XMLInputFactory xif = XMLInputFactory.newInstance();
+    InputStreamReader in = new InputStreamReader(new ByteArrayInputStream(xmlBytes), "UTF-8");
+    XMLStreamReader xtr = xif.createXMLStreamReader(in);
+    BpmnXMLConverter bpmnConverter = new BpmnXMLConverter();
+    bpmnConverter.setUserTaskFormTypes(PreferencesUtil.getStringArray(Preferences.ALFRESCO_FORMTYPES_USERTASK, ActivitiPlugin.getDefault()));
+    bpmnConverter.setStartEventFormTypes(PreferencesUtil.getStringArray(Preferences.ALFRESCO_FORMTYPES_STARTEVENT, ActivitiPlugin.getDefault()));
+    return bpmnConverter.convertToBpmnModel(xtr);
+  }
+
+  protected void saveImages(final ExportSnapshot snapshot, final BpmnModel bpmnModel) throws Exception {
+    if (snapshot.languages != null && snapshot.languages.size() > 0) {
+      saveLanguageImages(snapshot, bpmnModel);
+
+    } else if (snapshot.diagramImage != null) {
+      ImageLoader imgLoader = new ImageLoader();
+      imgLoader.data = new ImageData[] { snapshot.diagramImage };
+
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      imgLoader.save(baos, SWT.IMAGE_PNG);
+      FileService.writeAtomically(new File(getImageFileName(snapshot.diagramFileString, "")), baos.toByteArray());
+      snapshot.fingerprints.update(ExportFingerprints.IMAGE_KEY, snapshot.diagramImageFingerprint);
+    }
+  }
+
+  /**
+   * Renders an image per language. Every language is rendered from its own localized copy of the model, the
+   * renders run in parallel on at most {@link #MAX_IMAGE_THREADS} threads. Images of which the visual
+   * fingerprint didn't change are left as they are.
+   */
+  protected void saveLanguageImages(final ExportSnapshot snapshot, final BpmnModel bpmnModel) throws InterruptedException {
+    final ExecutorService executor = Executors.newFixedThreadPool(Math.min(snapshot.languages.size(), MAX_IMAGE_THREADS));
+    try {
+      final Map<String, Future<?>> results = new LinkedHashMap<String, Future<?>>();
+      for (final String language : snapshot.languages) {
+        results.put(language, executor.submit(new Callable<Object>() {
+
+          @Override
+          public Object call() throws Exception {
+            final File imageFile = new File(getImageFileName(snapshot.diagramFileString, "_" + language));
+            final String key = ExportFingerprints.LANGUAGE_IMAGE_KEY_PREFIX + language;
+            final String fingerprint = ExportFingerprints.createVisualFingerprint(bpmnModel, language);
+            if (imageFile.exists() && snapshot.fingerprints.isUnchanged(key, fingerprint)) {
+              return null;
+            }
+
+            final BpmnModel localizedModel = createLocalizedModel(bpmnModel, language);
+            final ProcessDiagramGenerator processDiagramGenerator = new DefaultProcessDiagramGenerator();
+            final InputStream imageStream = processDiagramGenerator.generatePngDiagram(localizedModel);
+            if (imageStream != null) {
+              try {
+                FileService.writeAtomically(imageFile, IOUtils.toByteArray(imageStream));
+                snapshot.fingerprints.update(key, fingerprint);
+              } finally {
+                IOUtils.closeQuietly(imageStream);
+              }
+            }
+            return null;
+          }
+        }));
+      }
+
+      for (final Entry<String, Future<?>> result : results.entrySet()) {
+        try {
+          result.getValue().get();
+        } catch (ExecutionException e) {
+          Logger.logError("Error saving the " + result.getKey() + " image of " + snapshot.dataFile.getName(), e.getCause());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Creates a copy of the model for rendering, with the names of the flow elements in the given language. Only
+   * the processes, sub processes, renamed elements, nodes connected to renamed sequence flows and DI are copied,
+   * everything else is shared with the model, which is left untouched.
+   */
+  protected BpmnModel createLocalizedModel(final BpmnModel bpmnModel, final String language) {
+    final BpmnModel localizedModel = new BpmnModel();
+    // the generator moves the DI when it has negative coordinates, so every render gets its own DI
+    for (final Entry<String, GraphicInfo> entry : bpmnModel.getLocationMap().entrySet()) {
+      localizedModel.addGraphicInfo(entry.getKey(), copyGraphicInfo(entry.getValue()));
+    }
+    for (final Entry<String, List<GraphicInfo>> entry : bpmnModel.getFlowLocationMap().entrySet()) {
+      final List<GraphicInfo> graphicInfoList = new ArrayList<GraphicInfo>(entry.getValue().size());
+      for (final GraphicInfo graphicInfo : entry.getValue()) {
+        graphicInfoList.add(copyGraphicInfo(graphicInfo));
+      }
+      localizedModel.addFlowGraphicInfoList(entry.getKey(), graphicInfoList);
+    }
+    for (final Entry<String, GraphicInfo> entry : bpmnModel.getLabelLocationMap().entrySet()) {
+      localizedModel.addLabelGraphicInfo(entry.getKey(), copyGraphicInfo(entry.getValue()));
+    }
+    localizedModel.getPools().addAll(bpmnModel.getPools());
+    localizedModel.setMessageFlows(bpmnModel.getMessageFlows());
+
+    // the generator draws the sequence flows through the nodes, so the renamed flows are copied first
+    // and the nodes are linked to the copies
+    final Map<String, SequenceFlow> localizedFlows = new HashMap<String, SequenceFlow>();
+    for (final Process process : bpmnModel.getProcesses()) {
+      localizeSequenceFlows(process.getFlowElements(), language, localizedFlows);
+    }
+
+    for (final Process process : bpmnModel.getProcesses()) {
+      final Process localizedProcess = new Process();
+      localizedProcess.setId(process.getId());
+      localizedProcess.setName(process.getName());
+      localizedProcess.setLanes(process.getLanes());
+      for (final FlowElement flowElement : process.getFlowElements()) {
+        localizedProcess.addFlowElement(localizeFlowElement(flowElement, language, localizedFlows));
+      }
+      for (final Artifact artifact : process.getArtifacts()) {
+        localizedProcess.addArtifact(artifact);
+      }
+      localizedModel.addProcess(localizedProcess);
+    }
+    return localizedModel;
+  }
+
+  /**
+   * Copies the sequence flows that have a name in the given language, by id.
+   */
+  protected void localizeSequenceFlows(final Collection<FlowElement> flowElements, final String language,
+          final Map<String, SequenceFlow> localizedFlows) {
+
+    for (final FlowElement flowElement : flowElements) {
+      if (flowElement instanceof SubProcess) {
+        localizeSequenceFlows(((SubProcess) flowElement).getFlowElements(), language, localizedFlows);
+
+      } else if (flowElement instanceof SequenceFlow) {
+        final String localizedName = getLocalizedName(flowElement, language);
+        if (localizedName != null && !localizedName.equals(flowElement.getName())) {
+          final SequenceFlow localizedFlow = ((SequenceFlow) flowElement).clone();
+          localizedFlow.setName(localizedName);
+          localizedFlows.put(flowElement.getId(), localizedFlow);
+        }
+      }
+    }
+  }
+
+  protected FlowElement localizeFlowElement(final FlowElement flowElement, final String language,
+          final Map<String, SequenceFlow> localizedFlows) {
+
+    if (flowElement instanceof SequenceFlow) {
+      final SequenceFlow localizedFlow = localizedFlows.get(flowElement.getId());
+      return localizedFlow != null ? localizedFlow : flowElement;
+    }
+
+    FlowElement result = flowElement;
+
+    if (flowElement instanceof SubProcess) {
+      final SubProcess localizedSubProcess = ((SubProcess) flowElement).clone();
+      localizedSubProcess.getFlowElements().clear();
+      for (final FlowElement childElement : ((SubProcess) flowElement).getFlowElements()) {
+        localizedSubProcess.addFlowElement(localizeFlowElement(childElement, language, localizedFlows));
+      }
+      result = localizedSubProcess;
+    }
+
+    final String localizedName = getLocalizedName(flowElement, language);
+    if (localizedName != null && !localizedName.equals(flowElement.getName())) {
+      if (result == flowElement) {
+        result = flowElement.clone();
+      }
+      result.setName(localizedName);
+    }
+
+    if (flowElement instanceof FlowNode) {
+      final FlowNode flowNode = (FlowNode) flowElement;
+      if (result == flowElement && (hasLocalizedFlow(flowNode.getIncomingFlows(), localizedFlows)
+              || hasLocalizedFlow(flowNode.getOutgoingFlows(), localizedFlows))) {
+
+        result = flowElement.clone();
+      }
+      if (result != flowElement) {
+        // the sequence flows are drawn from their source node, but aren't copied by clone()
+        ((FlowNode) result).setIncomingFlows(getLocalizedFlows(flowNode.getIncomingFlows(), localizedFlows));
+        ((FlowNode) result).setOutgoingFlows(getLocalizedFlows(flowNode.getOutgoingFlows(), localizedFlows));
+      }
+    }
+    return result;
+  }
+
+  protected boolean hasLocalizedFlow(final List<SequenceFlow> sequenceFlows, final Map<String, SequenceFlow> localizedFlows) {
+    for (final SequenceFlow sequenceFlow : sequenceFlows) {
+      if (localizedFlows.containsKey(sequenceFlow.getId())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  protected List<SequenceFlow> getLocalizedFlows(final List<SequenceFlow> sequenceFlows, final Map<String, SequenceFlow> localizedFlows) {
+    final List<SequenceFlow> result = new ArrayList<SequenceFlow>(sequenceFlows.size());
+    for (final SequenceFlow sequenceFlow : sequenceFlows) {
+      final SequenceFlow localizedFlow = localizedFlows.get(sequenceFlow.getId());
+      result.add(localizedFlow != null ? localizedFlow : sequenceFlow);
+    }
+    return result;
+  }
+
+  protected GraphicInfo copyGraphicInfo(final GraphicInfo graphicInfo) {
+    final GraphicInfo copy = new GraphicInfo();
+    copy.setX(graphicInfo.getX());
+    copy.setY(graphicInfo.getY());
+    copy.setWidth(graphicInfo.getWidth());
+    copy.setHeight(graphicInfo.getHeight());
+    copy.setExpanded(graphicInfo.getExpanded());
+    copy.setElement(graphicInfo.getElement());
+    return copy;
+  }
+
+  protected static String getLocalizedName(final FlowElement flowElement, final String language) {
+    List<ExtensionElement> languageElements = flowElement.getExtensionElements().get(BpmnExtensions.LANGUAGE_EXTENSION);
+
+    if (languageElements != null && languageElements.size() > 0) {
+      for (ExtensionElement extensionElement : languageElements) {
+        List<ExtensionAttribute> languageAttributes = extensionElement.getAttributes().get("language");
+        if (languageAttributes != null && languageAttributes.size() == 1) {
+          String languageValue = languageAttributes.get(0).getValue();
+          if (language.equals(languageValue)) {
+            return extensionElement.getElementText();
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  protected static String getImageFileName(final String diagramFileString, final String suffix) {
+    if (diagramFileString.endsWith(".bpmn20.xml")) {
+      return diagramFileString.substring(0, diagramFileString.length() - 11) + suffix + ".png";
+    } else {
+      return diagramFileString.substring(0, diagramFileString.lastIndexOf(".")) + suffix + ".png";
+    }
+  }
+
+  /**
+   * The state of a diagram at the moment it was saved.
+   */
+  public static class ExportSnapshot {
+
+    protected IFile dataFile;
+    protected String diagramFileString;
+    protected byte[] xmlBytes;
+    protected IFeatureProvider featureProvider;
+    protected ExportFingerprints fingerprints;
+    protected boolean saveImage;
+    protected List<String> languages;
+    protected ImageData diagramImage;
+    protected String diagramImageFingerprint;
+
+    public ExportSnapshot(final IFile dataFile, final String diagramFileString, final byte[] xmlBytes,
+            final IFeatureProvider featureProvider, final ExportFingerprints fingerprints) {
+      this.dataFile = dataFile;
+      this.diagramFileString = diagramFileString;
+      this.xmlBytes = xmlBytes;
+      this.featureProvider = featureProvider;
+      this.fingerprints = fingerprints;
+    }
+
+    /**
+     * Requests a diagram image per language, rendered from the model.
+     */
+    public void setLanguageImages(final List<String> languages) {
+      this.saveImage = true;
+      this.languages = languages;
+    }
+
+    /**
+     * Requests a diagram image with the given content, as painted by the editor.
+     *
+     * @param fingerprint the fingerprint of the painted diagram, or null when it can't be determined
+     */
+    public void setDiagramImage(final ImageData diagramImage, final String fingerprint) {
+      this.saveImage = true;
+      this.diagramImage = diagramImage;
+      this.diagramImageFingerprint = fingerprint;
+    }
+  }
+}
@@ -0,0 +1,312 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.eclipse.editor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.activiti.bpmn.BpmnAutoLayout;
+import org.activiti.bpmn.model.Artifact;
+import org.activiti.bpmn.model.Association;
+import org.activiti.bpmn.model.BpmnModel;
+import org.activiti.bpmn.model.FlowElement;
+import org.activiti.bpmn.model.FlowElementsContainer;
+import org.activiti.bpmn.model.MessageFlow;
+import org.activiti.bpmn.model.Process;
+import org.activiti.bpmn.model.SequenceFlow;
+import org.activiti.bpmn.model.SubProcess;
+import org.activiti.designer.eclipse.Logger;
+import org.activiti.designer.util.editor.BpmnMemoryModel;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.emf.common.command.BasicCommandStack;
+import org.eclipse.emf.transaction.RecordingCommand;
+import org.eclipse.graphiti.mm.pictograms.Diagram;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Opens a large diagram in stages. The BPMN file is parsed (and laid out when it has no DI) on this job,
+ * after which the pictograms are created on the UI thread in batches: pools and lanes first, then the
+ * flow nodes and artifacts and finally all connections. Between two batches the UI thread is released,
+ * so the editor shows the diagram while it fills in and stays responsive.
+ *
+ * Cancelling the job, or closing the editor, stops the import. A cancelled import closes the editor, as a
+ * partially drawn diagram can't be saved without losing DI.
+ */
+public class DiagramImportJob extends Job {
+
+  /**
+   * Files of at least this size (in bytes) are imported by this job, smaller files are imported directly.
+   */
+  public static final long PROGRESSIVE_IMPORT_THRESHOLD = 256 * 1024;
+
+  protected static final int BATCH_SIZE = 100;
+
+  protected ActivitiDiagramEditor editor;
+  protected BpmnMemoryModel model;
+  protected IFile dataFile;
+
+  public DiagramImportJob(final ActivitiDiagramEditor editor, final BpmnMemoryModel model, final IFile dataFile) {
+    super("Opening " + dataFile.getName());
+    this.editor = editor;
+    this.model = model;
+    this.dataFile = dataFile;
+    setPriority(Job.INTERACTIVE);
+  }
+
+  @Override
+  protected IStatus run(IProgressMonitor monitor) {
+    final SubMonitor progress = SubMonitor.convert(monitor, getName(), 100);
+    try {
+      progress.subTask("Reading " + dataFile.getName());
+      final BpmnModel bpmnModel = editor.readBpmnModel(dataFile);
+      progress.worked(20);
+
+      if (bpmnModel.getLocationMap().size() == 0 && !progress.isCanceled()) {
+        progress.subTask("Calculating layout");
+        BpmnAutoLayout layout = new BpmnAutoLayout(bpmnModel);
+        layout.execute();
+      }
+      progress.worked(10);
+
+      if (progress.isCanceled()) {
+        return finish(monitor, true);
+      }
+
+      final List<ImportBatch> batches = createBatches(bpmnModel);
+      final SubMonitor importProgress = progress.newChild(70);
+      importProgress.setWorkRemaining(batches.size() + 1);
+
+      runInUI(monitor, new ImportBatch("Preparing diagram") {
+
+        @Override
+        protected void draw(Diagram diagram) {
+          model.setBpmnModel(bpmnModel);
+          diagram.setActive(true);
+        }
+      });
+      importProgress.worked(1);
+
+      for (final ImportBatch batch : batches) {
+        if (monitor.isCanceled()) {
+          break;
+        }
+        importProgress.subTask(batch.label);
+        runInUI(monitor, batch);
+        importProgress.worked(1);
+      }
+
+      return finish(monitor, monitor.isCanceled());
+
+    } catch (Exception e) {
+      Logger.logError("Error opening " + dataFile.getName(), e);
+      finish(monitor, true);
+      return Logger.createStatus(IStatus.ERROR, IStatus.OK, "Error opening " + dataFile.getName(), e);
+
+    } finally {
+      monitor.done();
+    }
+  }
+
+  /**
+   * Splits the import in batches of at most {@link #BATCH_SIZE} elements. The order of the batches is the
+   * same as the order of the synchronous import in {@link ActivitiDiagramEditor}.
+   */
+  protected List<ImportBatch> createBatches(final BpmnModel bpmnModel) {
+    final List<ImportBatch> batches = new ArrayList<ImportBatch>();
+
+    batches.add(new ImportBatch("Drawing pools and lanes") {
+
+      @Override
+      protected void draw(Diagram diagram) {
+        editor.drawPoolsAndLanes(model, diagram);
+      }
+    });
+
+    for (final Process process : bpmnModel.getProcesses()) {
+      for (final List<FlowElement> elements : partition(process.getFlowElements())) {
+        batches.add(new ImportBatch("Drawing elements") {
+
+          @Override
+          protected void draw(Diagram diagram) {
+            final List<FlowElement> drawList = new ArrayList<FlowElement>(elements);
+            editor.drawFlowElements(drawList, model.getBpmnModel().getLocationMap(), diagram, process);
+
+            // elements without DI are dropped from the list that is drawn, drop them from the process as well
+            for (final FlowElement flowElement : elements) {
+              if (!drawList.contains(flowElement)) {
+                process.getFlowElements().remove(flowElement);
+                model.getModelIndex().invalidate();
+              }
+            }
+          }
+        });
+      }
+
+      batches.add(new ImportBatch("Drawing artifacts") {
+
+        @Override
+        protected void draw(Diagram diagram) {
+          editor.drawArtifacts(process, model.getBpmnModel().getLocationMap(), diagram, process);
+        }
+      });
+    }
+
+    final List<SequenceFlow> sequenceFlows = new ArrayList<SequenceFlow>();
+    final List<Association> associations = new ArrayList<Association>();
+    for (final Process process : bpmnModel.getProcesses()) {
+      collectConnections(process, sequenceFlows, associations);
+    }
+
+    for (final List<SequenceFlow> flows : partition(sequenceFlows)) {
+      batches.add(new ImportBatch("Drawing sequence flows") {
+
+        @Override
+        protected void draw(Diagram diagram) {
+          for (final SequenceFlow sequenceFlow : flows) {
+            editor.drawSequenceFlow(sequenceFlow, model);
+          }
+        }
+      });
+    }
+
+    for (final List<Association> associationList : partition(associations)) {
+      batches.add(new ImportBatch("Drawing associations") {
+
+        @Override
+        protected void draw(Diagram diagram) {
+          for (final Association association : associationList) {
+            editor.drawAssociation(association, model);
+          }
+        }
+      });
+    }
+
+    for (final List<MessageFlow> messageFlows : partition(bpmnModel.getMessageFlows().values())) {
+      batches.add(new ImportBatch("Drawing message flows") {
+
+        @Override
+        protected void draw(Diagram diagram) {
+          editor.drawMessageFlows(messageFlows, model);
+        }
+      });
+    }
+
+    return batches;
+  }
+
+  protected void collectConnections(final FlowElementsContainer container, final List<SequenceFlow> sequenceFlows,
+          final List<Association> associations) {
+
+    for (final FlowElement flowElement : container.getFlowElements()) {
+      if (flowElement instanceof SubProcess) {
+        collectConnections((SubProcess) flowElement, sequenceFlows, associations);
+      } else if (flowElement instanceof SequenceFlow) {
+        sequenceFlows.add((SequenceFlow) flowElement);
+      }
+    }
+    for (final Artifact artifact : container.getArtifacts()) {
+      if (artifact instanceof Association) {
+        associations.add((Association) artifact);
+      }
+    }
+  }
+
+  protected <T> List<List<T>> partition(final Collection<T> elements) {
+    final List<List<T>> result = new ArrayList<List<T>>();
+    List<T> current = null;
+    for (final T element : elements) {
+      if (current == null || current.size() == BATCH_SIZE) {
+        current = new ArrayList<T>(BATCH_SIZE);
+        result.add(current);
+      }
+      current.add(element);
+    }
+    return result;
+  }
+
+  /**
+   * Executes the batch as a recording command on the UI thread, unless the import was cancelled in the meantime.
+   */
+  protected void runInUI(final IProgressMonitor monitor, final ImportBatch batch) {
+    Display.getDefault().syncExec(new Runnable() {
+
+      @Override
+      public void run() {
+        if (monitor.isCanceled() || editor.getDiagramTypeProvider() == null) {
+          return;
+        }
+        final Diagram diagram = editor.getDiagramTypeProvider().getDiagram();
+        editor.getEditingDomain().getCommandStack().execute(new RecordingCommand(editor.getEditingDomain()) {
+
+          @Override
+          protected void doExecute() {
+            batch.draw(diagram);
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Marks the import as finished on the UI thread. When the diagram wasn't drawn completely, the editor is closed.
+   */
+  protected IStatus finish(final IProgressMonitor monitor, final boolean closeEditor) {
+    Display.getDefault().asyncExec(new Runnable() {
+
+      @Override
+      public void run() {
+        if (!editor.isImporting()) {
+          // the editor was disposed in the meantime
+          return;
+        }
+
+        if (editor.getEditingDomain() != null) {
+          BasicCommandStack basicCommandStack = (BasicCommandStack) editor.getEditingDomain().getCommandStack();
+          basicCommandStack.saveIsDone();
+          basicCommandStack.flush();
+        }
+        editor.importFinished(DiagramImportJob.this);
+
+        if (closeEditor) {
+          editor.getSite().getPage().closeEditor(editor, false);
+        }
+      }
+    });
+
+    if (monitor.isCanceled()) {
+      return Status.CANCEL_STATUS;
+    }
+    return Status.OK_STATUS;
+  }
+
+  /**
+   * A part of the import that is executed in a single recording command.
+   */
+  protected abstract static class ImportBatch {
+
+    protected String label;
+
+    public ImportBatch(final String label) {
+      this.label = label;
+    }
+
+    protected abstract void draw(Diagram diagram);
+  }
+}
@@ -0,0 +1,185 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.eclipse.editor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.graphiti.dt.IDiagramTypeProvider;
+import org.eclipse.graphiti.mm.pictograms.PictogramElement;
+import org.eclipse.graphiti.platform.IDiagramBehavior;
+import org.eclipse.graphiti.platform.IDiagramContainer;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Collects the pictogram elements that have to be updated after changes to the model and updates them together, once
+ * per run of the UI event loop. Elements that are changed by several transactions before the update runs are updated
+ * once. When more elements than the threshold are dirty, the whole diagram is refreshed instead, which is cheaper
+ * than updating the elements one by one. The diagram is refreshed as well when the editor doesn't update elements
+ * at runtime or isn't dirty, like the default listener of Graphiti does.
+ *
+ * Elements can be added from any thread, the update runs in the UI thread.
+ */
+public class DiagramRefreshScheduler {
+
+  /**
+   * The default number of dirty elements above which the whole diagram is refreshed.
+   */
+  public static final int DEFAULT_FULL_REFRESH_THRESHOLD = 50;
+
+  private final IDiagramTypeProvider provider;
+  private final int fullRefreshThreshold;
+
+  private final Set<PictogramElement> dirtyElements = new LinkedHashSet<PictogramElement>();
+  private boolean flushScheduled;
+
+  private long flushCount;
+  private long updatedElementCount;
+  private long fullRefreshCount;
+
+  private final Runnable flushRunnable = new Runnable() {
+
+    @Override
+    public void run() {
+      flush();
+    }
+  };
+
+  public DiagramRefreshScheduler(final IDiagramTypeProvider provider) {
+    this(provider, DEFAULT_FULL_REFRESH_THRESHOLD);
+  }
+
+  public DiagramRefreshScheduler(final IDiagramTypeProvider provider, final int fullRefreshThreshold) {
+    this.provider = provider;
+    this.fullRefreshThreshold = fullRefreshThreshold;
+  }
+
+  /**
+   * Marks the elements as dirty and schedules an update in the UI thread, unless one is scheduled already.
+   */
+  public void schedule(final PictogramElement[] pictogramElements) {
+    if (pictogramElements == null || pictogramElements.length == 0) {
+      return;
+    }
+
+    boolean scheduleFlush = false;
+    synchronized (dirtyElements) {
+      for (final PictogramElement pictogramElement : pictogramElements) {
+        dirtyElements.add(pictogramElement);
+      }
+      if (!flushScheduled) {
+        flushScheduled = true;
+        scheduleFlush = true;
+      }
+    }
+
+    if (scheduleFlush) {
+      Display.getDefault().asyncExec(flushRunnable);
+    }
+  }
+
+  /**
+   * Updates the dirty elements, or refreshes the whole diagram if there are more than the threshold. Called in the UI
+   * thread.
+   */
+  public void flush() {
+    final List<PictogramElement> elements;
+    synchronized (dirtyElements) {
+      flushScheduled = false;
+      if (dirtyElements.isEmpty()) {
+        return;
+      }
+      elements = new ArrayList<PictogramElement>(dirtyElements.size());
+      for (final PictogramElement pictogramElement : dirtyElements) {
+        // elements that were deleted after they were marked don't need an update
+        if (pictogramElement.eResource() != null) {
+          elements.add(pictogramElement);
+        }
+      }
+      dirtyElements.clear();
+    }
+
+    final IDiagramBehavior diagramBehavior = provider.getDiagramBehavior();
+    if (diagramBehavior == null || elements.isEmpty()) {
+      // the editor was closed in the mean time, or all elements were deleted
+      return;
+    }
+
+    final IDiagramContainer diagramContainer = diagramBehavior.getDiagramContainer();
+    if (provider.isAutoUpdateAtRuntime() && diagramContainer.isDirty() && elements.size() <= fullRefreshThreshold) {
+      provider.getNotificationService().updatePictogramElements(elements.toArray(new PictogramElement[elements.size()]));
+      synchronized (dirtyElements) {
+        flushCount++;
+        updatedElementCount += elements.size();
+      }
+    } else {
+      diagramBehavior.refresh();
+      synchronized (dirtyElements) {
+        flushCount++;
+        fullRefreshCount++;
+      }
+    }
+  }
+
+  /**
+   * Forgets the dirty elements, used when the editor is closed.
+   */
+  public void clear() {
+    synchronized (dirtyElements) {
+      dirtyElements.clear();
+    }
+  }
+
+  public int getFullRefreshThreshold() {
+    return fullRefreshThreshold;
+  }
+
+  /**
+   * @return the number of dirty elements waiting for the next update
+   */
+  public int getDirtyElementCount() {
+    synchronized (dirtyElements) {
+      return dirtyElements.size();
+    }
+  }
+
+  /**
+   * @return the number of times dirty elements were updated or the diagram was refreshed
+   */
+  public long getFlushCount() {
+    synchronized (dirtyElements) {
+      return flushCount;
+    }
+  }
+
+  /**
+   * @return the number of elements that were updated one by one
+   */
+  public long getUpdatedElementCount() {
+    synchronized (dirtyElements) {
+      return updatedElementCount;
+    }
+  }
+
+  /**
+   * @return the number of times the whole diagram was refreshed
+   */
+  public long getFullRefreshCount() {
+    synchronized (dirtyElements) {
+      return fullRefreshCount;
+    }
+  }
+}
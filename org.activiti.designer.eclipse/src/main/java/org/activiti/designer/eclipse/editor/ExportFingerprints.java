@@ -0,0 +1,337 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.eclipse.editor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.activiti.bpmn.model.Activity;
+import org.activiti.bpmn.model.Artifact;
+import org.activiti.bpmn.model.Association;
+import org.activiti.bpmn.model.BoundaryEvent;
+import org.activiti.bpmn.model.BpmnModel;
+import org.activiti.bpmn.model.Event;
+import org.activiti.bpmn.model.EventDefinition;
+import org.activiti.bpmn.model.FlowElement;
+import org.activiti.bpmn.model.Gateway;
+import org.activiti.bpmn.model.GraphicInfo;
+import org.activiti.bpmn.model.Lane;
+import org.activiti.bpmn.model.MessageFlow;
+import org.activiti.bpmn.model.Pool;
+import org.activiti.bpmn.model.Process;
+import org.activiti.bpmn.model.SequenceFlow;
+import org.activiti.bpmn.model.ServiceTask;
+import org.activiti.bpmn.model.SubProcess;
+import org.activiti.bpmn.model.TextAnnotation;
+import org.activiti.designer.eclipse.Logger;
+import org.activiti.designer.eclipse.common.ActivitiPlugin;
+import org.activiti.designer.eclipse.extension.export.ExportMarshaller;
+import org.activiti.designer.eclipse.extension.export.MarshallerUtil;
+import org.activiti.designer.eclipse.util.FileService;
+import org.activiti.designer.util.preferences.PreferencesUtil;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.InstanceScope;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.service.prefs.BackingStoreException;
+
+/**
+ * Fingerprints of the input of the output that was exported for a diagram, so output of which the input
+ * didn't change since the last export can be skipped. The fingerprints are stored next to the temporary
+ * diagram file, in the folder provided by {@link FileService#getOrCreateTempFolder}.
+ *
+ * The fingerprint of an image covers everything the image shows: the elements and their names, markers and
+ * DI. The fingerprint of an export marshaller covers the saved XML, as a marshaller can use any part of the
+ * model, and the preferences of the marshaller. Next to it the files the marshaller saved are stored, so the
+ * marshaller runs again when its output was removed.
+ */
+public class ExportFingerprints {
+
+  public static final String IMAGE_KEY = "image";
+  public static final String LANGUAGE_IMAGE_KEY_PREFIX = "image.";
+  public static final String MARSHALLER_KEY_PREFIX = "marshaller.";
+
+  protected static final String OUTPUT_KEY_SUFFIX = ".output";
+
+  protected static final String FILE_EXTENSION = "fingerprints";
+
+  protected File storeFile;
+  protected Properties fingerprints = new Properties();
+
+  public ExportFingerprints(final IFile dataFile) {
+    try {
+      final IFolder tempFolder = FileService.getOrCreateTempFolder(dataFile.getFullPath());
+      storeFile = tempFolder.getFile(dataFile.getFullPath().removeFileExtension().addFileExtension(FILE_EXTENSION)
+              .lastSegment()).getLocation().toFile();
+      load();
+    } catch (CoreException e) {
+      Logger.logError("Unable to determine the fingerprint file of " + dataFile.getName(), e);
+    }
+  }
+
+  /**
+   * @return true, when the given fingerprint is the one that was stored for the output with the given key
+   */
+  public synchronized boolean isUnchanged(final String key, final String fingerprint) {
+    return fingerprint != null && fingerprint.equals(fingerprints.getProperty(key));
+  }
+
+  /**
+   * Stores the fingerprint of the input of the output with the given key, after the output has been written.
+   */
+  public synchronized void update(final String key, final String fingerprint) {
+    if (fingerprint == null) {
+      fingerprints.remove(key);
+    } else {
+      fingerprints.setProperty(key, fingerprint);
+    }
+  }
+
+  /**
+   * Stores the files written for the output with the given key.
+   *
+   * @param files the files, or null if the output wasn't written
+   */
+  public synchronized void updateOutput(final String key, final Collection<IFile> files) {
+    if (files == null) {
+      fingerprints.remove(key + OUTPUT_KEY_SUFFIX);
+    } else {
+      final StringBuilder builder = new StringBuilder();
+      for (final IFile file : files) {
+        builder.append(file.getFullPath().toString()).append('\n');
+      }
+      fingerprints.setProperty(key + OUTPUT_KEY_SUFFIX, builder.toString());
+    }
+  }
+
+  /**
+   * @return true, when files were stored for the output with the given key and all of them still exist. The
+   *         output of a marshaller that didn't save its files through its context can't be checked, so it's
+   *         never present.
+   */
+  public synchronized boolean isOutputPresent(final String key) {
+    final String output = fingerprints.getProperty(key + OUTPUT_KEY_SUFFIX);
+    if (output == null || output.length() == 0) {
+      return false;
+    }
+    final IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+    for (final String path : output.split("\n")) {
+      final IPath location = root.getFile(new Path(path)).getLocation();
+      if (location == null || !location.toFile().isFile()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  protected synchronized void load() {
+    if (storeFile == null || !storeFile.exists()) {
+      return;
+    }
+    InputStream inputStream = null;
+    try {
+      inputStream = new FileInputStream(storeFile);
+      fingerprints.load(inputStream);
+    } catch (Exception e) {
+      // an unreadable file only means all output is regenerated
+      fingerprints.clear();
+    } finally {
+      IOUtils.closeQuietly(inputStream);
+    }
+  }
+
+  public synchronized void save() {
+    if (storeFile == null) {
+      return;
+    }
+    try {
+      final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      fingerprints.store(outputStream, null);
+      FileService.writeAtomically(storeFile, outputStream.toByteArray());
+    } catch (Exception e) {
+      Logger.logError("Unable to save the export fingerprints " + storeFile.getName(), e);
+    }
+  }
+
+  public static String createFingerprint(final byte[] content) {
+    return DigestUtils.sha256Hex(content);
+  }
+
+  /**
+   * Creates the fingerprint of the input of an export marshaller: the saved XML, the enablement and options of
+   * the marshaller in the designer preferences, and the preferences of the bundle that contributes it.
+   */
+  public static String createMarshallerFingerprint(final String xmlFingerprint, final ExportMarshaller marshaller) {
+    final StringBuilder builder = new StringBuilder();
+    final String preferenceId = MarshallerUtil.getPreferenceId(marshaller);
+    append(builder, xmlFingerprint, marshaller.getMarshallerName(),
+            String.valueOf(PreferencesUtil.getBooleanPreference(preferenceId, ActivitiPlugin.getDefault())));
+
+    final String designerBundle = ActivitiPlugin.getDefault().getBundle().getSymbolicName();
+    appendPreferences(builder, designerBundle, preferenceId);
+
+    final Bundle marshallerBundle = FrameworkUtil.getBundle(marshaller.getClass());
+    if (marshallerBundle != null && !designerBundle.equals(marshallerBundle.getSymbolicName())) {
+      appendPreferences(builder, marshallerBundle.getSymbolicName(), "");
+    }
+
+    return DigestUtils.sha256Hex(builder.toString());
+  }
+
+  protected static void appendPreferences(final StringBuilder builder, final String bundleName, final String keyPrefix) {
+    final IEclipsePreferences preferences = InstanceScope.INSTANCE.getNode(bundleName);
+    try {
+      final String[] keys = preferences.keys();
+      Arrays.sort(keys);
+      for (final String key : keys) {
+        if (key.startsWith(keyPrefix)) {
+          append(builder, key, preferences.get(key, null));
+        }
+      }
+    } catch (BackingStoreException e) {
+      // unknown preferences make the fingerprint differ from the stored one, so the marshaller runs
+      append(builder, String.valueOf(System.nanoTime()));
+    }
+  }
+
+  /**
+   * Creates the fingerprint of everything that is visible in an image of the model.
+   *
+   * @param language the language of the names of the flow elements, or null for their own names
+   */
+  public static String createVisualFingerprint(final BpmnModel bpmnModel, final String language) {
+    final StringBuilder builder = new StringBuilder();
+
+    for (final Pool pool : bpmnModel.getPools()) {
+      append(builder, "pool", pool.getId(), pool.getName(), pool.getProcessRef());
+    }
+    for (final Process process : bpmnModel.getProcesses()) {
+      append(builder, "process", process.getId(), process.getName());
+      for (final Lane lane : process.getLanes()) {
+        append(builder, "lane", lane.getId(), lane.getName());
+      }
+      appendFlowElements(builder, process.getFlowElements(), language);
+      appendArtifacts(builder, process.getArtifacts());
+    }
+    for (final MessageFlow messageFlow : bpmnModel.getMessageFlows().values()) {
+      append(builder, "messageFlow", messageFlow.getId(), messageFlow.getName(), messageFlow.getSourceRef(),
+              messageFlow.getTargetRef());
+    }
+
+    for (final Entry<String, GraphicInfo> entry : new TreeMap<String, GraphicInfo>(bpmnModel.getLocationMap()).entrySet()) {
+      append(builder, "shape", entry.getKey());
+      appendGraphicInfo(builder, entry.getValue());
+    }
+    for (final Entry<String, List<GraphicInfo>> entry : new TreeMap<String, List<GraphicInfo>>(bpmnModel.getFlowLocationMap()).entrySet()) {
+      append(builder, "edge", entry.getKey());
+      for (final GraphicInfo graphicInfo : entry.getValue()) {
+        appendGraphicInfo(builder, graphicInfo);
+      }
+    }
+    for (final Entry<String, GraphicInfo> entry : new TreeMap<String, GraphicInfo>(bpmnModel.getLabelLocationMap()).entrySet()) {
+      append(builder, "label", entry.getKey());
+      appendGraphicInfo(builder, entry.getValue());
+    }
+
+    return DigestUtils.sha256Hex(builder.toString());
+  }
+
+  protected static void appendFlowElements(final StringBuilder builder, final Collection<FlowElement> flowElements,
+          final String language) {
+
+    for (final FlowElement flowElement : flowElements) {
+      String name = flowElement.getName();
+      if (language != null) {
+        final String localizedName = DiagramExportJob.getLocalizedName(flowElement, language);
+        if (localizedName != null) {
+          name = localizedName;
+        }
+      }
+      append(builder, flowElement.getClass().getSimpleName(), flowElement.getId(), name);
+
+      if (flowElement instanceof Event) {
+        for (final EventDefinition eventDefinition : ((Event) flowElement).getEventDefinitions()) {
+          append(builder, eventDefinition.getClass().getSimpleName());
+        }
+      }
+      if (flowElement instanceof BoundaryEvent) {
+        append(builder, String.valueOf(((BoundaryEvent) flowElement).isCancelActivity()));
+      }
+      if (flowElement instanceof ServiceTask) {
+        append(builder, ((ServiceTask) flowElement).getType());
+      }
+      if (flowElement instanceof Activity) {
+        final Activity activity = (Activity) flowElement;
+        append(builder, activity.getDefaultFlow());
+        if (activity.getLoopCharacteristics() != null) {
+          append(builder, "loop", String.valueOf(activity.getLoopCharacteristics().isSequential()));
+        }
+      }
+      if (flowElement instanceof Gateway) {
+        append(builder, ((Gateway) flowElement).getDefaultFlow());
+      }
+      if (flowElement instanceof SequenceFlow) {
+        final SequenceFlow sequenceFlow = (SequenceFlow) flowElement;
+        append(builder, sequenceFlow.getSourceRef(), sequenceFlow.getTargetRef(),
+                String.valueOf(sequenceFlow.getConditionExpression() != null));
+      }
+      if (flowElement instanceof SubProcess) {
+        appendFlowElements(builder, ((SubProcess) flowElement).getFlowElements(), language);
+        appendArtifacts(builder, ((SubProcess) flowElement).getArtifacts());
+      }
+    }
+  }
+
+  protected static void appendArtifacts(final StringBuilder builder, final Collection<Artifact> artifacts) {
+    for (final Artifact artifact : artifacts) {
+      append(builder, artifact.getClass().getSimpleName(), artifact.getId());
+      if (artifact instanceof TextAnnotation) {
+        append(builder, ((TextAnnotation) artifact).getText());
+      } else if (artifact instanceof Association) {
+        final Association association = (Association) artifact;
+        append(builder, association.getSourceRef(), association.getTargetRef(), String.valueOf(association.getAssociationDirection()));
+      }
+    }
+  }
+
+  protected static void appendGraphicInfo(final StringBuilder builder, final GraphicInfo graphicInfo) {
+    append(builder, String.valueOf(graphicInfo.getX()), String.valueOf(graphicInfo.getY()),
+            String.valueOf(graphicInfo.getWidth()), String.valueOf(graphicInfo.getHeight()),
+            String.valueOf(graphicInfo.getExpanded()));
+  }
+
+  protected static void append(final StringBuilder builder, final String... values) {
+    for (final String value : values) {
+      builder.append(value).append('|');
+    }
+    builder.append('\n');
+  }
+}
@@ -15,13 +15,19 @@ package org.activiti.designer.eclipse.editor;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.activiti.bpmn.model.Activity;
 import org.activiti.bpmn.model.Artifact;
 import org.activiti.bpmn.model.Association;
 import org.activiti.bpmn.model.BaseElement;
 import org.activiti.bpmn.model.BoundaryEvent;
+import org.activiti.bpmn.model.BpmnModel;
 import org.activiti.bpmn.model.DataObject;
 import org.activiti.bpmn.model.FlowElement;
 import org.activiti.bpmn.model.GraphicInfo;
@@ -37,7 +43,11 @@ import org.eclipse.emf.common.util.EList;
 import org.eclipse.graphiti.datatypes.ILocation;
 import org.eclipse.graphiti.features.IFeatureProvider;
 import org.eclipse.graphiti.mm.algorithms.GraphicsAlgorithm;
+import org.eclipse.graphiti.mm.pictograms.Anchor;
+import org.eclipse.graphiti.mm.pictograms.AnchorContainer;
+import org.eclipse.graphiti.mm.pictograms.Connection;
 import org.eclipse.graphiti.mm.pictograms.ConnectionDecorator;
+import org.eclipse.graphiti.mm.pictograms.ContainerShape;
 import org.eclipse.graphiti.mm.pictograms.Diagram;
 import org.eclipse.graphiti.mm.pictograms.FreeFormConnection;
 import org.eclipse.graphiti.mm.pictograms.PictogramElement;
@@ -49,6 +59,7 @@ public class GraphitiToBpmnDI {
   
   protected BpmnMemoryModel model;
   protected IFeatureProvider featureProvider;
+  protected boolean coordinatesShifted;
   
   public GraphitiToBpmnDI(BpmnMemoryModel model, IFeatureProvider featureProvider) {
     this.model = model;
@@ -56,6 +67,7 @@ public class GraphitiToBpmnDI {
   }
 
   public void processGraphitiElements() throws Exception {
+    coordinatesShifted = false;
     model.getBpmnModel().getFlowLocationMap().clear();
     model.getBpmnModel().getLocationMap().clear();
     model.getBpmnModel().getLabelLocationMap().clear();
@@ -81,6 +93,9 @@ public class GraphitiToBpmnDI {
             process.getLanes().remove(toDeleteLane);
             model.getBpmnModel().removeGraphicInfo(toDeleteLane.getId());
           }
+          if (!toDeleteLaneList.isEmpty()) {
+            model.getModelIndex().invalidate();
+          }
         }
       } else {
         toDeletePoolList.add(pool);
@@ -114,6 +129,7 @@ public class GraphitiToBpmnDI {
     }
     
     if (minX < 0 || minY < 0) {
+      coordinatesShifted = true;
       double changeX = 0.0;
       if (minX < 0.0) {
         changeX = 0.0 - minX + 1;
@@ -154,6 +170,201 @@ public class GraphitiToBpmnDI {
     }
   }
   
+  /**
+   * Synchronizes only the DI of the elements recorded by the change tracker, instead of rebuilding all DI.
+   * Next to the changed elements themselves, the nested elements of moved containers and the connections
+   * attached to moved shapes are synchronized, as their absolute coordinates changed as well.
+   * 
+   * @return false when the changes can't be synchronized incrementally, in which case the DI is possibly
+   *         partially updated and {@link #processGraphitiElements()} must be used instead.
+   */
+  public boolean processChangedElements(DiagramChangeTracker changeTracker) throws Exception {
+    if (changeTracker.isFullRebuildRequired()) {
+      return false;
+    }
+    
+    // an updated element that already existed but has no DI under its current id was given a new id,
+    // the DI stored under the old id can only be removed by a full rebuild
+    for (Object updatedObject : changeTracker.getUpdatedBusinessObjects()) {
+      if (updatedObject instanceof BaseElement && changeTracker.getAddedBusinessObjects().contains(updatedObject) == false
+              && featureProvider.getPictogramElementForBusinessObject(updatedObject) != null
+              && hasGraphicInfo(((BaseElement) updatedObject).getId()) == false) {
+        
+        return false;
+      }
+    }
+    
+    Set<BaseElement> elementsToUpdate = new LinkedHashSet<BaseElement>();
+    
+    for (Object removedObject : changeTracker.getRemovedBusinessObjects()) {
+      if (removedObject instanceof BaseElement == false) {
+        continue;
+      }
+      BaseElement removedElement = (BaseElement) removedObject;
+      if (featureProvider.getPictogramElementForBusinessObject(removedElement) != null) {
+        // drawn again, for instance by an undo
+        elementsToUpdate.add(removedElement);
+      } else if (isRemovedByRebuild(removedElement)) {
+        return false;
+      } else {
+        removeGraphicInfo(removedElement.getId());
+      }
+    }
+    
+    for (PictogramElement changedElement : changeTracker.getChangedElements()) {
+      if (changedElement.eResource() != null) {
+        collectAffectedElements(changedElement, elementsToUpdate);
+      }
+    }
+    
+    for (BaseElement element : elementsToUpdate) {
+      if (StringUtils.isEmpty(element.getId())) {
+        continue;
+      }
+      removeGraphicInfo(element.getId());
+      updateElement(element);
+      
+      // negative coordinates require all DI to be moved
+      if (hasNegativeCoordinates(element.getId())) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
+  /**
+   * Rebuilds all DI and compares it with the DI that was present before, for instance right after
+   * {@link #processChangedElements(DiagramChangeTracker)}.
+   * 
+   * @return the ids of the elements of which the DI differs from the rebuilt DI
+   */
+  public Set<String> checkConsistency() throws Exception {
+    BpmnModel bpmnModel = model.getBpmnModel();
+    Map<String, GraphicInfo> previousLocationMap = new HashMap<String, GraphicInfo>(bpmnModel.getLocationMap());
+    Map<String, List<GraphicInfo>> previousFlowLocationMap = new HashMap<String, List<GraphicInfo>>(bpmnModel.getFlowLocationMap());
+    Map<String, GraphicInfo> previousLabelLocationMap = new HashMap<String, GraphicInfo>(bpmnModel.getLabelLocationMap());
+    
+    processGraphitiElements();
+    
+    Set<String> differences = new TreeSet<String>();
+    compareGraphicInfo(previousLocationMap, bpmnModel.getLocationMap(), differences);
+    compareGraphicInfo(previousLabelLocationMap, bpmnModel.getLabelLocationMap(), differences);
+    
+    Set<String> flowIds = new TreeSet<String>(previousFlowLocationMap.keySet());
+    flowIds.addAll(bpmnModel.getFlowLocationMap().keySet());
+    for (String flowId : flowIds) {
+      List<GraphicInfo> previousList = previousFlowLocationMap.get(flowId);
+      List<GraphicInfo> rebuiltList = bpmnModel.getFlowLocationMap().get(flowId);
+      if (previousList == null || rebuiltList == null || previousList.size() != rebuiltList.size()) {
+        differences.add(flowId);
+        continue;
+      }
+      for (int i = 0; i < previousList.size(); i++) {
+        if (isSameGraphicInfo(previousList.get(i), rebuiltList.get(i)) == false) {
+          differences.add(flowId);
+          break;
+        }
+      }
+    }
+    return differences;
+  }
+  
+  public boolean isCoordinatesShifted() {
+    return coordinatesShifted;
+  }
+  
+  protected void collectAffectedElements(PictogramElement pictElement, Set<BaseElement> elementList) {
+    for (Object businessObject : featureProvider.getAllBusinessObjectsForPictogramElement(pictElement)) {
+      if (businessObject instanceof BaseElement) {
+        elementList.add((BaseElement) businessObject);
+      }
+    }
+    
+    if (pictElement instanceof AnchorContainer) {
+      for (Anchor anchor : ((AnchorContainer) pictElement).getAnchors()) {
+        for (Connection connection : anchor.getIncomingConnections()) {
+          collectAffectedElements(connection, elementList);
+        }
+        for (Connection connection : anchor.getOutgoingConnections()) {
+          collectAffectedElements(connection, elementList);
+        }
+      }
+    }
+    
+    if (pictElement instanceof ContainerShape) {
+      for (Shape childShape : ((ContainerShape) pictElement).getChildren()) {
+        collectAffectedElements(childShape, elementList);
+      }
+    }
+  }
+  
+  protected void updateElement(BaseElement element) {
+    if (element instanceof SequenceFlow) {
+      updateSequenceFlow((SequenceFlow) element);
+    } else if (element instanceof MessageFlow) {
+      updateMessageFlow((MessageFlow) element);
+    } else if (element instanceof Association) {
+      updateAssociation((Association) element);
+    } else if (element instanceof FlowElement || element instanceof Artifact || element instanceof Pool || element instanceof Lane) {
+      updateFlowElement(element);
+    }
+  }
+  
+  /**
+   * @return true when a full rebuild would remove the given element, which lost its pictogram, from the model
+   */
+  protected boolean isRemovedByRebuild(BaseElement element) {
+    BpmnModel bpmnModel = model.getBpmnModel();
+    if (element instanceof Pool) {
+      return bpmnModel.getPools().contains(element);
+    } else if (element instanceof Lane) {
+      for (Process process : bpmnModel.getProcesses()) {
+        if (process.getLanes().contains(element)) {
+          return true;
+        }
+      }
+    } else if (element instanceof FlowElement && element instanceof DataObject == false) {
+      return bpmnModel.getFlowElement(element.getId()) == element;
+    }
+    return false;
+  }
+  
+  protected boolean hasGraphicInfo(String id) {
+    return model.getBpmnModel().getLocationMap().containsKey(id) || model.getBpmnModel().getFlowLocationMap().containsKey(id);
+  }
+  
+  protected boolean hasNegativeCoordinates(String id) {
+    BpmnModel bpmnModel = model.getBpmnModel();
+    GraphicInfo graphicInfo = bpmnModel.getGraphicInfo(id);
+    if (graphicInfo != null && (graphicInfo.getX() < 0 || graphicInfo.getY() < 0)) {
+      return true;
+    }
+    return false;
+  }
+  
+  protected void removeGraphicInfo(String id) {
+    model.getBpmnModel().removeGraphicInfo(id);
+    model.getBpmnModel().removeFlowGraphicInfoList(id);
+    model.getBpmnModel().removeLabelGraphicInfo(id);
+  }
+  
+  protected void compareGraphicInfo(Map<String, GraphicInfo> previousMap, Map<String, GraphicInfo> rebuiltMap, Set<String> differences) {
+    Set<String> ids = new TreeSet<String>(previousMap.keySet());
+    ids.addAll(rebuiltMap.keySet());
+    for (String id : ids) {
+      GraphicInfo previous = previousMap.get(id);
+      GraphicInfo rebuilt = rebuiltMap.get(id);
+      if (previous == null || rebuilt == null || isSameGraphicInfo(previous, rebuilt) == false) {
+        differences.add(id);
+      }
+    }
+  }
+  
+  protected boolean isSameGraphicInfo(GraphicInfo first, GraphicInfo second) {
+    return first.getX() == second.getX() && first.getY() == second.getY() 
+            && first.getWidth() == second.getWidth() && first.getHeight() == second.getHeight();
+  }
+  
   protected void loopThroughElements(Collection<? extends BaseElement> elementList, BaseElement parentElement) throws Exception {
     
     List<BaseElement> toDeleteElementList = new ArrayList<BaseElement>();
@@ -211,6 +422,7 @@ public class GraphitiToBpmnDI {
           model.getBpmnModel().removeLabelGraphicInfo(toDeleteElement.getId());
         }
       }
+      model.getModelIndex().invalidate();
     }
   }
   
@@ -29,7 +29,12 @@ package org.activiti.designer.eclipse.extension;
 import java.io.InputStream;
 import java.net.URI;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.activiti.designer.eclipse.extension.export.ExportMarshaller;
 import org.eclipse.core.resources.IContainer;
@@ -38,6 +43,7 @@ import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -246,6 +252,9 @@ public abstract class AbstractDiagramWorker {
         file.create(content, true, new SubProgressMonitor(monitor, 5));
       }
       file.refreshLocal(IResource.DEPTH_INFINITE, null);
+      if (diagramWorkerContext instanceof ResourceSaveListener) {
+        ((ResourceSaveListener) diagramWorkerContext).resourceSaved(file);
+      }
       monitor.worked(3);
     } catch (final CoreException e) {
       e.printStackTrace();
@@ -290,25 +299,106 @@ public abstract class AbstractDiagramWorker {
   }
 
   private void addMarkerToDiagram(final String message, final String nodeId, final int severity) {
+    try {
+      createMarker(getDiagramResource(), new DiagramMarker(message, nodeId, severity));
+    } catch (CoreException e) {
+      e.printStackTrace();
+    }
+
+  }
+
+  private void createMarker(final IResource resource, final DiagramMarker marker) throws CoreException {
+    final IMarker m = resource.createMarker(getMarkerId());
+    // all attributes at once, so there is one change of the marker instead of one per attribute
+    if (marker.getNodeId() != null) {
+      m.setAttributes(new String[] { ATTRIBUTE_NODE_ID, ATTRIBUTE_WORKER_ID, IMarker.MESSAGE, IMarker.PRIORITY, IMarker.SEVERITY }, new Object[] {
+          marker.getNodeId(), this.getClass().getCanonicalName(), marker.getMessage(), IMarker.PRIORITY_HIGH, marker.getSeverity() });
+    } else {
+      m.setAttributes(new String[] { ATTRIBUTE_WORKER_ID, IMarker.MESSAGE, IMarker.PRIORITY, IMarker.SEVERITY }, new Object[] {
+          this.getClass().getCanonicalName(), marker.getMessage(), IMarker.PRIORITY_HIGH, marker.getSeverity() });
+    }
+  }
+
+  /**
+   * Updates the markers of this diagram worker on the diagram to the provided
+   * markers. Markers that are on the diagram already are kept, markers that
+   * aren't provided anymore are deleted and the others are created. Markers
+   * are matched by node id, severity and message, the message includes the
+   * code of the finding.
+   * 
+   * <p>
+   * The markers are updated in a single workspace operation, so listeners
+   * like the Problems view get a single resource change event.
+   * 
+   * @param markers
+   *          the markers the diagram should have
+   */
+  protected void updateMarkers(final Collection<DiagramMarker> markers) {
     final IResource resource = getDiagramResource();
-    String markerId = getMarkerId();
+    runMarkerOperation(resource, new IWorkspaceRunnable() {
+
+      @Override
+      public void run(final IProgressMonitor monitor) throws CoreException {
+        final Map<String, List<IMarker>> existingMarkers = new HashMap<String, List<IMarker>>();
+        for (final IMarker existingMarker : findWorkerMarkers(resource)) {
+          final String key = getMarkerKey(existingMarker.getAttribute(ATTRIBUTE_NODE_ID, null), existingMarker.getAttribute(IMarker.SEVERITY, -1),
+                  existingMarker.getAttribute(IMarker.MESSAGE, null));
+          List<IMarker> keyMarkers = existingMarkers.get(key);
+          if (keyMarkers == null) {
+            keyMarkers = new ArrayList<IMarker>();
+            existingMarkers.put(key, keyMarkers);
+          }
+          keyMarkers.add(existingMarker);
+        }
 
-    IMarker m;
-    try {
-      m = resource.createMarker(markerId);
-      if (nodeId != null) {
-        m.setAttribute(ATTRIBUTE_NODE_ID, nodeId);
+        for (final DiagramMarker marker : markers) {
+          final List<IMarker> keyMarkers = existingMarkers.get(getMarkerKey(marker.getNodeId(), marker.getSeverity(), marker.getMessage()));
+          if (keyMarkers != null && !keyMarkers.isEmpty()) {
+            // the marker is there already
+            keyMarkers.remove(keyMarkers.size() - 1);
+          } else {
+            createMarker(resource, marker);
+          }
+        }
+
+        final List<IMarker> staleMarkers = new ArrayList<IMarker>();
+        for (final List<IMarker> keyMarkers : existingMarkers.values()) {
+          staleMarkers.addAll(keyMarkers);
+        }
+        if (!staleMarkers.isEmpty()) {
+          resource.getWorkspace().deleteMarkers(staleMarkers.toArray(new IMarker[staleMarkers.size()]));
+        }
       }
+    });
+  }
+
+  private String getMarkerKey(final String nodeId, final int severity, final String message) {
+    return nodeId + "|" + severity + "|" + message;
+  }
 
-      m.setAttribute(ATTRIBUTE_WORKER_ID, this.getClass().getCanonicalName());
+  private List<IMarker> findWorkerMarkers(final IResource resource) throws CoreException {
+    final List<IMarker> result = new ArrayList<IMarker>();
+    final String workerId = this.getClass().getCanonicalName();
+    for (final IMarker marker : resource.findMarkers(getMarkerId(), true, IResource.DEPTH_INFINITE)) {
+      if (workerId.equals(marker.getAttribute(ATTRIBUTE_WORKER_ID, null))) {
+        result.add(marker);
+      }
+    }
+    return result;
+  }
 
-      m.setAttribute(IMarker.MESSAGE, message);
-      m.setAttribute(IMarker.PRIORITY, IMarker.PRIORITY_HIGH);
-      m.setAttribute(IMarker.SEVERITY, severity);
+  /**
+   * Runs the operation on the markers of the resource as one workspace
+   * operation. Markers don't need a scheduling rule, so this doesn't block
+   * and can run in any job.
+   */
+  private void runMarkerOperation(final IResource resource, final IWorkspaceRunnable operation) {
+    final IWorkspace workspace = resource.getWorkspace();
+    try {
+      workspace.run(operation, workspace.getRuleFactory().markerRule(resource), IWorkspace.AVOID_UPDATE, null);
     } catch (CoreException e) {
       e.printStackTrace();
     }
-
   }
 
   /**
@@ -339,16 +429,16 @@ public abstract class AbstractDiagramWorker {
    * diagram worker as defined by {@link #getMarkerId()}.
    */
   protected void clearMarkers(final IResource resource) {
-    try {
-      final IMarker[] markers = resource.findMarkers(getMarkerId(), true, IResource.DEPTH_INFINITE);
-      for (final IMarker marker : markers) {
-        if (marker.getAttribute(ATTRIBUTE_WORKER_ID).equals(this.getClass().getCanonicalName())) {
-          marker.delete();
+    runMarkerOperation(resource, new IWorkspaceRunnable() {
+
+      @Override
+      public void run(final IProgressMonitor monitor) throws CoreException {
+        final List<IMarker> markers = findWorkerMarkers(resource);
+        if (!markers.isEmpty()) {
+          resource.getWorkspace().deleteMarkers(markers.toArray(new IMarker[markers.size()]));
         }
       }
-    } catch (CoreException e) {
-      e.printStackTrace();
-    }
+    });
   }
 
   /**
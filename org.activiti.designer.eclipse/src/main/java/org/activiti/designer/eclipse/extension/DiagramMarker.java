@@ -0,0 +1,59 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.designer.eclipse.extension;
+
+import org.eclipse.core.resources.IMarker;
+
+/**
+ * A marker a diagram worker wants on the diagram, see
+ * {@link AbstractDiagramWorker#updateMarkers(java.util.Collection)}.
+ */
+public class DiagramMarker {
+
+  private final String message;
+  private final String nodeId;
+  private final int severity;
+
+  /**
+   * @param message
+   *          the message of the marker, including the code of the finding if
+   *          there is one
+   * @param nodeId
+   *          the id of the node the marker is for, or null for the diagram
+   * @param severity
+   *          one of the {@link IMarker} severities
+   */
+  public DiagramMarker(final String message, final String nodeId, final int severity) {
+    this.message = message;
+    this.nodeId = nodeId;
+    this.severity = severity;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  public int getSeverity() {
+    return severity;
+  }
+
+  @Override
+  public String toString() {
+    return "[" + severity + "] " + nodeId + ": " + message;
+  }
+}
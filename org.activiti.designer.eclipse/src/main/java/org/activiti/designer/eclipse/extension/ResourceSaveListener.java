@@ -0,0 +1,29 @@
+/* Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.activiti.designer.eclipse.extension;
+
+import org.eclipse.core.resources.IFile;
+
+/**
+ * Implemented by a {@link DiagramWorkerContext} that wants to know which
+ * resources the worker saved through
+ * {@link AbstractDiagramWorker#saveResource(java.net.URI, java.io.InputStream, org.eclipse.core.runtime.IProgressMonitor)}.
+ */
+public interface ResourceSaveListener {
+
+  /**
+   * Called after the worker saved the file.
+   */
+  void resourceSaved(IFile file);
+}
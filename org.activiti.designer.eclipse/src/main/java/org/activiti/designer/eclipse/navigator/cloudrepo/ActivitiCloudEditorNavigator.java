@@ -105,7 +105,7 @@ public class ActivitiCloudEditorNavigator extends CommonNavigator {
 		public void run() {
 			// Refresh the tree
 			if (commonViewer != null) {
-			  ProcessModelContentProvider.modelsNode = null;
+			  ProcessModelContentProvider.invalidate();
 				commonViewer.refresh();
 			}
 		}
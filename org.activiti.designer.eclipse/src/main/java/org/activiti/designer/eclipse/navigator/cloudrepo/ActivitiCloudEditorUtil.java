@@ -28,6 +28,8 @@ package org.activiti.designer.eclipse.navigator.cloudrepo;
 import java.io.InputStream;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.net.ssl.SSLContext;
 
@@ -36,10 +38,14 @@ import org.activiti.designer.eclipse.common.ActivitiPlugin;
 import org.activiti.designer.util.preferences.Preferences;
 import org.activiti.designer.util.preferences.PreferencesUtil;
 import org.apache.commons.io.IOUtils;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
@@ -50,28 +56,79 @@ import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.impl.client.BasicCredentialsProvider;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.util.EntityUtils;
 import org.eclipse.core.resources.IFile;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 
 public class ActivitiCloudEditorUtil {
   
+  /** The number of process models fetched per request when listing the models */
+  public static final int PROCESS_MODEL_PAGE_SIZE = 100;
+  
+  private static final int MAX_CONNECTIONS = 4;
+  private static final int MAX_PAGES = 1000;
+  
+  private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+  private static final int SOCKET_TIMEOUT_MILLIS = 30000;
+  
   private static ObjectMapper objectMapper = new ObjectMapper();
 
-  public static CloseableHttpClient getAuthenticatedClient() {
+  // one client for all requests, so connections are pooled and kept alive
+  private static SharedClient sharedClient;
+  
+  // the pages of the last model listing, revalidated with their ETag or modification date. The lock is only held to
+  // read and update the cache, never during a request.
+  private static final Map<Integer, CachedPage> modelPages = new HashMap<Integer, CachedPage>();
+  private static String modelPagesKey;
+  private static int modelPagesGeneration;
+
+  /**
+   * Gets the client for requests to the cloud editor. The client is shared: callers must not close it, but must close
+   * the responses they get, see {@link #closeResponse(CloseableHttpResponse)}, and must release the client with
+   * {@link #releaseClient(SharedClient)} when they are done. A new client is created when the credentials in the
+   * preferences change, the previous one is closed once the last request that uses it is done.
+   */
+  private static synchronized SharedClient acquireClient() {
   	
     ActivitiPlugin plugin = ActivitiPlugin.getDefault();
   	// Get settings from preferences
   	String userName = PreferencesUtil.getStringPreference(Preferences.ACTIVITI_CLOUD_EDITOR_USERNAME, plugin);
 		String password = PreferencesUtil.getStringPreference(Preferences.ACTIVITI_CLOUD_EDITOR_PASSWORD, plugin);
 		
+		String credentials = userName + "\n" + password;
+		if (sharedClient == null || !credentials.equals(sharedClient.credentials)) {
+		  retireSharedClient();
+		  sharedClient = new SharedClient(createClient(userName, password), credentials);
+		}
+		sharedClient.users++;
+		return sharedClient;
+  }
+  
+  private static synchronized void releaseClient(SharedClient client) {
+    client.users--;
+    if (client.retired && client.users == 0) {
+      closeClient(client.client);
+    }
+  }
+  
+  private static CloseableHttpClient createClient(String userName, String password) {
 		CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
     credentialsProvider.setCredentials(AuthScope.ANY, new UsernamePasswordCredentials(userName, password));
 
     HttpClientBuilder httpClientBuilder = HttpClientBuilder.create();
     httpClientBuilder.setDefaultCredentialsProvider(credentialsProvider);
+    httpClientBuilder.setMaxConnTotal(MAX_CONNECTIONS);
+    httpClientBuilder.setMaxConnPerRoute(MAX_CONNECTIONS);
+    httpClientBuilder.setDefaultRequestConfig(RequestConfig.custom()
+        .setConnectTimeout(CONNECT_TIMEOUT_MILLIS)
+        .setConnectionRequestTimeout(CONNECT_TIMEOUT_MILLIS)
+        .setSocketTimeout(SOCKET_TIMEOUT_MILLIS)
+        .build());
 
     SSLContext sslContext = null;
     try {
@@ -97,54 +154,187 @@ public class ActivitiCloudEditorUtil {
     return httpClientBuilder.build();
   }
   
+  /**
+   * Closes the shared client and its connections, called when the plugin stops. Requests that still run are aborted.
+   */
+  public static void shutdown() {
+    synchronized (ActivitiCloudEditorUtil.class) {
+      if (sharedClient != null) {
+        closeClient(sharedClient.client);
+        sharedClient.retired = true;
+        sharedClient = null;
+      }
+    }
+    synchronized (modelPages) {
+      modelPages.clear();
+      modelPagesKey = null;
+      modelPagesGeneration++;
+    }
+  }
+  
+  /**
+   * Makes the shared client unavailable for new requests and closes it, or leaves that to the last request that uses
+   * it.
+   */
+  private static void retireSharedClient() {
+    if (sharedClient != null) {
+      sharedClient.retired = true;
+      if (sharedClient.users == 0) {
+        closeClient(sharedClient.client);
+      }
+      sharedClient = null;
+    }
+  }
+  
+  private static void closeClient(CloseableHttpClient client) {
+    try {
+      client.close();
+    } catch (Exception e) {}
+  }
+  
+  /**
+   * Reads what is left of the response, so its connection can be reused, and closes the response.
+   */
+  private static void closeResponse(CloseableHttpResponse response) {
+    try {
+      EntityUtils.consume(response.getEntity());
+    } catch (Exception e) {
+      // the connection is closed instead of reused
+    }
+    try {
+      response.close();
+    } catch (Exception e) {}
+  }
+  
+  /**
+   * Gets all process models, page by page. Pages that didn't change since the last call are revalidated with their
+   * ETag or modification date and taken from the cache.
+   * 
+   * @return a node with the models in its "data" array
+   */
   public static JsonNode getProcessModels() {
     JsonNode resultNode = null;
-    CloseableHttpClient client = getAuthenticatedClient();
+    SharedClient acquiredClient = acquireClient();
     try {
       
       ActivitiPlugin plugin = ActivitiPlugin.getDefault();
-      HttpGet httpGet = new HttpGet(PreferencesUtil.getStringPreference(
-          Preferences.ACTIVITI_CLOUD_EDITOR_URL, plugin) + "/api/enterprise/models");
-      CloseableHttpResponse response = client.execute(httpGet);
-      try {
-        int statusCode = response.getStatusLine().getStatusCode();
-        InputStream responseContent = response.getEntity().getContent();
-        if (statusCode >= 200 && statusCode < 300) {
-          resultNode = objectMapper.readTree(responseContent);
-          
-        } else {
-          JsonNode exceptionNode = null;
-          String exceptionString = IOUtils.toString(responseContent);
-          try {
-            exceptionNode = objectMapper.readTree(exceptionString);
-          } catch(Exception e) {
-            throw new ActivitiCloudEditorException(exceptionString);
-          }
-          throw new ActivitiCloudEditorException(exceptionNode);
+      String modelsUrl = PreferencesUtil.getStringPreference(Preferences.ACTIVITI_CLOUD_EDITOR_URL, plugin) + "/api/enterprise/models";
+      
+      int pagesGeneration;
+      synchronized (modelPages) {
+        String pagesKey = modelsUrl + "\n" + PreferencesUtil.getStringPreference(Preferences.ACTIVITI_CLOUD_EDITOR_USERNAME, plugin);
+        if (!pagesKey.equals(modelPagesKey)) {
+          modelPages.clear();
+          modelPagesKey = pagesKey;
+          modelPagesGeneration++;
+        }
+        pagesGeneration = modelPagesGeneration;
+      }
+      
+      ArrayNode modelArrayNode = objectMapper.createArrayNode();
+      for (int page = 0; page < MAX_PAGES; page++) {
+        int start = page * PROCESS_MODEL_PAGE_SIZE;
+        JsonNode pageNode = getProcessModelPage(acquiredClient.client, modelsUrl + "?start=" + start + "&size=" + PROCESS_MODEL_PAGE_SIZE, page,
+            pagesGeneration);
+        JsonNode dataNode = pageNode.get("data");
+        if (dataNode == null || dataNode.size() == 0) {
+          break;
+        }
+        modelArrayNode.addAll((ArrayNode) dataNode);
+        
+        // servers that don't page return all models at once, without a total or with a total that is reached
+        JsonNode totalNode = pageNode.get("total");
+        if (totalNode == null ? dataNode.size() < PROCESS_MODEL_PAGE_SIZE : modelArrayNode.size() >= totalNode.asInt()) {
+          break;
         }
-          
-      } finally {
-        response.close();
       }
       
+      ObjectNode modelsNode = objectMapper.createObjectNode();
+      modelsNode.put("size", modelArrayNode.size());
+      modelsNode.put("total", modelArrayNode.size());
+      modelsNode.put("start", 0);
+      modelsNode.put("data", modelArrayNode);
+      resultNode = modelsNode;
+      
     } catch (ActivitiCloudEditorException e) {
       throw e;
       
     } catch (Exception e) {
       Logger.logError("Error getting process models", e);
-    
     } finally {
-      try {
-        client.close();
-      } catch (Exception e) {}
+      releaseClient(acquiredClient);
     }
     return resultNode;
   }
   
+  /**
+   * Gets a page of the model listing. The cache is only updated if it wasn't cleared since the listing started, the
+   * page could belong to another server or user otherwise.
+   */
+  private static JsonNode getProcessModelPage(CloseableHttpClient client, String url, int page, int pagesGeneration) throws Exception {
+    CachedPage cachedPage;
+    synchronized (modelPages) {
+      cachedPage = pagesGeneration == modelPagesGeneration ? modelPages.get(page) : null;
+    }
+    
+    HttpGet httpGet = new HttpGet(url);
+    if (cachedPage != null) {
+      if (cachedPage.eTag != null) {
+        httpGet.setHeader(HttpHeaders.IF_NONE_MATCH, cachedPage.eTag);
+      }
+      if (cachedPage.lastModified != null) {
+        httpGet.setHeader(HttpHeaders.IF_MODIFIED_SINCE, cachedPage.lastModified);
+      }
+    }
+    
+    CloseableHttpResponse response = client.execute(httpGet);
+    try {
+      int statusCode = response.getStatusLine().getStatusCode();
+      if (statusCode == HttpStatus.SC_NOT_MODIFIED && cachedPage != null) {
+        return cachedPage.pageNode;
+      }
+      
+      if (response.getEntity() == null) {
+        throw new ActivitiCloudEditorException("Empty response for " + url + " (status " + statusCode + ")");
+      }
+      InputStream responseContent = response.getEntity().getContent();
+      if (statusCode >= 200 && statusCode < 300) {
+        JsonNode pageNode = objectMapper.readTree(responseContent);
+        Header eTagHeader = response.getFirstHeader(HttpHeaders.ETAG);
+        Header lastModifiedHeader = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+        synchronized (modelPages) {
+          if (pagesGeneration == modelPagesGeneration) {
+            if (eTagHeader != null || lastModifiedHeader != null) {
+              modelPages.put(page, new CachedPage(pageNode, eTagHeader != null ? eTagHeader.getValue() : null,
+                  lastModifiedHeader != null ? lastModifiedHeader.getValue() : null));
+            } else {
+              modelPages.remove(page);
+            }
+          }
+        }
+        return pageNode;
+        
+      } else {
+        JsonNode exceptionNode = null;
+        String exceptionString = IOUtils.toString(responseContent);
+        try {
+          exceptionNode = objectMapper.readTree(exceptionString);
+        } catch(Exception e) {
+          throw new ActivitiCloudEditorException(exceptionString);
+        }
+        throw new ActivitiCloudEditorException(exceptionNode);
+      }
+        
+    } finally {
+      closeResponse(response);
+    }
+  }
+  
   public static InputStream downloadProcessModel(String modelId, IFile file) {
     InputStream bpmnStream = null;
-    CloseableHttpClient client = getAuthenticatedClient();
+    SharedClient acquiredClient = acquireClient();
     try {
+      CloseableHttpClient client = acquiredClient.client;
       ActivitiPlugin plugin = ActivitiPlugin.getDefault();
       CloseableHttpResponse response = client.execute(new HttpGet(PreferencesUtil.getStringPreference(
           Preferences.ACTIVITI_CLOUD_EDITOR_URL, plugin) + 
@@ -177,7 +367,7 @@ public class ActivitiCloudEditorUtil {
         }
           
       } finally {
-        response.close();
+        closeResponse(response);
       }
     } catch (ActivitiCloudEditorException e) {
       throw e;
@@ -186,17 +376,16 @@ public class ActivitiCloudEditorUtil {
       Logger.logError("Error getting process models", e);
     
     } finally {
-      try {
-        client.close();
-      } catch (Exception e) {}
+      releaseClient(acquiredClient);
     }
     return bpmnStream;
   }
   
   public static JsonNode uploadNewVersion(String modelId, String filename, byte[] content) {
     JsonNode modelNode = null;
-    CloseableHttpClient client = getAuthenticatedClient();
+    SharedClient acquiredClient = acquireClient();
     try {
+      CloseableHttpClient client = acquiredClient.client;
       ActivitiPlugin plugin = ActivitiPlugin.getDefault();
       HttpPost post = new HttpPost(PreferencesUtil.getStringPreference(Preferences.ACTIVITI_CLOUD_EDITOR_URL, plugin) + 
           "/api/enterprise/models/" + modelId + "/newversion");
@@ -221,7 +410,7 @@ public class ActivitiCloudEditorUtil {
         }
           
       } finally {
-        response.close();
+        closeResponse(response);
       }
       
     } catch (ActivitiCloudEditorException e) {
@@ -231,17 +420,16 @@ public class ActivitiCloudEditorUtil {
       Logger.logError("Error uploading new process model version", e);
     
     } finally {
-      try {
-        client.close();
-      } catch (Exception e) {}
+      releaseClient(acquiredClient);
     }
     return modelNode;
   }
   
   public static JsonNode importModel(String filename, byte[] content) {
     JsonNode modelNode = null;
-    CloseableHttpClient client = getAuthenticatedClient();
+    SharedClient acquiredClient = acquireClient();
     try {
+      CloseableHttpClient client = acquiredClient.client;
       ActivitiPlugin plugin = ActivitiPlugin.getDefault();
       HttpPost post = new HttpPost(PreferencesUtil.getStringPreference(Preferences.ACTIVITI_CLOUD_EDITOR_URL, plugin) + 
           "/api/enterprise/process-models/import");
@@ -266,7 +454,7 @@ public class ActivitiCloudEditorUtil {
         }
           
       } finally {
-        response.close();
+        closeResponse(response);
       }
     } catch (ActivitiCloudEditorException e) {
       throw e;
@@ -274,10 +462,40 @@ public class ActivitiCloudEditorUtil {
       Logger.logError("Error importing process model", e);
     
     } finally {
-      try {
-        client.close();
-      } catch (Exception e) {}
+      releaseClient(acquiredClient);
     }
     return modelNode;
-  } 
+  }
+  
+  /**
+   * The shared client with the number of requests that use it.
+   */
+  private static class SharedClient {
+    
+    private final CloseableHttpClient client;
+    private final String credentials;
+    private int users;
+    private boolean retired;
+    
+    public SharedClient(CloseableHttpClient client, String credentials) {
+      this.client = client;
+      this.credentials = credentials;
+    }
+  }
+  
+  /**
+   * A page of the model listing with the validators to revalidate it.
+   */
+  private static class CachedPage {
+    
+    private final JsonNode pageNode;
+    private final String eTag;
+    private final String lastModified;
+    
+    public CachedPage(JsonNode pageNode, String eTag, String lastModified) {
+      this.pageNode = pageNode;
+      this.eTag = eTag;
+      this.lastModified = lastModified;
+    }
+  }
 }
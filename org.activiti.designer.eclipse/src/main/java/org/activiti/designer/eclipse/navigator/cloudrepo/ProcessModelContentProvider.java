@@ -25,8 +25,13 @@
  */
 package org.activiti.designer.eclipse.navigator.cloudrepo;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.viewers.ITreeContentProvider;
 import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.swt.widgets.Control;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -34,48 +39,48 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 /**
+ * Provides the process models of the cloud editor. The models are fetched in a background job, meanwhile the
+ * previously fetched models or a placeholder are shown.
+ * 
  * @author jbarrez
  */
 public class ProcessModelContentProvider implements ITreeContentProvider {
 
 	private static final Object[] EMPTY_ARRAY = new Object[0];
 	
-	public static JsonNode modelsNode;
+	// the fetched models, null to fetch them again
+	private static volatile JsonNode modelsNode;
+	
+	// incremented by every invalidation, a fetch that started before one isn't shown
+	private static int modelsGeneration;
+	
+	// shown while the models are fetched again
+	private static volatile JsonNode previousModelsNode;
+	
+	private Viewer viewer;
+	private Job fetchJob;
 	
 	public Object[] getChildren(Object parentElement) {
 		if (parentElement instanceof ActivitiCloudEditorRoot) {
-			if (modelsNode == null) {
-			  try {
-			    initializeRootElements();
-			  } catch (final ActivitiCloudEditorException e) {
-			    String detailMessage = null;
-	        if (e.getExceptionNode() != null) {
-	          detailMessage = e.getExceptionNode().get("message").asText();
-	        } else {
-	          detailMessage = e.getMessage();
-	        }
-	        // creating fake entry
-	        ObjectMapper objectMapper = new ObjectMapper();
-	        modelsNode = objectMapper.createObjectNode();
-	        ArrayNode modelArrayNode = objectMapper.createArrayNode();
-	        ((ObjectNode) modelsNode).put("data", modelArrayNode);
-	        ObjectNode errorNode = objectMapper.createObjectNode();
-	        modelArrayNode.add(errorNode);
-	        errorNode.put("name", "Process models could not be retrieved: " + detailMessage);
+		  JsonNode currentModelsNode = modelsNode;
+			if (currentModelsNode == null) {
+			  scheduleFetch();
+			  currentModelsNode = previousModelsNode;
+			  if (currentModelsNode == null) {
+			    currentModelsNode = createMessageNode("Loading process models...");
 			  }
 			}
 			
-			if (modelsNode != null) {
-  			ArrayNode modelArrayNode =  (ArrayNode) modelsNode.get("data");
-  			Object[] objectArray = new Object[modelArrayNode.size()];
-  			for (int i = 0; i < modelArrayNode.size(); i++) {
-  			  JsonNode modelNode = modelArrayNode.get(i);
-  			  objectArray[i] = modelNode;
-  			}
-  			return objectArray;
-			} else {
+			ArrayNode modelArrayNode =  (ArrayNode) currentModelsNode.get("data");
+			if (modelArrayNode == null) {
 			  return EMPTY_ARRAY;
 			}
+			Object[] objectArray = new Object[modelArrayNode.size()];
+			for (int i = 0; i < modelArrayNode.size(); i++) {
+			  JsonNode modelNode = modelArrayNode.get(i);
+			  objectArray[i] = modelNode;
+			}
+			return objectArray;
 			
 		} else {
 			return EMPTY_ARRAY;
@@ -94,15 +99,110 @@ public class ProcessModelContentProvider implements ITreeContentProvider {
 		return getChildren(inputElement);
 	}
 
-	public void dispose() {
+	/**
+	 * Makes the models to be fetched again. A fetch that is running is repeated.
+	 */
+	public static synchronized void invalidate() {
 	  modelsNode = null;
+	  modelsGeneration++;
+	}
+	
+	private static synchronized boolean publish(JsonNode fetchedModelsNode, int generation) {
+	  if (generation != modelsGeneration) {
+	    return false;
+	  }
+	  modelsNode = fetchedModelsNode;
+	  previousModelsNode = fetchedModelsNode;
+	  return true;
+	}
+	
+	private static synchronized int getModelsGeneration() {
+	  return modelsGeneration;
 	}
 
-	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+	public void dispose() {
+	  invalidate();
+	  previousModelsNode = null;
+	  viewer = null;
 	}
 
-	private void initializeRootElements() {
-		modelsNode = ActivitiCloudEditorUtil.getProcessModels();
+	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+	  this.viewer = viewer;
 	}
 
+	private synchronized void scheduleFetch() {
+	  if (fetchJob != null) {
+	    return;
+	  }
+	  
+	  fetchJob = new Job("Fetching process models") {
+	    
+	    @Override
+	    protected IStatus run(IProgressMonitor monitor) {
+	      final int generation = getModelsGeneration();
+	      JsonNode fetchedModelsNode = null;
+	      try {
+	        fetchedModelsNode = ActivitiCloudEditorUtil.getProcessModels();
+	        if (fetchedModelsNode == null) {
+	          fetchedModelsNode = createMessageNode("Process models could not be retrieved, see the error log for details");
+	        }
+	      } catch (final ActivitiCloudEditorException e) {
+	        String detailMessage = null;
+	        if (e.getExceptionNode() != null) {
+	          detailMessage = e.getExceptionNode().get("message").asText();
+	        } else {
+	          detailMessage = e.getMessage();
+	        }
+	        fetchedModelsNode = createMessageNode("Process models could not be retrieved: " + detailMessage);
+	      }
+	      
+	      if (!publish(fetchedModelsNode, generation) && !monitor.isCanceled()) {
+	        // the models were invalidated meanwhile, the fetched ones may be outdated already
+	        schedule();
+	        return Status.OK_STATUS;
+	      }
+	      synchronized (ProcessModelContentProvider.this) {
+	        fetchJob = null;
+	      }
+	      // also fetches again when the models were invalidated after they were published
+	      refreshViewer();
+	      return Status.OK_STATUS;
+	    }
+	  };
+	  fetchJob.schedule();
+	}
+	
+	private void refreshViewer() {
+	  final Viewer currentViewer = viewer;
+	  if (currentViewer == null) {
+	    return;
+	  }
+	  final Control control = currentViewer.getControl();
+	  if (control == null || control.isDisposed()) {
+	    return;
+	  }
+	  control.getDisplay().asyncExec(new Runnable() {
+	    
+	    @Override
+	    public void run() {
+	      if (!control.isDisposed()) {
+	        currentViewer.refresh();
+	      }
+	    }
+	  });
+	}
+	
+	/**
+	 * Creates a fake entry to show a message in the tree.
+	 */
+	private static JsonNode createMessageNode(String message) {
+	  ObjectMapper objectMapper = new ObjectMapper();
+	  ObjectNode messageModelsNode = objectMapper.createObjectNode();
+	  ArrayNode modelArrayNode = objectMapper.createArrayNode();
+	  messageModelsNode.put("data", modelArrayNode);
+	  ObjectNode messageNode = objectMapper.createObjectNode();
+	  modelArrayNode.add(messageNode);
+	  messageNode.put("name", message);
+	  return messageModelsNode;
+	}
 }
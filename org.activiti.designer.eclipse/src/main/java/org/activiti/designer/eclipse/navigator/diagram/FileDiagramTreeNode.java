@@ -26,20 +26,16 @@
 
 package org.activiti.designer.eclipse.navigator.diagram;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStreamReader;
 import java.util.List;
 
-import javax.xml.stream.XMLInputFactory;
-import javax.xml.stream.XMLStreamReader;
-
-import org.activiti.bpmn.converter.BpmnXMLConverter;
-import org.activiti.bpmn.model.BpmnModel;
 import org.activiti.bpmn.model.Pool;
 import org.activiti.bpmn.model.Process;
+import org.activiti.designer.eclipse.common.ActivitiPlugin;
 import org.activiti.designer.eclipse.navigator.TreeNode;
 import org.activiti.designer.util.editor.BpmnMemoryModel;
+import org.activiti.designer.util.preferences.Preferences;
+import org.activiti.designer.util.preferences.PreferencesUtil;
+import org.activiti.designer.util.workspace.BpmnModelCache;
 import org.eclipse.core.resources.IFile;
 
 /**
@@ -113,17 +109,12 @@ public class FileDiagramTreeNode extends AbstractDiagramTreeNode<IFile> {
   private BpmnMemoryModel buildModel(final IFile modelFile) {
     final BpmnMemoryModel result = new BpmnMemoryModel(null, modelFile);
 
-    String filePath = modelFile.getLocationURI().getPath();
-    File bpmnFile = new File(filePath);
     try {
-      if (bpmnFile.exists()) {
-        final FileInputStream fileStream = new FileInputStream(bpmnFile);
-        final XMLInputFactory xif = XMLInputFactory.newInstance();
-        final InputStreamReader in = new InputStreamReader(fileStream, "UTF-8");
-        final XMLStreamReader xtr = xif.createXMLStreamReader(in);
-        BpmnXMLConverter converter = new BpmnXMLConverter();
-        BpmnModel bpmnModel = converter.convertToBpmnModel(xtr);
-        result.setBpmnModel(bpmnModel);
+      if (modelFile.exists()) {
+        // the tree only reads the shared model of the cache
+        result.setBpmnModel(BpmnModelCache.getInstance().getModel(modelFile,
+                PreferencesUtil.getStringArray(Preferences.ALFRESCO_FORMTYPES_USERTASK, ActivitiPlugin.getDefault()),
+                PreferencesUtil.getStringArray(Preferences.ALFRESCO_FORMTYPES_STARTEVENT, ActivitiPlugin.getDefault())));
       }
     } catch (Exception e) {
       
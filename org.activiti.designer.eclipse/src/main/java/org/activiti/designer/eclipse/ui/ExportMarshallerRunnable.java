@@ -28,14 +28,19 @@ package org.activiti.designer.eclipse.ui;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.activiti.designer.eclipse.common.ActivitiPlugin;
+import org.activiti.designer.eclipse.extension.ResourceSaveListener;
 import org.activiti.designer.eclipse.extension.export.ExportMarshaller;
 import org.activiti.designer.eclipse.extension.export.ExportMarshallerContext;
 import org.activiti.designer.eclipse.extension.export.MarshallerUtil;
 import org.activiti.designer.eclipse.util.ExtensionPointUtil;
 import org.activiti.designer.util.editor.BpmnMemoryModel;
 import org.activiti.designer.util.preferences.PreferencesUtil;
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.core.runtime.SafeRunner;
@@ -58,6 +63,8 @@ public class ExportMarshallerRunnable implements IRunnableWithProgress {
 
   private BpmnMemoryModel model;
   private Collection<ExportMarshaller> marshallers;
+  private Collection<ExportMarshaller> failedMarshallers = new ArrayList<ExportMarshaller>();
+  private Map<ExportMarshaller, List<IFile>> savedResources = new HashMap<ExportMarshaller, List<IFile>>();
 
   public ExportMarshallerRunnable(final BpmnMemoryModel model, final Collection<ExportMarshaller> marshallers) {
     this.model = model;
@@ -117,33 +124,82 @@ public class ExportMarshallerRunnable implements IRunnableWithProgress {
     }
   }
 
+  /**
+   * @return the marshallers that will be invoked by this runnable
+   */
+  public Collection<ExportMarshaller> getMarshallers() {
+    return marshallers;
+  }
+
+  /**
+   * @return the marshallers that failed with an exception while they were invoked
+   */
+  public Collection<ExportMarshaller> getFailedMarshallers() {
+    return failedMarshallers;
+  }
+
+  /**
+   * @return the files the marshaller saved through its context, which is empty if it saved its output
+   *         some other way
+   */
+  public List<IFile> getSavedResources(final ExportMarshaller marshaller) {
+    final List<IFile> result = savedResources.get(marshaller);
+    return result != null ? result : new ArrayList<IFile>();
+  }
+
   private void invokeExportMarshaller(final ExportMarshaller exportMarshaller, final BpmnMemoryModel model, final IProgressMonitor monitor) {
 
     ISafeRunnable runnable = new ISafeRunnable() {
 
       @Override
       public void handleException(Throwable exception) {
+        failedMarshallers.add(exportMarshaller);
         System.out.println("An exception occurred while running ExportMarshaller " + exportMarshaller.getMarshallerName() + ": " + exception.getMessage());
       }
 
       @Override
       public void run() throws Exception {
-        final ExportMarshallerContext context = new ExportMarshallerContext() {
-
-          @Override
-          public IProgressMonitor getProgressMonitor() {
-            return monitor;
-          }
-
-          @Override
-          public BpmnMemoryModel getBpmnModel() {
-            return model;
-          }
-        };
+        final ExportMarshallerContext context = new MarshallerContext(exportMarshaller, model, monitor);
         exportMarshaller.marshallDiagram(context);
       }
     };
     SafeRunner.run(runnable);
   }
 
+  /**
+   * The context of a marshaller, which keeps track of the files the marshaller saves.
+   */
+  private class MarshallerContext implements ExportMarshallerContext, ResourceSaveListener {
+
+    private final ExportMarshaller marshaller;
+    private final BpmnMemoryModel model;
+    private final IProgressMonitor monitor;
+
+    public MarshallerContext(final ExportMarshaller marshaller, final BpmnMemoryModel model, final IProgressMonitor monitor) {
+      this.marshaller = marshaller;
+      this.model = model;
+      this.monitor = monitor;
+    }
+
+    @Override
+    public IProgressMonitor getProgressMonitor() {
+      return monitor;
+    }
+
+    @Override
+    public BpmnMemoryModel getBpmnModel() {
+      return model;
+    }
+
+    @Override
+    public void resourceSaved(final IFile file) {
+      List<IFile> files = savedResources.get(marshaller);
+      if (files == null) {
+        files = new ArrayList<IFile>();
+        savedResources.put(marshaller, files);
+      }
+      files.add(file);
+    }
+  }
+
 }
@@ -13,8 +13,10 @@
  */
 package org.activiti.designer.eclipse.util;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
@@ -59,6 +61,44 @@ import org.eclipse.ui.part.FileEditorInput;
 
 public class FileService {
 
+  /**
+   * Writes the content to the given file through a temporary file in the same folder, which is renamed
+   * to the file once it has been written completely. A failing write therefore never leaves a truncated
+   * file behind.
+   *
+   * @param file the file to write
+   * @param content the new content of the file
+   * @throws IOException in case the content could not be written
+   */
+  public static void writeAtomically(final File file, final byte[] content) throws IOException {
+    final File tempFile = new File(file.getParentFile(), "." + file.getName() + ".tmp");
+
+    final FileOutputStream outputStream = new FileOutputStream(tempFile);
+    try {
+      outputStream.write(content);
+      outputStream.flush();
+      outputStream.getFD().sync();
+    } catch (IOException e) {
+      outputStream.close();
+      tempFile.delete();
+      throw e;
+    } finally {
+      outputStream.close();
+    }
+
+    if (!tempFile.renameTo(file)) {
+      // renaming onto an existing file isn't supported on every platform
+      if (file.exists() && !file.delete()) {
+        tempFile.delete();
+        throw new IOException("Unable to replace " + file.getAbsolutePath());
+      }
+      if (!tempFile.renameTo(file)) {
+        // keep the temporary file, it's the only copy of the content left
+        throw new IOException("Unable to rename " + tempFile.getAbsolutePath() + " to " + file.getName());
+      }
+    }
+  }
+
    /**
    * Returns a temporary file used as diagram file. Conceptually, this is a placeholder used by
    * Graphiti as editor input file. The real data file is found at the given data file path.
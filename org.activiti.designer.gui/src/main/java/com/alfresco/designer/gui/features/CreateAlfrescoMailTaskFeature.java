@@ -22,6 +22,7 @@ import org.activiti.bpmn.model.alfresco.AlfrescoScriptTask;
 import org.activiti.designer.PluginImage;
 import org.activiti.designer.features.AbstractCreateFastBPMNFeature;
 import org.activiti.designer.util.editor.BpmnMemoryModel;
+import org.activiti.designer.util.editor.BpmnModelIndex;
 import org.activiti.designer.util.editor.ModelHandler;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.graphiti.features.IFeatureProvider;
@@ -58,11 +59,15 @@ public class CreateAlfrescoMailTaskFeature extends AbstractCreateFastBPMNFeature
     Object parentObject = getBusinessObjectForPictogramElement(context.getTargetContainer());
     if (parentObject instanceof SubProcess) {
       ((SubProcess) parentObject).addFlowElement(newMailTask);
+      ModelHandler.getModel(EcoreUtil.getURI(getDiagram())).getModelIndex().addElement(newMailTask, (SubProcess) parentObject);
       
     } else if (parentObject instanceof Lane) {
       final Lane lane = (Lane) parentObject;
       lane.getFlowReferences().add(newMailTask.getId());
       lane.getParentProcess().addFlowElement(newMailTask);
+      BpmnModelIndex modelIndex = ModelHandler.getModel(EcoreUtil.getURI(getDiagram())).getModelIndex();
+      modelIndex.addElement(newMailTask, lane.getParentProcess());
+      modelIndex.setLane(newMailTask.getId(), lane);
       
     } else {
       BpmnMemoryModel model = ModelHandler.getModel(EcoreUtil.getURI(getDiagram()));
@@ -70,6 +75,7 @@ public class CreateAlfrescoMailTaskFeature extends AbstractCreateFastBPMNFeature
         model.addMainProcess();
       }
       model.getBpmnModel().getMainProcess().addFlowElement(newMailTask);
+      model.getModelIndex().addElement(newMailTask, model.getBpmnModel().getMainProcess());
     }
 
     addGraphicalContent(context, newMailTask);
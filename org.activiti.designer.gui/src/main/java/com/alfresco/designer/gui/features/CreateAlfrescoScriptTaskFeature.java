@@ -21,6 +21,7 @@ import org.activiti.bpmn.model.alfresco.AlfrescoScriptTask;
 import org.activiti.designer.PluginImage;
 import org.activiti.designer.features.AbstractCreateFastBPMNFeature;
 import org.activiti.designer.util.editor.BpmnMemoryModel;
+import org.activiti.designer.util.editor.BpmnModelIndex;
 import org.activiti.designer.util.editor.ModelHandler;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.graphiti.features.IFeatureProvider;
@@ -53,11 +54,15 @@ public class CreateAlfrescoScriptTaskFeature extends AbstractCreateFastBPMNFeatu
     Object parentObject = getBusinessObjectForPictogramElement(context.getTargetContainer());
     if (parentObject instanceof SubProcess) {
       ((SubProcess) parentObject).addFlowElement(newScriptTask);
+      ModelHandler.getModel(EcoreUtil.getURI(getDiagram())).getModelIndex().addElement(newScriptTask, (SubProcess) parentObject);
       
     } else if (parentObject instanceof Lane) {
       final Lane lane = (Lane) parentObject;
       lane.getFlowReferences().add(newScriptTask.getId());
       lane.getParentProcess().addFlowElement(newScriptTask);
+      BpmnModelIndex modelIndex = ModelHandler.getModel(EcoreUtil.getURI(getDiagram())).getModelIndex();
+      modelIndex.addElement(newScriptTask, lane.getParentProcess());
+      modelIndex.setLane(newScriptTask.getId(), lane);
       
     } else {
       BpmnMemoryModel model = ModelHandler.getModel(EcoreUtil.getURI(getDiagram()));
@@ -65,6 +70,7 @@ public class CreateAlfrescoScriptTaskFeature extends AbstractCreateFastBPMNFeatu
         model.addMainProcess();
       }
       model.getBpmnModel().getMainProcess().addFlowElement(newScriptTask);
+      model.getModelIndex().addElement(newScriptTask, model.getBpmnModel().getMainProcess());
     }
 
     addGraphicalContent(context, newScriptTask);
@@ -23,6 +23,7 @@ import org.activiti.designer.PluginImage;
 import org.activiti.designer.eclipse.common.ActivitiPlugin;
 import org.activiti.designer.features.AbstractCreateBPMNFeature;
 import org.activiti.designer.util.editor.BpmnMemoryModel;
+import org.activiti.designer.util.editor.BpmnModelIndex;
 import org.activiti.designer.util.editor.ModelHandler;
 import org.activiti.designer.util.preferences.Preferences;
 import org.activiti.designer.util.preferences.PreferencesUtil;
@@ -65,11 +66,15 @@ public class CreateAlfrescoStartEventFeature extends AbstractCreateBPMNFeature {
     Object parentObject = getBusinessObjectForPictogramElement(context.getTargetContainer());
     if (parentObject instanceof SubProcess) {
       ((SubProcess) parentObject).addFlowElement(startEvent);
+      ModelHandler.getModel(EcoreUtil.getURI(getDiagram())).getModelIndex().addElement(startEvent, (SubProcess) parentObject);
       
     } else if (parentObject instanceof Lane) {
       final Lane lane = (Lane) parentObject;
       lane.getFlowReferences().add(startEvent.getId());
       lane.getParentProcess().addFlowElement(startEvent);
+      BpmnModelIndex modelIndex = ModelHandler.getModel(EcoreUtil.getURI(getDiagram())).getModelIndex();
+      modelIndex.addElement(startEvent, lane.getParentProcess());
+      modelIndex.setLane(startEvent.getId(), lane);
       
     } else {
       BpmnMemoryModel model = ModelHandler.getModel(EcoreUtil.getURI(getDiagram()));
@@ -77,6 +82,7 @@ public class CreateAlfrescoStartEventFeature extends AbstractCreateBPMNFeature {
         model.addMainProcess();
       }
       model.getBpmnModel().getMainProcess().addFlowElement(startEvent);
+      model.getModelIndex().addElement(startEvent, model.getBpmnModel().getMainProcess());
     }
 
     addGraphicalRepresentation(context, startEvent);
@@ -22,6 +22,7 @@ import org.activiti.designer.PluginImage;
 import org.activiti.designer.eclipse.common.ActivitiPlugin;
 import org.activiti.designer.features.AbstractCreateFastBPMNFeature;
 import org.activiti.designer.util.editor.BpmnMemoryModel;
+import org.activiti.designer.util.editor.BpmnModelIndex;
 import org.activiti.designer.util.editor.ModelHandler;
 import org.activiti.designer.util.preferences.Preferences;
 import org.activiti.designer.util.preferences.PreferencesUtil;
@@ -60,11 +61,15 @@ public class CreateAlfrescoUserTaskFeature extends AbstractCreateFastBPMNFeature
     Object parentObject = getBusinessObjectForPictogramElement(context.getTargetContainer());
     if (parentObject instanceof SubProcess) {
       ((SubProcess) parentObject).addFlowElement(newUserTask);
+      ModelHandler.getModel(EcoreUtil.getURI(getDiagram())).getModelIndex().addElement(newUserTask, (SubProcess) parentObject);
       
     } else if (parentObject instanceof Lane) {
       final Lane lane = (Lane) parentObject;
       lane.getFlowReferences().add(newUserTask.getId());
       lane.getParentProcess().addFlowElement(newUserTask);
+      BpmnModelIndex modelIndex = ModelHandler.getModel(EcoreUtil.getURI(getDiagram())).getModelIndex();
+      modelIndex.addElement(newUserTask, lane.getParentProcess());
+      modelIndex.setLane(newUserTask.getId(), lane);
       
     } else {
       BpmnMemoryModel model = ModelHandler.getModel(EcoreUtil.getURI(getDiagram()));
@@ -72,6 +77,7 @@ public class CreateAlfrescoUserTaskFeature extends AbstractCreateFastBPMNFeature
         model.addMainProcess();
       }
       model.getBpmnModel().getMainProcess().addFlowElement(newUserTask);
+      model.getModelIndex().addElement(newUserTask, model.getBpmnModel().getMainProcess());
     }
 
     addGraphicalContent(context, newUserTask);
@@ -29,6 +29,11 @@ import org.eclipse.graphiti.mm.pictograms.PictogramElement;
  * Calls the necessary methods to notify the {@link BpmnMemoryModel} of the
  * change and optional notifies the Diagram UI.
  * 
+ * The updater makes two clones of the business object, one to change and one
+ * to undo the change with, when the updatable business-object is first
+ * requested. {@link ElementPropertyModelUpdater} clones only the attributes
+ * that can be edited.
+ * 
  * @author Tijs Rademakers
  */
 public abstract class BpmnProcessModelUpdater {
@@ -54,8 +59,6 @@ public abstract class BpmnProcessModelUpdater {
   public BpmnProcessModelUpdater init(Object businessObject, PictogramElement pictogramElement) {
     BpmnProcessModelUpdater clone = createUpdater(featureProvider);
     clone.businessObject = businessObject;
-    clone.newBusinessObject = cloneBusinessObject(businessObject);
-    clone.oldBusinessObject = cloneBusinessObject(businessObject);
     clone.pictogramElement = pictogramElement;
     return clone;
   }
@@ -66,6 +69,10 @@ public abstract class BpmnProcessModelUpdater {
    *         this command is executed.
    */
   public Object getUpdatableBusinessObject() {
+    if (newBusinessObject == null) {
+      newBusinessObject = cloneBusinessObject(businessObject);
+      oldBusinessObject = cloneBusinessObject(businessObject);
+    }
     return newBusinessObject;
   }
 
@@ -78,7 +85,9 @@ public abstract class BpmnProcessModelUpdater {
   }
 
   public void doUpdate(boolean updatePictorgramElement) {
-    performUpdates(newBusinessObject, businessObject);
+    if (newBusinessObject != null) {
+      performUpdates(newBusinessObject, businessObject);
+    }
     triggerBusinessObjectModelUpdated();
     if (updatePictorgramElement) {
       requestPictorgramElementUpdate();
@@ -86,7 +95,9 @@ public abstract class BpmnProcessModelUpdater {
   }
 
   public void doUndo(boolean updatePictorgramElement) {
-    performUpdates(oldBusinessObject, businessObject);
+    if (oldBusinessObject != null) {
+      performUpdates(oldBusinessObject, businessObject);
+    }
     triggerBusinessObjectModelUpdated();
     if (updatePictorgramElement) {
       requestPictorgramElementUpdate();
@@ -0,0 +1,666 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.command;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.activiti.bpmn.model.ActivitiListener;
+import org.activiti.bpmn.model.Activity;
+import org.activiti.bpmn.model.BaseElement;
+import org.activiti.bpmn.model.EventListener;
+import org.activiti.bpmn.model.ExtensionAttribute;
+import org.activiti.bpmn.model.ExtensionElement;
+import org.activiti.bpmn.model.FieldExtension;
+import org.activiti.bpmn.model.FlowElement;
+import org.activiti.bpmn.model.FlowElementsContainer;
+import org.activiti.bpmn.model.FlowNode;
+import org.activiti.bpmn.model.HasExecutionListeners;
+import org.activiti.bpmn.model.MultiInstanceLoopCharacteristics;
+import org.activiti.bpmn.model.Pool;
+import org.activiti.bpmn.model.Process;
+import org.activiti.bpmn.model.SubProcess;
+import org.activiti.bpmn.model.ValuedDataObject;
+import org.activiti.designer.util.editor.BpmnModelIndex;
+import org.apache.commons.lang.ObjectUtils;
+
+/**
+ * The {@link ElementProperty} instances for the attributes of processes, pools and flow elements that are edited in
+ * the property sheet. The values are copied and compared the way the <code>setValues</code> methods of the model copy
+ * them, so recording a change of an attribute has the same effect as copying the whole element.
+ */
+public final class ElementProperties {
+
+  public static final ElementProperty ID = new ElementProperty("id") {
+
+    @Override
+    public Object getValue(final Object businessObject) {
+      return ((BaseElement) businessObject).getId();
+    }
+
+    @Override
+    public void setValue(final Object businessObject, final Object value) {
+      ((BaseElement) businessObject).setId((String) value);
+    }
+
+    @Override
+    public void updateIndex(final BpmnModelIndex modelIndex, final Object businessObject, final Object replacedValue) {
+      // the lanes and flows that refer to the element by id are updated by the property section, not by this property
+      modelIndex.invalidate();
+    }
+  };
+
+  public static final ElementProperty NAME = new ElementProperty("name") {
+
+    @Override
+    public Object getValue(final Object businessObject) {
+      if (businessObject instanceof Process) {
+        return ((Process) businessObject).getName();
+      } else if (businessObject instanceof Pool) {
+        return ((Pool) businessObject).getName();
+      }
+      return ((FlowElement) businessObject).getName();
+    }
+
+    @Override
+    public void setValue(final Object businessObject, final Object value) {
+      if (businessObject instanceof Process) {
+        ((Process) businessObject).setName((String) value);
+      } else if (businessObject instanceof Pool) {
+        ((Pool) businessObject).setName((String) value);
+      } else {
+        ((FlowElement) businessObject).setName((String) value);
+      }
+    }
+  };
+
+  public static final ElementProperty DOCUMENTATION = new ElementProperty("documentation") {
+
+    @Override
+    public Object getValue(final Object businessObject) {
+      if (businessObject instanceof Process) {
+        return ((Process) businessObject).getDocumentation();
+      }
+      return ((FlowElement) businessObject).getDocumentation();
+    }
+
+    @Override
+    public void setValue(final Object businessObject, final Object value) {
+      if (businessObject instanceof Process) {
+        ((Process) businessObject).setDocumentation((String) value);
+      } else {
+        ((FlowElement) businessObject).setDocumentation((String) value);
+      }
+    }
+  };
+
+  public static final ElementProperty EXTENSION_ELEMENTS = new ElementProperty("extensionElements") {
+
+    @Override
+    public Object getValue(final Object businessObject) {
+      return ((BaseElement) businessObject).getExtensionElements();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void setValue(final Object businessObject, final Object value) {
+      ((BaseElement) businessObject).setExtensionElements((Map<String, List<ExtensionElement>>) value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Object copyValue(final Object value) {
+      return copyExtensionElements((Map<String, List<ExtensionElement>>) value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean isEqual(final Object value, final Object otherValue) {
+      return equalExtensionElements((Map<String, List<ExtensionElement>>) value, (Map<String, List<ExtensionElement>>) otherValue);
+    }
+  };
+
+  public static final ElementProperty ATTRIBUTES = new ElementProperty("attributes") {
+
+    @Override
+    public Object getValue(final Object businessObject) {
+      return ((BaseElement) businessObject).getAttributes();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void setValue(final Object businessObject, final Object value) {
+      ((BaseElement) businessObject).setAttributes((Map<String, List<ExtensionAttribute>>) value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Object copyValue(final Object value) {
+      return copyAttributes((Map<String, List<ExtensionAttribute>>) value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean isEqual(final Object value, final Object otherValue) {
+      return equalAttributes((Map<String, List<ExtensionAttribute>>) value, (Map<String, List<ExtensionAttribute>>) otherValue);
+    }
+  };
+
+  public static final ElementProperty EXECUTION_LISTENERS = new ElementProperty("executionListeners") {
+
+    @Override
+    public Object getValue(final Object businessObject) {
+      return ((HasExecutionListeners) businessObject).getExecutionListeners();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void setValue(final Object businessObject, final Object value) {
+      ((HasExecutionListeners) businessObject).setExecutionListeners((List<ActivitiListener>) value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Object copyValue(final Object value) {
+      if (value == null) {
+        return null;
+      }
+      final List<ActivitiListener> copy = new ArrayList<ActivitiListener>();
+      for (final ActivitiListener listener : (List<ActivitiListener>) value) {
+        copy.add(listener.clone());
+      }
+      return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean isEqual(final Object value, final Object otherValue) {
+      final List<ActivitiListener> listeners = (List<ActivitiListener>) value;
+      final List<ActivitiListener> otherListeners = (List<ActivitiListener>) otherValue;
+      if (listeners == null || otherListeners == null) {
+        return listeners == otherListeners;
+      }
+      if (listeners.size() != otherListeners.size()) {
+        return false;
+      }
+      for (int i = 0; i < listeners.size(); i++) {
+        if (!equalListeners(listeners.get(i), otherListeners.get(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+  };
+
+  public static final ElementProperty ASYNCHRONOUS = new ElementProperty("asynchronous") {
+
+    @Override
+    public Object getValue(final Object businessObject) {
+      return ((FlowNode) businessObject).isAsynchronous();
+    }
+
+    @Override
+    public void setValue(final Object businessObject, final Object value) {
+      ((FlowNode) businessObject).setAsynchronous((Boolean) value);
+    }
+  };
+
+  public static final ElementProperty NOT_EXCLUSIVE = new ElementProperty("notExclusive") {
+
+    @Override
+    public Object getValue(final Object businessObject) {
+      return ((FlowNode) businessObject).isNotExclusive();
+    }
+
+    @Override
+    public void setValue(final Object businessObject, final Object value) {
+      ((FlowNode) businessObject).setNotExclusive((Boolean) value);
+    }
+  };
+
+  public static final ElementProperty DEFAULT_FLOW = new ElementProperty("defaultFlow") {
+
+    @Override
+    public Object getValue(final Object businessObject) {
+      return ((Activity) businessObject).getDefaultFlow();
+    }
+
+    @Override
+    public void setValue(final Object businessObject, final Object value) {
+      ((Activity) businessObject).setDefaultFlow((String) value);
+    }
+  };
+
+  public static final ElementProperty FOR_COMPENSATION = new ElementProperty("forCompensation") {
+
+    @Override
+    public Object getValue(final Object businessObject) {
+      return ((Activity) businessObject).isForCompensation();
+    }
+
+    @Override
+    public void setValue(final Object businessObject, final Object value) {
+      ((Activity) businessObject).setForCompensation((Boolean) value);
+    }
+  };
+
+  public static final ElementProperty FAILED_JOB_RETRY_TIME_CYCLE = new ElementProperty("failedJobRetryTimeCycle") {
+
+    @Override
+    public Object getValue(final Object businessObject) {
+      return ((Activity) businessObject).getFailedJobRetryTimeCycleValue();
+    }
+
+    @Override
+    public void setValue(final Object businessObject, final Object value) {
+      ((Activity) businessObject).setFailedJobRetryTimeCycleValue((String) value);
+    }
+  };
+
+  public static final ElementProperty LOOP_CHARACTERISTICS = new ElementProperty("loopCharacteristics") {
+
+    @Override
+    public Object getValue(final Object businessObject) {
+      return ((Activity) businessObject).getLoopCharacteristics();
+    }
+
+    @Override
+    public void setValue(final Object businessObject, final Object value) {
+      ((Activity) businessObject).setLoopCharacteristics((MultiInstanceLoopCharacteristics) value);
+    }
+
+    @Override
+    public Object copyValue(final Object value) {
+      return value == null ? null : ((MultiInstanceLoopCharacteristics) value).clone();
+    }
+
+    @Override
+    public boolean isEqual(final Object value, final Object otherValue) {
+      if (value == null || otherValue == null) {
+        return value == otherValue;
+      }
+      final MultiInstanceLoopCharacteristics loop = (MultiInstanceLoopCharacteristics) value;
+      final MultiInstanceLoopCharacteristics otherLoop = (MultiInstanceLoopCharacteristics) otherValue;
+      return loop.isSequential() == otherLoop.isSequential()
+              && ObjectUtils.equals(loop.getInputDataItem(), otherLoop.getInputDataItem())
+              && ObjectUtils.equals(loop.getLoopCardinality(), otherLoop.getLoopCardinality())
+              && ObjectUtils.equals(loop.getCompletionCondition(), otherLoop.getCompletionCondition())
+              && ObjectUtils.equals(loop.getElementVariable(), otherLoop.getElementVariable())
+              && ObjectUtils.equals(loop.getElementIndexVariable(), otherLoop.getElementIndexVariable());
+    }
+  };
+
+  /**
+   * The data objects of a process or sub process. Data objects are flow elements of their container as well, which
+   * are kept in line with the list, like <code>setValues</code> of the container does.
+   */
+  public static final ElementProperty DATA_OBJECTS = new ElementProperty("dataObjects") {
+
+    @Override
+    public Object getValue(final Object businessObject) {
+      if (businessObject instanceof Process) {
+        return ((Process) businessObject).getDataObjects();
+      }
+      return ((SubProcess) businessObject).getDataObjects();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void setValue(final Object businessObject, final Object value) {
+      final List<ValuedDataObject> dataObjects = (List<ValuedDataObject>) value;
+      final FlowElementsContainer container = (FlowElementsContainer) businessObject;
+      for (final ValuedDataObject currentDataObject : (List<ValuedDataObject>) getValue(businessObject)) {
+        if (findDataObject(dataObjects, currentDataObject.getId()) == null) {
+          container.removeFlowElement(currentDataObject.getId());
+        }
+      }
+      if (dataObjects != null) {
+        for (final ValuedDataObject dataObject : dataObjects) {
+          // removed first, so the order of the flow elements is the same as the order of the data objects
+          container.removeFlowElement(dataObject.getId());
+          container.addFlowElement(dataObject);
+        }
+      }
+
+      final List<ValuedDataObject> newDataObjects = dataObjects == null ? new ArrayList<ValuedDataObject>() : dataObjects;
+      if (businessObject instanceof Process) {
+        ((Process) businessObject).setDataObjects(newDataObjects);
+      } else {
+        ((SubProcess) businessObject).setDataObjects(newDataObjects);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void updateIndex(final BpmnModelIndex modelIndex, final Object businessObject, final Object replacedValue) {
+      if (replacedValue != null) {
+        for (final ValuedDataObject dataObject : (List<ValuedDataObject>) replacedValue) {
+          modelIndex.removeElement(dataObject);
+        }
+      }
+      for (final ValuedDataObject dataObject : (List<ValuedDataObject>) getValue(businessObject)) {
+        modelIndex.addElement(dataObject, (FlowElementsContainer) businessObject);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Object copyValue(final Object value) {
+      if (value == null) {
+        return null;
+      }
+      final List<ValuedDataObject> copy = new ArrayList<ValuedDataObject>();
+      for (final ValuedDataObject dataObject : (List<ValuedDataObject>) value) {
+        copy.add(dataObject.clone());
+      }
+      return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean isEqual(final Object value, final Object otherValue) {
+      final List<ValuedDataObject> dataObjects = (List<ValuedDataObject>) value;
+      final List<ValuedDataObject> otherDataObjects = (List<ValuedDataObject>) otherValue;
+      if (dataObjects == null || otherDataObjects == null) {
+        return dataObjects == otherDataObjects;
+      }
+      if (dataObjects.size() != otherDataObjects.size()) {
+        return false;
+      }
+      for (int i = 0; i < dataObjects.size(); i++) {
+        if (!equalDataObjects(dataObjects.get(i), otherDataObjects.get(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+  };
+
+  public static final ElementProperty EXECUTABLE = new ElementProperty("executable") {
+
+    @Override
+    public Object getValue(final Object businessObject) {
+      if (businessObject instanceof Pool) {
+        return ((Pool) businessObject).isExecutable();
+      }
+      return ((Process) businessObject).isExecutable();
+    }
+
+    @Override
+    public void setValue(final Object businessObject, final Object value) {
+      if (businessObject instanceof Pool) {
+        ((Pool) businessObject).setExecutable((Boolean) value);
+      } else {
+        ((Process) businessObject).setExecutable((Boolean) value);
+      }
+    }
+  };
+
+  public static final ElementProperty CANDIDATE_STARTER_USERS = new ElementProperty("candidateStarterUsers") {
+
+    @Override
+    public Object getValue(final Object businessObject) {
+      return ((Process) businessObject).getCandidateStarterUsers();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void setValue(final Object businessObject, final Object value) {
+      ((Process) businessObject).setCandidateStarterUsers((List<String>) value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Object copyValue(final Object value) {
+      return value == null ? null : new ArrayList<String>((List<String>) value);
+    }
+  };
+
+  public static final ElementProperty CANDIDATE_STARTER_GROUPS = new ElementProperty("candidateStarterGroups") {
+
+    @Override
+    public Object getValue(final Object businessObject) {
+      return ((Process) businessObject).getCandidateStarterGroups();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void setValue(final Object businessObject, final Object value) {
+      ((Process) businessObject).setCandidateStarterGroups((List<String>) value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Object copyValue(final Object value) {
+      return value == null ? null : new ArrayList<String>((List<String>) value);
+    }
+  };
+
+  public static final ElementProperty EVENT_LISTENERS = new ElementProperty("eventListeners") {
+
+    @Override
+    public Object getValue(final Object businessObject) {
+      return ((Process) businessObject).getEventListeners();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void setValue(final Object businessObject, final Object value) {
+      ((Process) businessObject).setEventListeners((List<EventListener>) value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Object copyValue(final Object value) {
+      if (value == null) {
+        return null;
+      }
+      final List<EventListener> copy = new ArrayList<EventListener>();
+      for (final EventListener listener : (List<EventListener>) value) {
+        copy.add(listener.clone());
+      }
+      return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean isEqual(final Object value, final Object otherValue) {
+      final List<EventListener> listeners = (List<EventListener>) value;
+      final List<EventListener> otherListeners = (List<EventListener>) otherValue;
+      if (listeners == null || otherListeners == null) {
+        return listeners == otherListeners;
+      }
+      if (listeners.size() != otherListeners.size()) {
+        return false;
+      }
+      for (int i = 0; i < listeners.size(); i++) {
+        final EventListener listener = listeners.get(i);
+        final EventListener otherListener = otherListeners.get(i);
+        if (!ObjectUtils.equals(listener.getEvents(), otherListener.getEvents())
+                || !ObjectUtils.equals(listener.getImplementationType(), otherListener.getImplementationType())
+                || !ObjectUtils.equals(listener.getImplementation(), otherListener.getImplementation())
+                || !ObjectUtils.equals(listener.getEntityType(), otherListener.getEntityType())) {
+          return false;
+        }
+      }
+      return true;
+    }
+  };
+
+  public static final ElementProperty PROCESS_REF = new ElementProperty("processRef") {
+
+    @Override
+    public Object getValue(final Object businessObject) {
+      return ((Pool) businessObject).getProcessRef();
+    }
+
+    @Override
+    public void setValue(final Object businessObject, final Object value) {
+      ((Pool) businessObject).setProcessRef((String) value);
+    }
+  };
+
+  private ElementProperties() {
+  }
+
+  private static ValuedDataObject findDataObject(final List<ValuedDataObject> dataObjects, final String id) {
+    if (dataObjects != null) {
+      for (final ValuedDataObject dataObject : dataObjects) {
+        if (ObjectUtils.equals(dataObject.getId(), id)) {
+          return dataObject;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static boolean equalDataObjects(final ValuedDataObject dataObject, final ValuedDataObject otherDataObject) {
+    if (dataObject.getClass() != otherDataObject.getClass()
+            || !ObjectUtils.equals(dataObject.getId(), otherDataObject.getId())
+            || !ObjectUtils.equals(dataObject.getName(), otherDataObject.getName())
+            || !ObjectUtils.equals(dataObject.getValue(), otherDataObject.getValue())) {
+      return false;
+    }
+    final String structureRef = dataObject.getItemSubjectRef() == null ? null : dataObject.getItemSubjectRef().getStructureRef();
+    final String otherStructureRef = otherDataObject.getItemSubjectRef() == null ? null : otherDataObject.getItemSubjectRef()
+            .getStructureRef();
+    return ObjectUtils.equals(structureRef, otherStructureRef);
+  }
+
+  private static boolean equalListeners(final ActivitiListener listener, final ActivitiListener otherListener) {
+    if (!ObjectUtils.equals(listener.getEvent(), otherListener.getEvent())
+            || !ObjectUtils.equals(listener.getImplementationType(), otherListener.getImplementationType())
+            || !ObjectUtils.equals(listener.getImplementation(), otherListener.getImplementation())
+            || listener.getFieldExtensions().size() != otherListener.getFieldExtensions().size()) {
+      return false;
+    }
+    for (int i = 0; i < listener.getFieldExtensions().size(); i++) {
+      final FieldExtension field = listener.getFieldExtensions().get(i);
+      final FieldExtension otherField = otherListener.getFieldExtensions().get(i);
+      if (!ObjectUtils.equals(field.getFieldName(), otherField.getFieldName())
+              || !ObjectUtils.equals(field.getStringValue(), otherField.getStringValue())
+              || !ObjectUtils.equals(field.getExpression(), otherField.getExpression())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Map<String, List<ExtensionElement>> copyExtensionElements(final Map<String, List<ExtensionElement>> extensionElements) {
+    if (extensionElements == null) {
+      return null;
+    }
+    final Map<String, List<ExtensionElement>> copy = new LinkedHashMap<String, List<ExtensionElement>>();
+    for (final Map.Entry<String, List<ExtensionElement>> entry : extensionElements.entrySet()) {
+      if (entry.getValue() != null && !entry.getValue().isEmpty()) {
+        final List<ExtensionElement> elementList = new ArrayList<ExtensionElement>();
+        for (final ExtensionElement extensionElement : entry.getValue()) {
+          elementList.add(extensionElement.clone());
+        }
+        copy.put(entry.getKey(), elementList);
+      }
+    }
+    return copy;
+  }
+
+  private static boolean equalExtensionElements(final Map<String, List<ExtensionElement>> extensionElements,
+          final Map<String, List<ExtensionElement>> otherExtensionElements) {
+    if (extensionElements == null || otherExtensionElements == null) {
+      return extensionElements == otherExtensionElements;
+    }
+    if (!extensionElements.keySet().equals(otherExtensionElements.keySet())) {
+      return false;
+    }
+    for (final Map.Entry<String, List<ExtensionElement>> entry : extensionElements.entrySet()) {
+      final List<ExtensionElement> elementList = entry.getValue();
+      final List<ExtensionElement> otherElementList = otherExtensionElements.get(entry.getKey());
+      if (elementList == null || otherElementList == null) {
+        if (elementList != otherElementList) {
+          return false;
+        }
+        continue;
+      }
+      if (elementList.size() != otherElementList.size()) {
+        return false;
+      }
+      final Iterator<ExtensionElement> otherElements = otherElementList.iterator();
+      for (final ExtensionElement element : elementList) {
+        final ExtensionElement otherElement = otherElements.next();
+        if (!ObjectUtils.equals(element.getName(), otherElement.getName())
+                || !ObjectUtils.equals(element.getNamespace(), otherElement.getNamespace())
+                || !ObjectUtils.equals(element.getNamespacePrefix(), otherElement.getNamespacePrefix())
+                || !ObjectUtils.equals(element.getElementText(), otherElement.getElementText())
+                || !equalAttributes(element.getAttributes(), otherElement.getAttributes())
+                || !equalExtensionElements(element.getChildElements(), otherElement.getChildElements())) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static Map<String, List<ExtensionAttribute>> copyAttributes(final Map<String, List<ExtensionAttribute>> attributes) {
+    if (attributes == null) {
+      return null;
+    }
+    final Map<String, List<ExtensionAttribute>> copy = new LinkedHashMap<String, List<ExtensionAttribute>>();
+    for (final Map.Entry<String, List<ExtensionAttribute>> entry : attributes.entrySet()) {
+      if (entry.getValue() != null && !entry.getValue().isEmpty()) {
+        final List<ExtensionAttribute> attributeList = new ArrayList<ExtensionAttribute>();
+        for (final ExtensionAttribute attribute : entry.getValue()) {
+          attributeList.add(attribute.clone());
+        }
+        copy.put(entry.getKey(), attributeList);
+      }
+    }
+    return copy;
+  }
+
+  private static boolean equalAttributes(final Map<String, List<ExtensionAttribute>> attributes,
+          final Map<String, List<ExtensionAttribute>> otherAttributes) {
+    if (attributes == null || otherAttributes == null) {
+      return attributes == otherAttributes;
+    }
+    if (!attributes.keySet().equals(otherAttributes.keySet())) {
+      return false;
+    }
+    for (final Map.Entry<String, List<ExtensionAttribute>> entry : attributes.entrySet()) {
+      final List<ExtensionAttribute> attributeList = entry.getValue();
+      final List<ExtensionAttribute> otherAttributeList = otherAttributes.get(entry.getKey());
+      if (attributeList == null || otherAttributeList == null) {
+        if (attributeList != otherAttributeList) {
+          return false;
+        }
+        continue;
+      }
+      if (attributeList.size() != otherAttributeList.size()) {
+        return false;
+      }
+      for (int i = 0; i < attributeList.size(); i++) {
+        final ExtensionAttribute attribute = attributeList.get(i);
+        final ExtensionAttribute otherAttribute = otherAttributeList.get(i);
+        if (!ObjectUtils.equals(attribute.getName(), otherAttribute.getName())
+                || !ObjectUtils.equals(attribute.getValue(), otherAttribute.getValue())
+                || !ObjectUtils.equals(attribute.getNamespace(), otherAttribute.getNamespace())
+                || !ObjectUtils.equals(attribute.getNamespacePrefix(), otherAttribute.getNamespacePrefix())) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,77 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.command;
+
+import org.activiti.designer.util.editor.BpmnModelIndex;
+import org.apache.commons.lang.ObjectUtils;
+
+/**
+ * One attribute of a business object, like the name of a flow element or the execution listeners of a process, that
+ * can be read, written and compared on its own. Used by an {@link ElementPropertyModelUpdater} to copy and set only the
+ * attributes a property edit can change.
+ *
+ * Attributes with a mutable value, like a list, override {@link #copyValue(Object)} and
+ * {@link #isEqual(Object, Object)}, so a recorded value isn't changed by later edits of the business object.
+ *
+ * @see ElementProperties
+ */
+public abstract class ElementProperty {
+
+  private final String name;
+
+  protected ElementProperty(final String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return the value of the attribute in the business object
+   */
+  public abstract Object getValue(Object businessObject);
+
+  /**
+   * Sets the attribute of the business object to the value.
+   */
+  public abstract void setValue(Object businessObject, Object value);
+
+  /**
+   * @return a copy of the value that doesn't change when the business object is changed. The default implementation
+   *         returns the value itself, which is fine for strings and primitive values.
+   */
+  public Object copyValue(final Object value) {
+    return value;
+  }
+
+  /**
+   * @return true if both values are the same for this attribute
+   */
+  public boolean isEqual(final Object value, final Object otherValue) {
+    return ObjectUtils.equals(value, otherValue);
+  }
+
+  /**
+   * Tells the index of the model that the attribute of the business object was changed from the replaced value. The
+   * default implementation does nothing, which is fine for attributes the index doesn't know about.
+   */
+  public void updateIndex(final BpmnModelIndex modelIndex, final Object businessObject, final Object replacedValue) {
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
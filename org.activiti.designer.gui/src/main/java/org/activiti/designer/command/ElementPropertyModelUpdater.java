@@ -0,0 +1,86 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.command;
+
+import java.util.List;
+
+import org.activiti.bpmn.model.BaseElement;
+import org.activiti.designer.util.editor.BpmnMemoryModel;
+import org.activiti.designer.util.editor.BpmnModelIndex;
+import org.activiti.designer.util.editor.ModelHandler;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.graphiti.features.IFeatureProvider;
+import org.eclipse.graphiti.mm.pictograms.Diagram;
+
+/**
+ * Updater for business objects that are expensive to clone, like processes and sub processes, which contain all of
+ * their flow elements. Only the attributes returned by {@link #getElementProperties()} are copied to the updatable
+ * business-object and to the copy that undoes the change. When the command is executed, only the attributes that
+ * differ from the actual business-object are set, and the index of the model is told about them.
+ */
+public abstract class ElementPropertyModelUpdater extends BpmnProcessModelUpdater {
+
+  public ElementPropertyModelUpdater(IFeatureProvider featureProvider) {
+    super(featureProvider);
+  }
+
+  /**
+   * @return the attributes of the business-object that can be changed
+   */
+  protected abstract List<ElementProperty> getElementProperties();
+
+  /**
+   * @return a new instance of the class of the business-object, with a copy of the element properties of the
+   *         business-object
+   */
+  @Override
+  protected BaseElement cloneBusinessObject(Object businessObject) {
+    final BaseElement copy;
+    try {
+      copy = (BaseElement) businessObject.getClass().newInstance();
+    } catch (final Exception e) {
+      throw new IllegalStateException("Unable to copy " + businessObject.getClass().getName(), e);
+    }
+    for (final ElementProperty property : getElementProperties()) {
+      property.setValue(copy, property.copyValue(property.getValue(businessObject)));
+    }
+    return copy;
+  }
+
+  @Override
+  protected void performUpdates(Object valueObject, Object targetObject) {
+    final BpmnModelIndex modelIndex = getModelIndex();
+    for (final ElementProperty property : getElementProperties()) {
+      final Object value = property.getValue(valueObject);
+      final Object replacedValue = property.getValue(targetObject);
+      if (!property.isEqual(replacedValue, value)) {
+        property.setValue(targetObject, property.copyValue(value));
+        if (modelIndex != null) {
+          property.updateIndex(modelIndex, targetObject, replacedValue);
+        }
+      }
+    }
+  }
+
+  private BpmnModelIndex getModelIndex() {
+    final Diagram diagram = featureProvider.getDiagramTypeProvider().getDiagram();
+    if (diagram != null) {
+      final BpmnMemoryModel model = ModelHandler.getModel(EcoreUtil.getURI(diagram));
+      if (model != null) {
+        return model.getModelIndex();
+      }
+    }
+    return null;
+  }
+}
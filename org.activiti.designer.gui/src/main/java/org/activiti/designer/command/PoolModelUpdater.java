@@ -13,10 +13,18 @@
  */
 package org.activiti.designer.command;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import org.activiti.bpmn.model.Pool;
 import org.eclipse.graphiti.features.IFeatureProvider;
 
-public class PoolModelUpdater extends BpmnProcessModelUpdater {
+public class PoolModelUpdater extends ElementPropertyModelUpdater {
+
+  private static final List<ElementProperty> ELEMENT_PROPERTIES = Collections.unmodifiableList(Arrays.asList(
+          ElementProperties.ID, ElementProperties.NAME, ElementProperties.EXTENSION_ELEMENTS,
+          ElementProperties.ATTRIBUTES, ElementProperties.PROCESS_REF, ElementProperties.EXECUTABLE));
 
   public PoolModelUpdater(IFeatureProvider featureProvider) {
     super(featureProvider);
@@ -32,13 +40,8 @@ public class PoolModelUpdater extends BpmnProcessModelUpdater {
   }
 
   @Override
-  protected Pool cloneBusinessObject(Object businessObject) {
-    return ((Pool) businessObject).clone();
-  }
-
-  @Override
-  protected void performUpdates(Object valueObject, Object targetObject) {
-    ((Pool) targetObject).setValues(((Pool) valueObject));
+  protected List<ElementProperty> getElementProperties() {
+    return ELEMENT_PROPERTIES;
   }
   
   @Override
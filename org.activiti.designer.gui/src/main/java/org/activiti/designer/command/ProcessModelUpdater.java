@@ -13,10 +13,20 @@
  */
 package org.activiti.designer.command;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import org.activiti.bpmn.model.Process;
 import org.eclipse.graphiti.features.IFeatureProvider;
 
-public class ProcessModelUpdater extends BpmnProcessModelUpdater {
+public class ProcessModelUpdater extends ElementPropertyModelUpdater {
+
+  private static final List<ElementProperty> ELEMENT_PROPERTIES = Collections.unmodifiableList(Arrays.asList(
+          ElementProperties.ID, ElementProperties.NAME, ElementProperties.DOCUMENTATION,
+          ElementProperties.EXTENSION_ELEMENTS, ElementProperties.ATTRIBUTES, ElementProperties.EXECUTABLE, ElementProperties.EXECUTION_LISTENERS,
+          ElementProperties.CANDIDATE_STARTER_USERS, ElementProperties.CANDIDATE_STARTER_GROUPS, ElementProperties.EVENT_LISTENERS,
+          ElementProperties.DATA_OBJECTS));
 
   public ProcessModelUpdater(IFeatureProvider featureProvider) {
     super(featureProvider);
@@ -32,13 +42,8 @@ public class ProcessModelUpdater extends BpmnProcessModelUpdater {
   }
 
   @Override
-  protected Process cloneBusinessObject(Object businessObject) {
-    return ((Process) businessObject).clone();
-  }
-
-  @Override
-  protected void performUpdates(Object valueObject, Object targetObject) {
-    ((Process) targetObject).setValues(((Process) valueObject));
+  protected List<ElementProperty> getElementProperties() {
+    return ELEMENT_PROPERTIES;
   }
   
   @Override
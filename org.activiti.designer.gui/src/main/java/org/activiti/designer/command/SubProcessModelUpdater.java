@@ -13,10 +13,20 @@
  */
 package org.activiti.designer.command;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import org.activiti.bpmn.model.SubProcess;
 import org.eclipse.graphiti.features.IFeatureProvider;
 
-public class SubProcessModelUpdater extends BpmnProcessModelUpdater {
+public class SubProcessModelUpdater extends ElementPropertyModelUpdater {
+
+  private static final List<ElementProperty> ELEMENT_PROPERTIES = Collections.unmodifiableList(Arrays.asList(
+          ElementProperties.ID, ElementProperties.NAME, ElementProperties.DOCUMENTATION,
+          ElementProperties.EXTENSION_ELEMENTS, ElementProperties.ATTRIBUTES, ElementProperties.EXECUTION_LISTENERS, ElementProperties.ASYNCHRONOUS,
+          ElementProperties.NOT_EXCLUSIVE, ElementProperties.DEFAULT_FLOW, ElementProperties.FOR_COMPENSATION,
+          ElementProperties.FAILED_JOB_RETRY_TIME_CYCLE, ElementProperties.LOOP_CHARACTERISTICS, ElementProperties.DATA_OBJECTS));
 
   public SubProcessModelUpdater(IFeatureProvider featureProvider) {
     super(featureProvider);
@@ -32,13 +42,8 @@ public class SubProcessModelUpdater extends BpmnProcessModelUpdater {
   }
 
   @Override
-  protected SubProcess cloneBusinessObject(Object businessObject) {
-    return ((SubProcess) businessObject).clone();
-  }
-
-  @Override
-  protected void performUpdates(Object valueObject, Object targetObject) {
-    ((SubProcess) targetObject).setValues(((SubProcess) valueObject));
+  protected List<ElementProperty> getElementProperties() {
+    return ELEMENT_PROPERTIES;
   }
   
   @Override
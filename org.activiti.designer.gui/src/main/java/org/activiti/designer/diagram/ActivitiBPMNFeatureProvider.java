@@ -14,7 +14,10 @@
 package org.activiti.designer.diagram;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.activiti.bpmn.model.Activity;
 import org.activiti.bpmn.model.Artifact;
@@ -134,6 +137,7 @@ import org.activiti.designer.features.MovePoolFeature;
 import org.activiti.designer.features.MoveTextAnnotationFeature;
 import org.activiti.designer.features.PasteFlowElementFeature;
 import org.activiti.designer.features.ReconnectSequenceFlowFeature;
+import org.activiti.designer.features.RemoveBaseElementFeature;
 import org.activiti.designer.features.UpdateFlowElementFeature;
 import org.activiti.designer.features.UpdateMessageFlowFeature;
 import org.activiti.designer.features.UpdatePoolAndLaneFeature;
@@ -151,6 +155,7 @@ import org.eclipse.graphiti.features.ILayoutFeature;
 import org.eclipse.graphiti.features.IMoveShapeFeature;
 import org.eclipse.graphiti.features.IPasteFeature;
 import org.eclipse.graphiti.features.IReconnectionFeature;
+import org.eclipse.graphiti.features.IRemoveFeature;
 import org.eclipse.graphiti.features.IResizeShapeFeature;
 import org.eclipse.graphiti.features.IUpdateFeature;
 import org.eclipse.graphiti.features.context.IAddContext;
@@ -163,6 +168,7 @@ import org.eclipse.graphiti.features.context.IMoveShapeContext;
 import org.eclipse.graphiti.features.context.IPasteContext;
 import org.eclipse.graphiti.features.context.IPictogramElementContext;
 import org.eclipse.graphiti.features.context.IReconnectionContext;
+import org.eclipse.graphiti.features.context.IRemoveContext;
 import org.eclipse.graphiti.features.context.IResizeShapeContext;
 import org.eclipse.graphiti.features.context.IUpdateContext;
 import org.eclipse.graphiti.features.custom.ICustomFeature;
@@ -191,6 +197,13 @@ public class ActivitiBPMNFeatureProvider extends DefaultFeatureProvider {
   protected List<BusinessObjectShapeController> shapeControllers;
   protected List<BpmnProcessModelUpdater> modelUpdaters;
 
+  /**
+   * Identity-keyed index from business object to the pictogram elements linked to it. Entries are added in
+   * {@link #link(PictogramElement, Object[])} and dropped by the remove feature. Pictogram elements that are
+   * restored by an undo are not linked again, these are picked up by the fallback in the lookup methods.
+   */
+  protected Map<Object, List<PictogramElement>> pictogramElementIndex = new IdentityHashMap<Object, List<PictogramElement>>();
+
   public ActivitiBPMNFeatureProvider(IDiagramTypeProvider dtp) {
     super(dtp);
     /**
@@ -305,6 +318,119 @@ public class ActivitiBPMNFeatureProvider extends DefaultFeatureProvider {
     return new AddBaseElementFeature(this);
   }
 
+  @Override
+  public void link(PictogramElement pictogramElement, Object[] businessObjects) {
+    super.link(pictogramElement, businessObjects);
+
+    if (pictogramElement != null && businessObjects != null) {
+      for (Object businessObject : businessObjects) {
+        indexPictogramElement(businessObject, pictogramElement);
+      }
+    }
+  }
+
+  @Override
+  public PictogramElement getPictogramElementForBusinessObject(Object businessObject) {
+    final PictogramElement[] pictogramElements = getAllPictogramElementsForBusinessObject(businessObject);
+    if (pictogramElements.length == 0) {
+      return null;
+    }
+    // same preference as the default implementation: the first active element, otherwise the first one
+    for (PictogramElement pictogramElement : pictogramElements) {
+      if (pictogramElement.isActive()) {
+        return pictogramElement;
+      }
+    }
+    return pictogramElements[0];
+  }
+
+  @Override
+  public PictogramElement[] getAllPictogramElementsForBusinessObject(Object businessObject) {
+    if (businessObject == null) {
+      return new PictogramElement[] {};
+    }
+
+    final List<PictogramElement> indexed = pictogramElementIndex.get(businessObject);
+    if (indexed != null) {
+      final Iterator<PictogramElement> indexIterator = indexed.iterator();
+      while (indexIterator.hasNext()) {
+        if (!isLinked(indexIterator.next(), businessObject)) {
+          indexIterator.remove();
+        }
+      }
+      if (!indexed.isEmpty()) {
+        return indexed.toArray(new PictogramElement[] {});
+      }
+      pictogramElementIndex.remove(businessObject);
+    }
+
+    // not indexed (yet), fall back to walking the diagram and remember what was found
+    final PictogramElement[] pictogramElements = super.getAllPictogramElementsForBusinessObject(businessObject);
+    for (PictogramElement pictogramElement : pictogramElements) {
+      indexPictogramElement(businessObject, pictogramElement);
+    }
+    return pictogramElements;
+  }
+
+  /**
+   * Drops the given pictogram element and all of its children from the business object index.
+   */
+  public void unindexPictogramElement(PictogramElement pictogramElement) {
+    if (pictogramElement == null || pictogramElementIndex.isEmpty()) {
+      return;
+    }
+
+    for (Object businessObject : getAllBusinessObjectsForPictogramElement(pictogramElement)) {
+      final List<PictogramElement> indexed = pictogramElementIndex.get(businessObject);
+      if (indexed != null) {
+        indexed.remove(pictogramElement);
+        if (indexed.isEmpty()) {
+          pictogramElementIndex.remove(businessObject);
+        }
+      }
+    }
+
+    if (pictogramElement instanceof ContainerShape) {
+      for (Shape child : ((ContainerShape) pictogramElement).getChildren()) {
+        unindexPictogramElement(child);
+      }
+    }
+  }
+
+  protected void indexPictogramElement(Object businessObject, PictogramElement pictogramElement) {
+    if (businessObject == null) {
+      return;
+    }
+    List<PictogramElement> indexed = pictogramElementIndex.get(businessObject);
+    if (indexed == null) {
+      indexed = new ArrayList<PictogramElement>(1);
+      pictogramElementIndex.put(businessObject, indexed);
+    }
+    if (!indexed.contains(pictogramElement)) {
+      indexed.add(pictogramElement);
+    }
+  }
+
+  /**
+   * @return true, when the pictogram element is still part of a diagram and still linked to the business object.
+   */
+  protected boolean isLinked(PictogramElement pictogramElement, Object businessObject) {
+    if (pictogramElement.eResource() == null) {
+      return false;
+    }
+    for (Object linkedObject : getAllBusinessObjectsForPictogramElement(pictogramElement)) {
+      if (linkedObject == businessObject) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public IRemoveFeature getRemoveFeature(IRemoveContext context) {
+    return new RemoveBaseElementFeature(this);
+  }
+
   /**
    * 1.3      提供Create Feature
    * 创建一个业务对象和相应的图符元素。通常创建业务对象（business object），然后调用Add Feature去创建相应的图符元素(graphics object),并在add feature中建立business object和graphics object之间的联系。创建CreateFeature之后，
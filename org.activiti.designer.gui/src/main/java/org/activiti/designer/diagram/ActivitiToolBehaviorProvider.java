@@ -18,6 +18,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -103,17 +104,18 @@ import org.activiti.designer.features.CreateTransactionFeature;
 import org.activiti.designer.features.CreateUserTaskFeature;
 import org.activiti.designer.features.DeletePoolFeature;
 import org.activiti.designer.features.contextmenu.OpenCalledElementForCallActivity;
-import org.activiti.designer.integration.annotation.TaskName;
-import org.activiti.designer.integration.annotation.TaskNames;
 import org.activiti.designer.integration.palette.PaletteEntry;
 import org.activiti.designer.util.ActivitiConstants;
 import org.activiti.designer.util.eclipse.ActivitiUiUtil;
 import org.activiti.designer.util.extension.CustomServiceTaskContext;
 import org.activiti.designer.util.extension.CustomUserTaskContext;
+import org.activiti.designer.util.extension.ExtensionDescriptor;
+import org.activiti.designer.util.extension.ExtensionRegistry;
 import org.activiti.designer.util.extension.ExtensionUtil;
 import org.activiti.designer.util.preferences.Preferences;
 import org.activiti.designer.util.preferences.PreferencesUtil;
 import org.activiti.designer.util.workspace.ActivitiWorkspaceUtil;
+import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
@@ -170,6 +172,40 @@ public class ActivitiToolBehaviorProvider extends DefaultToolBehaviorProvider {
 
   private static final Map<Class< ? extends ICreateFeature>, PaletteEntry> toolMapping = new HashMap<Class< ? extends ICreateFeature>, PaletteEntry>();
 
+  private static final String START_EVENT_COMPARTMENT = "Start event";
+  private static final String END_EVENT_COMPARTMENT = "End event";
+  private static final String TASK_COMPARTMENT = "Task";
+  private static final String GATEWAY_COMPARTMENT = "Gateway";
+  private static final String CONTAINER_COMPARTMENT = "Container";
+  private static final String BOUNDARY_EVENT_COMPARTMENT = "Boundary event";
+  private static final String INTERMEDIATE_EVENT_COMPARTMENT = "Intermediate event";
+  private static final String ARTIFACTS_COMPARTMENT = "Artifacts";
+  private static final String CONNECTION_COMPARTMENT = "Connection";
+  private static final String ALFRESCO_COMPARTMENT = "Alfresco";
+
+  // The compartment of each tool, by the tool's label in lower case
+  private static final Map<String, String> COMPARTMENTS_BY_TOOL_LABEL = new HashMap<String, String>();
+
+  static {
+    addToolLabels(CONNECTION_COMPARTMENT, "sequenceflow", "messageflow", "association");
+    addToolLabels(START_EVENT_COMPARTMENT, "startevent", "timerstartevent", "errorstartevent", "messagestartevent", "signalstartevent");
+    addToolLabels(END_EVENT_COMPARTMENT, "endevent", "errorendevent", "terminateendevent", "cancelendevent");
+    addToolLabels(TASK_COMPARTMENT, "usertask", "scripttask", "servicetask", "mailtask", "manualtask", "receivetask",
+            "businessruletask", "callactivity");
+    addToolLabels(BOUNDARY_EVENT_COMPARTMENT, "timerboundaryevent", "errorboundaryevent", "signalboundaryevent",
+            "messageboundaryevent", "cancelboundaryevent", "compensationboundaryevent");
+    addToolLabels(INTERMEDIATE_EVENT_COMPARTMENT, "timercatchingevent", "signalcatchingevent", "messagecatchingevent",
+            "signalthrowingevent", "compensationthrowingevent", "nonethrowingevent");
+    addToolLabels(GATEWAY_COMPARTMENT, "parallelgateway", "exclusivegateway", "inclusivegateway", "eventgateway");
+    addToolLabels(CONTAINER_COMPARTMENT, "subprocess", "pool", "lane", "eventsubprocess", "transaction");
+    addToolLabels(ALFRESCO_COMPARTMENT, "alfrescousertask", "alfrescostartevent", "alfrescoscripttask", "alfrescomailtask");
+    addToolLabels(ARTIFACTS_COMPARTMENT, "annotation");
+  }
+
+  private PaletteKey paletteKey;
+  private IPaletteCompartmentEntry[] palette;
+  private int paletteBuildCount;
+
   public ActivitiToolBehaviorProvider(IDiagramTypeProvider dtp) {
     super(dtp);
 
@@ -731,22 +767,58 @@ The method getContextButtonPad has to return the context buttons for the given c
 
     final IProject project = ActivitiUiUtil.getProjectFromDiagram(getDiagramTypeProvider().getDiagram());
 
+    // The palette only changes with the extensions of the project and the
+    // preferences, so it is built again only when one of them changed
+    final ExtensionRegistry registry = ExtensionRegistry.getRegistry(project);
+    final PaletteKey key = new PaletteKey(project, registry,
+            PreferencesUtil.getStringPreference(Preferences.ACTIVITI_DEFAULT_LANGUAGE, ActivitiPlugin.getDefault()),
+            PreferencesUtil.getBooleanPreference(Preferences.ALFRESCO_ENABLE, ActivitiPlugin.getDefault()));
+
+    if (palette == null || !key.equals(paletteKey)) {
+      palette = buildPalette(project);
+      paletteBuildCount++;
+
+      // keep the palette only if the extensions were loaded completely,
+      // otherwise they are loaded again the next time
+      paletteKey = registry.isLoaded() ? key : null;
+    }
+
+    return palette.clone();
+  }
+
+  /**
+   * @return the number of times the palette was built, to check the palette is
+   *         taken from the cache
+   */
+  public int getPaletteBuildCount() {
+    return paletteBuildCount;
+  }
+
+  private IPaletteCompartmentEntry[] buildPalette(final IProject project) {
+
     final List<IPaletteCompartmentEntry> ret = new ArrayList<IPaletteCompartmentEntry>();
 
     // add compartments from super class if not disabled
     IPaletteCompartmentEntry[] superCompartments = super.getPalette();//这里调用ActivitiBPMNFeatureProvider.getCreateFeatures()创建组件
 
     // create new compartments
-    IPaletteCompartmentEntry startEventCompartmentEntry = new PaletteCompartmentEntry("Start event", null);
-    IPaletteCompartmentEntry endEventCompartmentEntry = new PaletteCompartmentEntry("End event", null);
-    IPaletteCompartmentEntry taskCompartmentEntry = new PaletteCompartmentEntry("Task", null);
-    IPaletteCompartmentEntry gatewayCompartmentEntry = new PaletteCompartmentEntry("Gateway", null);
-    IPaletteCompartmentEntry containerCompartmentEntry = new PaletteCompartmentEntry("Container", null);
-    IPaletteCompartmentEntry boundaryEventCompartmentEntry = new PaletteCompartmentEntry("Boundary event", null);
-    IPaletteCompartmentEntry intermediateEventCompartmentEntry = new PaletteCompartmentEntry("Intermediate event", null);
-    IPaletteCompartmentEntry artifactsCompartmentEntry = new PaletteCompartmentEntry("Artifacts", null);
-    IPaletteCompartmentEntry connectionCompartmentEntry = new PaletteCompartmentEntry("Connection", null);
-    IPaletteCompartmentEntry alfrescoCompartmentEntry = new PaletteCompartmentEntry("Alfresco", PluginImage.IMG_ALFRESCO_LOGO.getImageKey());
+    IPaletteCompartmentEntry startEventCompartmentEntry = new PaletteCompartmentEntry(START_EVENT_COMPARTMENT, null);
+    IPaletteCompartmentEntry endEventCompartmentEntry = new PaletteCompartmentEntry(END_EVENT_COMPARTMENT, null);
+    IPaletteCompartmentEntry taskCompartmentEntry = new PaletteCompartmentEntry(TASK_COMPARTMENT, null);
+    IPaletteCompartmentEntry gatewayCompartmentEntry = new PaletteCompartmentEntry(GATEWAY_COMPARTMENT, null);
+    IPaletteCompartmentEntry containerCompartmentEntry = new PaletteCompartmentEntry(CONTAINER_COMPARTMENT, null);
+    IPaletteCompartmentEntry boundaryEventCompartmentEntry = new PaletteCompartmentEntry(BOUNDARY_EVENT_COMPARTMENT, null);
+    IPaletteCompartmentEntry intermediateEventCompartmentEntry = new PaletteCompartmentEntry(INTERMEDIATE_EVENT_COMPARTMENT, null);
+    IPaletteCompartmentEntry artifactsCompartmentEntry = new PaletteCompartmentEntry(ARTIFACTS_COMPARTMENT, null);
+    IPaletteCompartmentEntry connectionCompartmentEntry = new PaletteCompartmentEntry(CONNECTION_COMPARTMENT, null);
+    IPaletteCompartmentEntry alfrescoCompartmentEntry = new PaletteCompartmentEntry(ALFRESCO_COMPARTMENT, PluginImage.IMG_ALFRESCO_LOGO.getImageKey());
+
+    final Map<String, IPaletteCompartmentEntry> compartments = new HashMap<String, IPaletteCompartmentEntry>();
+    for (final IPaletteCompartmentEntry compartment : new IPaletteCompartmentEntry[] { startEventCompartmentEntry, endEventCompartmentEntry,
+        taskCompartmentEntry, gatewayCompartmentEntry, containerCompartmentEntry, boundaryEventCompartmentEntry,
+        intermediateEventCompartmentEntry, artifactsCompartmentEntry, connectionCompartmentEntry, alfrescoCompartmentEntry }) {
+      compartments.put(compartment.getLabel(), compartment);
+    }
 
     for (final IPaletteCompartmentEntry entry : superCompartments) {
 
@@ -760,98 +832,12 @@ The method getContextButtonPad has to return the context buttons for the given c
       final List<IToolEntry> toolEntries = iPaletteCompartmentEntry.getToolEntries();
 
       for (IToolEntry toolEntry : toolEntries) {
-        if ("sequenceflow".equalsIgnoreCase(toolEntry.getLabel())) {
-          connectionCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("messageflow".equalsIgnoreCase(toolEntry.getLabel())) {
-          connectionCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("association".equalsIgnoreCase(toolEntry.getLabel())) {
-          connectionCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("startevent".equalsIgnoreCase(toolEntry.getLabel())) {
-          startEventCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("timerstartevent".equalsIgnoreCase(toolEntry.getLabel())) {
-          startEventCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("errorstartevent".equalsIgnoreCase(toolEntry.getLabel())) {
-          startEventCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("messagestartevent".equalsIgnoreCase(toolEntry.getLabel())) {
-          startEventCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("signalstartevent".equalsIgnoreCase(toolEntry.getLabel())) {
-          startEventCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("endevent".equalsIgnoreCase(toolEntry.getLabel())) {
-          endEventCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("errorendevent".equalsIgnoreCase(toolEntry.getLabel())) {
-          endEventCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("terminateendevent".equalsIgnoreCase(toolEntry.getLabel())) {
-          endEventCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("cancelendevent".equalsIgnoreCase(toolEntry.getLabel())) {
-          endEventCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("usertask".equalsIgnoreCase(toolEntry.getLabel())) {
-          taskCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("scripttask".equalsIgnoreCase(toolEntry.getLabel())) {
-          taskCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("servicetask".equalsIgnoreCase(toolEntry.getLabel())) {
-          taskCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("mailtask".equalsIgnoreCase(toolEntry.getLabel())) {
-          taskCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("manualtask".equalsIgnoreCase(toolEntry.getLabel())) {
-          taskCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("receivetask".equalsIgnoreCase(toolEntry.getLabel())) {
-          taskCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("businessruletask".equalsIgnoreCase(toolEntry.getLabel())) {
-          taskCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("timerboundaryevent".equalsIgnoreCase(toolEntry.getLabel())) {
-          boundaryEventCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("errorboundaryevent".equalsIgnoreCase(toolEntry.getLabel())) {
-          boundaryEventCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("signalboundaryevent".equalsIgnoreCase(toolEntry.getLabel())) {
-          boundaryEventCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("messageboundaryevent".equalsIgnoreCase(toolEntry.getLabel())) {
-          boundaryEventCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("cancelboundaryevent".equalsIgnoreCase(toolEntry.getLabel())) {
-          boundaryEventCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("compensationboundaryevent".equalsIgnoreCase(toolEntry.getLabel())) {
-          boundaryEventCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("timercatchingevent".equalsIgnoreCase(toolEntry.getLabel())) {
-          intermediateEventCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("signalcatchingevent".equalsIgnoreCase(toolEntry.getLabel())) {
-          intermediateEventCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("messagecatchingevent".equalsIgnoreCase(toolEntry.getLabel())) {
-          intermediateEventCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("signalthrowingevent".equalsIgnoreCase(toolEntry.getLabel())) {
-          intermediateEventCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("compensationthrowingevent".equalsIgnoreCase(toolEntry.getLabel())) {
-          intermediateEventCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("nonethrowingevent".equalsIgnoreCase(toolEntry.getLabel())) {
-          intermediateEventCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("parallelgateway".equalsIgnoreCase(toolEntry.getLabel())) {
-          gatewayCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("exclusivegateway".equalsIgnoreCase(toolEntry.getLabel())) {
-          gatewayCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("inclusivegateway".equalsIgnoreCase(toolEntry.getLabel())) {
-          gatewayCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("eventgateway".equalsIgnoreCase(toolEntry.getLabel())) {
-          gatewayCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("subprocess".equalsIgnoreCase(toolEntry.getLabel())) {
-          containerCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("pool".equalsIgnoreCase(toolEntry.getLabel())) {
-          containerCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("lane".equalsIgnoreCase(toolEntry.getLabel())) {
-          containerCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("eventsubprocess".equalsIgnoreCase(toolEntry.getLabel())) {
-          containerCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("transaction".equalsIgnoreCase(toolEntry.getLabel())) {
-          containerCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("callactivity".equalsIgnoreCase(toolEntry.getLabel())) {
-          taskCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("alfrescousertask".equalsIgnoreCase(toolEntry.getLabel())) {
-          alfrescoCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("alfrescostartevent".equalsIgnoreCase(toolEntry.getLabel())) {
-          alfrescoCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("alfrescoscripttask".equalsIgnoreCase(toolEntry.getLabel())) {
-          alfrescoCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("alfrescomailtask".equalsIgnoreCase(toolEntry.getLabel())) {
-          alfrescoCompartmentEntry.getToolEntries().add(toolEntry);
-        } else if ("annotation".equalsIgnoreCase(toolEntry.getLabel())) {
-          artifactsCompartmentEntry.getToolEntries().add(toolEntry);
+        if (toolEntry.getLabel() == null) {
+          continue;
+        }
+        final String compartmentLabel = COMPARTMENTS_BY_TOOL_LABEL.get(toolEntry.getLabel().toLowerCase(Locale.ENGLISH));
+        if (compartmentLabel != null) {
+          compartments.get(compartmentLabel).getToolEntries().add(toolEntry);
         }
       }
     }
@@ -955,14 +941,7 @@ The method getContextButtonPad has to return the context buttons for the given c
         
         String name = null;
         if (StringUtils.isNotEmpty(defaultLanguage)) {
-          TaskNames taskNames = currentDrawerItem.getServiceTask().getClass().getAnnotation(TaskNames.class);
-          if (taskNames != null && taskNames.value() != null) {
-            for (TaskName taskName : taskNames.value()) {
-              if (taskName.locale().equalsIgnoreCase(defaultLanguage)) {
-                name = taskName.name();
-              }
-            }
-          }
+          name = ExtensionDescriptor.forClass(currentDrawerItem.getServiceTask().getClass()).getLocalizedName(defaultLanguage);
         }
         
         if (StringUtils.isEmpty(name)) {
@@ -1027,14 +1006,7 @@ The method getContextButtonPad has to return the context buttons for the given c
         
         String name = null;
         if (StringUtils.isNotEmpty(defaultLanguage)) {
-          TaskNames taskNames = currentDrawerItem.getUserTask().getClass().getAnnotation(TaskNames.class);
-          if (taskNames != null && taskNames.value() != null) {
-            for (TaskName taskName : taskNames.value()) {
-              if (taskName.locale().equalsIgnoreCase(defaultLanguage)) {
-                name = taskName.name();
-              }
-            }
-          }
+          name = ExtensionDescriptor.forClass(currentDrawerItem.getUserTask().getClass()).getLocalizedName(defaultLanguage);
         }
         
         if (StringUtils.isEmpty(name)) {
@@ -1087,6 +1059,47 @@ The method getContextButtonPad has to return the context buttons for the given c
     }
   }
 
+  private static void addToolLabels(final String compartmentLabel, final String... toolLabels) {
+    for (final String toolLabel : toolLabels) {
+      COMPARTMENTS_BY_TOOL_LABEL.put(toolLabel, compartmentLabel);
+    }
+  }
+
+  /**
+   * The state the palette was built for. The extension registry of a project
+   * is replaced when the extensions change, so comparing the registries tells
+   * whether the custom tasks and the disabled palette entries changed.
+   */
+  private static final class PaletteKey {
+
+    private final IProject project;
+    private final ExtensionRegistry registry;
+    private final String defaultLanguage;
+    private final boolean alfrescoEnabled;
+
+    PaletteKey(final IProject project, final ExtensionRegistry registry, final String defaultLanguage, final boolean alfrescoEnabled) {
+      this.project = project;
+      this.registry = registry;
+      this.defaultLanguage = defaultLanguage;
+      this.alfrescoEnabled = alfrescoEnabled;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof PaletteKey)) {
+        return false;
+      }
+      final PaletteKey other = (PaletteKey) obj;
+      return ObjectUtils.equals(project, other.project) && registry == other.registry
+              && ObjectUtils.equals(defaultLanguage, other.defaultLanguage) && alfrescoEnabled == other.alfrescoEnabled;
+    }
+
+    @Override
+    public int hashCode() {
+      return ObjectUtils.hashCode(project) * 31 + ObjectUtils.hashCode(defaultLanguage);
+    }
+  }
+
   private boolean subProcessDiagramExists(SubProcess subProcess) {
     Resource resource = getDiagramTypeProvider().getDiagram().eResource();
 
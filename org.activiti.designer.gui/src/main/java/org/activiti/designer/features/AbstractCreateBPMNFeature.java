@@ -24,6 +24,7 @@ import org.activiti.bpmn.model.BaseElement;
 import org.activiti.bpmn.model.BoundaryEvent;
 import org.activiti.bpmn.model.Event;
 import org.activiti.bpmn.model.FlowElement;
+import org.activiti.bpmn.model.FlowElementsContainer;
 import org.activiti.bpmn.model.FlowNode;
 import org.activiti.bpmn.model.Gateway;
 import org.activiti.bpmn.model.Lane;
@@ -105,6 +106,8 @@ public abstract class AbstractCreateBPMNFeature extends AbstractCreateFeature {
     } else {
       throw new IllegalArgumentException("Container must be Process or SubProcess.");
     }
+    
+    ModelHandler.getModel(EcoreUtil.getURI(getDiagram())).getModelIndex().addElement(baseElement, (FlowElementsContainer) container);
   }
   
   /**
@@ -161,6 +164,9 @@ public abstract class AbstractCreateBPMNFeature extends AbstractCreateFeature {
         }
   
         addFlowNodeOrArtifact(baseElement, lane.getParentProcess());
+        if (baseElement instanceof FlowNode) {
+          ModelHandler.getModel(EcoreUtil.getURI(getDiagram())).getModelIndex().setLane(baseElement.getId(), lane);
+        }
         
       } else if (parent instanceof Activity) {
         ContainerShape parentContainer = targetContainer.getContainer();
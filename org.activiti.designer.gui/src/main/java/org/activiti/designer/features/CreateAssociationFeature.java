@@ -18,10 +18,12 @@ import org.activiti.bpmn.model.Association;
 import org.activiti.bpmn.model.BaseElement;
 import org.activiti.bpmn.model.BoundaryEvent;
 import org.activiti.bpmn.model.CompensateEventDefinition;
+import org.activiti.bpmn.model.FlowElementsContainer;
 import org.activiti.bpmn.model.Lane;
 import org.activiti.bpmn.model.SubProcess;
 import org.activiti.bpmn.model.TextAnnotation;
 import org.activiti.designer.PluginImage;
+import org.activiti.designer.util.editor.BpmnMemoryModel;
 import org.activiti.designer.util.editor.ModelHandler;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.graphiti.features.IFeatureProvider;
@@ -103,19 +105,25 @@ public class CreateAssociationFeature extends AbstractCreateBPMNConnectionFeatur
     }
       
     ContainerShape parentContainer = targetContainer.getContainer();
+    BpmnMemoryModel model = ModelHandler.getModel(EcoreUtil.getURI(getDiagram()));
+    FlowElementsContainer flowElementsContainer = null;
     if (parentContainer instanceof Diagram) {
-      ModelHandler.getModel(EcoreUtil.getURI(getDiagram())).getBpmnModel().getMainProcess().addArtifact(association);
+      flowElementsContainer = model.getBpmnModel().getMainProcess();
 
     } else {
       Object parentObject = getBusinessObjectForPictogramElement(parentContainer);
       if (parentObject instanceof SubProcess) {
-        ((SubProcess) parentObject).addArtifact(association);
+        flowElementsContainer = (SubProcess) parentObject;
 
       } else if (parentObject instanceof Lane) {
         Lane lane = (Lane) parentObject;
-        lane.getParentProcess().addArtifact(association);
+        flowElementsContainer = lane.getParentProcess();
       }
     }
+    if (flowElementsContainer != null) {
+      flowElementsContainer.addArtifact(association);
+      model.getModelIndex().addElement(association, flowElementsContainer);
+    }
     
     return association;
   }
@@ -19,6 +19,7 @@ import org.activiti.bpmn.model.BoundaryEvent;
 import org.activiti.bpmn.model.BpmnModel;
 import org.activiti.bpmn.model.CompensateEventDefinition;
 import org.activiti.bpmn.model.EndEvent;
+import org.activiti.bpmn.model.FlowElementsContainer;
 import org.activiti.bpmn.model.FlowNode;
 import org.activiti.bpmn.model.Lane;
 import org.activiti.bpmn.model.Process;
@@ -27,6 +28,7 @@ import org.activiti.bpmn.model.StartEvent;
 import org.activiti.bpmn.model.SubProcess;
 import org.activiti.designer.PluginImage;
 import org.activiti.designer.eclipse.common.ActivitiPlugin;
+import org.activiti.designer.util.editor.BpmnMemoryModel;
 import org.activiti.designer.util.editor.ModelHandler;
 import org.activiti.designer.util.preferences.Preferences;
 import org.activiti.designer.util.preferences.PreferencesUtil;
@@ -161,19 +163,25 @@ public class CreateSequenceFlowFeature extends AbstractCreateBPMNConnectionFeatu
     }
       
     ContainerShape parentContainer = targetContainer.getContainer();
+    BpmnMemoryModel model = ModelHandler.getModel(EcoreUtil.getURI(getDiagram()));
+    FlowElementsContainer flowElementsContainer = null;
     if (parentContainer instanceof Diagram) {
-      ModelHandler.getModel(EcoreUtil.getURI(getDiagram())).getBpmnModel().getMainProcess().addFlowElement(sequenceFlow);
+      flowElementsContainer = model.getBpmnModel().getMainProcess();
 
     } else {
       Object parentObject = getBusinessObjectForPictogramElement(parentContainer);
       if (parentObject instanceof SubProcess) {
-        ((SubProcess) parentObject).addFlowElement(sequenceFlow);
+        flowElementsContainer = (SubProcess) parentObject;
 
       } else if (parentObject instanceof Lane) {
         Lane lane = (Lane) parentObject;
-        lane.getParentProcess().addFlowElement(sequenceFlow);
+        flowElementsContainer = lane.getParentProcess();
       }
     }
+    if (flowElementsContainer != null) {
+      flowElementsContainer.addFlowElement(sequenceFlow);
+      model.getModelIndex().addElement(sequenceFlow, flowElementsContainer);
+    }
     
     source.getOutgoingFlows().add(sequenceFlow);
     target.getIncomingFlows().add(sequenceFlow);
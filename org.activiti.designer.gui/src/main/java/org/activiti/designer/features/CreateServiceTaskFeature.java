@@ -13,7 +13,6 @@
  */
 package org.activiti.designer.features;
 
-import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -25,16 +24,13 @@ import org.activiti.bpmn.model.ImplementationType;
 import org.activiti.bpmn.model.ServiceTask;
 import org.activiti.designer.PluginImage;
 import org.activiti.designer.eclipse.common.ActivitiPlugin;
-import org.activiti.designer.integration.annotation.Locale;
-import org.activiti.designer.integration.annotation.Locales;
-import org.activiti.designer.integration.annotation.Property;
 import org.activiti.designer.integration.annotation.TaskName;
-import org.activiti.designer.integration.annotation.TaskNames;
 import org.activiti.designer.integration.servicetask.CustomServiceTask;
 import org.activiti.designer.integration.servicetask.DelegateType;
-import org.activiti.designer.property.extension.field.FieldInfo;
 import org.activiti.designer.util.bpmn.BpmnExtensions;
 import org.activiti.designer.util.eclipse.ActivitiUiUtil;
+import org.activiti.designer.util.extension.CustomPropertyDescriptor;
+import org.activiti.designer.util.extension.ExtensionDescriptor;
 import org.activiti.designer.util.extension.ExtensionUtil;
 import org.activiti.designer.util.preferences.Preferences;
 import org.activiti.designer.util.preferences.PreferencesUtil;
@@ -95,76 +91,32 @@ public class CreateServiceTaskFeature extends AbstractCreateFastBPMNFeature {
 
         newServiceTask.setName(targetTask.getName());
         
-        final List<Class<CustomServiceTask>> classHierarchy = new ArrayList<Class<CustomServiceTask>>();
-        final List<FieldInfo> fieldInfoObjects = new ArrayList<FieldInfo>();
-
-        Class clazz = targetTask.getClass();
-        classHierarchy.add(clazz);
-
-        boolean hierarchyOpen = true;
-        while (hierarchyOpen) {
-          clazz = clazz.getSuperclass();
-          if (CustomServiceTask.class.isAssignableFrom(clazz)) {
-            classHierarchy.add(clazz);
-          } else {
-            hierarchyOpen = false;
-          }
-        }
+        final ExtensionDescriptor descriptor = ExtensionDescriptor.forClass(targetTask.getClass());
 
         // only process properties if the type is not an expression.
         if (DelegateType.JAVA_DELEGATE_CLASS == targetTask.getDelegateType()) {
-          for (final Class<CustomServiceTask> currentClass : classHierarchy) {
-            
-            if (currentClass.isAnnotationPresent(TaskNames.class)) {
-              TaskNames taskNames = currentClass.getAnnotation(TaskNames.class);
-              if (taskNames.value() != null && taskNames.value().length > 0) {
-                for (TaskName taskName : taskNames.value()) {
-                  setCustomTaskName(newServiceTask, taskName.name(), taskName.locale());
-                  isCustomNameSet = true;
-                }
-              }
-            }
-            
-            for (final Field field : currentClass.getDeclaredFields()) {
-              if (field.isAnnotationPresent(Property.class)) {
-                fieldInfoObjects.add(new FieldInfo(field));
-              }
-            }
+          for (final TaskName taskName : descriptor.getTaskNames()) {
+            setCustomTaskName(newServiceTask, taskName.name(), taskName.locale());
+            isCustomNameSet = true;
           }
-        }
-        
-        for (final FieldInfo fieldInfo : fieldInfoObjects) {
 
-          final Property property = fieldInfo.getPropertyAnnotation();
-          
-          CustomProperty customProperty = ExtensionUtil.getCustomProperty(newServiceTask, fieldInfo.getFieldName());
+          final String defaultLanguage = PreferencesUtil.getStringPreference(Preferences.ACTIVITI_DEFAULT_LANGUAGE, ActivitiPlugin.getDefault());
+          for (final CustomPropertyDescriptor propertyDescriptor : descriptor.getProperties()) {
 
-          if (customProperty == null) {
-            customProperty = new CustomProperty();
-            newServiceTask.getCustomProperties().add(customProperty);
-          }
+            CustomProperty customProperty = ExtensionUtil.getCustomProperty(newServiceTask, propertyDescriptor.getName());
 
-          customProperty.setId(ExtensionUtil.wrapCustomPropertyId(newServiceTask, fieldInfo.getFieldName()));
-          customProperty.setName(fieldInfo.getFieldName());
-          
-          final Locales localesAnnotation = fieldInfo.getLocalesAnnotation();
-          String localeDefaultValue = null;
-          if (localesAnnotation != null && localesAnnotation.value() != null && localesAnnotation.value().length > 0) {
-            String defaultLanguage = PreferencesUtil.getStringPreference(Preferences.ACTIVITI_DEFAULT_LANGUAGE, ActivitiPlugin.getDefault());
-            if (StringUtils.isNotEmpty(defaultLanguage)) {
-              for (Locale locale : localesAnnotation.value()) {
-                if (defaultLanguage.equalsIgnoreCase(locale.locale())) {
-                  localeDefaultValue = locale.defaultValue();
-                }
-              }
+            if (customProperty == null) {
+              customProperty = new CustomProperty();
+              newServiceTask.getCustomProperties().add(customProperty);
+            }
+
+            customProperty.setId(ExtensionUtil.wrapCustomPropertyId(newServiceTask, propertyDescriptor.getName()));
+            customProperty.setName(propertyDescriptor.getName());
+
+            final String defaultValue = propertyDescriptor.getDefaultValue(defaultLanguage);
+            if (StringUtils.isNotEmpty(defaultValue)) {
+              customProperty.setSimpleValue(defaultValue);
             }
-          }
-          
-          if (StringUtils.isNotEmpty(localeDefaultValue)) {  
-            customProperty.setSimpleValue(localeDefaultValue);
-            
-          } else if (StringUtils.isNotEmpty(property.defaultValue())) {
-            customProperty.setSimpleValue(property.defaultValue());
           }
         }
       }
@@ -13,7 +13,6 @@
  */
 package org.activiti.designer.features;
 
-import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -24,15 +23,12 @@ import org.activiti.bpmn.model.ExtensionElement;
 import org.activiti.bpmn.model.UserTask;
 import org.activiti.designer.PluginImage;
 import org.activiti.designer.eclipse.common.ActivitiPlugin;
-import org.activiti.designer.integration.annotation.Locale;
-import org.activiti.designer.integration.annotation.Locales;
-import org.activiti.designer.integration.annotation.Property;
 import org.activiti.designer.integration.annotation.TaskName;
-import org.activiti.designer.integration.annotation.TaskNames;
 import org.activiti.designer.integration.usertask.CustomUserTask;
-import org.activiti.designer.property.extension.field.FieldInfo;
 import org.activiti.designer.util.bpmn.BpmnExtensions;
 import org.activiti.designer.util.eclipse.ActivitiUiUtil;
+import org.activiti.designer.util.extension.CustomPropertyDescriptor;
+import org.activiti.designer.util.extension.ExtensionDescriptor;
 import org.activiti.designer.util.extension.ExtensionUtil;
 import org.activiti.designer.util.preferences.Preferences;
 import org.activiti.designer.util.preferences.PreferencesUtil;
@@ -71,72 +67,29 @@ public class CreateUserTaskFeature extends AbstractCreateFastBPMNFeature {
 
         newUserTask.setName(targetTask.getName());
         
-        final List<Class<CustomUserTask>> classHierarchy = new ArrayList<Class<CustomUserTask>>();
-        final List<FieldInfo> fieldInfoObjects = new ArrayList<FieldInfo>();
-
-        Class clazz = targetTask.getClass();
-        classHierarchy.add(clazz);
-
-        boolean hierarchyOpen = true;
-        while (hierarchyOpen) {
-          clazz = clazz.getSuperclass();
-          if (CustomUserTask.class.isAssignableFrom(clazz)) {
-            classHierarchy.add(clazz);
-          } else {
-            hierarchyOpen = false;
-          }
-        }
-        
-        for (final Class<CustomUserTask> currentClass : classHierarchy) {
-          if (currentClass.isAnnotationPresent(TaskNames.class)) {
-            TaskNames taskNames = currentClass.getAnnotation(TaskNames.class);
-            if (taskNames.value() != null && taskNames.value().length > 0) {
-              for (TaskName taskName : taskNames.value()) {
-                setCustomTaskName(newUserTask, taskName.name(), taskName.locale());
-                isCustomNameSet = true;
-              }
-            }
-          }
-          
-          for (final Field field : currentClass.getDeclaredFields()) {
-            if (field.isAnnotationPresent(Property.class)) {
-              fieldInfoObjects.add(new FieldInfo(field));
-            }
-          }
+        final ExtensionDescriptor descriptor = ExtensionDescriptor.forClass(targetTask.getClass());
+
+        for (final TaskName taskName : descriptor.getTaskNames()) {
+          setCustomTaskName(newUserTask, taskName.name(), taskName.locale());
+          isCustomNameSet = true;
         }
-        
-        for (final FieldInfo fieldInfo : fieldInfoObjects) {
 
-          final Property property = fieldInfo.getPropertyAnnotation();
-          
-          CustomProperty customProperty = ExtensionUtil.getCustomProperty(newUserTask, fieldInfo.getFieldName());
+        final String defaultLanguage = PreferencesUtil.getStringPreference(Preferences.ACTIVITI_DEFAULT_LANGUAGE, ActivitiPlugin.getDefault());
+        for (final CustomPropertyDescriptor propertyDescriptor : descriptor.getProperties()) {
+
+          CustomProperty customProperty = ExtensionUtil.getCustomProperty(newUserTask, propertyDescriptor.getName());
 
           if (customProperty == null) {
             customProperty = new CustomProperty();
             newUserTask.getCustomProperties().add(customProperty);
           }
 
-          customProperty.setId(ExtensionUtil.wrapCustomPropertyId(newUserTask, fieldInfo.getFieldName()));
-          customProperty.setName(fieldInfo.getFieldName());
-          
-          final Locales localesAnnotation = fieldInfo.getLocalesAnnotation();
-          String localeDefaultValue = null;
-          if (localesAnnotation != null && localesAnnotation.value() != null && localesAnnotation.value().length > 0) {
-            String defaultLanguage = PreferencesUtil.getStringPreference(Preferences.ACTIVITI_DEFAULT_LANGUAGE, ActivitiPlugin.getDefault());
-            if (StringUtils.isNotEmpty(defaultLanguage)) {
-              for (Locale locale : localesAnnotation.value()) {
-                if (defaultLanguage.equalsIgnoreCase(locale.locale())) {
-                  localeDefaultValue = locale.defaultValue();
-                }
-              }
-            }
-          }
-          
-          if (StringUtils.isNotEmpty(localeDefaultValue)) {  
-            customProperty.setSimpleValue(localeDefaultValue);
-            
-          } else if (StringUtils.isNotEmpty(property.defaultValue())) {
-            customProperty.setSimpleValue(property.defaultValue());
+          customProperty.setId(ExtensionUtil.wrapCustomPropertyId(newUserTask, propertyDescriptor.getName()));
+          customProperty.setName(propertyDescriptor.getName());
+
+          final String defaultValue = propertyDescriptor.getDefaultValue(defaultLanguage);
+          if (StringUtils.isNotEmpty(defaultValue)) {
+            customProperty.setSimpleValue(defaultValue);
           }
         }
       }
@@ -14,7 +14,6 @@
 package org.activiti.designer.features;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 
@@ -23,7 +22,6 @@ import org.activiti.bpmn.model.Artifact;
 import org.activiti.bpmn.model.Association;
 import org.activiti.bpmn.model.BaseElement;
 import org.activiti.bpmn.model.BoundaryEvent;
-import org.activiti.bpmn.model.BpmnModel;
 import org.activiti.bpmn.model.CallActivity;
 import org.activiti.bpmn.model.Event;
 import org.activiti.bpmn.model.FlowElement;
@@ -31,11 +29,11 @@ import org.activiti.bpmn.model.FlowElementsContainer;
 import org.activiti.bpmn.model.FlowNode;
 import org.activiti.bpmn.model.Gateway;
 import org.activiti.bpmn.model.Lane;
-import org.activiti.bpmn.model.Process;
 import org.activiti.bpmn.model.SequenceFlow;
 import org.activiti.bpmn.model.SubProcess;
 import org.activiti.bpmn.model.Task;
 import org.activiti.designer.util.editor.BpmnMemoryModel;
+import org.activiti.designer.util.editor.BpmnModelIndex;
 import org.activiti.designer.util.editor.ModelHandler;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.graphiti.features.IFeatureProvider;
@@ -102,37 +100,18 @@ public class DeleteFlowElementFeature extends DefaultDeleteFeature {
 	}
 	
 	protected void removeElement(BaseElement element) {
-  	List<Process> processes = ModelHandler.getModel(EcoreUtil.getURI(getDiagram())).getBpmnModel().getProcesses();
-    for (Process process : processes) {
-      process.removeFlowElement(element.getId());
-      removeElementInLanes(element.getId(), process.getLanes());
-      removeElementInProcess(element, process);
-    }
+	  BpmnModelIndex modelIndex = ModelHandler.getModel(EcoreUtil.getURI(getDiagram())).getModelIndex();
+	  FlowElementsContainer container = modelIndex.getContainer(element.getId());
+	  if (container != null) {
+	    container.removeFlowElement(element.getId());
+	  }
+	  Lane lane = modelIndex.getLane(element.getId());
+	  if (lane != null) {
+	    lane.getFlowReferences().remove(element.getId());
+	  }
+	  modelIndex.removeElement(element);
 	}
 	
-	protected void removeElementInLanes(String elementId, List<Lane> laneList) {
-    for (Lane lane : laneList) {
-      lane.getFlowReferences().remove(elementId);
-    }
-  }
-	
-	protected void removeElementInProcess(BaseElement element, BaseElement parentElement) {
-	  Collection<FlowElement> elementList = null;
-    if (parentElement instanceof Process) {
-      elementList = ((Process) parentElement).getFlowElements();
-    } else if (parentElement instanceof SubProcess) {
-      elementList = ((SubProcess) parentElement).getFlowElements();
-    }
-	  
-    for (FlowElement flowElement : elementList) {
-      if(flowElement instanceof SubProcess) {
-        SubProcess subProcess = (SubProcess) flowElement;
-        subProcess.removeFlowElement(element.getId());
-        removeElementInProcess(element, subProcess);
-      }
-    }
-  }
-	
 	protected void deleteSequenceFlows(FlowNode flowNode) {
 	  List<SequenceFlow> toDeleteSequenceFlows = new ArrayList<SequenceFlow>();
     for (SequenceFlow incomingSequenceFlow : flowNode.getIncomingFlows()) {
@@ -154,7 +133,7 @@ public class DeleteFlowElementFeature extends DefaultDeleteFeature {
 	}
 	
 	protected void deletedConnectingFlows(SequenceFlow sequenceFlow) {
-	  BpmnModel model = ModelHandler.getModel(EcoreUtil.getURI(getDiagram())).getBpmnModel();
+	  BpmnMemoryModel model = ModelHandler.getModel(EcoreUtil.getURI(getDiagram()));
 	  FlowElement sourceElement = model.getFlowElement(sequenceFlow.getSourceRef());
 	  FlowElement targetElement = model.getFlowElement(sequenceFlow.getTargetRef());
 	  if (sourceElement != null) {
@@ -166,43 +145,15 @@ public class DeleteFlowElementFeature extends DefaultDeleteFeature {
 	}
 	
 	protected void deleteAssociations(FlowNode flowNode) {
-    List<Process> processes = ModelHandler.getModel(EcoreUtil.getURI(getDiagram())).getBpmnModel().getProcesses();
-    for (Process process : processes) {
-      removeAssociation(process.getArtifacts(), flowNode);
-      removeAssociationInProcess(process, flowNode);
-    }
-  }
-  
-	protected void removeAssociationInProcess(FlowElementsContainer parentElement, FlowNode flowNode) {
-    Collection<FlowElement> elementList = parentElement.getFlowElements();
-    for (FlowElement flowElement : elementList) {
-      if(flowElement instanceof SubProcess) {
-        SubProcess subProcess = (SubProcess) flowElement;
-        removeAssociation(subProcess.getArtifacts(), flowNode);
-        removeAssociationInProcess(subProcess, flowNode);
-      }
-    }
-  }
-  
-  protected void removeAssociation(Collection<Artifact> artifacts, FlowNode flowNode) {
-    List<Association> toDeleteAssociations = new ArrayList<Association>();
-    for (Artifact artifact : artifacts) {
-      if (artifact instanceof Association) {
-        Association association = (Association) artifact;
-        if (association.getSourceRef().equals(flowNode.getId()) || association.getTargetRef().equals(flowNode.getId())) {
-          toDeleteAssociations.add(association);
-        }
-      }
-    }
-    
-    for (Association deleteObject : toDeleteAssociations) {
+	  BpmnModelIndex modelIndex = ModelHandler.getModel(EcoreUtil.getURI(getDiagram())).getModelIndex();
+    for (Association deleteObject : modelIndex.getAssociations(flowNode.getId())) {
       deletedConnectingFlows(deleteObject);
       removeArtifact(deleteObject);
     }
   }
   
   protected void deletedConnectingFlows(Association association) {
-    BpmnModel model = ModelHandler.getModel(EcoreUtil.getURI(getDiagram())).getBpmnModel();
+    BpmnMemoryModel model = ModelHandler.getModel(EcoreUtil.getURI(getDiagram()));
     FlowElement sourceElement = model.getFlowElement(association.getSourceRef());
     FlowElement targetElement = model.getFlowElement(association.getTargetRef());
     if (sourceElement != null) {
@@ -214,22 +165,12 @@ public class DeleteFlowElementFeature extends DefaultDeleteFeature {
   }
   
   protected void removeArtifact(Artifact element) {
-    List<Process> processes = ModelHandler.getModel(EcoreUtil.getURI(getDiagram())).getBpmnModel().getProcesses();
-    for (Process process : processes) {
-      process.removeArtifact(element.getId());
-      removeArtifactInProcess(element, process);
-    }
-  }
-  
-  protected void removeArtifactInProcess(Artifact element, FlowElementsContainer parentElement) {
-    Collection<FlowElement> elementList = parentElement.getFlowElements();
-    for (FlowElement flowElement : elementList) {
-      if(flowElement instanceof SubProcess) {
-        SubProcess subProcess = (SubProcess) flowElement;
-        subProcess.removeArtifact(element.getId());
-        removeArtifactInProcess(element, subProcess);
-      }
+    BpmnModelIndex modelIndex = ModelHandler.getModel(EcoreUtil.getURI(getDiagram())).getModelIndex();
+    FlowElementsContainer container = modelIndex.getContainer(element.getId());
+    if (container != null) {
+      container.removeArtifact(element.getId());
     }
+    modelIndex.removeElement(element);
   }
 
   protected FlowElement getFlowElement(FlowElement flowElement) {
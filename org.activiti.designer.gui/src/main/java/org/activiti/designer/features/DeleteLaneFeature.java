@@ -14,18 +14,18 @@
 package org.activiti.designer.features;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 
 import org.activiti.bpmn.model.BaseElement;
 import org.activiti.bpmn.model.FlowElement;
+import org.activiti.bpmn.model.FlowElementsContainer;
 import org.activiti.bpmn.model.FlowNode;
 import org.activiti.bpmn.model.Lane;
 import org.activiti.bpmn.model.Pool;
 import org.activiti.bpmn.model.Process;
 import org.activiti.bpmn.model.SequenceFlow;
-import org.activiti.bpmn.model.SubProcess;
 import org.activiti.designer.util.editor.BpmnMemoryModel;
+import org.activiti.designer.util.editor.BpmnModelIndex;
 import org.activiti.designer.util.editor.ModelHandler;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.graphiti.features.IFeatureProvider;
@@ -117,10 +117,9 @@ public class DeleteLaneFeature extends DefaultDeleteFeature {
 		  
 		  List<FlowElement> toDeleteElements = new ArrayList<FlowElement>();
 		  for (String flowRef : lane.getFlowReferences()) {
-		    for (FlowElement flowElement : lane.getParentProcess().getFlowElements()) {
-		      if(flowRef.equalsIgnoreCase(flowElement.getId())) {
-		        toDeleteElements.add(flowElement);
-		      }
+		    FlowElement flowElement = model.getFlowElement(flowRef);
+		    if (flowElement != null) {
+		      toDeleteElements.add(flowElement);
 		    }
       }
 		  for (FlowElement subFlowElement : toDeleteElements) {
@@ -130,34 +129,22 @@ public class DeleteLaneFeature extends DefaultDeleteFeature {
 		    removeElement(subFlowElement);
       }
 		  lane.getParentProcess().getLanes().remove(lane);
+		  if (!model.getBpmnModel().getProcesses().contains(lane.getParentProcess())) {
+		    // the pool was removed together with its last lane
+		    model.getModelIndex().invalidate();
+		  }
 		}
 	}
 	
 	private void removeElement(BaseElement element) {
-  	List<Process> processes = ModelHandler.getModel(EcoreUtil.getURI(getDiagram())).getBpmnModel().getProcesses();
-    for (Process process : processes) {
-      process.removeFlowElement(element.getId());
-      removeElementInProcess(element, process);
-    }
+	  BpmnModelIndex modelIndex = ModelHandler.getModel(EcoreUtil.getURI(getDiagram())).getModelIndex();
+	  FlowElementsContainer container = modelIndex.getContainer(element.getId());
+	  if (container != null) {
+	    container.removeFlowElement(element.getId());
+	  }
+	  modelIndex.removeElement(element);
 	}
 	
-	private void removeElementInProcess(BaseElement element, BaseElement parentElement) {
-	  Collection<FlowElement> elementList = null;
-    if (parentElement instanceof Process) {
-      elementList = ((Process) parentElement).getFlowElements();
-    } else if (parentElement instanceof SubProcess) {
-      elementList = ((SubProcess) parentElement).getFlowElements();
-    }
-	  
-    for (FlowElement flowElement : elementList) {
-      if(flowElement instanceof SubProcess) {
-        SubProcess subProcess = (SubProcess) flowElement;
-        subProcess.removeFlowElement(element.getId());
-        removeElementInProcess(element, subProcess);
-      }
-    }
-  }
-	
 	private void deleteSequenceFlows(FlowNode flowNode) {
 	  List<SequenceFlow> toDeleteSequenceFlows = new ArrayList<SequenceFlow>();
     for (SequenceFlow incomingSequenceFlow : flowNode.getIncomingFlows()) {
@@ -67,6 +67,7 @@ public class DeletePoolFeature extends AbstractCustomFeature {
         Process process = model.getBpmnModel().getProcess(pool.getId());
         model.getBpmnModel().getProcesses().remove(process);
         model.getBpmnModel().getPools().remove(pool);
+        model.getModelIndex().invalidate();
         IRemoveContext rc = new RemoveContext(pictogramElement);
         IFeatureProvider featureProvider = getFeatureProvider();
         IRemoveFeature removeFeature = featureProvider.getRemoveFeature(rc);
@@ -136,6 +136,7 @@ public class MoveActivityFeature extends DefaultMoveShapeFeature {
         if (containerBo instanceof SubProcess) {
           SubProcess subProcess = (SubProcess) containerBo;
           subProcess.addFlowElement(activity);
+          model.getModelIndex().moveFlowNode(activity, subProcess, null);
           for (SequenceFlow flow : activity.getOutgoingFlows()) {
             subProcess.addFlowElement(flow);
           }
@@ -146,6 +147,7 @@ public class MoveActivityFeature extends DefaultMoveShapeFeature {
           Lane lane = (Lane) containerBo;
           lane.getFlowReferences().add(activity.getId());
           lane.getParentProcess().addFlowElement(activity);
+          model.getModelIndex().moveFlowNode(activity, lane.getParentProcess(), lane);
           for (SequenceFlow flow : activity.getOutgoingFlows()) {
             lane.getParentProcess().addFlowElement(flow);
           }
@@ -158,6 +160,7 @@ public class MoveActivityFeature extends DefaultMoveShapeFeature {
           model.addMainProcess();
         }
         model.getBpmnModel().getMainProcess().addFlowElement(activity);
+        model.getModelIndex().moveFlowNode(activity, model.getBpmnModel().getMainProcess(), null);
         for (SequenceFlow flow : activity.getOutgoingFlows()) {
           model.getBpmnModel().getMainProcess().addFlowElement(flow);
         }
@@ -76,6 +76,7 @@ public class MoveEventFeature extends DefaultMoveShapeFeature {
         if (containerBo instanceof SubProcess) {
           SubProcess subProcess = (SubProcess) containerBo;
           subProcess.addFlowElement(event);
+          model.getModelIndex().moveFlowNode(event, subProcess, null);
           for (SequenceFlow flow : event.getOutgoingFlows()) {
             subProcess.addFlowElement(flow);
           }
@@ -83,12 +84,14 @@ public class MoveEventFeature extends DefaultMoveShapeFeature {
           Lane lane = (Lane) containerBo;
           lane.getFlowReferences().add(event.getId());
           lane.getParentProcess().addFlowElement(event);
+          model.getModelIndex().moveFlowNode(event, lane.getParentProcess(), lane);
           for (SequenceFlow flow : event.getOutgoingFlows()) {
             lane.getParentProcess().addFlowElement(flow);
           }
         }
       } else {
         model.getBpmnModel().getMainProcess().addFlowElement(event);
+        model.getModelIndex().moveFlowNode(event, model.getBpmnModel().getMainProcess(), null);
         for (SequenceFlow flow : event.getOutgoingFlows()) {
           model.getBpmnModel().getMainProcess().addFlowElement(flow);
         }
@@ -76,6 +76,7 @@ public class MoveGatewayFeature extends DefaultMoveShapeFeature {
         if (containerBo instanceof SubProcess) {
           SubProcess subProcess = (SubProcess) containerBo;
           subProcess.addFlowElement(gateway);
+          model.getModelIndex().moveFlowNode(gateway, subProcess, null);
           for (SequenceFlow flow : gateway.getOutgoingFlows()) {
             subProcess.addFlowElement(flow);
           }
@@ -83,12 +84,14 @@ public class MoveGatewayFeature extends DefaultMoveShapeFeature {
           Lane lane = (Lane) containerBo;
           lane.getFlowReferences().add(gateway.getId());
           lane.getParentProcess().addFlowElement(gateway);
+          model.getModelIndex().moveFlowNode(gateway, lane.getParentProcess(), lane);
           for (SequenceFlow flow : gateway.getOutgoingFlows()) {
             lane.getParentProcess().addFlowElement(flow);
           }
         }
       } else {
         model.getBpmnModel().getMainProcess().addFlowElement(gateway);
+        model.getModelIndex().moveFlowNode(gateway, model.getBpmnModel().getMainProcess(), null);
         for (SequenceFlow flow : gateway.getOutgoingFlows()) {
           model.getBpmnModel().getMainProcess().addFlowElement(flow);
         }
@@ -15,6 +15,7 @@ package org.activiti.designer.features;
 
 import java.util.List;
 
+import org.activiti.bpmn.model.FlowElementsContainer;
 import org.activiti.bpmn.model.FlowNode;
 import org.activiti.bpmn.model.Lane;
 import org.activiti.bpmn.model.SequenceFlow;
@@ -102,19 +103,26 @@ public class ReconnectSequenceFlowFeature extends DefaultReconnectionFeature {
 			      }
 			    }
 			    
+			    FlowElementsContainer newFlowElementsContainer = null;
 			    if (newParentContainer instanceof Diagram) {
-			      ModelHandler.getModel(EcoreUtil.getURI(getDiagram())).getBpmnModel().getMainProcess().addFlowElement(flow);
+			      newFlowElementsContainer = model.getBpmnModel().getMainProcess();
 
 			    } else {
 			      Object parentObject = getBusinessObjectForPictogramElement(newParentContainer);
 			      if (parentObject instanceof SubProcess) {
-			        ((SubProcess) parentObject).addFlowElement(flow);
+			        newFlowElementsContainer = (SubProcess) parentObject;
 
 			      } else if (parentObject instanceof Lane) {
 			        Lane lane = (Lane) parentObject;
-			        lane.getParentProcess().addFlowElement(flow);
+			        newFlowElementsContainer = lane.getParentProcess();
 			      }
 			    }
+			    if (newFlowElementsContainer != null) {
+			      newFlowElementsContainer.addFlowElement(flow);
+			      model.getModelIndex().addElement(flow, newFlowElementsContainer);
+			    } else {
+			      model.getModelIndex().removeElement(flow);
+			    }
 			  }
 			  
 				// remove old source
@@ -0,0 +1,40 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.features;
+
+import org.activiti.designer.diagram.ActivitiBPMNFeatureProvider;
+import org.eclipse.graphiti.features.DefaultRemoveFeature;
+import org.eclipse.graphiti.features.IFeatureProvider;
+import org.eclipse.graphiti.features.context.IRemoveContext;
+
+/**
+ * Removes a pictogram element and keeps the business object index of the
+ * {@link ActivitiBPMNFeatureProvider} in sync. Delete features remove their
+ * pictogram elements through this feature as well.
+ */
+public class RemoveBaseElementFeature extends DefaultRemoveFeature {
+
+  public RemoveBaseElementFeature(IFeatureProvider fp) {
+    super(fp);
+  }
+
+  @Override
+  public void preRemove(IRemoveContext context) {
+    super.preRemove(context);
+
+    if (getFeatureProvider() instanceof ActivitiBPMNFeatureProvider) {
+      ((ActivitiBPMNFeatureProvider) getFeatureProvider()).unindexPictogramElement(context.getPictogramElement());
+    }
+  }
+}
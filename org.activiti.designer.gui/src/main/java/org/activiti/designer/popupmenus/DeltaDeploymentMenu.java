@@ -0,0 +1,26 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.popupmenus;
+
+/**
+ * Creates a deployment archive with only the processes and resources that changed since the last full deployment
+ * created by {@link DeploymentMenu}.
+ */
+public class DeltaDeploymentMenu extends DeploymentMenu {
+
+  @Override
+  protected boolean isDeltaDeployment() {
+    return true;
+  }
+}
@@ -0,0 +1,533 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.popupmenus;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.activiti.designer.popupmenus.DeploymentManifest.ManifestEntry;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * Builds a deployment archive (a .bar or .jar file) by streaming workspace files straight into the entries of the
+ * archive, without copying them to a temporary folder first.
+ *
+ * The SHA-256 hash of every entry is recorded in its comment and in the {@link DeploymentManifest} next to the
+ * archive. When all entries of the previous archive have the same names and hashes as the files to package, the
+ * previous archive is reused as it is and nothing is written. Files that didn't change size and time stamp since the
+ * previous build aren't even read.
+ */
+public class DeploymentArchiveBuilder {
+
+  /**
+   * The prefix of the entry comments that hold the hash of the content.
+   */
+  public static final String HASH_COMMENT_PREFIX = "sha256:";
+
+  private static final String PROCESS_SUFFIX = ".bpmn20.xml";
+  private static final int BUFFER_SIZE = 8192;
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private final File archiveFile;
+  private final Map<String, IFile> entries = new LinkedHashMap<String, IFile>();
+  private int cachedHashCount;
+
+  public DeploymentArchiveBuilder(final File archiveFile) {
+    this.archiveFile = archiveFile;
+  }
+
+  /**
+   * Adds a file to package under the entry name. Names use '/' as separator.
+   *
+   * @return false if there is an entry with the name already, the file isn't added then
+   */
+  public boolean addEntry(final String name, final IFile source) {
+    if (entries.containsKey(name)) {
+      return false;
+    }
+    entries.put(name, source);
+    return true;
+  }
+
+  /**
+   * @return the files to package by entry name, in the order they were added
+   */
+  public Map<String, IFile> getEntries() {
+    return Collections.unmodifiableMap(entries);
+  }
+
+  public File getArchiveFile() {
+    return archiveFile;
+  }
+
+  /**
+   * Hashes the files and writes the archive and its {@link DeploymentManifest manifest}, unless the previous archive
+   * has the same content.
+   */
+  public Result build(final IProgressMonitor monitor) throws CoreException, IOException {
+    monitor.beginTask("Building " + archiveFile.getName(), entries.size() * 2);
+    try {
+      final long hashStart = System.nanoTime();
+      final DeploymentManifest previousManifest = readManifest(archiveFile);
+      final DeploymentManifest manifest = createManifest(previousManifest, monitor);
+      final long hashMillis = toMillis(System.nanoTime() - hashStart);
+
+      final List<String> changedEntries = getChangedEntries(previousManifest, manifest);
+      final int removedEntryCount = getRemovedEntryCount(previousManifest, manifest);
+
+      if (changedEntries.isEmpty() && removedEntryCount == 0 && archiveFile.isFile()) {
+        // the manifest may be missing or have outdated time stamps
+        manifest.write(archiveFile);
+        return new Result(archiveFile, manifest, changedEntries, removedEntryCount, cachedHashCount, true, hashMillis, 0);
+      }
+
+      final long writeStart = System.nanoTime();
+      write(archiveFile, manifest, entries.keySet(), monitor);
+      manifest.write(archiveFile);
+      return new Result(archiveFile, manifest, changedEntries, removedEntryCount, cachedHashCount, false, hashMillis,
+              toMillis(System.nanoTime() - writeStart));
+    } finally {
+      monitor.done();
+    }
+  }
+
+  /**
+   * Writes an archive with only the processes that changed since the archive of this builder was built, for a
+   * deployment of only the changed processes. A process changed when its process file or one of the resources it
+   * references changed, and it is packaged together with all of these resources, so the delta archive can be deployed
+   * on its own. Changed resources that no process references aren't packaged. The archive of this builder and its
+   * manifest stay as they are, so every delta is relative to the last full build. When no process changed, no delta
+   * archive is written and an earlier one is deleted.
+   */
+  public Result buildDelta(final File deltaArchiveFile, final IProgressMonitor monitor) throws CoreException, IOException {
+    monitor.beginTask("Building " + deltaArchiveFile.getName(), entries.size() * 2);
+    try {
+      final long hashStart = System.nanoTime();
+      final DeploymentManifest baseManifest = readManifest(archiveFile);
+      final DeploymentManifest manifest = createManifest(baseManifest, monitor);
+      final long hashMillis = toMillis(System.nanoTime() - hashStart);
+
+      final List<String> changedEntries = getChangedEntries(baseManifest, manifest);
+      final int removedEntryCount = getRemovedEntryCount(baseManifest, manifest);
+
+      final Set<String> deltaEntries = new LinkedHashSet<String>();
+      for (final String processName : getProcessEntries()) {
+        final Set<String> processEntries = getReferencedEntries(processName);
+        processEntries.add(processName);
+        if (!Collections.disjoint(processEntries, changedEntries)) {
+          deltaEntries.addAll(processEntries);
+        }
+      }
+
+      final DeploymentManifest deltaManifest = new DeploymentManifest();
+      for (final String name : deltaEntries) {
+        deltaManifest.put(manifest.get(name));
+      }
+
+      if (deltaEntries.isEmpty()) {
+        deltaArchiveFile.delete();
+        DeploymentManifest.getManifestFile(deltaArchiveFile).delete();
+        return new Result(deltaArchiveFile, deltaManifest, changedEntries, removedEntryCount, cachedHashCount, false, hashMillis, 0);
+      }
+
+      final long writeStart = System.nanoTime();
+      write(deltaArchiveFile, manifest, deltaEntries, monitor);
+      deltaManifest.write(deltaArchiveFile);
+      return new Result(deltaArchiveFile, deltaManifest, changedEntries, removedEntryCount, cachedHashCount, false, hashMillis,
+              toMillis(System.nanoTime() - writeStart));
+    } finally {
+      monitor.done();
+    }
+  }
+
+  private List<String> getProcessEntries() {
+    final List<String> result = new ArrayList<String>();
+    for (final String name : entries.keySet()) {
+      if (name.endsWith(PROCESS_SUFFIX)) {
+        result.add(name);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the entries the process references: the forms of its form keys, the rules if it has a business rule task
+   *         and its diagram images, which are named after the process file
+   */
+  private Set<String> getReferencedEntries(final String processName) throws CoreException, IOException {
+    final Set<String> formKeys = new HashSet<String>();
+    final boolean usesRules = readReferences(entries.get(processName), formKeys);
+    final String imagePrefix = processName.substring(0, processName.length() - PROCESS_SUFFIX.length()) + ".";
+
+    final Set<String> result = new LinkedHashSet<String>();
+    for (final String name : entries.keySet()) {
+      if (name.endsWith(".form")) {
+        for (final String formKey : formKeys) {
+          if (name.equals(formKey) || name.endsWith("/" + formKey) || formKey.endsWith("/" + name)) {
+            result.add(name);
+          }
+        }
+      } else if (name.endsWith(".drl")) {
+        if (usesRules) {
+          result.add(name);
+        }
+      } else if (name.endsWith(".png") && name.startsWith(imagePrefix)) {
+        result.add(name);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Collects the form keys of the process file.
+   *
+   * @return true if the process has a business rule task
+   */
+  private boolean readReferences(final IFile processFile, final Set<String> formKeys) throws CoreException, IOException {
+    boolean usesRules = false;
+    final InputStream in = processFile.getContents(true);
+    try {
+      final XMLStreamReader xtr = XMLInputFactory.newInstance().createXMLStreamReader(in);
+      try {
+        while (xtr.hasNext()) {
+          if (xtr.next() == XMLStreamConstants.START_ELEMENT) {
+            if ("businessRuleTask".equals(xtr.getLocalName())) {
+              usesRules = true;
+            }
+            for (int i = 0; i < xtr.getAttributeCount(); i++) {
+              if ("formKey".equals(xtr.getAttributeLocalName(i)) && xtr.getAttributeValue(i).length() > 0) {
+                formKeys.add(xtr.getAttributeValue(i));
+              }
+            }
+          }
+        }
+      } finally {
+        xtr.close();
+      }
+    } catch (XMLStreamException e) {
+      throw new IOException("Unable to read " + processFile.getName() + ": " + e.getMessage());
+    } finally {
+      in.close();
+    }
+    return usesRules;
+  }
+
+  /**
+   * @return the manifest of the archive. Without a manifest the hashes in the entry comments of the archive are used.
+   */
+  private DeploymentManifest readManifest(final File archive) {
+    final DeploymentManifest result = DeploymentManifest.read(archive);
+    if (result.isEmpty()) {
+      for (final Entry<String, String> hash : readHashes(archive).entrySet()) {
+        result.put(new ManifestEntry(hash.getKey(), hash.getValue(), -1, -1));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Hashes the files. The hash of a file with the same size and time stamp as in the previous manifest is taken from
+   * the previous manifest.
+   */
+  private DeploymentManifest createManifest(final DeploymentManifest previousManifest, final IProgressMonitor monitor) throws CoreException,
+          IOException {
+    cachedHashCount = 0;
+    final DeploymentManifest result = new DeploymentManifest();
+    for (final Entry<String, IFile> entry : entries.entrySet()) {
+      final IFile file = entry.getValue();
+      final long timeStamp = file.getLocalTimeStamp();
+      final long size = file.getLocation() != null ? file.getLocation().toFile().length() : -1;
+
+      final ManifestEntry previousEntry = previousManifest.get(entry.getKey());
+      if (previousEntry != null && size >= 0 && previousEntry.matches(size, timeStamp)) {
+        result.put(new ManifestEntry(entry.getKey(), previousEntry.getHash(), size, timeStamp));
+        cachedHashCount++;
+      } else {
+        result.put(new ManifestEntry(entry.getKey(), hash(file), size, timeStamp));
+      }
+      monitor.worked(1);
+    }
+    return result;
+  }
+
+  private List<String> getChangedEntries(final DeploymentManifest previousManifest, final DeploymentManifest manifest) {
+    final List<String> result = new ArrayList<String>();
+    for (final ManifestEntry entry : manifest.getEntries().values()) {
+      if (!entry.getHash().equals(previousManifest.getHash(entry.getName()))) {
+        result.add(entry.getName());
+      }
+    }
+    return result;
+  }
+
+  private int getRemovedEntryCount(final DeploymentManifest previousManifest, final DeploymentManifest manifest) {
+    int result = 0;
+    for (final String previousName : previousManifest.getEntries().keySet()) {
+      if (manifest.get(previousName) == null) {
+        result++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Writes the entries to a temporary file next to the archive first, so a failed build doesn't leave a broken
+   * archive.
+   */
+  private void write(final File archive, final DeploymentManifest manifest, final Collection<String> names, final IProgressMonitor monitor)
+          throws CoreException, IOException {
+    final File tempFile = new File(archive.getPath() + ".tmp");
+    final ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), BUFFER_SIZE));
+    boolean written = false;
+    try {
+      final byte[] buffer = new byte[BUFFER_SIZE];
+      for (final String name : names) {
+        final IFile source = entries.get(name);
+        final ZipEntry zipEntry = new ZipEntry(name);
+        zipEntry.setComment(HASH_COMMENT_PREFIX + manifest.getHash(name));
+        final long localTimeStamp = source.getLocalTimeStamp();
+        if (localTimeStamp > 0) {
+          zipEntry.setTime(localTimeStamp);
+        }
+        out.putNextEntry(zipEntry);
+        copy(source, out, buffer);
+        out.closeEntry();
+        monitor.worked(1);
+      }
+      out.close();
+      written = true;
+    } finally {
+      if (!written) {
+        try {
+          out.close();
+        } catch (IOException e) {
+          // intentionally ignored, the original exception is more important
+        }
+        tempFile.delete();
+      }
+    }
+
+    if (archive.exists() && !archive.delete()) {
+      tempFile.delete();
+      throw new IOException("Unable to replace " + archive.getPath());
+    }
+    if (!tempFile.renameTo(archive)) {
+      throw new IOException("Unable to rename " + tempFile.getPath() + " to " + archive.getName());
+    }
+  }
+
+  private void copy(final IFile source, final OutputStream out, final byte[] buffer) throws CoreException, IOException {
+    final InputStream in = source.getContents(true);
+    try {
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * @return the SHA-256 hash of the content of the file, in hexadecimal
+   */
+  public static String hash(final IFile file) throws CoreException, IOException {
+    final MessageDigest digest = createDigest();
+    final InputStream in = file.getContents(true);
+    try {
+      final byte[] buffer = new byte[BUFFER_SIZE];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    } finally {
+      in.close();
+    }
+    return toHex(digest.digest());
+  }
+
+  /**
+   * @return the hashes of the entries of the archive by entry name, empty if the archive doesn't exist or can't be
+   *         read. Entries without a hash get an empty hash, which never matches.
+   */
+  public static Map<String, String> readHashes(final File archive) {
+    final Map<String, String> result = new HashMap<String, String>();
+    if (!archive.isFile()) {
+      return result;
+    }
+    ZipFile zipFile = null;
+    try {
+      zipFile = new ZipFile(archive);
+      final Enumeration< ? extends ZipEntry> zipEntries = zipFile.entries();
+      while (zipEntries.hasMoreElements()) {
+        final ZipEntry zipEntry = zipEntries.nextElement();
+        final String comment = zipEntry.getComment();
+        if (comment != null && comment.startsWith(HASH_COMMENT_PREFIX)) {
+          result.put(zipEntry.getName(), comment.substring(HASH_COMMENT_PREFIX.length()));
+        } else {
+          result.put(zipEntry.getName(), "");
+        }
+      }
+    } catch (IOException e) {
+      // a broken archive is rebuilt
+      result.clear();
+    } finally {
+      if (zipFile != null) {
+        try {
+          zipFile.close();
+        } catch (IOException e) {
+          // intentionally ignored
+        }
+      }
+    }
+    return result;
+  }
+
+  private static MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static String toHex(final byte[] bytes) {
+    final char[] result = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      result[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xf];
+      result[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xf];
+    }
+    return new String(result);
+  }
+
+  private static long toMillis(final long nanos) {
+    return nanos / 1000000L;
+  }
+
+  /**
+   * The outcome of a build, with the time spent hashing and writing.
+   */
+  public static class Result {
+
+    private final File archiveFile;
+    private final DeploymentManifest manifest;
+    private final List<String> changedEntries;
+    private final int removedEntryCount;
+    private final int cachedHashCount;
+    private final boolean reused;
+    private final long hashMillis;
+    private final long writeMillis;
+
+    Result(final File archiveFile, final DeploymentManifest manifest, final List<String> changedEntries, final int removedEntryCount,
+            final int cachedHashCount, final boolean reused, final long hashMillis, final long writeMillis) {
+      this.archiveFile = archiveFile;
+      this.manifest = manifest;
+      this.changedEntries = Collections.unmodifiableList(changedEntries);
+      this.removedEntryCount = removedEntryCount;
+      this.cachedHashCount = cachedHashCount;
+      this.reused = reused;
+      this.hashMillis = hashMillis;
+      this.writeMillis = writeMillis;
+    }
+
+    public File getArchiveFile() {
+      return archiveFile;
+    }
+
+    /**
+     * @return the manifest of the entries of the archive
+     */
+    public DeploymentManifest getManifest() {
+      return manifest;
+    }
+
+    public int getEntryCount() {
+      return manifest.getEntries().size();
+    }
+
+    /**
+     * @return the names of the entries that are new or have a different content than in the previous archive
+     */
+    public List<String> getChangedEntries() {
+      return changedEntries;
+    }
+
+    public int getChangedEntryCount() {
+      return changedEntries.size();
+    }
+
+    /**
+     * @return the number of entries of the previous archive that aren't in the archive anymore
+     */
+    public int getRemovedEntryCount() {
+      return removedEntryCount;
+    }
+
+    /**
+     * @return the number of files of which the hash was taken from the previous manifest instead of reading the file
+     */
+    public int getCachedHashCount() {
+      return cachedHashCount;
+    }
+
+    /**
+     * @return true if the previous archive had the same content and was kept
+     */
+    public boolean isReused() {
+      return reused;
+    }
+
+    public long getHashMillis() {
+      return hashMillis;
+    }
+
+    public long getWriteMillis() {
+      return writeMillis;
+    }
+
+    @Override
+    public String toString() {
+      return archiveFile.getName() + ": " + getEntryCount() + " entries, " + changedEntries.size() + " changed, " + removedEntryCount + " removed, "
+              + (reused ? "reused" : "written in " + writeMillis + " ms") + ", hashed in " + hashMillis + " ms (" + cachedHashCount + " cached)";
+    }
+  }
+}
@@ -0,0 +1,178 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.popupmenus;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The manifest written next to a deployment archive: the SHA-256 hash of every entry, with the size and the time
+ * stamp of the file it was read from. The hash of a file that has the same size and time stamp as in the manifest is
+ * taken from the manifest instead of reading the file again.
+ *
+ * The manifest is a text file with a line per entry: hash, size, time stamp and entry name, separated by a space.
+ */
+public class DeploymentManifest {
+
+  /**
+   * The suffix of the manifest file, which is named after the archive.
+   */
+  public static final String FILE_SUFFIX = ".manifest";
+
+  private static final String HEADER = "# Activiti deployment manifest: sha256 size timestamp entry";
+
+  private final Map<String, ManifestEntry> entries = new LinkedHashMap<String, ManifestEntry>();
+
+  /**
+   * @return the manifest file of the archive
+   */
+  public static File getManifestFile(final File archiveFile) {
+    return new File(archiveFile.getPath() + FILE_SUFFIX);
+  }
+
+  /**
+   * Reads the manifest of the archive. The manifest is empty if there is no manifest or if it can't be read, which
+   * makes every entry count as changed.
+   */
+  public static DeploymentManifest read(final File archiveFile) {
+    final DeploymentManifest result = new DeploymentManifest();
+    final File manifestFile = getManifestFile(archiveFile);
+    if (!manifestFile.isFile() || !archiveFile.isFile()) {
+      return result;
+    }
+
+    BufferedReader reader = null;
+    try {
+      reader = new BufferedReader(new InputStreamReader(new FileInputStream(manifestFile), "UTF-8"));
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.length() == 0 || line.startsWith("#")) {
+          continue;
+        }
+        final String[] parts = line.split(" ", 4);
+        if (parts.length == 4) {
+          result.put(new ManifestEntry(parts[3], parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2])));
+        }
+      }
+    } catch (IOException e) {
+      result.entries.clear();
+    } catch (NumberFormatException e) {
+      result.entries.clear();
+    } finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (IOException e) {
+          // intentionally ignored
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Writes the manifest next to the archive.
+   */
+  public void write(final File archiveFile) throws IOException {
+    final Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(getManifestFile(archiveFile)), "UTF-8"));
+    try {
+      writer.write(HEADER);
+      writer.write('\n');
+      for (final ManifestEntry entry : entries.values()) {
+        writer.write(entry.getHash() + " " + entry.getSize() + " " + entry.getTimeStamp() + " " + entry.getName());
+        writer.write('\n');
+      }
+    } finally {
+      writer.close();
+    }
+  }
+
+  public void put(final ManifestEntry entry) {
+    entries.put(entry.getName(), entry);
+  }
+
+  public ManifestEntry get(final String name) {
+    return entries.get(name);
+  }
+
+  /**
+   * @return the entries by name
+   */
+  public Map<String, ManifestEntry> getEntries() {
+    return Collections.unmodifiableMap(entries);
+  }
+
+  /**
+   * @return the hash of the entry in the manifest, or null if the manifest has no entry with the name
+   */
+  public String getHash(final String name) {
+    final ManifestEntry entry = entries.get(name);
+    return entry != null ? entry.getHash() : null;
+  }
+
+  public boolean isEmpty() {
+    return entries.isEmpty();
+  }
+
+  /**
+   * An entry of the archive with the hash of its content, and the size and time stamp of the file it was read from.
+   */
+  public static class ManifestEntry {
+
+    private final String name;
+    private final String hash;
+    private final long size;
+    private final long timeStamp;
+
+    public ManifestEntry(final String name, final String hash, final long size, final long timeStamp) {
+      this.name = name;
+      this.hash = hash;
+      this.size = size;
+      this.timeStamp = timeStamp;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getHash() {
+      return hash;
+    }
+
+    public long getSize() {
+      return size;
+    }
+
+    public long getTimeStamp() {
+      return timeStamp;
+    }
+
+    /**
+     * @return true if the file still has the size and time stamp of the entry, so the hash can be reused
+     */
+    public boolean matches(final long fileSize, final long fileTimeStamp) {
+      return fileSize == size && fileTimeStamp == timeStamp && fileTimeStamp > 0;
+    }
+  }
+}
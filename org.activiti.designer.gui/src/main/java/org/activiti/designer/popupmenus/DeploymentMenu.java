@@ -13,17 +13,12 @@
  */
 package org.activiti.designer.popupmenus;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.lang.reflect.InvocationTargetException;
-import java.text.CharacterIterator;
-import java.text.StringCharacterIterator;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
+import org.activiti.designer.eclipse.Logger;
 import org.activiti.designer.util.ActivitiConstants;
 import org.apache.commons.lang.StringUtils;
 import org.eclipse.core.resources.IContainer;
@@ -31,8 +26,6 @@ import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
-import org.eclipse.core.resources.IWorkspace;
-import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
@@ -47,6 +40,11 @@ import org.eclipse.ui.progress.IProgressService;
 
 public class DeploymentMenu implements org.eclipse.ui.IObjectActionDelegate{
 
+	/**
+	 * The suffix of the name of the archive of a delta deployment.
+	 */
+	public static final String DELTA_SUFFIX = "-delta";
+
 	ISelection fSelection;
 	List<IFile> memberList;
 
@@ -72,101 +70,107 @@ public class DeploymentMenu implements org.eclipse.ui.IObjectActionDelegate{
           
           try {
             IProject project = javaProject.getProject();
-            
-        		// Create folder structures
+            final long collectStart = System.nanoTime();
+
             IFolder deploymentFolder = project.getFolder("deployment");
-            if (deploymentFolder.exists()) {
-              deploymentFolder.delete(true, new NullProgressMonitor());
-            }
-        
-            deploymentFolder.create(true, true, new NullProgressMonitor());
-            
-            IFolder tempbarFolder = project.getFolder("tempbar");
-            if (tempbarFolder.exists()) {
-              tempbarFolder.delete(true, new NullProgressMonitor());
+            if (!deploymentFolder.exists()) {
+              deploymentFolder.create(true, true, new NullProgressMonitor());
             }
-        
-            tempbarFolder.create(true, true, new NullProgressMonitor());
-            
-            IFolder tempclassesFolder = project.getFolder("tempclasses");
-            if (tempclassesFolder.exists()) {
-              tempclassesFolder.delete(true, new NullProgressMonitor());
-            }
-        
-            tempclassesFolder.create(true, true, new NullProgressMonitor());
-        
+
             // processdefinition
             String processName = "";
             memberList = new ArrayList<IFile>();
             getMembersWithFilter(project, ".bpmn");
             getMembersWithFilter(project, ".bpmn20.xml");
             if(memberList.size() > 0) {
-              for (IFile bpmnResource : memberList) {
+              final List<IFile> bpmnResources = memberList;
+              for (IFile bpmnResource : bpmnResources) {
                 String bpmnFilename = bpmnResource.getName();
                 if(processName.length() == 0)
                   processName = bpmnFilename.substring(0, bpmnFilename.indexOf("."));
+              }
+
+              final DeploymentArchiveBuilder barBuilder = new DeploymentArchiveBuilder(
+                      deploymentFolder.getFile(processName + ".bar").getLocation().toFile());
+              for (IFile bpmnResource : bpmnResources) {
+                String bpmnFilename = bpmnResource.getName();
                 
                 //TODO temp fix because .bpmn files are not parsed by the Activiti Engine version 5.9. This is fixed for 5.10
                 if(bpmnFilename.endsWith(".bpmn")) {
                 	bpmnFilename = bpmnFilename.substring(0, bpmnFilename.lastIndexOf(".")) + ".bpmn20.xml";
                 }
                 
-                bpmnResource.copy(tempbarFolder.getFile(bpmnFilename).getFullPath(), true, new NullProgressMonitor());
+                barBuilder.addEntry(bpmnFilename, bpmnResource);
               }
           
               // task forms
               memberList = new ArrayList<IFile>();
               getMembersWithFilter(project, ".form");
               for (IFile formResource : memberList) {
-                String formFilename = formResource.getName();
-                IPath packagePath = formResource.getFullPath().removeFirstSegments(4).removeLastSegments(1);
-                IFolder newPackageFolder = tempbarFolder.getFolder(packagePath);
-                createFolderStructure(newPackageFolder);
-                formResource.copy(newPackageFolder.getFile(formFilename).getFullPath(), true, new NullProgressMonitor());
+                IPath packagePath = formResource.getFullPath().removeFirstSegments(4);
+                barBuilder.addEntry(packagePath.toString(), formResource);
               }
               
               // png
               memberList = new ArrayList<IFile>();
               getMembersWithFilter(project, ".png");
               for (IFile pngResource : memberList) {
-                String pngFilename = pngResource.getName();
-                pngResource.copy(tempbarFolder.getFile(pngFilename).getFullPath(), true, new NullProgressMonitor());
+                barBuilder.addEntry(pngResource.getName(), pngResource);
               }
               
               // drl
               memberList = new ArrayList<IFile>();
               getMembersWithFilter(project, ".drl");
               for (IFile drlResource : memberList) {
-                String drlFilename = drlResource.getName();
-                drlResource.copy(tempbarFolder.getFile(drlFilename).getFullPath(), true, new NullProgressMonitor());
+                barBuilder.addEntry(drlResource.getName(), drlResource);
               }
-          
-              compressPackage(deploymentFolder, tempbarFolder, processName + ".bar");
-              
+
               IFolder classesFolder = project.getFolder("target/classes");
               memberList = new ArrayList<IFile>();
               getMembersWithFilter(classesFolder, ".class");
               getMembersWithFilter(classesFolder, ".gif");
+              DeploymentArchiveBuilder jarBuilder = null;
               if(memberList.size() > 0) {
+                jarBuilder = new DeploymentArchiveBuilder(deploymentFolder.getFile(processName + ".jar").getLocation().toFile());
                 for (IFile classResource : memberList) {
-                  String classFilename = classResource.getName();
-                  IPath packagePath = classResource.getFullPath().removeFirstSegments(3).removeLastSegments(1);
-                  IFolder newPackageFolder = tempclassesFolder.getFolder(packagePath);
-                  createFolderStructure(newPackageFolder);
-                  classResource.copy(newPackageFolder.getFile(classFilename).getFullPath(), true, new NullProgressMonitor());
+                  IPath packagePath = classResource.getFullPath().removeFirstSegments(3);
+                  jarBuilder.addEntry(packagePath.toString(), classResource);
                 }
-                compressPackage(deploymentFolder, tempclassesFolder, processName + ".jar");
+              }
+              final long collectMillis = (System.nanoTime() - collectStart) / 1000000L;
+
+              final DeploymentArchiveBuilder.Result barResult;
+              if (isDeltaDeployment()) {
+                barResult = barBuilder.buildDelta(deploymentFolder.getFile(processName + DELTA_SUFFIX + ".bar").getLocation().toFile(),
+                        new NullProgressMonitor());
+              } else {
+                barResult = barBuilder.build(new NullProgressMonitor());
+              }
+              DeploymentArchiveBuilder.Result jarResult = null;
+              if (jarBuilder != null) {
+                jarResult = jarBuilder.build(new NullProgressMonitor());
+              } else {
+                // the deployment folder isn't emptied anymore, so a jar of an earlier deployment has to go
+                IFile jarFile = deploymentFolder.getFile(processName + ".jar");
+                if (jarFile.exists()) {
+                  jarFile.delete(true, new NullProgressMonitor());
+                }
+                DeploymentManifest.getManifestFile(jarFile.getLocation().toFile()).delete();
               }
 
-              try {
-                tempbarFolder.delete(true, null);
-                tempclassesFolder.delete(true, null);
-              } catch(Exception e) {
-                e.printStackTrace();
-              }
-          
               // refresh the output folder to reflect changes
+              final long refreshStart = System.nanoTime();
               deploymentFolder.refreshLocal(IResource.DEPTH_INFINITE, new NullProgressMonitor());
+              final long refreshMillis = (System.nanoTime() - refreshStart) / 1000000L;
+
+              Logger.logInfo("Deployment of " + project.getName() + ": collected resources in " + collectMillis + " ms, " + barResult
+                      + (jarResult != null ? ", " + jarResult : "") + ", refreshed in " + refreshMillis + " ms");
+              // a delta holds the processes of which a resource changed as well
+              final List<String> changedProcesses = getChangedProcesses(isDeltaDeployment() ? barResult.getManifest().getEntries().keySet()
+                      : barResult.getChangedEntries());
+              if (!changedProcesses.isEmpty()) {
+                Logger.logInfo("Changed processes of " + project.getName() + ": " + StringUtils.join(changedProcesses, ", "));
+              }
             }
             
           } catch(Exception e) {
@@ -179,13 +183,21 @@ public class DeploymentMenu implements org.eclipse.ui.IObjectActionDelegate{
     }
   }
 	
-	private void createFolderStructure(IFolder newFolder) throws Exception {
-	  if(newFolder.exists()) return;
-	  
-	  if(newFolder.getParent().exists() == false) {
-	    createFolderStructure((IFolder) newFolder.getParent());
+	/**
+	 * @return true to package only the processes and resources that changed since the last full deployment
+	 */
+	protected boolean isDeltaDeployment() {
+	  return false;
+	}
+	
+	private List<String> getChangedProcesses(final Collection<String> entryNames) {
+	  final List<String> changedProcesses = new ArrayList<String>();
+	  for (final String name : entryNames) {
+	    if (name.endsWith(".bpmn20.xml")) {
+	      changedProcesses.add(name);
+	    }
 	  }
-	  newFolder.create(true, true, new NullProgressMonitor());
+	  return changedProcesses;
 	}
 	
 	private void getMembersWithFilter(IContainer root, String extension) {
@@ -204,44 +216,6 @@ public class DeploymentMenu implements org.eclipse.ui.IObjectActionDelegate{
 	  }
 	}
 	
-	private void compressPackage(final IFolder destination, final IFolder folderToPackage, final String fileName) throws Exception {
-    final IWorkspace workspace = ResourcesPlugin.getWorkspace();
-    File base = folderToPackage.getLocation().toFile();
-    final IFile archiveFile = workspace.getRoot().getFile(
-            destination.getFile(fileName).getFullPath());
-    final ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archiveFile.getLocation().toFile()));
-    final String absoluteDirPathToStrip = folderToPackage.getLocation().toFile().getAbsolutePath() + File.separator;
-    try {
-      zipDirectory(out, base, absoluteDirPathToStrip);
-    } finally {
-      if (out != null) {
-        out.close();
-      }
-    }
-  }
-	
-	private void zipDirectory(final ZipOutputStream out, final File base, final String absoluteDirPathToStrip) throws Exception {
-    File[] reportFiles = base.listFiles();
-    for (final File file : reportFiles) {
-      if (file.isDirectory()) {
-        zipDirectory(out, file, absoluteDirPathToStrip);
-        continue;
-      }
-      String entryName = StringUtils.removeStart(file.getAbsolutePath(), absoluteDirPathToStrip);
-      entryName = backlashReplace(entryName);
-      ZipEntry entry = new ZipEntry(entryName);
-      out.putNextEntry(entry);
-      if (file.isFile()) {
-        FileInputStream fin = new FileInputStream(file);
-        byte[] fileContent = new byte[(int)file.length()];
-        fin.read(fileContent);
-        out.write(fileContent);
-        fin.close();
-      }
-      out.closeEntry();
-    }
-  }
-
 	@Override
 	public void selectionChanged(IAction action, ISelection selection) {
 		fSelection = selection;
@@ -250,24 +224,5 @@ public class DeploymentMenu implements org.eclipse.ui.IObjectActionDelegate{
   @Override
   public void setActivePart(IAction action, IWorkbenchPart part) {
   }
-  
-  private String backlashReplace(String myStr){
-	  final StringBuilder result = new StringBuilder();
-	  final StringCharacterIterator iterator = new StringCharacterIterator(myStr);
-	  char character =  iterator.current();
-	  while (character != CharacterIterator.DONE ){
-	     
-		  if (character == '\\') {
-	         result.append("/");
-	      }
-	      else {
-	        result.append(character);
-	      }
-
-	      
-	      character = iterator.next();
-	  }
-	  return result.toString();
-  }
 }
 
@@ -22,6 +22,7 @@ import org.activiti.bpmn.model.ServiceTask;
 import org.activiti.designer.command.BpmnProcessModelUpdater;
 import org.activiti.designer.command.UpdateBusinessObjectCommand;
 import org.activiti.designer.diagram.ActivitiBPMNFeatureProvider;
+import org.activiti.designer.util.eclipse.DeferredCommit;
 import org.activiti.designer.util.editor.BpmnMemoryModel;
 import org.activiti.designer.util.editor.BpmnMemoryModel.BpmnModelListener;
 import org.activiti.designer.util.editor.ModelHandler;
@@ -65,6 +66,11 @@ public abstract class ActivitiPropertySection extends BaseActivitiPropertySectio
    */
   private BpmnProcessModelUpdater currentUpdater;
   
+  /**
+   * Edits of the same business-object in quick succession are committed together, in one command.
+   */
+  private DeferredCommit pendingCommit;
+  
   /**
    * Shared focus-listener added to all controls created. Makes sure value-updates are performed
    * and includes a fix for the focus-issue on Eclipse Juno.
@@ -80,6 +86,18 @@ public abstract class ActivitiPropertySection extends BaseActivitiPropertySectio
     
     controls = new ArrayList<Control>();
     
+    pendingCommit = new DeferredCommit(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          modelChangesEnabled = false;
+          executeModelUpdater();
+        } finally {
+          modelChangesEnabled = true;
+        }
+      }
+    });
+    
     focusListener = new FocusListener() {
       @Override
       public void focusLost(FocusEvent e) {
@@ -93,7 +111,7 @@ public abstract class ActivitiPropertySection extends BaseActivitiPropertySectio
         if(e.widget instanceof Text) {
           // Fix for issue in Eclipse Juno where the text is filled with value from the previous active
           // text-control in some cases. We set the value based on the model on focus.
-          Object bo = getBusinessObject(getSelectedPictogramElement());
+          Object bo = pendingCommit.getEditedObject(getBusinessObject(getSelectedPictogramElement()));
           if (bo != null) {
             populateControl((Control) e.widget, bo);
           } else {
@@ -127,6 +145,7 @@ public abstract class ActivitiPropertySection extends BaseActivitiPropertySectio
   
   @Override
   public void aboutToBeHidden() {
+    pendingCommit.commitNow();
     super.aboutToBeHidden();
     BpmnMemoryModel model = (ModelHandler.getModel(EcoreUtil.getURI(getDiagram())));
     if (model != null) {
@@ -143,8 +162,16 @@ public abstract class ActivitiPropertySection extends BaseActivitiPropertySectio
     }
   }
   
+  @Override
+  public void dispose() {
+    pendingCommit.dispose();
+    super.dispose();
+  }
+  
   @Override
   public void refresh() {
+    // Edits made before the refresh are committed first, they would be lost otherwise
+    pendingCommit.commitNow();
     PictogramElement element = getSelectedPictogramElement();
     Object bo = getBusinessObject(element);
     resetModelUpdater();
@@ -207,8 +234,10 @@ public abstract class ActivitiPropertySection extends BaseActivitiPropertySectio
   protected void flushControlValue(final Control control) {
     final Object bo = getBusinessObject(getSelectedPictogramElement());
     if (bo != null) {
-      // Get the current value from the model
-      Object oldValue = getModelValueForControl(control, bo);
+      pendingCommit.commitOtherThan(bo);
+      
+      // Get the current value from the model, including the edits that weren't committed yet
+      Object oldValue = getModelValueForControl(control, pendingCommit.getEditedObject(bo));
 
       // Compare the old value with the new value from the control
       Object newValue = getValueFromControl(control);
@@ -221,7 +250,9 @@ public abstract class ActivitiPropertySection extends BaseActivitiPropertySectio
           // Perform the changes on the updatable BO instead of the original
           Object updatableBo = updater.getUpdatableBusinessObject();
           storeValueInModel(control, updatableBo);
-          executeModelUpdater();
+          
+          // The change is committed after a short delay, together with the changes that follow it
+          pendingCommit.schedule(formComposite.getDisplay(), getTransactionalEditingDomain(), bo, updatableBo);
           
         } finally {
           // Re-enable model-change listener after our change has been applied
@@ -236,11 +267,13 @@ public abstract class ActivitiPropertySection extends BaseActivitiPropertySectio
    * edition domain. 
    */
   public void executeModelUpdater() {
+    pendingCommit.clear();
+    
     // Make sure the update of the model is done in the transactional editing domain
     // to allow for "undoing" changes
     TransactionalEditingDomain editingDomain = getTransactionalEditingDomain();
     
-    if (currentUpdater != null) {
+    if (currentUpdater != null && editingDomain != null) {
       // Do the actual changes to the business-object in a command
       editingDomain.getCommandStack().execute(new UpdateBusinessObjectCommand(editingDomain, currentUpdater));
     }
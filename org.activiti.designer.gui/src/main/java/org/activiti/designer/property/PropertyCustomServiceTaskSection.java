@@ -13,9 +13,7 @@
  */
 package org.activiti.designer.property;
 
-import java.lang.reflect.Field;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import org.activiti.bpmn.model.ComplexDataType;
@@ -38,6 +36,8 @@ import org.activiti.designer.property.extension.field.CustomPropertyRadioChoiceF
 import org.activiti.designer.property.extension.field.CustomPropertyTextField;
 import org.activiti.designer.property.extension.field.FieldInfo;
 import org.activiti.designer.util.eclipse.ActivitiUiUtil;
+import org.activiti.designer.util.extension.CustomPropertyDescriptor;
+import org.activiti.designer.util.extension.ExtensionDescriptor;
 import org.activiti.designer.util.extension.ExtensionUtil;
 import org.activiti.designer.util.extension.FormToolTip;
 import org.activiti.designer.util.preferences.Preferences;
@@ -135,36 +135,17 @@ public class PropertyCustomServiceTaskSection extends AbstractPropertyCustomTask
 
       if (targetTask != null) {
 
-        final List<Class<CustomServiceTask>> classHierarchy = new ArrayList<Class<CustomServiceTask>>();
+        final ExtensionDescriptor descriptor = ExtensionDescriptor.forClass(targetTask.getClass());
         final List<FieldInfo> fieldInfoObjects = new ArrayList<FieldInfo>();
 
-        Class clazz = targetTask.getClass();
-        classHierarchy.add(clazz);
-
-        boolean hierarchyOpen = true;
-        while (hierarchyOpen) {
-          clazz = clazz.getSuperclass();
-          if (CustomServiceTask.class.isAssignableFrom(clazz)) {
-            classHierarchy.add(clazz);
-          } else {
-            hierarchyOpen = false;
-          }
-        }
-
-        // only process properties if the type is not an expression.
+        // only process properties if the type is not an expression. The
+        // descriptor holds the fields in the correct order
         if (taskNotExpressionImplementationType(targetTask)) {
-          for (final Class<CustomServiceTask> currentClass : classHierarchy) {
-            for (final Field field : currentClass.getDeclaredFields()) {
-              if (field.isAnnotationPresent(Property.class)) {
-                fieldInfoObjects.add(new FieldInfo(field));
-              }
-            }
+          for (final CustomPropertyDescriptor propertyDescriptor : descriptor.getSortedProperties()) {
+            fieldInfoObjects.add(new FieldInfo(propertyDescriptor));
           }
         }
 
-        // Sort the list so the fields are in the correct order
-        Collections.sort(fieldInfoObjects);
-
         Control previousAnchor = workParent;
 
         final CLabel labelNodeName = factory.createCLabel(workParent, targetTask.getName(), SWT.NONE);
@@ -175,8 +156,8 @@ public class PropertyCustomServiceTaskSection extends AbstractPropertyCustomTask
 
         previousAnchor = labelNodeName;
 
-        if (targetTask.getClass().isAnnotationPresent(Help.class)) {
-          final Help helpAnnotation = targetTask.getClass().getAnnotation(Help.class);
+        if (descriptor.getHelp() != null) {
+          final Help helpAnnotation = descriptor.getHelp();
 
           final CLabel labelShort = factory.createCLabel(workParent, helpAnnotation.displayHelpShort(), SWT.WRAP);
 
@@ -208,7 +189,7 @@ public class PropertyCustomServiceTaskSection extends AbstractPropertyCustomTask
             switch (property.type()) {
   
             case TEXT:
-              createdCustomPropertyField = new CustomPropertyTextField(this, serviceTask, fieldInfo.getField());
+              createdCustomPropertyField = new CustomPropertyTextField(this, serviceTask, fieldInfo.getDescriptor());
               createdControl = createdCustomPropertyField.render(workParent, factory, listener);
               data = new FormData();
               data.top = new FormAttachment(previousAnchor, VSPACE);
@@ -218,7 +199,7 @@ public class PropertyCustomServiceTaskSection extends AbstractPropertyCustomTask
               break;
   
             case MULTILINE_TEXT:
-              createdCustomPropertyField = new CustomPropertyMultilineTextField(this, serviceTask, fieldInfo.getField());
+              createdCustomPropertyField = new CustomPropertyMultilineTextField(this, serviceTask, fieldInfo.getDescriptor());
               createdControl = createdCustomPropertyField.render(workParent, factory, listener);
               data = new FormData();
               data.top = new FormAttachment(previousAnchor, VSPACE);
@@ -229,7 +210,7 @@ public class PropertyCustomServiceTaskSection extends AbstractPropertyCustomTask
               break;
   
             case PERIOD:
-              createdCustomPropertyField = new CustomPropertyPeriodField(this, serviceTask, fieldInfo.getField());
+              createdCustomPropertyField = new CustomPropertyPeriodField(this, serviceTask, fieldInfo.getDescriptor());
               createdControl = createdCustomPropertyField.render(workParent, factory, listener);
               data = new FormData();
               data.top = new FormAttachment(previousAnchor, VSPACE);
@@ -239,7 +220,7 @@ public class PropertyCustomServiceTaskSection extends AbstractPropertyCustomTask
               break;
   
             case BOOLEAN_CHOICE:
-              createdCustomPropertyField = new CustomPropertyBooleanChoiceField(this, serviceTask, fieldInfo.getField());
+              createdCustomPropertyField = new CustomPropertyBooleanChoiceField(this, serviceTask, fieldInfo.getDescriptor());
               createdControl = createdCustomPropertyField.render(workParent, factory, listener);
               data = new FormData();
               data.top = new FormAttachment(previousAnchor, VSPACE);
@@ -249,7 +230,7 @@ public class PropertyCustomServiceTaskSection extends AbstractPropertyCustomTask
               break;
   
             case COMBOBOX_CHOICE:
-              createdCustomPropertyField = new CustomPropertyComboboxChoiceField(this, serviceTask, fieldInfo.getField());
+              createdCustomPropertyField = new CustomPropertyComboboxChoiceField(this, serviceTask, fieldInfo.getDescriptor());
               createdControl = createdCustomPropertyField.render(workParent, factory, listener);
               data = new FormData();
               data.top = new FormAttachment(previousAnchor, VSPACE);
@@ -259,7 +240,7 @@ public class PropertyCustomServiceTaskSection extends AbstractPropertyCustomTask
               break;
   
             case RADIO_CHOICE:
-              createdCustomPropertyField = new CustomPropertyRadioChoiceField(this, serviceTask, fieldInfo.getField());
+              createdCustomPropertyField = new CustomPropertyRadioChoiceField(this, serviceTask, fieldInfo.getDescriptor());
               createdControl = createdCustomPropertyField.render(workParent, factory, listener);
               data = new FormData();
               data.top = new FormAttachment(previousAnchor, VSPACE);
@@ -269,7 +250,7 @@ public class PropertyCustomServiceTaskSection extends AbstractPropertyCustomTask
               break;
   
             case DATE_PICKER:
-              createdCustomPropertyField = new CustomPropertyDatePickerField(this, serviceTask, fieldInfo.getField());
+              createdCustomPropertyField = new CustomPropertyDatePickerField(this, serviceTask, fieldInfo.getDescriptor());
               createdControl = createdCustomPropertyField.render(workParent, factory, listener);
               data = new FormData();
               data.top = new FormAttachment(previousAnchor, VSPACE);
@@ -13,9 +13,7 @@
  */
 package org.activiti.designer.property;
 
-import java.lang.reflect.Field;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import org.activiti.bpmn.model.ComplexDataType;
@@ -37,6 +35,8 @@ import org.activiti.designer.property.extension.field.CustomPropertyRadioChoiceF
 import org.activiti.designer.property.extension.field.CustomPropertyTextField;
 import org.activiti.designer.property.extension.field.FieldInfo;
 import org.activiti.designer.util.eclipse.ActivitiUiUtil;
+import org.activiti.designer.util.extension.CustomPropertyDescriptor;
+import org.activiti.designer.util.extension.ExtensionDescriptor;
 import org.activiti.designer.util.extension.ExtensionUtil;
 import org.activiti.designer.util.extension.FormToolTip;
 import org.activiti.designer.util.preferences.Preferences;
@@ -134,33 +134,14 @@ public class PropertyCustomUserTaskSection extends AbstractPropertyCustomTaskSec
 
       if (targetTask != null) {
 
-        final List<Class<CustomUserTask>> classHierarchy = new ArrayList<Class<CustomUserTask>>();
+        final ExtensionDescriptor descriptor = ExtensionDescriptor.forClass(targetTask.getClass());
         final List<FieldInfo> fieldInfoObjects = new ArrayList<FieldInfo>();
 
-        Class clazz = targetTask.getClass();
-        classHierarchy.add(clazz);
-
-        boolean hierarchyOpen = true;
-        while (hierarchyOpen) {
-          clazz = clazz.getSuperclass();
-          if (CustomUserTask.class.isAssignableFrom(clazz)) {
-            classHierarchy.add(clazz);
-          } else {
-            hierarchyOpen = false;
-          }
-        }
-
-        for (final Class<CustomUserTask> currentClass : classHierarchy) {
-          for (final Field field : currentClass.getDeclaredFields()) {
-            if (field.isAnnotationPresent(Property.class)) {
-              fieldInfoObjects.add(new FieldInfo(field));
-            }
-          }
+        // The descriptor holds the fields in the correct order
+        for (final CustomPropertyDescriptor propertyDescriptor : descriptor.getSortedProperties()) {
+          fieldInfoObjects.add(new FieldInfo(propertyDescriptor));
         }
 
-        // Sort the list so the fields are in the correct order
-        Collections.sort(fieldInfoObjects);
-
         Control previousAnchor = workParent;
 
         final CLabel labelNodeName = factory.createCLabel(workParent, targetTask.getName(), SWT.NONE);
@@ -171,8 +152,8 @@ public class PropertyCustomUserTaskSection extends AbstractPropertyCustomTaskSec
 
         previousAnchor = labelNodeName;
 
-        if (targetTask.getClass().isAnnotationPresent(Help.class)) {
-          final Help helpAnnotation = targetTask.getClass().getAnnotation(Help.class);
+        if (descriptor.getHelp() != null) {
+          final Help helpAnnotation = descriptor.getHelp();
 
           final CLabel labelShort = factory.createCLabel(workParent, helpAnnotation.displayHelpShort(), SWT.WRAP);
 
@@ -204,7 +185,7 @@ public class PropertyCustomUserTaskSection extends AbstractPropertyCustomTaskSec
             switch (property.type()) {
   
             case TEXT:
-              createdCustomPropertyField = new CustomPropertyTextField(this, userTask, fieldInfo.getField());
+              createdCustomPropertyField = new CustomPropertyTextField(this, userTask, fieldInfo.getDescriptor());
               createdControl = createdCustomPropertyField.render(workParent, factory, listener);
               data = new FormData();
               data.top = new FormAttachment(previousAnchor, VSPACE);
@@ -214,7 +195,7 @@ public class PropertyCustomUserTaskSection extends AbstractPropertyCustomTaskSec
               break;
   
             case MULTILINE_TEXT:
-              createdCustomPropertyField = new CustomPropertyMultilineTextField(this, userTask, fieldInfo.getField());
+              createdCustomPropertyField = new CustomPropertyMultilineTextField(this, userTask, fieldInfo.getDescriptor());
               createdControl = createdCustomPropertyField.render(workParent, factory, listener);
               data = new FormData();
               data.top = new FormAttachment(previousAnchor, VSPACE);
@@ -225,7 +206,7 @@ public class PropertyCustomUserTaskSection extends AbstractPropertyCustomTaskSec
               break;
   
             case PERIOD:
-              createdCustomPropertyField = new CustomPropertyPeriodField(this, userTask, fieldInfo.getField());
+              createdCustomPropertyField = new CustomPropertyPeriodField(this, userTask, fieldInfo.getDescriptor());
               createdControl = createdCustomPropertyField.render(workParent, factory, listener);
               data = new FormData();
               data.top = new FormAttachment(previousAnchor, VSPACE);
@@ -235,7 +216,7 @@ public class PropertyCustomUserTaskSection extends AbstractPropertyCustomTaskSec
               break;
   
             case BOOLEAN_CHOICE:
-              createdCustomPropertyField = new CustomPropertyBooleanChoiceField(this, userTask, fieldInfo.getField());
+              createdCustomPropertyField = new CustomPropertyBooleanChoiceField(this, userTask, fieldInfo.getDescriptor());
               createdControl = createdCustomPropertyField.render(workParent, factory, listener);
               data = new FormData();
               data.top = new FormAttachment(previousAnchor, VSPACE);
@@ -245,7 +226,7 @@ public class PropertyCustomUserTaskSection extends AbstractPropertyCustomTaskSec
               break;
   
             case COMBOBOX_CHOICE:
-              createdCustomPropertyField = new CustomPropertyComboboxChoiceField(this, userTask, fieldInfo.getField());
+              createdCustomPropertyField = new CustomPropertyComboboxChoiceField(this, userTask, fieldInfo.getDescriptor());
               createdControl = createdCustomPropertyField.render(workParent, factory, listener);
               data = new FormData();
               data.top = new FormAttachment(previousAnchor, VSPACE);
@@ -255,7 +236,7 @@ public class PropertyCustomUserTaskSection extends AbstractPropertyCustomTaskSec
               break;
   
             case RADIO_CHOICE:
-              createdCustomPropertyField = new CustomPropertyRadioChoiceField(this, userTask, fieldInfo.getField());
+              createdCustomPropertyField = new CustomPropertyRadioChoiceField(this, userTask, fieldInfo.getDescriptor());
               createdControl = createdCustomPropertyField.render(workParent, factory, listener);
               data = new FormData();
               data.top = new FormAttachment(previousAnchor, VSPACE);
@@ -265,7 +246,7 @@ public class PropertyCustomUserTaskSection extends AbstractPropertyCustomTaskSec
               break;
   
             case DATE_PICKER:
-              createdCustomPropertyField = new CustomPropertyDatePickerField(this, userTask, fieldInfo.getField());
+              createdCustomPropertyField = new CustomPropertyDatePickerField(this, userTask, fieldInfo.getDescriptor());
               createdControl = createdCustomPropertyField.render(workParent, factory, listener);
               data = new FormData();
               data.top = new FormAttachment(previousAnchor, VSPACE);
@@ -94,6 +94,10 @@ public class PropertyGeneralSection extends ActivitiPropertySection implements I
         updateFlows(element, idText.getText());
       }
       element.setId(idText.getText());
+      // the id is typed in, so make sure it isn't handed out to a new element
+      BpmnMemoryModel model = ModelHandler.getModel(EcoreUtil.getURI(getDiagram()));
+      model.getIdAllocator().registerId(element.getId());
+      model.getModelIndex().invalidate();
       
     } else if (languages != null && languages.size() > 0) {
     	for (Text languageText : languageTextMap.keySet()) {
@@ -109,14 +113,10 @@ public class PropertyGeneralSection extends ActivitiPropertySection implements I
 
   protected void updateParentLane(String oldElementId, String newElementId) {
     BpmnMemoryModel model = ModelHandler.getModel(EcoreUtil.getURI(getDiagram()));
-    for (Process process : model.getBpmnModel().getProcesses()) {
-      for (Lane lane : process.getLanes()) {
-        if (lane.getFlowReferences().contains(oldElementId)) {
-          lane.getFlowReferences().remove(oldElementId);
-          lane.getFlowReferences().add(newElementId);
-          return;
-        }
-      }
+    Lane lane = model.getModelIndex().getLane(oldElementId);
+    if (lane != null) {
+      lane.getFlowReferences().remove(oldElementId);
+      lane.getFlowReferences().add(newElementId);
     }
   }
 
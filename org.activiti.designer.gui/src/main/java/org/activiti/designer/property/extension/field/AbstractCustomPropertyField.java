@@ -38,12 +38,11 @@ import org.activiti.bpmn.model.CustomProperty;
 import org.activiti.bpmn.model.Task;
 import org.activiti.designer.eclipse.common.ActivitiPlugin;
 import org.activiti.designer.integration.annotation.Help;
-import org.activiti.designer.integration.annotation.Locale;
-import org.activiti.designer.integration.annotation.Locales;
 import org.activiti.designer.integration.annotation.Property;
 import org.activiti.designer.integration.validator.FieldValidator;
 import org.activiti.designer.integration.validator.ValidationException;
 import org.activiti.designer.property.AbstractPropertyCustomTaskSection;
+import org.activiti.designer.util.extension.CustomPropertyDescriptor;
 import org.activiti.designer.util.extension.ExtensionUtil;
 import org.activiti.designer.util.preferences.Preferences;
 import org.activiti.designer.util.preferences.PreferencesUtil;
@@ -73,22 +72,14 @@ public abstract class AbstractCustomPropertyField implements CustomPropertyField
   protected Task task;
   protected String customPropertyId;
 
-  protected Field field;
+  // The annotations of the field, read once when the extension was loaded
+  protected final CustomPropertyDescriptor descriptor;
 
-  protected Property propertyAnnotation;
-  protected Help helpAnnotation;
-  protected Locales localesAnnotation;
-
-  public AbstractCustomPropertyField(final AbstractPropertyCustomTaskSection section, final Task task, final Field field) {
+  public AbstractCustomPropertyField(final AbstractPropertyCustomTaskSection section, final Task task, final CustomPropertyDescriptor descriptor) {
     this.section = section;
     this.task = task;
-    this.customPropertyId = field.getName();
-    this.field = field;
-
-    // Read and save references to annotations to be used later
-    this.propertyAnnotation = field.getAnnotation(Property.class);
-    this.helpAnnotation = field.getAnnotation(Help.class);
-    this.localesAnnotation = field.getAnnotation(Locales.class);
+    this.customPropertyId = descriptor.getName();
+    this.descriptor = descriptor;
   }
   @Override
   public String getCustomPropertyId() {
@@ -162,22 +153,10 @@ public abstract class AbstractCustomPropertyField implements CustomPropertyField
   protected String getSimpleValueOrDefault() {
     String result = getSimpleValueFromModel();
     if (StringUtils.isEmpty(result)) {
-      String localeDefaultValue = null;
-      if (localesAnnotation != null && localesAnnotation.value() != null && localesAnnotation.value().length > 0) {
-        String defaultLanguage = PreferencesUtil.getStringPreference(Preferences.ACTIVITI_DEFAULT_LANGUAGE, ActivitiPlugin.getDefault());
-        if (StringUtils.isNotEmpty(defaultLanguage)) {
-          for (Locale locale : localesAnnotation.value()) {
-            if (defaultLanguage.equalsIgnoreCase(locale.locale())) {
-              localeDefaultValue = locale.defaultValue();
-            }
-          }
-        }
-      }
-      
-      if (StringUtils.isNotEmpty(localeDefaultValue)) {  
-        result = localeDefaultValue;
-      } else if (StringUtils.isNotEmpty(getPropertyAnnotation().defaultValue())) {
-        result = getPropertyAnnotation().defaultValue();
+      final String defaultLanguage = PreferencesUtil.getStringPreference(Preferences.ACTIVITI_DEFAULT_LANGUAGE, ActivitiPlugin.getDefault());
+      final String defaultValue = descriptor.getDefaultValue(defaultLanguage);
+      if (StringUtils.isNotEmpty(defaultValue)) {
+        result = defaultValue;
       }
     }
     
@@ -200,15 +179,19 @@ public abstract class AbstractCustomPropertyField implements CustomPropertyField
   }
 
   protected Property getPropertyAnnotation() {
-    return propertyAnnotation;
+    return descriptor.getProperty();
   }
 
   protected Help getHelpAnnotation() {
-    return helpAnnotation;
+    return descriptor.getHelp();
   }
 
   protected Field getField() {
-    return this.field;
+    return descriptor.getField();
+  }
+
+  protected CustomPropertyDescriptor getDescriptor() {
+    return descriptor;
   }
 
   protected AbstractPropertyCustomTaskSection getSection() {
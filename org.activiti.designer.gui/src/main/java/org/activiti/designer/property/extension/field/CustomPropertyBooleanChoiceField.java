@@ -26,11 +26,10 @@
 
 package org.activiti.designer.property.extension.field;
 
-import java.lang.reflect.Field;
-
 import org.activiti.bpmn.model.Task;
 import org.activiti.designer.integration.servicetask.PropertyType;
 import org.activiti.designer.property.AbstractPropertyCustomTaskSection;
+import org.activiti.designer.util.extension.CustomPropertyDescriptor;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.FocusEvent;
 import org.eclipse.swt.events.FocusListener;
@@ -52,8 +51,8 @@ public class CustomPropertyBooleanChoiceField extends AbstractCustomPropertyFiel
 
   private Button buttonControl;
 
-  public CustomPropertyBooleanChoiceField(final AbstractPropertyCustomTaskSection section, final Task task, final Field field) {
-    super(section, task, field);
+  public CustomPropertyBooleanChoiceField(final AbstractPropertyCustomTaskSection section, final Task task, final CustomPropertyDescriptor descriptor) {
+    super(section, task, descriptor);
   }
 
   @Override
@@ -80,8 +79,8 @@ public class CustomPropertyBooleanChoiceField extends AbstractCustomPropertyFiel
     buttonControl = factory.createButton(result, "", SWT.CHECK | SWT.BORDER_SOLID);
     buttonControl.setEnabled(true);
 
-    if (getPropertyAnnotation().fieldValidator() != null) {
-      addFieldValidator(buttonControl, getPropertyAnnotation().fieldValidator());
+    if (getDescriptor().getValidatorClass() != null) {
+      addFieldValidator(buttonControl, getDescriptor().getValidatorClass());
     }
 
     buttonControl.addSelectionListener(new CheckboxChangeListener(listener));
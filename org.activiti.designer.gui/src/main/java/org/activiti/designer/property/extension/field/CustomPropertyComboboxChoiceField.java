@@ -26,7 +26,6 @@
 
 package org.activiti.designer.property.extension.field;
 
-import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -36,6 +35,7 @@ import org.activiti.designer.integration.annotation.PropertyItems;
 import org.activiti.designer.integration.servicetask.PropertyType;
 import org.activiti.designer.integration.validator.RequiredFieldValidator;
 import org.activiti.designer.property.AbstractPropertyCustomTaskSection;
+import org.activiti.designer.util.extension.CustomPropertyDescriptor;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.CCombo;
 import org.eclipse.swt.events.FocusListener;
@@ -56,8 +56,8 @@ public class CustomPropertyComboboxChoiceField extends AbstractCustomPropertyFie
 
   private Map<String, String> values;
 
-  public CustomPropertyComboboxChoiceField(final AbstractPropertyCustomTaskSection section, final Task task, final Field field) {
-    super(section, task, field);
+  public CustomPropertyComboboxChoiceField(final AbstractPropertyCustomTaskSection section, final Task task, final CustomPropertyDescriptor descriptor) {
+    super(section, task, descriptor);
   }
 
   @Override
@@ -97,7 +97,7 @@ public class CustomPropertyComboboxChoiceField extends AbstractCustomPropertyFie
     String[] labels = null;
 
     if (propertyItemsAnnotation == null) {
-      propertyItemsAnnotation = getField().getAnnotation(PropertyItems.class);
+      propertyItemsAnnotation = getDescriptor().getPropertyItems();
       if (propertyItemsAnnotation != null) {
 
         final String[] itemValues = propertyItemsAnnotation.value();
@@ -125,8 +125,8 @@ public class CustomPropertyComboboxChoiceField extends AbstractCustomPropertyFie
       addFieldValidator(comboControl, RequiredFieldValidator.class);
     }
 
-    if (getPropertyAnnotation().fieldValidator() != null) {
-      addFieldValidator(comboControl, getPropertyAnnotation().fieldValidator());
+    if (getDescriptor().getValidatorClass() != null) {
+      addFieldValidator(comboControl, getDescriptor().getValidatorClass());
     }
 
     comboControl.addFocusListener(listener);
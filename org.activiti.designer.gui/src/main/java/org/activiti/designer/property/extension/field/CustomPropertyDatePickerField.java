@@ -26,7 +26,6 @@
 
 package org.activiti.designer.property.extension.field;
 
-import java.lang.reflect.Field;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
@@ -37,6 +36,7 @@ import org.activiti.designer.integration.annotation.DatePickerProperty;
 import org.activiti.designer.integration.servicetask.PropertyType;
 import org.activiti.designer.integration.validator.RequiredFieldValidator;
 import org.activiti.designer.property.AbstractPropertyCustomTaskSection;
+import org.activiti.designer.util.extension.CustomPropertyDescriptor;
 import org.apache.commons.lang.StringUtils;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.FocusListener;
@@ -56,8 +56,8 @@ public class CustomPropertyDatePickerField extends AbstractCustomPropertyField {
   private DateTime calendarControl;
   private SimpleDateFormat sdf;
 
-  public CustomPropertyDatePickerField(final AbstractPropertyCustomTaskSection section, final Task task, final Field field) {
-    super(section, task, field);
+  public CustomPropertyDatePickerField(final AbstractPropertyCustomTaskSection section, final Task task, final CustomPropertyDescriptor descriptor) {
+    super(section, task, descriptor);
   }
 
   @Override
@@ -111,7 +111,7 @@ public class CustomPropertyDatePickerField extends AbstractCustomPropertyField {
 
     int controlStyle = SWT.CALENDAR;
 
-    final DatePickerProperty datePickerPropertyAnnotation = getField().getAnnotation(DatePickerProperty.class);
+    final DatePickerProperty datePickerPropertyAnnotation = getDescriptor().getDatePickerProperty();
     if (datePickerPropertyAnnotation != null) {
       sdf = new SimpleDateFormat(datePickerPropertyAnnotation.dateTimePattern());
       controlStyle = datePickerPropertyAnnotation.swtStyle();
@@ -127,8 +127,8 @@ public class CustomPropertyDatePickerField extends AbstractCustomPropertyField {
       addFieldValidator(calendarControl, RequiredFieldValidator.class);
     }
 
-    if (getPropertyAnnotation().fieldValidator() != null) {
-      addFieldValidator(calendarControl, getPropertyAnnotation().fieldValidator());
+    if (getDescriptor().getValidatorClass() != null) {
+      addFieldValidator(calendarControl, getDescriptor().getValidatorClass());
     }
 
     calendarControl.addFocusListener(listener);
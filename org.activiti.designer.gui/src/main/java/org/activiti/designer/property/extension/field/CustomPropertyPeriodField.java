@@ -26,14 +26,13 @@
 
 package org.activiti.designer.property.extension.field;
 
-import java.lang.reflect.Field;
-
 import org.activiti.bpmn.model.Task;
 import org.activiti.designer.integration.servicetask.PropertyType;
 import org.activiti.designer.property.AbstractPropertyCustomTaskSection;
 import org.activiti.designer.property.custom.PeriodPropertyElement;
 import org.activiti.designer.property.extension.field.validator.PeriodRequiredFieldValidator;
 import org.activiti.designer.property.extension.util.ExtensionPropertyUtil;
+import org.activiti.designer.util.extension.CustomPropertyDescriptor;
 import org.apache.commons.lang.StringUtils;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.CLabel;
@@ -54,8 +53,8 @@ public class CustomPropertyPeriodField extends AbstractCustomPropertyField {
 
   private Composite periodControl;
 
-  public CustomPropertyPeriodField(final AbstractPropertyCustomTaskSection section, final Task task, final Field field) {
-    super(section, task, field);
+  public CustomPropertyPeriodField(final AbstractPropertyCustomTaskSection section, final Task task, final CustomPropertyDescriptor descriptor) {
+    super(section, task, descriptor);
   }
 
   @Override
@@ -138,8 +137,8 @@ public class CustomPropertyPeriodField extends AbstractCustomPropertyField {
       addFieldValidator(periodControl, PeriodRequiredFieldValidator.class);
     }
 
-    if (getPropertyAnnotation().fieldValidator() != null) {
-      addFieldValidator(periodControl, getPropertyAnnotation().fieldValidator());
+    if (getDescriptor().getValidatorClass() != null) {
+      addFieldValidator(periodControl, getDescriptor().getValidatorClass());
     }
 
     data = new FormData();
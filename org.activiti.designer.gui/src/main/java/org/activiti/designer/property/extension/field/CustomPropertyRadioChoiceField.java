@@ -26,7 +26,6 @@
 
 package org.activiti.designer.property.extension.field;
 
-import java.lang.reflect.Field;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -36,6 +35,7 @@ import org.activiti.designer.integration.annotation.PropertyItems;
 import org.activiti.designer.integration.servicetask.PropertyType;
 import org.activiti.designer.property.AbstractPropertyCustomTaskSection;
 import org.activiti.designer.property.extension.field.validator.RadioRequiredFieldValidator;
+import org.activiti.designer.util.extension.CustomPropertyDescriptor;
 import org.apache.commons.lang.StringUtils;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.FocusListener;
@@ -60,8 +60,8 @@ public class CustomPropertyRadioChoiceField extends AbstractCustomPropertyField
 
   private Map<String, String> values;
 
-  public CustomPropertyRadioChoiceField(final AbstractPropertyCustomTaskSection section, final Task task, final Field field) {
-    super(section, task, field);
+  public CustomPropertyRadioChoiceField(final AbstractPropertyCustomTaskSection section, final Task task, final CustomPropertyDescriptor descriptor) {
+    super(section, task, descriptor);
   }
 
   @Override
@@ -119,7 +119,7 @@ public class CustomPropertyRadioChoiceField extends AbstractCustomPropertyField
     FormData data;
 
     if (propertyItemsAnnotation == null) {
-      propertyItemsAnnotation = getField().getAnnotation(PropertyItems.class);
+      propertyItemsAnnotation = getDescriptor().getPropertyItems();
       if (propertyItemsAnnotation != null) {
 
         final String[] itemValues = propertyItemsAnnotation.value();
@@ -152,8 +152,8 @@ public class CustomPropertyRadioChoiceField extends AbstractCustomPropertyField
       addFieldValidator(parentControl, RadioRequiredFieldValidator.class);
     }
 
-    if (getPropertyAnnotation().fieldValidator() != null) {
-      addFieldValidator(parentControl, getPropertyAnnotation().fieldValidator());
+    if (getDescriptor().getValidatorClass() != null) {
+      addFieldValidator(parentControl, getDescriptor().getValidatorClass());
     }
 
     parentControl.addFocusListener(listener);
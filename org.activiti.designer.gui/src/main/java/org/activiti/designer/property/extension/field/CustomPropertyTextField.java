@@ -26,12 +26,11 @@
 
 package org.activiti.designer.property.extension.field;
 
-import java.lang.reflect.Field;
-
 import org.activiti.bpmn.model.Task;
 import org.activiti.designer.integration.servicetask.PropertyType;
 import org.activiti.designer.integration.validator.RequiredFieldValidator;
 import org.activiti.designer.property.AbstractPropertyCustomTaskSection;
+import org.activiti.designer.util.extension.CustomPropertyDescriptor;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.FocusListener;
 import org.eclipse.swt.layout.FormAttachment;
@@ -49,8 +48,8 @@ public class CustomPropertyTextField extends AbstractCustomPropertyField {
 
   private Text textControl;
 
-  public CustomPropertyTextField(final AbstractPropertyCustomTaskSection section, final Task task, final Field field) {
-    super(section, task, field);
+  public CustomPropertyTextField(final AbstractPropertyCustomTaskSection section, final Task task, final CustomPropertyDescriptor descriptor) {
+    super(section, task, descriptor);
   }
 
   @Override
@@ -81,8 +80,8 @@ public class CustomPropertyTextField extends AbstractCustomPropertyField {
       addFieldValidator(textControl, RequiredFieldValidator.class);
     }
 
-    if (getPropertyAnnotation().fieldValidator() != null) {
-      addFieldValidator(textControl, getPropertyAnnotation().fieldValidator());
+    if (getDescriptor().getValidatorClass() != null) {
+      addFieldValidator(textControl, getDescriptor().getValidatorClass());
     }
 
     textControl.addFocusListener(listener);
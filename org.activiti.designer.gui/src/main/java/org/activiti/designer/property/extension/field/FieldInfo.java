@@ -32,10 +32,12 @@ import org.activiti.designer.integration.annotation.Help;
 import org.activiti.designer.integration.annotation.Locales;
 import org.activiti.designer.integration.annotation.Property;
 import org.activiti.designer.integration.servicetask.CustomServiceTask;
+import org.activiti.designer.util.extension.CustomPropertyDescriptor;
 
 /**
  * Container object for Fields used in property screens for
- * {@link CustomServiceTask}s.
+ * {@link CustomServiceTask}s. The annotations are taken from the
+ * {@link CustomPropertyDescriptor} of the field.
  * 
  * @author Tiese Barrell
  * @since 0.6.1
@@ -43,59 +45,47 @@ import org.activiti.designer.integration.servicetask.CustomServiceTask;
  */
 public class FieldInfo implements Comparable<FieldInfo> {
 
-  protected Property propertyAnnotation;
-  protected Help helpAnnotation;
-  protected Locales localesAnnotation;
-  protected final Field field;
-  
+  protected final CustomPropertyDescriptor descriptor;
+
   public FieldInfo(Field field) {
-    this.field = field;
-    final Property propertyAnnotation = field.getAnnotation(Property.class);
-    if (propertyAnnotation != null) {
-      this.propertyAnnotation = propertyAnnotation;
-    } else {
-      throw new IllegalArgumentException(String.format("The provided field '%s' doesn't have a %s annotation", field.getName(),
-              Property.class.getCanonicalName()));
-    }
+    this(new CustomPropertyDescriptor(field));
+  }
 
-    final Help helpAnnotation = field.getAnnotation(Help.class);
-    if (helpAnnotation != null) {
-      this.helpAnnotation = helpAnnotation;
-    }
-    
-    final Locales localesAnnotation = field.getAnnotation(Locales.class);
-    if (localesAnnotation != null) {
-      this.localesAnnotation = localesAnnotation;
-    }
+  public FieldInfo(CustomPropertyDescriptor descriptor) {
+    this.descriptor = descriptor;
   }
-  
+
   public Property getPropertyAnnotation() {
-    return propertyAnnotation;
+    return descriptor.getProperty();
   }
 
   public Help getHelpAnnotation() {
-    return helpAnnotation;
+    return descriptor.getHelp();
   }
   
   public Locales getLocalesAnnotation() {
-    return localesAnnotation;
+    return descriptor.getLocales();
   }
 
   public String getFieldName() {
-    return field.getName();
+    return descriptor.getName();
   }
 
   public Field getField() {
-    return field;
+    return descriptor.getField();
+  }
+
+  public CustomPropertyDescriptor getDescriptor() {
+    return descriptor;
   }
 
   public int getOrder() {
-    return getPropertyAnnotation().order();
+    return descriptor.getOrder();
   }
 
   @Override
   public int compareTo(FieldInfo o) {
-    return new Integer(this.getPropertyAnnotation().order()).compareTo(new Integer(o.getPropertyAnnotation().order()));
+    return descriptor.compareTo(o.descriptor);
   }
 
 }
@@ -14,21 +14,18 @@
 package org.activiti.designer.runner;
 
 import java.io.ByteArrayInputStream;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-
-import javax.xml.stream.XMLInputFactory;
-import javax.xml.stream.XMLStreamReader;
 
+import org.activiti.bpmn.model.BpmnModel;
+import org.activiti.bpmn.model.Process;
+import org.activiti.designer.eclipse.common.ActivitiPlugin;
+import org.activiti.designer.util.preferences.Preferences;
+import org.activiti.designer.util.preferences.PreferencesUtil;
+import org.activiti.designer.util.workspace.BpmnModelCache;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
-import org.eclipse.core.resources.IWorkspace;
-import org.eclipse.core.resources.ResourcesPlugin;
-import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaProject;
@@ -65,7 +62,7 @@ public class TestRunnerClassGenerator {
 
     IPackageFragment pack = srcRoot.createPackageFragment("org.activiti.designer.test", false, null);
 
-    parseBpmnXML(bpmnResource.getRawLocation().toOSString());
+    parseBpmnXML(bpmnResource);
 
     String testClassName = "ProcessTest" + processId.substring(0, 1).toUpperCase() + processId.substring(1) + ".java";
     testClassName = testClassName.replace(" ", "");
@@ -133,30 +130,18 @@ public class TestRunnerClassGenerator {
     return buffer.toString();
   }
 
-  private void parseBpmnXML(String filePath) {
+  private void parseBpmnXML(IResource bpmnResource) {
+    if (bpmnResource instanceof IFile == false) {
+      return;
+    }
     try {
-      IWorkspace ws = ResourcesPlugin.getWorkspace();
-      IProject[] ps = ws.getRoot().getProjects();
-      String strLocation = null;
-      if (ps == null || ps.length == 0)
-        return;
-
-      IProject p = ps[0];
-      IPath location = p.getLocation();
-      strLocation = location.toFile().getAbsolutePath();
-      strLocation = strLocation.substring(0, strLocation.lastIndexOf(File.separator));
-      XMLInputFactory xif = XMLInputFactory.newInstance();
-      InputStreamReader in = new InputStreamReader(new FileInputStream(filePath), "UTF-8");
-      XMLStreamReader xtr = xif.createXMLStreamReader(in);
-      while (xtr.hasNext()) {
-        xtr.next();
-        if (xtr.isStartElement() && "process".equalsIgnoreCase(xtr.getLocalName())) {
-          processId = xtr.getAttributeValue(null, "id");
-          processName = xtr.getAttributeValue(null, "name");
-        }
+      final BpmnModel bpmnModel = BpmnModelCache.getInstance().getModel((IFile) bpmnResource,
+              PreferencesUtil.getStringArray(Preferences.ALFRESCO_FORMTYPES_USERTASK, ActivitiPlugin.getDefault()),
+              PreferencesUtil.getStringArray(Preferences.ALFRESCO_FORMTYPES_STARTEVENT, ActivitiPlugin.getDefault()));
+      for (final Process process : bpmnModel.getProcesses()) {
+        processId = process.getId();
+        processName = process.getName();
       }
-      xtr.close();
-      in.close();
     } catch (Exception e) {
       e.printStackTrace();
     }
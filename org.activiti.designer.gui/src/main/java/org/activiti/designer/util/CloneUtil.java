@@ -50,6 +50,7 @@ import org.activiti.designer.features.CreateServiceTaskFeature;
 import org.activiti.designer.features.CreateStartEventFeature;
 import org.activiti.designer.features.CreateUserTaskFeature;
 import org.activiti.designer.util.eclipse.ActivitiUiUtil;
+import org.activiti.designer.util.editor.BpmnMemoryModel;
 import org.activiti.designer.util.editor.ModelHandler;
 import org.activiti.designer.util.extension.ExtensionUtil;
 import org.eclipse.emf.ecore.util.EcoreUtil;
@@ -134,7 +135,9 @@ public final class CloneUtil {
 
     if (cloneElement != null) {
       cloneElement.setName(element.getName());
-      ModelHandler.getModel(EcoreUtil.getURI(diagram)).getBpmnModel().getMainProcess().addFlowElement(cloneElement);
+      BpmnMemoryModel model = ModelHandler.getModel(EcoreUtil.getURI(diagram));
+      model.getBpmnModel().getMainProcess().addFlowElement(cloneElement);
+      model.getModelIndex().addElement(cloneElement, model.getBpmnModel().getMainProcess());
     }
 
     return cloneElement;
@@ -19,6 +19,7 @@ import java.io.FileWriter;
 
 import org.activiti.designer.kickstart.eclipse.Logger;
 import org.activiti.designer.kickstart.eclipse.util.FileService;
+import org.activiti.designer.util.eclipse.DeferredCommit;
 import org.activiti.designer.util.editor.KickstartFormMemoryModel;
 import org.activiti.designer.util.editor.ModelHandler;
 import org.activiti.workflow.simple.alfresco.conversion.json.AlfrescoSimpleWorkflowJsonConverter;
@@ -63,6 +64,9 @@ public class KickstartFormEditor extends DiagramEditor {
 
   @Override
   public void doSave(IProgressMonitor monitor) {
+    // property edits that wait to be committed have to be in the saved model
+    DeferredCommit.commitAll(getEditingDomain());
+
     super.doSave(monitor);
 
     final KickstartDiagramEditorInput adei = (KickstartDiagramEditorInput) getEditorInput();
@@ -100,6 +104,8 @@ public class KickstartFormEditor extends DiagramEditor {
   
   @Override
   public void dispose() {
+    // property edits that wait to be committed belong to this editor, the sections may outlive it
+    DeferredCommit.commitAll(getEditingDomain());
     super.dispose();
 
     final KickstartDiagramEditorInput adei = (KickstartDiagramEditorInput) getEditorInput();
@@ -19,6 +19,7 @@ import java.io.FileWriter;
 
 import org.activiti.designer.kickstart.eclipse.common.KickstartPlugin;
 import org.activiti.designer.kickstart.eclipse.util.FileService;
+import org.activiti.designer.util.eclipse.DeferredCommit;
 import org.activiti.designer.util.editor.KickstartProcessMemoryModel;
 import org.activiti.designer.util.editor.ModelHandler;
 import org.activiti.workflow.simple.alfresco.conversion.json.AlfrescoSimpleWorkflowJsonConverter;
@@ -107,6 +108,9 @@ public class KickstartProcessDiagramEditor extends DiagramEditor {
 
   @Override
   public void doSave(IProgressMonitor monitor) {
+    // property edits that wait to be committed have to be in the saved model
+    DeferredCommit.commitAll(getEditingDomain());
+
     super.doSave(monitor);
 
     final KickstartDiagramEditorInput adei = (KickstartDiagramEditorInput) getEditorInput();
@@ -239,6 +243,8 @@ public class KickstartProcessDiagramEditor extends DiagramEditor {
 
   @Override
   public void dispose() {
+    // property edits that wait to be committed belong to this editor, the sections may outlive it
+    DeferredCommit.commitAll(getEditingDomain());
     super.dispose();
 
     final KickstartDiagramEditorInput adei = (KickstartDiagramEditorInput) getEditorInput();
@@ -21,6 +21,7 @@ import org.activiti.designer.kickstart.process.command.UpdateBusinessObjectComma
 import org.activiti.designer.kickstart.process.diagram.KickstartProcessFeatureProvider;
 import org.activiti.designer.util.editor.KickstartProcessMemoryModel;
 import org.activiti.designer.util.editor.KickstartProcessMemoryModel.KickstartProcessModelListener;
+import org.activiti.designer.util.eclipse.DeferredCommit;
 import org.activiti.designer.util.editor.ModelHandler;
 import org.activiti.workflow.simple.definition.StepDefinition;
 import org.eclipse.emf.ecore.EObject;
@@ -74,6 +75,11 @@ public abstract class AbstractKickstartProcessPropertySection extends GFProperty
    */
   private KickstartProcessModelUpdater<?> currentUpdater;
   
+  /**
+   * Edits of the same business-object in quick succession are committed together, in one command.
+   */
+  private DeferredCommit pendingCommit;
+  
   /**
    * Shared focus-listener added to all controls created. Makes sure value-updates are performed
    * and includes a fix for the focus-issue on Eclipse Juno.
@@ -91,6 +97,18 @@ public abstract class AbstractKickstartProcessPropertySection extends GFProperty
     
     controls = new ArrayList<Control>();
     
+    pendingCommit = new DeferredCommit(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          modelChangesEnabled = false;
+          executeModelUpdater();
+        } finally {
+          modelChangesEnabled = true;
+        }
+      }
+    });
+    
     rememberSelectionFocusListener = new FocusListener() {
       @Override
       public void focusLost(FocusEvent e) {
@@ -128,7 +146,7 @@ public abstract class AbstractKickstartProcessPropertySection extends GFProperty
         if(e.widget instanceof Text) {
           // Fix for issue in Eclipse Juno where the text is filled with value from the previous active
           // text-control in some cases. We set the value based on the model on focus.
-          Object bo = getBusinessObject(getSelectedPictogramElement());
+          Object bo = pendingCommit.getEditedObject(getBusinessObject(getSelectedPictogramElement()));
           if(bo != null) {
             populateControl((Control) e.widget, bo);
           } else {
@@ -171,6 +189,7 @@ public abstract class AbstractKickstartProcessPropertySection extends GFProperty
   
   @Override
   public void aboutToBeHidden() {
+    pendingCommit.commitNow();
     super.aboutToBeHidden();
     KickstartProcessMemoryModel model = (ModelHandler.getKickstartProcessModel(EcoreUtil.getURI(getDiagram())));
     if (model != null) {
@@ -187,8 +206,16 @@ public abstract class AbstractKickstartProcessPropertySection extends GFProperty
     }
   }
   
+  @Override
+  public void dispose() {
+    pendingCommit.dispose();
+    super.dispose();
+  }
+  
   @Override
   public void refresh() {
+    // Edits made before the refresh are committed first, they would be lost otherwise
+    pendingCommit.commitNow();
     PictogramElement element = getSelectedPictogramElement();
     Object bo = getBusinessObject(element);
     if(bo != null) {
@@ -250,8 +277,10 @@ public abstract class AbstractKickstartProcessPropertySection extends GFProperty
   protected void flushControlValue(final Control control) {
     final Object bo = getBusinessObject(getSelectedPictogramElement());
     if (bo != null) {
-      // Get the current value from the model
-      Object oldValue = getModelValueForControl(control, bo);
+      pendingCommit.commitOtherThan(bo);
+      
+      // Get the current value from the model, including the edits that weren't committed yet
+      Object oldValue = getModelValueForControl(control, pendingCommit.getEditedObject(bo));
 
       // Compare the old value with the new value from the control
       Object newValue = getValueFromControl(control);
@@ -264,7 +293,9 @@ public abstract class AbstractKickstartProcessPropertySection extends GFProperty
           // Perform the changes on the updatable BO instead of the original
           Object updatableBo = updater.getUpdatableBusinessObject();
           storeValueInModel(control, updatableBo);
-          executeModelUpdater();
+          
+          // The change is committed after a short delay, together with the changes that follow it
+          pendingCommit.schedule(formComposite.getDisplay(), getEditingDomain(), bo, updatableBo);
           
         } finally {
           // Re-enable model-change listener after our change has been applied
@@ -279,12 +310,13 @@ public abstract class AbstractKickstartProcessPropertySection extends GFProperty
    * edition domain. 
    */
   protected void executeModelUpdater() {
+    pendingCommit.clear();
+    
     // Make sure the update of the model is done in the transactional editing domain
     // to allow for "undoing" changes
-    DiagramEditor diagramEditor = (DiagramEditor) getDiagramEditor();
-    TransactionalEditingDomain editingDomain = diagramEditor.getEditingDomain();
+    TransactionalEditingDomain editingDomain = getEditingDomain();
     
-    if(currentUpdater != null) {
+    if(currentUpdater != null && editingDomain != null) {
       // Do the actual changes to the business-object in a command
       editingDomain.getCommandStack().execute(new UpdateBusinessObjectCommand(editingDomain, currentUpdater));
     }
@@ -293,6 +325,14 @@ public abstract class AbstractKickstartProcessPropertySection extends GFProperty
     resetModelUpdater();
   }
   
+  /**
+   * @return the editing domain of the editor the section shows the properties for, or null
+   */
+  protected TransactionalEditingDomain getEditingDomain() {
+    DiagramEditor diagramEditor = (DiagramEditor) getDiagramEditor();
+    return diagramEditor != null ? diagramEditor.getEditingDomain() : null;
+  }
+  
   /**
    * @return an {@link UpdateBusinessObjectCommand} that will be used to record model updates. 
    */
@@ -13,6 +13,9 @@
  */
 package org.activiti.designer.util;
 
+import org.activiti.designer.util.extension.ExtensionRegistry;
+import org.activiti.designer.util.workspace.BpmnModelCache;
+import org.activiti.designer.util.workspace.ProcessIdIndex;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
 
@@ -47,6 +50,9 @@ public class Activator extends AbstractUIPlugin {
 	 * @see org.eclipse.ui.plugin.AbstractUIPlugin#stop(org.osgi.framework.BundleContext)
 	 */
 	public void stop(BundleContext context) throws Exception {
+		BpmnModelCache.shutdown();
+		ProcessIdIndex.shutdown();
+		ExtensionRegistry.shutdown();
 		plugin = null;
 		super.stop(context);
 	}
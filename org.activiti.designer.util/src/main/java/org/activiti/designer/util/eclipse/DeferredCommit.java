@@ -0,0 +1,188 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.util.eclipse;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Delays the commit of the edits a property section made to a business object. Edits of the same business object
+ * that follow each other within the delay are committed together, as one command on the command stack with one update
+ * of the diagram, instead of one command for every field that loses focus or every key that is typed.
+ *
+ * A section {@link #schedule(Display, Object, Object, Object) schedules} the commit after each edit, which restarts the
+ * delay, and reads the values it shows from {@link #getEditedObject(Object)}, so the edits that weren't committed yet
+ * are shown. The section commits the pending edits right away when another business object is selected, when it's
+ * hidden and when it's disposed. Editors call {@link #commitAll(Object)} with their editing domain before they save
+ * and when they are closed, so no edit is lost.
+ *
+ * All methods have to be called from the UI thread.
+ */
+public class DeferredCommit {
+
+  /**
+   * The default delay in milliseconds.
+   */
+  public static final int DEFAULT_DELAY = 500;
+
+  private static final Set<DeferredCommit> PENDING_COMMITS = new LinkedHashSet<DeferredCommit>();
+
+  private final Runnable commit;
+  private final int delay;
+  private final Runnable timer = new Runnable() {
+
+    @Override
+    public void run() {
+      if (businessObject != null) {
+        commit.run();
+      }
+    }
+  };
+
+  private Display display;
+  private Object scope;
+  private Object businessObject;
+  private Object editedObject;
+
+  /**
+   * @param commit
+   *          commits the pending edits and calls {@link #clear()}, it's only run when there are pending edits
+   */
+  public DeferredCommit(final Runnable commit) {
+    this(commit, DEFAULT_DELAY);
+  }
+
+  public DeferredCommit(final Runnable commit, final int delay) {
+    this.commit = commit;
+    this.delay = delay;
+  }
+
+  /**
+   * Records that the business object was edited and (re)starts the delay after which the edits are committed.
+   *
+   * @param scope
+   *          the editing domain the edits are committed to, see {@link #commitAll(Object)}
+   * @param editedObject
+   *          the object that holds the edits until they are committed
+   */
+  public void schedule(final Display display, final Object scope, final Object businessObject, final Object editedObject) {
+    cancelTimer();
+    this.display = display;
+    this.scope = scope;
+    this.businessObject = businessObject;
+    this.editedObject = editedObject;
+    PENDING_COMMITS.add(this);
+    display.timerExec(delay, timer);
+  }
+
+  /**
+   * @return true if there are edits that weren't committed yet
+   */
+  public boolean isPending() {
+    return businessObject != null;
+  }
+
+  /**
+   * @return true if there are edits of the business object that weren't committed yet
+   */
+  public boolean isPendingFor(final Object businessObject) {
+    return this.businessObject != null && this.businessObject == businessObject;
+  }
+
+  /**
+   * @return the business object with the pending edits, or null
+   */
+  public Object getBusinessObject() {
+    return businessObject;
+  }
+
+  /**
+   * @return the object that holds the edits of the business object that weren't committed yet, or the business object
+   *         itself if there are none
+   */
+  public Object getEditedObject(final Object businessObject) {
+    if (isPendingFor(businessObject) && editedObject != null) {
+      return editedObject;
+    }
+    return businessObject;
+  }
+
+  /**
+   * Commits the pending edits now, if there are any.
+   */
+  public void commitNow() {
+    if (businessObject != null) {
+      commit.run();
+    }
+  }
+
+  /**
+   * Commits the pending edits now if they are edits of another business object, called before the business object is
+   * edited.
+   */
+  public void commitOtherThan(final Object businessObject) {
+    if (this.businessObject != null && this.businessObject != businessObject) {
+      commit.run();
+    }
+  }
+
+  /**
+   * Forgets the pending edits, called when they are committed.
+   */
+  public void clear() {
+    cancelTimer();
+    businessObject = null;
+    editedObject = null;
+    scope = null;
+    display = null;
+    PENDING_COMMITS.remove(this);
+  }
+
+  /**
+   * Commits the pending edits and forgets them, called when the section is disposed.
+   */
+  public void dispose() {
+    try {
+      commitNow();
+    } finally {
+      clear();
+    }
+  }
+
+  /**
+   * Commits the pending edits of all sections that edit through the scope, used before an editor saves and when it's
+   * closed. The edits made in other editors are left alone.
+   */
+  public static void commitAll(final Object scope) {
+    if (scope == null) {
+      return;
+    }
+    final List<DeferredCommit> pendingCommits = new ArrayList<DeferredCommit>(PENDING_COMMITS);
+    for (final DeferredCommit pendingCommit : pendingCommits) {
+      if (pendingCommit.scope == scope) {
+        pendingCommit.commitNow();
+      }
+    }
+  }
+
+  private void cancelTimer() {
+    if (display != null && !display.isDisposed()) {
+      display.timerExec(-1, timer);
+    }
+  }
+}
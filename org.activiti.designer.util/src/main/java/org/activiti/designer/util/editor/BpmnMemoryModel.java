@@ -19,6 +19,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.activiti.bpmn.model.Artifact;
+import org.activiti.bpmn.model.BaseElement;
 import org.activiti.bpmn.model.BpmnModel;
 import org.activiti.bpmn.model.FlowElement;
 import org.activiti.bpmn.model.Process;
@@ -34,6 +35,8 @@ public class BpmnMemoryModel {
     protected List<BpmnModelListener> modelListeners;
     protected List<FlowElement> clipboard = new ArrayList<FlowElement>();
     protected BpmnModel bpmnModel;
+    protected ElementIdAllocator idAllocator = new ElementIdAllocator();
+    protected BpmnModelIndex modelIndex = new BpmnModelIndex();
 
     public BpmnMemoryModel(IFeatureProvider featureProvider, IFile modelFile) {
         this.featureProvider = featureProvider;
@@ -52,7 +55,7 @@ public class BpmnMemoryModel {
     public FlowElement getFlowElement(String ref) {
       FlowElement element = null;
     if (bpmnModel != null && StringUtils.isNotEmpty(ref)) {
-      element = bpmnModel.getFlowElement(ref);
+      element = modelIndex.getFlowElement(ref);
     }
     return element;
     }
@@ -60,7 +63,10 @@ public class BpmnMemoryModel {
     public Artifact getArtifact(String ref) {
     Artifact artifact = null;
     if (bpmnModel != null && StringUtils.isNotEmpty(ref)) {
-      artifact = bpmnModel.getArtifact(ref);
+      BaseElement element = modelIndex.getElement(ref);
+      if (element instanceof Artifact) {
+        artifact = (Artifact) element;
+      }
     }
     return artifact;
   }
@@ -91,6 +97,27 @@ public class BpmnMemoryModel {
 
   public void setBpmnModel(BpmnModel bpmnModel) {
     this.bpmnModel = bpmnModel;
+    idAllocator.reset();
+    modelIndex.setBpmnModel(bpmnModel);
+  }
+
+  /**
+   * @return a new id for an element, made of the key and a number that isn't
+   *         used with the key yet, for example usertask5
+   */
+  public String getNextId(String featureIdKey) {
+    return idAllocator.nextId(featureIdKey, bpmnModel);
+  }
+
+  public ElementIdAllocator getIdAllocator() {
+    return idAllocator;
+  }
+
+  /**
+   * @return the index of the containers, lanes and associations of the elements in the model
+   */
+  public BpmnModelIndex getModelIndex() {
+    return modelIndex;
   }
   
   public void addModelListener(BpmnModelListener listener) {
@@ -0,0 +1,313 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.util.editor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.activiti.bpmn.model.Activity;
+import org.activiti.bpmn.model.Artifact;
+import org.activiti.bpmn.model.Association;
+import org.activiti.bpmn.model.BaseElement;
+import org.activiti.bpmn.model.BoundaryEvent;
+import org.activiti.bpmn.model.BpmnModel;
+import org.activiti.bpmn.model.FlowElement;
+import org.activiti.bpmn.model.FlowElementsContainer;
+import org.activiti.bpmn.model.FlowNode;
+import org.activiti.bpmn.model.Lane;
+import org.activiti.bpmn.model.Process;
+import org.activiti.bpmn.model.SequenceFlow;
+import org.activiti.bpmn.model.SubProcess;
+
+/**
+ * Answers the structural questions the editor asks about the model of a diagram without walking the model: the
+ * element with an id, the process or sub process that contains an element, the lane an element is in and the
+ * associations that connect to an element.
+ *
+ * The index is built from the model the first time it is used. The features that create, delete, move and paste
+ * elements keep it current with {@link #addElement(BaseElement, FlowElementsContainer)},
+ * {@link #removeElement(BaseElement)}, {@link #moveFlowNode(FlowNode, FlowElementsContainer, Lane)} and
+ * {@link #setLane(String, Lane)}. Code that changes the model in other ways
+ * calls {@link #invalidate()}, after which the index is built again when it's needed. An id that isn't in the index
+ * isn't looked up in the model, so code that adds to the model without telling the index has to invalidate it.
+ *
+ * The index is authoritative, answers aren't checked against the model as that would take as long as walking it.
+ * Only the id of an element is compared, so an element that got another id without the index knowing isn't returned
+ * for its old id.
+ */
+public class BpmnModelIndex {
+
+  private final Map<String, BaseElement> elements = new HashMap<String, BaseElement>();
+  private final Map<String, FlowElementsContainer> containers = new HashMap<String, FlowElementsContainer>();
+  private final Map<String, Lane> lanes = new HashMap<String, Lane>();
+  private final Map<String, List<Association>> associations = new HashMap<String, List<Association>>();
+
+  private BpmnModel bpmnModel;
+  private boolean current;
+  private int buildCount;
+
+  /**
+   * Makes the index answer for the given model, which is indexed when the index is used next.
+   */
+  public synchronized void setBpmnModel(final BpmnModel bpmnModel) {
+    this.bpmnModel = bpmnModel;
+    invalidate();
+  }
+
+  /**
+   * Forgets everything that was indexed, the index is built again when it's used next.
+   */
+  public synchronized void invalidate() {
+    elements.clear();
+    containers.clear();
+    lanes.clear();
+    associations.clear();
+    current = false;
+  }
+
+  /**
+   * @return the flow element or artifact with the id, or null
+   */
+  public synchronized BaseElement getElement(final String id) {
+    if (id == null) {
+      return null;
+    }
+    ensureCurrent();
+    final BaseElement element = elements.get(id);
+    if (element != null && !id.equals(element.getId())) {
+      forget(id);
+      return null;
+    }
+    return element;
+  }
+
+  /**
+   * @return the flow element with the id, or null
+   */
+  public FlowElement getFlowElement(final String id) {
+    final BaseElement element = getElement(id);
+    return element instanceof FlowElement ? (FlowElement) element : null;
+  }
+
+  /**
+   * @return the process or sub process that contains the flow element or artifact with the id, or null
+   */
+  public synchronized FlowElementsContainer getContainer(final String id) {
+    if (id == null) {
+      return null;
+    }
+    return getElement(id) != null ? containers.get(id) : null;
+  }
+
+  /**
+   * @return the lane that references the flow element with the id, or null if the element isn't in a lane
+   */
+  public synchronized Lane getLane(final String id) {
+    if (id == null) {
+      return null;
+    }
+    ensureCurrent();
+    return lanes.get(id);
+  }
+
+  /**
+   * @return the associations of which the element with the id is the source or the target
+   */
+  public synchronized List<Association> getAssociations(final String id) {
+    if (id == null) {
+      return Collections.emptyList();
+    }
+    ensureCurrent();
+    final List<Association> elementAssociations = associations.get(id);
+    if (elementAssociations == null) {
+      return Collections.emptyList();
+    }
+    final List<Association> result = new ArrayList<Association>();
+    for (final Association association : new ArrayList<Association>(elementAssociations)) {
+      if (getElement(association.getId()) == association
+          && (id.equals(association.getSourceRef()) || id.equals(association.getTargetRef()))) {
+        result.add(association);
+      } else {
+        removeAssociation(id, association);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Records that the flow element or artifact was added to, or moved to, the container. The contents of a sub
+   * process are indexed as well.
+   */
+  public synchronized void addElement(final BaseElement element, final FlowElementsContainer container) {
+    if (!current || element == null || element.getId() == null) {
+      return;
+    }
+    index(element, container);
+    if (element instanceof SubProcess) {
+      indexContainer((SubProcess) element);
+    }
+  }
+
+  /**
+   * Records that the flow element or artifact was removed from the model, together with the contents of a sub
+   * process.
+   */
+  public synchronized void removeElement(final BaseElement element) {
+    if (!current || element == null || element.getId() == null) {
+      return;
+    }
+    if (element instanceof SubProcess) {
+      for (final FlowElement childElement : ((SubProcess) element).getFlowElements()) {
+        removeElement(childElement);
+      }
+      for (final Artifact artifact : ((SubProcess) element).getArtifacts()) {
+        removeElement(artifact);
+      }
+    }
+
+    final String id = element.getId();
+    if (elements.get(id) == element) {
+      elements.remove(id);
+      containers.remove(id);
+      lanes.remove(id);
+    }
+    if (element instanceof Association) {
+      final Association association = (Association) element;
+      removeAssociation(association.getSourceRef(), association);
+      removeAssociation(association.getTargetRef(), association);
+    }
+  }
+
+  /**
+   * Records that the flow node was moved to the container and the lane, which is null if the node isn't in a lane
+   * anymore. The outgoing sequence flows of the node and, for an activity, its boundary events move along with it.
+   */
+  public synchronized void moveFlowNode(final FlowNode flowNode, final FlowElementsContainer container, final Lane lane) {
+    if (!current || flowNode == null || container == null) {
+      return;
+    }
+    addElement(flowNode, container);
+    setLane(flowNode.getId(), lane);
+    for (final SequenceFlow sequenceFlow : flowNode.getOutgoingFlows()) {
+      addElement(sequenceFlow, container);
+    }
+    if (flowNode instanceof Activity) {
+      for (final BoundaryEvent boundaryEvent : ((Activity) flowNode).getBoundaryEvents()) {
+        addElement(boundaryEvent, container);
+      }
+    }
+  }
+
+  /**
+   * Records the lane the flow element with the id is in, or that it isn't in a lane when the lane is null.
+   */
+  public synchronized void setLane(final String id, final Lane lane) {
+    if (!current || id == null) {
+      return;
+    }
+    if (lane == null) {
+      lanes.remove(id);
+    } else {
+      lanes.put(id, lane);
+    }
+  }
+
+  /**
+   * @return the number of times the index was built from the model
+   */
+  public synchronized int getBuildCount() {
+    return buildCount;
+  }
+
+  private void ensureCurrent() {
+    if (!current) {
+      build();
+    }
+  }
+
+  private void forget(final String id) {
+    final BaseElement element = elements.remove(id);
+    containers.remove(id);
+    if (element instanceof Association) {
+      final Association association = (Association) element;
+      removeAssociation(association.getSourceRef(), association);
+      removeAssociation(association.getTargetRef(), association);
+    }
+  }
+
+  private void build() {
+    current = true;
+    if (bpmnModel == null) {
+      return;
+    }
+    buildCount++;
+    for (final Process process : bpmnModel.getProcesses()) {
+      indexContainer(process);
+      for (final Lane lane : process.getLanes()) {
+        for (final String flowReference : lane.getFlowReferences()) {
+          lanes.put(flowReference, lane);
+        }
+      }
+    }
+  }
+
+  private void indexContainer(final FlowElementsContainer container) {
+    for (final FlowElement flowElement : container.getFlowElements()) {
+      index(flowElement, container);
+      if (flowElement instanceof SubProcess) {
+        indexContainer((SubProcess) flowElement);
+      }
+    }
+    for (final Artifact artifact : container.getArtifacts()) {
+      index(artifact, container);
+    }
+  }
+
+  private void index(final BaseElement element, final FlowElementsContainer container) {
+    elements.put(element.getId(), element);
+    containers.put(element.getId(), container);
+    if (element instanceof Association) {
+      final Association association = (Association) element;
+      addAssociation(association.getSourceRef(), association);
+      addAssociation(association.getTargetRef(), association);
+    }
+  }
+
+  private void addAssociation(final String id, final Association association) {
+    if (id == null) {
+      return;
+    }
+    List<Association> elementAssociations = associations.get(id);
+    if (elementAssociations == null) {
+      elementAssociations = new ArrayList<Association>();
+      associations.put(id, elementAssociations);
+    }
+    if (!elementAssociations.contains(association)) {
+      elementAssociations.add(association);
+    }
+  }
+
+  private void removeAssociation(final String id, final Association association) {
+    final List<Association> elementAssociations = associations.get(id);
+    if (elementAssociations != null) {
+      elementAssociations.remove(association);
+      if (elementAssociations.isEmpty()) {
+        associations.remove(id);
+      }
+    }
+  }
+}
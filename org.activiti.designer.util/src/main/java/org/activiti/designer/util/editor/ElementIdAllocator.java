@@ -0,0 +1,156 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.util.editor;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.activiti.bpmn.model.Activity;
+import org.activiti.bpmn.model.Artifact;
+import org.activiti.bpmn.model.BaseElement;
+import org.activiti.bpmn.model.BoundaryEvent;
+import org.activiti.bpmn.model.BpmnModel;
+import org.activiti.bpmn.model.FlowElement;
+import org.activiti.bpmn.model.FlowElementsContainer;
+import org.activiti.bpmn.model.Lane;
+import org.activiti.bpmn.model.MessageFlow;
+import org.activiti.bpmn.model.Pool;
+import org.activiti.bpmn.model.Process;
+
+/**
+ * Hands out the ids of new elements in a diagram. An id is a prefix, like <code>usertask</code>, followed by a number,
+ * and for each prefix the highest number in use is kept. The marks are taken from the model once, the first time an
+ * id is needed, after which a new id is found without looking at the model.
+ *
+ * The marks only go up: the ids of deleted elements, and of elements removed by an undo, aren't handed out again, so
+ * a redo, which restores the elements with their old ids, can't clash with an element created in between. Ids that
+ * are set from outside, for instance when the user changes the id of an element, have to be registered with
+ * {@link #registerId(String)}.
+ */
+public class ElementIdAllocator {
+
+  // larger numbers don't fit in an int and can't have been handed out by the allocator
+  private static final int MAX_NUMBER_LENGTH = 9;
+
+  private final Map<String, Integer> highWaterMarks = new HashMap<String, Integer>();
+
+  private BpmnModel seededModel;
+
+  /**
+   * @return a new id for the prefix, one higher than the highest number in use for the prefix
+   */
+  public synchronized String nextId(final String prefix, final BpmnModel bpmnModel) {
+    seed(bpmnModel);
+
+    final Integer highWaterMark = highWaterMarks.get(prefix);
+    final int number = highWaterMark == null ? 1 : highWaterMark + 1;
+    highWaterMarks.put(prefix, number);
+    return prefix + number;
+  }
+
+  /**
+   * Raises the mark of the id's prefix to the id's number, so the id isn't handed out.
+   */
+  public synchronized void registerId(final String id) {
+    if (id == null) {
+      return;
+    }
+
+    int numberStart = id.length();
+    while (numberStart > 0 && Character.isDigit(id.charAt(numberStart - 1))) {
+      numberStart--;
+    }
+    if (numberStart == id.length() || id.length() - numberStart > MAX_NUMBER_LENGTH) {
+      return;
+    }
+
+    final String prefix = id.substring(0, numberStart);
+    final int number = Integer.parseInt(id.substring(numberStart));
+    final Integer highWaterMark = highWaterMarks.get(prefix);
+    if (highWaterMark == null || number > highWaterMark) {
+      highWaterMarks.put(prefix, number);
+    }
+  }
+
+  /**
+   * Forgets the marks, which are taken from the model again when the next id is needed. Used when the model of the
+   * diagram is replaced.
+   */
+  public synchronized void reset() {
+    highWaterMarks.clear();
+    seededModel = null;
+  }
+
+  private void seed(final BpmnModel bpmnModel) {
+    if (bpmnModel == null || bpmnModel == seededModel) {
+      return;
+    }
+
+    // marks of ids handed out for another model are kept, they don't hurt
+    for (final Pool pool : bpmnModel.getPools()) {
+      registerId(pool.getId());
+    }
+    for (final MessageFlow messageFlow : bpmnModel.getMessageFlows().values()) {
+      registerId(messageFlow.getId());
+    }
+    for (final Process process : bpmnModel.getProcesses()) {
+      registerId(process.getId());
+      for (final Lane lane : process.getLanes()) {
+        registerId(lane.getId());
+      }
+      registerContainer(process);
+    }
+    seededModel = bpmnModel;
+  }
+
+  private void registerContainer(final FlowElementsContainer container) {
+    for (final Artifact artifact : container.getArtifacts()) {
+      registerId(artifact.getId());
+    }
+    registerFlowElements(container.getFlowElements());
+  }
+
+  private void registerFlowElements(final Collection<FlowElement> flowElements) {
+    for (final FlowElement element : flowElements) {
+      registerId(element.getId());
+
+      if (element instanceof Activity) {
+        for (final BoundaryEvent boundaryEvent : ((Activity) element).getBoundaryEvents()) {
+          registerId(boundaryEvent.getId());
+        }
+      }
+      if (element instanceof FlowElementsContainer) {
+        registerContainer((FlowElementsContainer) element);
+      }
+    }
+  }
+
+  /**
+   * @return the highest number in use for the prefix, 0 if there is none
+   */
+  public synchronized int getHighWaterMark(final String prefix) {
+    final Integer highWaterMark = highWaterMarks.get(prefix);
+    return highWaterMark == null ? 0 : highWaterMark;
+  }
+
+  /**
+   * Registers the id of the element, see {@link #registerId(String)}.
+   */
+  public void registerElement(final BaseElement element) {
+    if (element != null) {
+      registerId(element.getId());
+    }
+  }
+}
@@ -0,0 +1,122 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.util.extension;
+
+import java.lang.reflect.Field;
+
+import org.activiti.designer.integration.annotation.DatePickerProperty;
+import org.activiti.designer.integration.annotation.Help;
+import org.activiti.designer.integration.annotation.Locale;
+import org.activiti.designer.integration.annotation.Locales;
+import org.activiti.designer.integration.annotation.Property;
+import org.activiti.designer.integration.annotation.PropertyItems;
+import org.activiti.designer.integration.validator.FieldValidator;
+
+/**
+ * The annotations of a field of a custom task that is annotated with {@link Property}, read once by the
+ * {@link ExtensionDescriptor} of the task's class.
+ */
+public final class CustomPropertyDescriptor implements Comparable<CustomPropertyDescriptor> {
+
+  private final Field field;
+  private final Property property;
+  private final Help help;
+  private final Locales locales;
+  private final PropertyItems propertyItems;
+  private final DatePickerProperty datePickerProperty;
+  private final Class< ? extends FieldValidator> validatorClass;
+
+  public CustomPropertyDescriptor(final Field field) {
+    this.field = field;
+    this.property = field.getAnnotation(Property.class);
+    if (property == null) {
+      throw new IllegalArgumentException(String.format("The provided field '%s' doesn't have a %s annotation", field.getName(),
+              Property.class.getCanonicalName()));
+    }
+    this.help = field.getAnnotation(Help.class);
+    this.locales = field.getAnnotation(Locales.class);
+    this.propertyItems = field.getAnnotation(PropertyItems.class);
+    this.datePickerProperty = field.getAnnotation(DatePickerProperty.class);
+
+    // the default of the annotation is the interface itself, which means no validator
+    if (property.fieldValidator() != null && !FieldValidator.class.equals(property.fieldValidator())) {
+      this.validatorClass = property.fieldValidator();
+    } else {
+      this.validatorClass = null;
+    }
+  }
+
+  public Field getField() {
+    return field;
+  }
+
+  public String getName() {
+    return field.getName();
+  }
+
+  public Property getProperty() {
+    return property;
+  }
+
+  public Help getHelp() {
+    return help;
+  }
+
+  public Locales getLocales() {
+    return locales;
+  }
+
+  public PropertyItems getPropertyItems() {
+    return propertyItems;
+  }
+
+  public DatePickerProperty getDatePickerProperty() {
+    return datePickerProperty;
+  }
+
+  /**
+   * @return the validator configured for the property, or null if there is none
+   */
+  public Class< ? extends FieldValidator> getValidatorClass() {
+    return validatorClass;
+  }
+
+  public int getOrder() {
+    return property.order();
+  }
+
+  /**
+   * @return the default value of the property for the given language, or the default value of the
+   *         {@link Property} when there is none for the language
+   */
+  public String getDefaultValue(final String language) {
+    String result = null;
+    if (language != null && language.length() > 0 && locales != null && locales.value() != null) {
+      for (final Locale locale : locales.value()) {
+        if (language.equalsIgnoreCase(locale.locale())) {
+          result = locale.defaultValue();
+        }
+      }
+    }
+    if (result == null || result.length() == 0) {
+      result = property.defaultValue();
+    }
+    return result;
+  }
+
+  @Override
+  public int compareTo(CustomPropertyDescriptor o) {
+    return getOrder() < o.getOrder() ? -1 : (getOrder() == o.getOrder() ? 0 : 1);
+  }
+}
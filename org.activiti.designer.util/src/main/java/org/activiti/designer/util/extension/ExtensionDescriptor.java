@@ -0,0 +1,160 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.util.extension;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.activiti.designer.integration.annotation.Help;
+import org.activiti.designer.integration.annotation.Property;
+import org.activiti.designer.integration.annotation.TaskName;
+import org.activiti.designer.integration.annotation.TaskNames;
+import org.activiti.designer.integration.servicetask.CustomServiceTask;
+import org.activiti.designer.integration.usertask.CustomUserTask;
+
+/**
+ * The metadata of a {@link CustomServiceTask} or {@link CustomUserTask} class: its {@link Property} fields and the
+ * {@link Help} and {@link TaskNames} annotations. The class hierarchy is inspected once, when the
+ * {@link ExtensionRegistry} loads the extension, after which the descriptor is shared by all consumers.
+ */
+public final class ExtensionDescriptor {
+
+  private final Class< ? > taskClass;
+  private final Help help;
+  private final List<TaskName> taskNames;
+  private final Map<String, String> localizedNames;
+  private final List<CustomPropertyDescriptor> properties;
+  private final List<CustomPropertyDescriptor> sortedProperties;
+  private final Map<String, CustomPropertyDescriptor> propertiesByName;
+
+  public ExtensionDescriptor(final Class< ? > taskClass) {
+    this.taskClass = taskClass;
+    this.help = taskClass.getAnnotation(Help.class);
+
+    // the task class itself, followed by its superclasses that are still tasks
+    final Class< ? > taskType = CustomUserTask.class.isAssignableFrom(taskClass) ? CustomUserTask.class : CustomServiceTask.class;
+    final List<Class< ? >> classHierarchy = new ArrayList<Class< ? >>();
+    Class< ? > clazz = taskClass;
+    while (clazz != null && taskType.isAssignableFrom(clazz)) {
+      classHierarchy.add(clazz);
+      clazz = clazz.getSuperclass();
+    }
+
+    final List<TaskName> taskNameList = new ArrayList<TaskName>();
+    final List<CustomPropertyDescriptor> propertyList = new ArrayList<CustomPropertyDescriptor>();
+    final Map<String, CustomPropertyDescriptor> propertyMap = new LinkedHashMap<String, CustomPropertyDescriptor>();
+
+    for (final Class< ? > currentClass : classHierarchy) {
+      final TaskNames taskNamesAnnotation = currentClass.getAnnotation(TaskNames.class);
+      if (taskNamesAnnotation != null && taskNamesAnnotation.value() != null) {
+        Collections.addAll(taskNameList, taskNamesAnnotation.value());
+      }
+
+      for (final Field field : currentClass.getDeclaredFields()) {
+        if (field.isAnnotationPresent(Property.class)) {
+          final CustomPropertyDescriptor propertyDescriptor = new CustomPropertyDescriptor(field);
+          propertyList.add(propertyDescriptor);
+          if (!propertyMap.containsKey(propertyDescriptor.getName())) {
+            propertyMap.put(propertyDescriptor.getName(), propertyDescriptor);
+          }
+        }
+      }
+    }
+
+    // only the names of the class itself are used in the palette
+    final Map<String, String> localizedNameMap = new HashMap<String, String>();
+    final TaskNames ownTaskNames = taskClass.getAnnotation(TaskNames.class);
+    if (ownTaskNames != null && ownTaskNames.value() != null) {
+      for (final TaskName taskName : ownTaskNames.value()) {
+        localizedNameMap.put(taskName.locale().toLowerCase(), taskName.name());
+      }
+    }
+
+    final List<CustomPropertyDescriptor> sortedPropertyList = new ArrayList<CustomPropertyDescriptor>(propertyList);
+    Collections.sort(sortedPropertyList);
+
+    this.taskNames = Collections.unmodifiableList(taskNameList);
+    this.localizedNames = Collections.unmodifiableMap(localizedNameMap);
+    this.properties = Collections.unmodifiableList(propertyList);
+    this.sortedProperties = Collections.unmodifiableList(sortedPropertyList);
+    this.propertiesByName = Collections.unmodifiableMap(propertyMap);
+  }
+
+  /**
+   * @return the descriptor the extension registry created for the class, or a new descriptor if the class wasn't
+   *         loaded by the registry
+   */
+  public static ExtensionDescriptor forClass(final Class< ? > taskClass) {
+    final ExtensionDescriptor descriptor = ExtensionRegistry.findDescriptor(taskClass);
+    if (descriptor != null) {
+      return descriptor;
+    }
+    return new ExtensionDescriptor(taskClass);
+  }
+
+  public Class< ? > getTaskClass() {
+    return taskClass;
+  }
+
+  /**
+   * @return the {@link Help} annotation of the class itself, or null
+   */
+  public Help getHelp() {
+    return help;
+  }
+
+  /**
+   * @return the task names of the class and its superclasses, in that order
+   */
+  public List<TaskName> getTaskNames() {
+    return taskNames;
+  }
+
+  /**
+   * @return the name the class itself declares for the given locale, or null
+   */
+  public String getLocalizedName(final String locale) {
+    if (locale == null) {
+      return null;
+    }
+    return localizedNames.get(locale.toLowerCase());
+  }
+
+  /**
+   * @return the property fields of the class and its superclasses, in declaration order
+   */
+  public List<CustomPropertyDescriptor> getProperties() {
+    return properties;
+  }
+
+  /**
+   * @return the property fields of the class and its superclasses, sorted by their configured order
+   */
+  public List<CustomPropertyDescriptor> getSortedProperties() {
+    return sortedProperties;
+  }
+
+  public CustomPropertyDescriptor getProperty(final String name) {
+    return propertiesByName.get(name);
+  }
+
+  public boolean hasProperty(final String name) {
+    return propertiesByName.containsKey(name);
+  }
+}
@@ -0,0 +1,76 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.util.extension;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of scanning an extension jar with the {@link ExtensionJarScanner}: the name of the extension and the
+ * names of the concrete custom service task, custom user task and palette customizer classes in the jar. The class
+ * names are binary names, ready to be loaded by a {@link JarClassLoader}.
+ */
+public final class ExtensionJar {
+
+  private final long checksum;
+  private final String extensionName;
+  private final boolean indexed;
+  private final List<String> customServiceTaskClassNames;
+  private final List<String> customUserTaskClassNames;
+  private final List<String> paletteCustomizerClassNames;
+
+  ExtensionJar(final long checksum, final String extensionName, final boolean indexed, final List<String> customServiceTaskClassNames,
+          final List<String> customUserTaskClassNames, final List<String> paletteCustomizerClassNames) {
+    this.checksum = checksum;
+    this.extensionName = extensionName;
+    this.indexed = indexed;
+    this.customServiceTaskClassNames = Collections.unmodifiableList(customServiceTaskClassNames);
+    this.customUserTaskClassNames = Collections.unmodifiableList(customUserTaskClassNames);
+    this.paletteCustomizerClassNames = Collections.unmodifiableList(paletteCustomizerClassNames);
+  }
+
+  /**
+   * @return the checksum of the jar's entries the result was cached for
+   */
+  public long getChecksum() {
+    return checksum;
+  }
+
+  /**
+   * @return the extension name from the jar's manifest, or null if the manifest doesn't define one
+   */
+  public String getExtensionName() {
+    return extensionName;
+  }
+
+  /**
+   * @return true if the classes of at least one extension type were taken from a service index in the jar instead of
+   *         scanning its classes
+   */
+  public boolean isIndexed() {
+    return indexed;
+  }
+
+  public List<String> getCustomServiceTaskClassNames() {
+    return customServiceTaskClassNames;
+  }
+
+  public List<String> getCustomUserTaskClassNames() {
+    return customUserTaskClassNames;
+  }
+
+  public List<String> getPaletteCustomizerClassNames() {
+    return paletteCustomizerClassNames;
+  }
+}
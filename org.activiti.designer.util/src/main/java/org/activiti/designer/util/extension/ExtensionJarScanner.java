@@ -0,0 +1,516 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.util.extension;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+
+import org.activiti.designer.integration.palette.AbstractDefaultPaletteCustomizer;
+import org.activiti.designer.integration.palette.DefaultPaletteCustomizer;
+import org.activiti.designer.integration.servicetask.AbstractCustomServiceTask;
+import org.activiti.designer.integration.servicetask.CustomServiceTask;
+import org.activiti.designer.integration.usertask.AbstractCustomUserTask;
+import org.activiti.designer.integration.usertask.CustomUserTask;
+
+/**
+ * Finds the extensions in an extension jar without loading any classes or using the Java model. The jar's entries
+ * are read once: for each class file only the header is read, up to the names of the superclass and the interfaces,
+ * and the candidates are the concrete classes that extend one of the abstract base classes or implement one of the
+ * extension interfaces, directly or through other classes and interfaces. Supertypes that aren't in the jar itself
+ * are looked up in the other jars of the extensions library.
+ *
+ * A jar can skip the scan by listing its classes in a service index, the files
+ * <code>META-INF/services/&lt;interface name&gt;</code> for {@link CustomServiceTask}, {@link CustomUserTask} and
+ * {@link DefaultPaletteCustomizer}. The classes of an extension type are taken from its index when the jar has one,
+ * the classes of the other types are found by scanning the jar.
+ *
+ * What was read from a jar is cached by a checksum of the jar's entries, so a jar is only read again when it changed.
+ * At most {@link #MAX_ENTRIES} jars are kept, by soft references, and the cache is cleared when the registries shut
+ * down.
+ */
+public final class ExtensionJarScanner {
+
+  private static final String SERVICE_INDEX_PATH = "META-INF/services/";
+
+  private static final String CLASS_FILE_SUFFIX = ".class";
+
+  private static final int CLASS_FILE_MAGIC = 0xCAFEBABE;
+
+  private static final int MAX_ENTRIES = 64;
+
+  private static final ExtensionType[] EXTENSION_TYPES = {
+          new ExtensionType(AbstractCustomServiceTask.class, CustomServiceTask.class),
+          new ExtensionType(AbstractCustomUserTask.class, CustomUserTask.class),
+          new ExtensionType(AbstractDefaultPaletteCustomizer.class, DefaultPaletteCustomizer.class) };
+
+  @SuppressWarnings("serial")
+  private static final Map<Long, SoftReference<JarContents>> jarsByChecksum = new LinkedHashMap<Long, SoftReference<JarContents>>(
+          16, 0.75f, true) {
+
+    @Override
+    protected boolean removeEldestEntry(Entry<Long, SoftReference<JarContents>> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+
+  private static int hits;
+  private static int misses;
+
+  private ExtensionJarScanner() {
+
+  }
+
+  /**
+   * Finds the extensions in the jar.
+   *
+   * @param jarFilePath
+   *          the path of the jar in the file system
+   * @param libraryJarPaths
+   *          the paths of all jars of the extensions library, in which the supertypes that aren't in the jar itself are
+   *          looked up
+   * @throws IOException
+   *           when the jar can't be read
+   */
+  public static ExtensionJar scan(final String jarFilePath, final List<String> libraryJarPaths) throws IOException {
+    final JarContents contents = getContents(jarFilePath);
+
+    final List<List<String>> classNames = new ArrayList<List<String>>();
+    boolean indexed = false;
+    boolean scanRequired = false;
+    for (int i = 0; i < EXTENSION_TYPES.length; i++) {
+      final List<String> indexedClassNames = contents.indexedClassNames.get(i);
+      if (indexedClassNames != null) {
+        indexed = true;
+        classNames.add(new ArrayList<String>(indexedClassNames));
+      } else {
+        scanRequired = true;
+        classNames.add(new ArrayList<String>());
+      }
+    }
+
+    if (scanRequired) {
+      final TypeHierarchy hierarchy = new TypeHierarchy(jarFilePath, contents, libraryJarPaths);
+      for (final ClassFileHeader header : contents.getHeaders(jarFilePath).values()) {
+        if (!header.isConcrete()) {
+          continue;
+        }
+        for (int i = 0; i < EXTENSION_TYPES.length; i++) {
+          if (contents.indexedClassNames.get(i) == null && EXTENSION_TYPES[i].matches(header, hierarchy, new HashSet<String>())) {
+            classNames.get(i).add(header.name.replace('/', '.'));
+          }
+        }
+      }
+    }
+
+    return new ExtensionJar(contents.checksum, contents.extensionName, indexed, classNames.get(0), classNames.get(1),
+            classNames.get(2));
+  }
+
+  public static void clear() {
+    synchronized (jarsByChecksum) {
+      jarsByChecksum.clear();
+    }
+  }
+
+  public static int getHits() {
+    synchronized (jarsByChecksum) {
+      return hits;
+    }
+  }
+
+  public static int getMisses() {
+    synchronized (jarsByChecksum) {
+      return misses;
+    }
+  }
+
+  /**
+   * @return what was read from the jar before if a jar with the same checksum was read, otherwise the manifest and
+   *         service indexes of the jar
+   */
+  private static JarContents getContents(final String jarFilePath) throws IOException {
+    final JarFile jarFile = new JarFile(jarFilePath);
+    try {
+      final long checksum = computeChecksum(jarFile);
+
+      synchronized (jarsByChecksum) {
+        final SoftReference<JarContents> reference = jarsByChecksum.get(checksum);
+        final JarContents cachedContents = reference != null ? reference.get() : null;
+        if (cachedContents != null) {
+          hits++;
+          return cachedContents;
+        }
+        misses++;
+      }
+
+      final JarContents result = readContents(jarFile, checksum);
+      synchronized (jarsByChecksum) {
+        jarsByChecksum.put(checksum, new SoftReference<JarContents>(result));
+      }
+      return result;
+
+    } finally {
+      jarFile.close();
+    }
+  }
+
+  /**
+   * Computes the checksum from the central directory of the jar, which holds the name, size and CRC of each entry, so
+   * the contents of the entries don't need to be read.
+   */
+  private static long computeChecksum(final JarFile jarFile) throws IOException {
+    final CRC32 crc = new CRC32();
+    final Enumeration<JarEntry> entries = jarFile.entries();
+    while (entries.hasMoreElements()) {
+      final JarEntry entry = entries.nextElement();
+      crc.update(entry.getName().getBytes("UTF-8"));
+      updateChecksum(crc, entry.getCrc());
+      updateChecksum(crc, entry.getSize());
+    }
+    return crc.getValue();
+  }
+
+  private static void updateChecksum(final CRC32 crc, final long value) {
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      crc.update((int) (value >>> shift) & 0xFF);
+    }
+  }
+
+  private static JarContents readContents(final JarFile jarFile, final long checksum) throws IOException {
+
+    String extensionName = null;
+    final Manifest manifest = jarFile.getManifest();
+    if (manifest != null) {
+      extensionName = manifest.getMainAttributes().getValue(CustomServiceTask.MANIFEST_EXTENSION_NAME);
+    }
+
+    final List<List<String>> indexedClassNames = new ArrayList<List<String>>();
+    boolean scanRequired = false;
+    for (int i = 0; i < EXTENSION_TYPES.length; i++) {
+      final JarEntry indexEntry = jarFile.getJarEntry(SERVICE_INDEX_PATH + EXTENSION_TYPES[i].interfaceName.replace('/', '.'));
+      if (indexEntry != null) {
+        final List<String> classNames = new ArrayList<String>();
+        readServiceIndex(jarFile, indexEntry, classNames);
+        indexedClassNames.add(Collections.unmodifiableList(classNames));
+      } else {
+        indexedClassNames.add(null);
+        scanRequired = true;
+      }
+    }
+
+    final JarContents result = new JarContents(checksum, extensionName, indexedClassNames);
+    if (scanRequired) {
+      result.headers = readClassFileHeaders(jarFile);
+    }
+    return result;
+  }
+
+  private static void readServiceIndex(final JarFile jarFile, final JarEntry indexEntry, final List<String> result)
+          throws IOException {
+    final BufferedReader reader = new BufferedReader(new InputStreamReader(jarFile.getInputStream(indexEntry), "UTF-8"));
+    try {
+      String line = null;
+      while ((line = reader.readLine()) != null) {
+        final int commentStart = line.indexOf('#');
+        if (commentStart >= 0) {
+          line = line.substring(0, commentStart);
+        }
+        line = line.trim();
+        if (line.length() > 0 && !result.contains(line)) {
+          result.add(line);
+        }
+      }
+    } finally {
+      reader.close();
+    }
+  }
+
+  private static Map<String, ClassFileHeader> readClassFileHeaders(final JarFile jarFile) throws IOException {
+    final Map<String, ClassFileHeader> result = new LinkedHashMap<String, ClassFileHeader>();
+    final Enumeration<JarEntry> entries = jarFile.entries();
+    while (entries.hasMoreElements()) {
+      final JarEntry entry = entries.nextElement();
+      if (entry.isDirectory() || !entry.getName().endsWith(CLASS_FILE_SUFFIX)) {
+        continue;
+      }
+      final InputStream stream = jarFile.getInputStream(entry);
+      try {
+        final ClassFileHeader header = ClassFileHeader.read(stream);
+        if (header != null) {
+          result.put(header.name, header);
+        }
+      } finally {
+        stream.close();
+      }
+    }
+    return Collections.unmodifiableMap(result);
+  }
+
+  /**
+   * What was read from a jar: the extension name, the class names in the service index per extension type, which are
+   * null for a type without index, and the class file headers, which are only read when they are needed.
+   */
+  private static class JarContents {
+
+    private final long checksum;
+    private final String extensionName;
+    private final List<List<String>> indexedClassNames;
+    private Map<String, ClassFileHeader> headers;
+
+    JarContents(final long checksum, final String extensionName, final List<List<String>> indexedClassNames) {
+      this.checksum = checksum;
+      this.extensionName = extensionName;
+      this.indexedClassNames = indexedClassNames;
+    }
+
+    /**
+     * @return the class file headers by internal name, reading them from the jar when that wasn't done before
+     */
+    synchronized Map<String, ClassFileHeader> getHeaders(final String jarFilePath) throws IOException {
+      if (headers == null) {
+        final JarFile jarFile = new JarFile(jarFilePath);
+        try {
+          headers = readClassFileHeaders(jarFile);
+        } finally {
+          jarFile.close();
+        }
+      }
+      return headers;
+    }
+  }
+
+  /**
+   * Looks up class file headers in the scanned jar first and then in the other jars of the extensions library, which
+   * are only read when a supertype isn't in the scanned jar.
+   */
+  private static class TypeHierarchy {
+
+    private final Map<String, ClassFileHeader> headers;
+    private final List<String> otherJarPaths = new ArrayList<String>();
+    private List<Map<String, ClassFileHeader>> otherHeaders;
+
+    TypeHierarchy(final String jarFilePath, final JarContents contents, final List<String> libraryJarPaths) throws IOException {
+      this.headers = contents.getHeaders(jarFilePath);
+      if (libraryJarPaths != null) {
+        for (final String libraryJarPath : libraryJarPaths) {
+          if (!libraryJarPath.equals(jarFilePath)) {
+            otherJarPaths.add(libraryJarPath);
+          }
+        }
+      }
+    }
+
+    /**
+     * @return the header of the type, or null if the type isn't in one of the jars
+     */
+    ClassFileHeader find(final String name) {
+      final ClassFileHeader header = headers.get(name);
+      if (header != null || name.startsWith("java/") || name.startsWith("javax/")) {
+        return header;
+      }
+
+      if (otherHeaders == null) {
+        otherHeaders = new ArrayList<Map<String, ClassFileHeader>>();
+        for (final String otherJarPath : otherJarPaths) {
+          try {
+            otherHeaders.add(getContents(otherJarPath).getHeaders(otherJarPath));
+          } catch (IOException e) {
+            // a jar that can't be read has no types to offer
+          }
+        }
+      }
+      for (final Map<String, ClassFileHeader> other : otherHeaders) {
+        final ClassFileHeader otherHeader = other.get(name);
+        if (otherHeader != null) {
+          return otherHeader;
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * An abstract base class and an interface of the extension API, by their internal names.
+   */
+  private static class ExtensionType {
+
+    private final String abstractClassName;
+    private final String interfaceName;
+
+    ExtensionType(final Class< ? > abstractClass, final Class< ? > extensionInterface) {
+      this.abstractClassName = abstractClass.getName().replace('.', '/');
+      this.interfaceName = extensionInterface.getName().replace('.', '/');
+    }
+
+    /**
+     * @return true if the class or interface extends the abstract class or implements the interface, following the
+     *         supertypes that are in the jars of the hierarchy
+     */
+    boolean matches(final ClassFileHeader header, final TypeHierarchy hierarchy, final Set<String> visited) {
+      if (!visited.add(header.name)) {
+        return false;
+      }
+      if (abstractClassName.equals(header.superName)) {
+        return true;
+      }
+      for (final String interfaceNameOfClass : header.interfaceNames) {
+        if (interfaceName.equals(interfaceNameOfClass)) {
+          return true;
+        }
+      }
+
+      final List<String> superTypeNames = new ArrayList<String>(header.interfaceNames);
+      if (header.superName != null) {
+        superTypeNames.add(header.superName);
+      }
+      for (final String superTypeName : superTypeNames) {
+        final ClassFileHeader superHeader = hierarchy.find(superTypeName);
+        if (superHeader != null && matches(superHeader, hierarchy, visited)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * The start of a class file, up to and including the names of the interfaces. See chapter 4 of the Java Virtual
+   * Machine Specification for the format.
+   */
+  private static class ClassFileHeader {
+
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+
+    private final String name;
+    private final String superName;
+    private final List<String> interfaceNames;
+    private final int accessFlags;
+
+    private ClassFileHeader(final String name, final String superName, final List<String> interfaceNames, final int accessFlags) {
+      this.name = name;
+      this.superName = superName;
+      this.interfaceNames = interfaceNames;
+      this.accessFlags = accessFlags;
+    }
+
+    boolean isConcrete() {
+      return (accessFlags & (ACC_INTERFACE | ACC_ABSTRACT)) == 0;
+    }
+
+    /**
+     * @return the header, or null if the stream isn't a class file
+     */
+    static ClassFileHeader read(final InputStream stream) throws IOException {
+      final DataInputStream input = new DataInputStream(new BufferedInputStream(stream));
+
+      if (input.readInt() != CLASS_FILE_MAGIC) {
+        return null;
+      }
+      // minor and major version
+      input.readUnsignedShort();
+      input.readUnsignedShort();
+
+      // the constant pool, of which only the class entries and the names they refer to are kept
+      final int constantPoolCount = input.readUnsignedShort();
+      final String[] utf8Constants = new String[constantPoolCount];
+      final int[] classNameIndexes = new int[constantPoolCount];
+      for (int i = 1; i < constantPoolCount; i++) {
+        final int tag = input.readUnsignedByte();
+        switch (tag) {
+        case 1: // Utf8
+          utf8Constants[i] = input.readUTF();
+          break;
+        case 7: // Class
+          classNameIndexes[i] = input.readUnsignedShort();
+          break;
+        case 8: // String
+        case 16: // MethodType
+        case 19: // Module
+        case 20: // Package
+          skipFully(input, 2);
+          break;
+        case 15: // MethodHandle
+          skipFully(input, 3);
+          break;
+        case 3: // Integer
+        case 4: // Float
+        case 9: // Fieldref
+        case 10: // Methodref
+        case 11: // InterfaceMethodref
+        case 12: // NameAndType
+        case 17: // Dynamic
+        case 18: // InvokeDynamic
+          skipFully(input, 4);
+          break;
+        case 5: // Long
+        case 6: // Double
+          skipFully(input, 8);
+          // takes two entries in the constant pool
+          i++;
+          break;
+        default:
+          throw new IOException("Unknown constant pool tag " + tag);
+        }
+      }
+
+      final int accessFlags = input.readUnsignedShort();
+      final String name = getClassName(input.readUnsignedShort(), utf8Constants, classNameIndexes);
+      final String superName = getClassName(input.readUnsignedShort(), utf8Constants, classNameIndexes);
+
+      final int interfaceCount = input.readUnsignedShort();
+      final List<String> interfaceNames = new ArrayList<String>(interfaceCount);
+      for (int i = 0; i < interfaceCount; i++) {
+        interfaceNames.add(getClassName(input.readUnsignedShort(), utf8Constants, classNameIndexes));
+      }
+
+      if (name == null) {
+        return null;
+      }
+      return new ClassFileHeader(name, superName, interfaceNames, accessFlags);
+    }
+
+    private static String getClassName(final int classIndex, final String[] utf8Constants, final int[] classNameIndexes) {
+      if (classIndex <= 0 || classIndex >= classNameIndexes.length) {
+        // java.lang.Object has no superclass
+        return null;
+      }
+      return utf8Constants[classNameIndexes[classIndex]];
+    }
+
+    private static void skipFully(final DataInputStream input, final int count) throws IOException {
+      for (int i = 0; i < count; i++) {
+        input.readUnsignedByte();
+      }
+    }
+  }
+}
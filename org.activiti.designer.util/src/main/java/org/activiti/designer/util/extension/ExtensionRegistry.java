@@ -0,0 +1,264 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.util.extension;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.activiti.designer.integration.palette.PaletteEntry;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.JavaCore;
+
+/**
+ * The extensions found in the Designer extensions user library of a project. The custom service tasks, custom user
+ * tasks and disabled palette entries are loaded by {@link ExtensionUtil} the first time they are needed and kept
+ * until the classpath of the project, or one of the jars on it, changes. A Java element changed listener drops the
+ * registry of the project in that case, so the next request loads the extensions again.
+ *
+ * The extension classes are found by the {@link ExtensionJarScanner}, which keeps its results per jar checksum, so a
+ * jar that didn't change isn't scanned again when the registry is created anew.
+ *
+ * The lists handed out are copies, the task instances in the contexts are shared. All classes of an extension jar are
+ * loaded by a single {@link JarClassLoader}, which is closed when the registry is dropped. The annotations of the task
+ * classes are read once, when the contexts are loaded, into an {@link ExtensionDescriptor} per class.
+ */
+public class ExtensionRegistry {
+
+  private static final Map<IProject, ExtensionRegistry> registries = new HashMap<IProject, ExtensionRegistry>();
+
+  private static IElementChangedListener classpathListener;
+
+  private final IProject project;
+
+  private List<CustomServiceTaskContext> customServiceTaskContexts;
+  private List<CustomUserTaskContext> customUserTaskContexts;
+  private Set<PaletteEntry> disabledPaletteEntries;
+
+  /** The descriptors of the loaded task classes, guarded by their own lock as they are looked up from any registry. */
+  private final Map<Class< ? >, ExtensionDescriptor> descriptors = new HashMap<Class< ? >, ExtensionDescriptor>();
+
+  /** The class loaders per extension jar, guarded by their own lock as they are closed while a load may run. */
+  private final Map<String, JarClassLoader> classLoaders = new HashMap<String, JarClassLoader>();
+
+  private ExtensionRegistry(final IProject project) {
+    this.project = project;
+  }
+
+  /**
+   * @return the registry of the project, which is created when the project doesn't have one yet
+   */
+  public static synchronized ExtensionRegistry getRegistry(final IProject project) {
+    if (classpathListener == null) {
+      classpathListener = new ClasspathChangeListener();
+      JavaCore.addElementChangedListener(classpathListener, ElementChangedEvent.POST_CHANGE);
+    }
+
+    ExtensionRegistry registry = registries.get(project);
+    if (registry == null) {
+      registry = new ExtensionRegistry(project);
+      registries.put(project, registry);
+    }
+    return registry;
+  }
+
+  public static synchronized void invalidate(final IProject project) {
+    final ExtensionRegistry registry = registries.remove(project);
+    if (registry != null) {
+      registry.closeClassLoaders();
+    }
+  }
+
+  public static synchronized void invalidateAll() {
+    for (final ExtensionRegistry registry : registries.values()) {
+      registry.closeClassLoaders();
+    }
+    registries.clear();
+  }
+
+  /**
+   * @return the descriptor a registry created for the task class, or null if no registry loaded the class
+   */
+  public static synchronized ExtensionDescriptor findDescriptor(final Class< ? > taskClass) {
+    for (final ExtensionRegistry registry : registries.values()) {
+      final ExtensionDescriptor descriptor = registry.getDescriptor(taskClass);
+      if (descriptor != null) {
+        return descriptor;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Stops listening to classpath changes and drops all registries and scanned jars.
+   */
+  public static synchronized void shutdown() {
+    if (classpathListener != null) {
+      JavaCore.removeElementChangedListener(classpathListener);
+      classpathListener = null;
+    }
+    invalidateAll();
+    ExtensionJarScanner.clear();
+  }
+
+  public synchronized List<CustomServiceTaskContext> getCustomServiceTaskContexts() {
+    if (customServiceTaskContexts == null) {
+      final List<CustomServiceTaskContext> result = new ArrayList<CustomServiceTaskContext>();
+      if (!ExtensionUtil.loadCustomServiceTaskContexts(project, result, this)) {
+        // try again on the next request
+        return result;
+      }
+      for (final CustomServiceTaskContext context : result) {
+        addDescriptor(context.getServiceTask().getClass());
+      }
+      customServiceTaskContexts = result;
+    }
+    return new ArrayList<CustomServiceTaskContext>(customServiceTaskContexts);
+  }
+
+  public synchronized List<CustomUserTaskContext> getCustomUserTaskContexts() {
+    if (customUserTaskContexts == null) {
+      final List<CustomUserTaskContext> result = new ArrayList<CustomUserTaskContext>();
+      if (!ExtensionUtil.loadCustomUserTaskContexts(project, result, this)) {
+        return result;
+      }
+      for (final CustomUserTaskContext context : result) {
+        addDescriptor(context.getUserTask().getClass());
+      }
+      customUserTaskContexts = result;
+    }
+    return new ArrayList<CustomUserTaskContext>(customUserTaskContexts);
+  }
+
+  public synchronized Set<PaletteEntry> getDisabledPaletteEntries() {
+    if (disabledPaletteEntries == null) {
+      disabledPaletteEntries = ExtensionUtil.loadDisabledPaletteEntries(project, this);
+    }
+    return new HashSet<PaletteEntry>(disabledPaletteEntries);
+  }
+
+  /**
+   * @return true once the custom tasks and disabled palette entries are loaded and kept by the registry, after which
+   *         they don't change until the registry is dropped
+   */
+  public synchronized boolean isLoaded() {
+    return customServiceTaskContexts != null && customUserTaskContexts != null && disabledPaletteEntries != null;
+  }
+
+  /**
+   * @return the descriptor of a task class loaded by this registry, or null
+   */
+  public ExtensionDescriptor getDescriptor(final Class< ? > taskClass) {
+    synchronized (descriptors) {
+      return descriptors.get(taskClass);
+    }
+  }
+
+  private void addDescriptor(final Class< ? > taskClass) {
+    synchronized (descriptors) {
+      if (!descriptors.containsKey(taskClass)) {
+        descriptors.put(taskClass, new ExtensionDescriptor(taskClass));
+      }
+    }
+  }
+
+  /**
+   * @param extensionJarPaths
+   *          the paths of all extension jars, in which classes that aren't in the jar are looked up
+   * @return the class loader of the extension jar, which is shared by all classes loaded from the jar
+   */
+  JarClassLoader getClassLoader(final String jarFilePath, final List<String> extensionJarPaths) {
+    synchronized (classLoaders) {
+      JarClassLoader classLoader = classLoaders.get(jarFilePath);
+      if (classLoader == null) {
+        classLoader = new JarClassLoader(jarFilePath, extensionJarPaths);
+        classLoaders.put(jarFilePath, classLoader);
+      }
+      return classLoader;
+    }
+  }
+
+  /**
+   * @return the class loaders of the extension jars, to inspect their load statistics
+   */
+  public List<JarClassLoader> getClassLoaders() {
+    synchronized (classLoaders) {
+      return new ArrayList<JarClassLoader>(classLoaders.values());
+    }
+  }
+
+  private void closeClassLoaders() {
+    for (final JarClassLoader classLoader : getClassLoaders()) {
+      classLoader.close();
+    }
+  }
+
+  /**
+   * Drops the registry of a project when its classpath changes, when a jar on its classpath is added, removed or
+   * changed, and when the project is closed or removed.
+   */
+  private static class ClasspathChangeListener implements IElementChangedListener {
+
+    private static final int CLASSPATH_FLAGS = IJavaElementDelta.F_CLASSPATH_CHANGED
+            | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED | IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED;
+
+    private static final int ARCHIVE_FLAGS = IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED
+            | IJavaElementDelta.F_ADDED_TO_CLASSPATH | IJavaElementDelta.F_REMOVED_FROM_CLASSPATH;
+
+    @Override
+    public void elementChanged(ElementChangedEvent event) {
+      visit(event.getDelta());
+    }
+
+    private void visit(final IJavaElementDelta delta) {
+      final IJavaElement element = delta.getElement();
+
+      switch (element.getElementType()) {
+      case IJavaElement.JAVA_MODEL:
+        visitChildren(delta);
+        break;
+      case IJavaElement.JAVA_PROJECT:
+        if (delta.getKind() != IJavaElementDelta.CHANGED || (delta.getFlags() & CLASSPATH_FLAGS) != 0) {
+          invalidate(element.getJavaProject().getProject());
+        } else {
+          visitChildren(delta);
+        }
+        break;
+      case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+        if (((IPackageFragmentRoot) element).isArchive()
+                && (delta.getKind() != IJavaElementDelta.CHANGED || (delta.getFlags() & ARCHIVE_FLAGS) != 0)) {
+          invalidate(element.getJavaProject().getProject());
+        }
+        break;
+      default:
+        // changes inside of packages don't affect the extensions in jars
+        break;
+      }
+    }
+
+    private void visitChildren(final IJavaElementDelta delta) {
+      for (final IJavaElementDelta child : delta.getAffectedChildren()) {
+        visit(child);
+      }
+    }
+  }
+}
@@ -16,25 +16,21 @@
  */
 package org.activiti.designer.util.extension;
 
-import java.io.InputStream;
+import java.io.IOException;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.jar.Manifest;
 
 import org.activiti.bpmn.model.CustomProperty;
 import org.activiti.bpmn.model.ServiceTask;
 import org.activiti.bpmn.model.Task;
 import org.activiti.bpmn.model.UserTask;
-import org.activiti.designer.integration.palette.AbstractDefaultPaletteCustomizer;
 import org.activiti.designer.integration.palette.DefaultPaletteCustomizer;
 import org.activiti.designer.integration.palette.PaletteEntry;
-import org.activiti.designer.integration.servicetask.AbstractCustomServiceTask;
 import org.activiti.designer.integration.servicetask.CustomServiceTask;
 import org.activiti.designer.integration.servicetask.CustomServiceTaskDescriptor;
-import org.activiti.designer.integration.usertask.AbstractCustomUserTask;
 import org.activiti.designer.integration.usertask.CustomUserTask;
 import org.activiti.designer.integration.usertask.CustomUserTaskDescriptor;
 import org.activiti.designer.util.eclipse.ActivitiUiUtil;
@@ -46,18 +42,12 @@ import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.graphiti.ui.editor.DiagramEditor;
-import org.eclipse.jdt.core.IClassFile;
 import org.eclipse.jdt.core.IClasspathContainer;
 import org.eclipse.jdt.core.IClasspathEntry;
-import org.eclipse.jdt.core.IJarEntryResource;
-import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
-import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IPackageFragmentRoot;
-import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
-import org.eclipse.jdt.internal.core.JarEntryDirectory;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.ui.IWorkbenchPart;
 import org.eclipse.ui.PlatformUI;
@@ -90,6 +80,7 @@ public final class ExtensionUtil {
       providedCustomServiceTaskDescriptors = new ArrayList<CustomServiceTaskDescriptor>();
     }
     providedCustomServiceTaskDescriptors.addAll(descriptors);
+    ExtensionRegistry.invalidateAll();
   }
   
   public static void addProvidedCustomUserTaskDescriptors(List<CustomUserTaskDescriptor> descriptors) {
@@ -97,227 +88,129 @@ public final class ExtensionUtil {
       providedCustomUserTaskDescriptors = new ArrayList<CustomUserTaskDescriptor>();
     }
     providedCustomUserTaskDescriptors.addAll(descriptors);
+    ExtensionRegistry.invalidateAll();
   }
 
+  /**
+   * Gets the palette entries that are disabled by the palette customizers in the extensions of the project. The
+   * entries are read from the {@link ExtensionRegistry} of the project.
+   */
   public static final Set<PaletteEntry> getDisabledPaletteEntries(IProject project) {
+    return ExtensionRegistry.getRegistry(project).getDisabledPaletteEntries();
+  }
+
+  static Set<PaletteEntry> loadDisabledPaletteEntries(IProject project, ExtensionRegistry registry) {
 
     Set<PaletteEntry> result = new HashSet<PaletteEntry>();
 
-    // Determine the project
-    IJavaProject javaProject = null;
     try {
-      javaProject = (IJavaProject) project.getNature(JavaCore.NATURE_ID);
-    } catch (CoreException e) {
-      // skip, not a Java project
-    }
-
-    if (javaProject != null) {
-
-      try {
+      final List<String> extensionJarPaths = getExtensionJarPaths(project);
+      for (final String classPathFilename : extensionJarPaths) {
 
-        // Get the container for the designer extensions. This is the
-        // predefined user library linking to the extension libraries
-        final IClasspathContainer userLibraryContainer = JavaCore.getClasspathContainer(new Path(DESIGNER_EXTENSIONS_USER_LIB_PATH), javaProject);
+        final ExtensionJar extensionJar = scanExtensionJar(classPathFilename, extensionJarPaths);
+        if (extensionJar == null) {
+          continue;
+        }
 
-        /**
-         * <classpath>
-				<classpathentry kind="con" path="org.eclipse.jdt.launching.JRE_CONTAINER/org.eclipse.jdt.internal.debug.ui.launcher.StandardVMType/JavaSE-1.6"/>
-				<classpathentry kind="con" path="org.eclipse.pde.core.requiredPlugins"/>
-				<classpathentry kind="src" path="src/main/java/"/>
-				<classpathentry kind="output" path="target/classes"/>
-			</classpath>
+        JarClassLoader cl = registry.getClassLoader(classPathFilename, extensionJarPaths);
 
-         */
-        
-        // Get a list of the classpath entries in the container. Each of
-        // these represents one jar containing zero or more designer
-        // extensions
-        final IClasspathEntry[] extensionJars = userLibraryContainer.getClasspathEntries();
-
-        // If there are jars, inspect them; otherwise return because
-        // there are no extensions
-        if (extensionJars.length > 0) {
-
-          for (final IClasspathEntry classpathEntry : extensionJars) {
-
-        	/**
-        	 * int getEntryKind()
-				Returns the kind of this classpath entry.
-				Returns:
-				one of:
-				CPE_SOURCE - this entry describes a source root in its project
-				CPE_LIBRARY - this entry describes a folder or JAR containing binaries
-				CPE_PROJECT - this entry describes another project
-				CPE_VARIABLE - this entry describes a project or library indirectly via a classpath variable in the first segment of the path *
-				CPE_CONTAINER - this entry describes set of entries referenced indirectly via a classpath container
-				
-				
-				public static final int	CPE_CONTAINER	5
-				public static final int	CPE_LIBRARY		1
-				public static final int	CPE_PROJECT		2
-				public static final int	CPE_SOURCE		3
-				public static final int	CPE_VARIABLE	4
-				
-				int getContentKind()
-				Returns the kind of files found in the package fragments identified by this classpath entry.
-				Returns:
-					IPackageFragmentRoot.K_SOURCE(1) for files containing source code, and 
-					IPackageFragmentRoot.K_BINARY(2) for binary class files. 
-					
-					There is no specified value for an entry denoting a variable (CPE_VARIABLE) or a classpath container (CPE_CONTAINER).
-        	 */
-            // Only check entries of the correct kind
-            if (classpathEntry.getEntryKind() == 1 && classpathEntry.getContentKind() == 2) {
-              //PackageFragment代表Java包(package)	
-              IPackageFragment[] fragments = javaProject.getPackageFragments();
-              for (IPackageFragment iPackageFragment : fragments) {
-                
-                if (classpathEntry.getPath().lastSegment().equalsIgnoreCase(iPackageFragment.getParent().getElementName())) {
-                  
-                  IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
-                  
-                  String classPathFilename = null;
-                  if (classpathEntry.getPath().toFile().exists()) {
-                    classPathFilename = classpathEntry.getPath().toPortableString();
-                  } else {
-                    classPathFilename = root.getLocation().toPortableString() + classpathEntry.getPath().toPortableString();
-                  }
-                  
-                  JarClassLoader cl = new JarClassLoader(classPathFilename);
-
-                  // Inspect the jar by scanning its classpath and looking for classes that implement CustomServiceTask
-                  for (final IJavaElement javaElement : iPackageFragment.getChildren()) {
-                    if (javaElement.getElementType() == IJavaElement.CLASS_FILE) {
-                      IClassFile classFile = (IClassFile) javaElement;
-                      if (classFile.isClass()) {
-                        final IType type = classFile.getType();
-                        if (!isConcretePaletteCustomizer(type)) {
-                          continue;
-                        }
-
-                        try {
-                          Class<DefaultPaletteCustomizer> clazz = (Class<DefaultPaletteCustomizer>) cl.loadClass(type.getFullyQualifiedName());
-
-                          if (DefaultPaletteCustomizer.class.isAssignableFrom(clazz)) {
-                            try {
-                              DefaultPaletteCustomizer DefaultPaletteCustomizer = (DefaultPaletteCustomizer) clazz.newInstance();
-                              // Add this DefaultPaletteCustomizer to the result
-                              result.addAll(DefaultPaletteCustomizer.disablePaletteEntries());
-                            } catch (Exception e) {
-                              e.printStackTrace();
-                            }
-                          }
-                        } catch (ClassNotFoundException e) {
-                          e.printStackTrace();
-                        }
-                      }
-                    }
-                  }
-                }
+        for (final String className : extensionJar.getPaletteCustomizerClassNames()) {
+          try {
+            Class< ? > clazz = cl.loadClass(className);
+
+            if (!Modifier.isAbstract(clazz.getModifiers()) && DefaultPaletteCustomizer.class.isAssignableFrom(clazz)) {
+              try {
+                DefaultPaletteCustomizer DefaultPaletteCustomizer = (DefaultPaletteCustomizer) clazz.newInstance();
+                // Add this DefaultPaletteCustomizer to the result
+                result.addAll(DefaultPaletteCustomizer.disablePaletteEntries());
+              } catch (Exception e) {
+                e.printStackTrace();
               }
             }
+          } catch (ClassNotFoundException e) {
+            e.printStackTrace();
           }
         }
-      } catch (JavaModelException e) {
-        // TODO: test when this exception occurs: if there is no user
-        // lib for example?
-        e.printStackTrace();
       }
-
+    } catch (JavaModelException e) {
+      // TODO: test when this exception occurs: if there is no user
+      // lib for example?
+      e.printStackTrace();
     }
 
     return result;
   }
 
-  private static boolean isConcreteCustomService(IType type) {
+  /**
+   * Gets the paths of the jars in the Designer extensions user library of the project.
+   *
+   * @return the paths in the file system, or an empty list if the project isn't a Java project
+   */
+  private static List<String> getExtensionJarPaths(final IProject project) throws JavaModelException {
 
-    boolean customserviceFound = containsAbstractClassOrInterface(type, AbstractCustomServiceTask.class, CustomServiceTask.class);
+    final List<String> result = new ArrayList<String>();
 
+    IJavaProject javaProject = null;
     try {
-      if (customserviceFound && !Modifier.isAbstract(type.getFlags())) {
-        customserviceFound = true;
-      } else {
-        customserviceFound = false;
-      }
-    } catch (JavaModelException e) {
-      customserviceFound = false;
-      e.printStackTrace();
+      javaProject = (IJavaProject) project.getNature(JavaCore.NATURE_ID);
+    } catch (CoreException e) {
+      // skip, not a Java project
     }
 
-    return customserviceFound;
-  }
-  
-  private static boolean isConcreteCustomUserTask(IType type) {
-
-    boolean customUserTaskFound = containsAbstractClassOrInterface(type, AbstractCustomUserTask.class, CustomUserTask.class);
-
-    try {
-      if (customUserTaskFound && !Modifier.isAbstract(type.getFlags())) {
-        customUserTaskFound = true;
-      } else {
-        customUserTaskFound = false;
-      }
-    } catch (JavaModelException e) {
-      customUserTaskFound = false;
-      e.printStackTrace();
+    if (javaProject == null) {
+      return result;
     }
 
-    return customUserTaskFound;
-  }
+    // Get the container for the designer extensions. This is the
+    // predefined user library linking to the extension libraries
+    final IClasspathContainer userLibraryContainer = JavaCore.getClasspathContainer(new Path(DESIGNER_EXTENSIONS_USER_LIB_PATH), javaProject);
+    if (userLibraryContainer == null) {
+      return result;
+    }
 
-  private static boolean isConcretePaletteCustomizer(IType type) {
+    IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
 
-    boolean paletteCustomizerFound = containsAbstractClassOrInterface(type, AbstractDefaultPaletteCustomizer.class, DefaultPaletteCustomizer.class);
+    // Each of the classpath entries in the container represents one jar
+    // containing zero or more designer extensions
+    for (final IClasspathEntry classpathEntry : userLibraryContainer.getClasspathEntries()) {
 
-    try {
-      if (paletteCustomizerFound && !Modifier.isAbstract(type.getFlags())) {
-        paletteCustomizerFound = true;
-      } else {
-        paletteCustomizerFound = false;
+      // Only check entries of the correct kind
+      if (classpathEntry.getEntryKind() == IClasspathEntry.CPE_LIBRARY && classpathEntry.getContentKind() == IPackageFragmentRoot.K_BINARY) {
+        if (classpathEntry.getPath().toFile().exists()) {
+          result.add(classpathEntry.getPath().toPortableString());
+        } else {
+          result.add(root.getLocation().toPortableString() + classpathEntry.getPath().toPortableString());
+        }
       }
-    } catch (JavaModelException e) {
-      paletteCustomizerFound = false;
-      e.printStackTrace();
     }
 
-    return paletteCustomizerFound;
-
+    return result;
   }
 
-  // TODO: utilize type hierarchy in efficient manner
-  private static boolean containsAbstractClassOrInterface(IType type, Class targetAbstractClass, Class targetInterface) {
-
-    boolean result = false;
-
+  /**
+   * Finds the extension classes in the jar by reading its class file headers, see {@link ExtensionJarScanner}.
+   * Supertypes that aren't in the jar are looked up in the other extension jars.
+   *
+   * @return the extensions in the jar, or null if the jar can't be read
+   */
+  private static ExtensionJar scanExtensionJar(final String classPathFilename, final List<String> extensionJarPaths) {
     try {
-      // 1. Check whether the super classname of the type matches the abstract
-      // superclass we favor
-      // 2. Check whether the type implements the interface itself
-      // 3. If the type has *other* superclasses than the one we favor,
-      // recursively inspect the hierarchy
-      // using
-      // the same method
-      if (targetAbstractClass.getCanonicalName().equalsIgnoreCase(type.getSuperclassName())) {
-        result = true;
-      } else if (type.getSuperInterfaceNames() != null && type.getSuperInterfaceNames().length > 0) {
-        for (String interfaceName : type.getSuperInterfaceNames()) {
-          if (targetInterface.getCanonicalName().equalsIgnoreCase(interfaceName)) {
-            result = true;
-          }
-        }
-      }
-      // } else if (type.getSuperclassName() != null) {
-      // result =
-      // containsAbstractClassOrInterface(hierarchy.getSuperclass(type),
-      // targetAbstractClass, targetInterface);
-      // }
-
-    } catch (Exception e) {
-      result = false;
+      return ExtensionJarScanner.scan(classPathFilename, extensionJarPaths);
+    } catch (IOException e) {
+      e.printStackTrace();
+      return null;
     }
+  }
 
-    return result;
-
+  /**
+   * Determines the name of the extension: the name in the jar's manifest or,
+   * if the property wasn't defined, the jar's name.
+   */
+  private static String getExtensionName(final ExtensionJar extensionJar, final String classPathFilename) {
+    if (extensionJar.getExtensionName() != null) {
+      return extensionJar.getExtensionName();
+    }
+    return new Path(classPathFilename).lastSegment();
   }
 
   /**
@@ -550,156 +443,62 @@ public final class ExtensionUtil {
    *         found were found
    */
   public static List<CustomServiceTaskContext> getCustomServiceTaskContexts(final IProject project) {
+    return ExtensionRegistry.getRegistry(project).getCustomServiceTaskContexts();
+  }
 
-    List<CustomServiceTaskContext> result = new ArrayList<CustomServiceTaskContext>();
+  /**
+   * Loads the {@link CustomServiceTaskContext}s of the provided descriptors and of the extensions of the project into the
+   * result. The classes are loaded by the class loaders of the registry.
+   *
+   * @return false, when the extensions couldn't be inspected completely
+   */
+  static boolean loadCustomServiceTaskContexts(final IProject project, final List<CustomServiceTaskContext> result,
+          final ExtensionRegistry registry) {
 
     addToCustomServiceTasks(result);
 
-    IJavaProject javaProject = null;
     try {
-      javaProject = (IJavaProject) project.getNature(JavaCore.NATURE_ID);
-    } catch (CoreException e) {
-      // skip, not a Java project
-    }
+      final List<String> extensionJarPaths = getExtensionJarPaths(project);
+      for (final String classPathFilename : extensionJarPaths) {
 
-    if (javaProject != null) {
+        final ExtensionJar extensionJar = scanExtensionJar(classPathFilename, extensionJarPaths);
+        if (extensionJar == null) {
+          continue;
+        }
 
-      try {
+        JarClassLoader cl = registry.getClassLoader(classPathFilename, extensionJarPaths);
 
-        // Get the container for the designer extensions. This is the
-        // predefined user library linking to the extension libraries
-        final IClasspathContainer userLibraryContainer = JavaCore.getClasspathContainer(new Path(DESIGNER_EXTENSIONS_USER_LIB_PATH), javaProject);
-        
-        // Get a list of the classpath entries in the container. Each of
-        // these represents one jar containing zero or more designer
-        // extensions
-        
-        /**
-         * ----.classpath-----
-         * <classpath>
-				<classpathentry kind="con" path="org.eclipse.jdt.launching.JRE_CONTAINER/org.eclipse.jdt.internal.debug.ui.launcher.StandardVMType/JavaSE-1.6"/>
-				<classpathentry kind="con" path="org.eclipse.pde.core.requiredPlugins"/>
-				<classpathentry exported="true" kind="lib" path="activation-1.1.jar"/>
-				<classpathentry exported="true" kind="lib" path="chemistry-opencmis-client-bindings-0.10.0.jar"/>
-				<classpathentry kind="output" path="target/classes"/>
-			</classpath>
-         */
-        final IClasspathEntry[] extensionJars = userLibraryContainer.getClasspathEntries();
-
-        // If there are jars, inspect them; otherwise return because
-        // there are no extensions
-        if (extensionJars.length > 0) {
-
-          for (final IClasspathEntry classpathEntry : extensionJars) {
-
-            // Only check entries of the correct kind
-            if (classpathEntry.getEntryKind() == IClasspathEntry.CPE_LIBRARY && classpathEntry.getContentKind() == IPackageFragmentRoot.K_BINARY) {
-              IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
-              /**
-               * 获取包路径：例如工程下两个包[a,b.c]，那么getPackageFragments获取的数组[a,b,b.c]三个路径
-               */
-              IPackageFragment[] fragments = javaProject.getPackageFragments();
-              for (IPackageFragment iPackageFragment : fragments) {//PackageFragment代表Java包(package)
-                
-                if (classpathEntry.getPath().lastSegment().equalsIgnoreCase(iPackageFragment.getParent().getElementName())) {
-                  
-                	/**
-                	 * Jar 文件中 JAVA 资源主要 是 .java 文件和 .class 文件。Jar 文件中非 JAVA 的资源，对应的类为 IJarEntryResource，
-                	 * 比如 Jar 中的 .properties 文件、META-INF 文件夹、 META-INF 文件夹下的 MANIFEST.MF 等，都属于非 JAVA 资源，
-                	 * 这些非 JAVA 资 源可以存放于 JarPackageFragmentRoot 下，也可以存放于 JarPackageFragment 下。
-                	 * 下面的程序展示如何遍历获得 JarPackageFragmentRoot 下的所有非 JAVA 资源。
-					--------------------- 
-					原文：https://blog.csdn.net/wang_cyin/article/details/84683115 
-                	 */
-                	
-                  //读取所有的MANIFEST.MF文件
-                  Manifest manifest = null;
-                  for (Object obj : iPackageFragment.getNonJavaResources()) {
-                    if (obj instanceof JarEntryDirectory) {//　JarEntryDirectory　相当于　META-INF　文件夹　
-                      final JarEntryDirectory jarEntryDirectory = (JarEntryDirectory) obj;
-                      final IJarEntryResource[] jarEntryResources = jarEntryDirectory.getChildren();
-                      for (IJarEntryResource jarEntryResource : jarEntryResources) {
-                        if ("MANIFEST.MF".equals(jarEntryResource.getName())) {
-                          try {
-                            final InputStream stream = jarEntryResource.getContents();
-                            manifest = new Manifest(stream);
-                            
-                          } catch (Exception e) {
-                            // no manifest as result
-                          }
-                        }
-                      }
-                    }
-                  }
-                  
-                  final IJavaElement[] javaElements = iPackageFragment.getChildren();
-                  
-                  String classPathFilename = null;
-                  if (classpathEntry.getPath().toFile().exists()) {
-                    classPathFilename = classpathEntry.getPath().toPortableString();
-                  } else {
-                    classPathFilename = root.getLocation().toPortableString() + classpathEntry.getPath().toPortableString();
-                  }
-                  
-                  JarClassLoader cl = new JarClassLoader(classPathFilename);
-                  
-                  // Determine the name of the extension
-                  String extensionName = null;
-                  if (manifest != null) {
-                    extensionName = manifest.getMainAttributes().getValue(CustomServiceTask.MANIFEST_EXTENSION_NAME);
-                  }
-                  // If there is no manifest or the property wasn't
-                  // defined, use the jar's name as extension name
-                  // instead
-                  if (extensionName == null) {
-                    extensionName = classpathEntry.getPath().lastSegment();
-                  }
-                  
-                  for (final IJavaElement javaElement : javaElements) {
-                    if (javaElement.getElementType() == IJavaElement.CLASS_FILE) {
-                      IClassFile classFile = (IClassFile) javaElement;
-                      if (classFile.isClass()) {
-
-                        final IType type = classFile.getType();
-
-                        if (!isConcreteCustomService(type)) {
-                          continue;
-                        }
-                        
-                        try {
-                          Class<CustomServiceTask> clazz = (Class<CustomServiceTask>) cl.loadClass(type.getFullyQualifiedName());
-
-                          // Filter if the class is abstract: this probably means it is extended by concrete classes in the
-                          // extension and will have any properties applied in that way; we can't instantiate the class anyway
-                          if (!Modifier.isAbstract(clazz.getModifiers()) && CustomServiceTask.class.isAssignableFrom(clazz)) {
-                            try {
-                              CustomServiceTask customServiceTask = (CustomServiceTask) clazz.newInstance();
-                              // Add this CustomServiceTask to the result, wrapped in its context
-                              result.add(new CustomServiceTaskContextImpl(customServiceTask, extensionName, classPathFilename));
-                              
-                            } catch (Exception e) {
-                              e.printStackTrace();
-                            }
-
-                          }
-                        } catch (ClassNotFoundException e) {
-                          e.printStackTrace();
-                        }
-                      }
-                    }
-                  }
-                }
+        final String extensionName = getExtensionName(extensionJar, classPathFilename);
+
+        for (final String className : extensionJar.getCustomServiceTaskClassNames()) {
+          try {
+            Class< ? > clazz = cl.loadClass(className);
+
+            // Filter if the class is abstract: this probably means it is extended by concrete classes in the
+            // extension and will have any properties applied in that way; we can't instantiate the class anyway
+            if (!Modifier.isAbstract(clazz.getModifiers()) && CustomServiceTask.class.isAssignableFrom(clazz)) {
+              try {
+                CustomServiceTask customServiceTask = (CustomServiceTask) clazz.newInstance();
+                // Add this CustomServiceTask to the result, wrapped in its context
+                result.add(new CustomServiceTaskContextImpl(customServiceTask, extensionName, classPathFilename));
+
+              } catch (Exception e) {
+                e.printStackTrace();
               }
+
             }
+          } catch (ClassNotFoundException e) {
+            e.printStackTrace();
           }
         }
-      } catch (JavaModelException e) {
-        showExtensionExceptionMessage(String.format("There was a technical error when processing an extension to Activiti Designer: %s", e.getMessage()));
-        e.printStackTrace();
       }
+    } catch (JavaModelException e) {
+      showExtensionExceptionMessage(String.format("There was a technical error when processing an extension to Activiti Designer: %s", e.getMessage()));
+      e.printStackTrace();
+      return false;
     }
 
-    return result;
+    return true;
   }
   
   /**
@@ -713,132 +512,62 @@ public final class ExtensionUtil {
    *         found were found
    */
   public static List<CustomUserTaskContext> getCustomUserTaskContexts(final IProject project) {
+    return ExtensionRegistry.getRegistry(project).getCustomUserTaskContexts();
+  }
 
-    List<CustomUserTaskContext> result = new ArrayList<CustomUserTaskContext>();
+  /**
+   * Loads the {@link CustomUserTaskContext}s of the provided descriptors and of the extensions of the project into the
+   * result. The classes are loaded by the class loaders of the registry.
+   *
+   * @return false, when the extensions couldn't be inspected completely
+   */
+  static boolean loadCustomUserTaskContexts(final IProject project, final List<CustomUserTaskContext> result,
+          final ExtensionRegistry registry) {
 
     addToCustomUserTasks(result);
 
-    IJavaProject javaProject = null;
     try {
-      javaProject = (IJavaProject) project.getNature(JavaCore.NATURE_ID);
-    } catch (CoreException e) {
-      // skip, not a Java project
-    }
+      final List<String> extensionJarPaths = getExtensionJarPaths(project);
+      for (final String classPathFilename : extensionJarPaths) {
 
-    if (javaProject != null) {
+        final ExtensionJar extensionJar = scanExtensionJar(classPathFilename, extensionJarPaths);
+        if (extensionJar == null) {
+          continue;
+        }
+
+        JarClassLoader cl = registry.getClassLoader(classPathFilename, extensionJarPaths);
+
+        final String extensionName = getExtensionName(extensionJar, classPathFilename);
 
-      try {
-
-        // Get the container for the designer extensions. This is the
-        // predefined user library linking to the extension libraries
-        final IClasspathContainer userLibraryContainer = JavaCore.getClasspathContainer(new Path(DESIGNER_EXTENSIONS_USER_LIB_PATH), javaProject);
-        
-        // Get a list of the classpath entries in the container. Each of
-        // these represents one jar containing zero or more designer
-        // extensions
-        final IClasspathEntry[] extensionJars = userLibraryContainer.getClasspathEntries();
-
-        // If there are jars, inspect them; otherwise return because
-        // there are no extensions
-        if (extensionJars.length > 0) {
-
-          for (final IClasspathEntry classpathEntry : extensionJars) {
-
-            // Only check entries of the correct kind
-            if (classpathEntry.getEntryKind() == IClasspathEntry.CPE_LIBRARY && classpathEntry.getContentKind() == IPackageFragmentRoot.K_BINARY) {
-              IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
-              IPackageFragment[] fragments = javaProject.getPackageFragments();
-              for (IPackageFragment iPackageFragment : fragments) {
-                
-                if (classpathEntry.getPath().lastSegment().equalsIgnoreCase(iPackageFragment.getParent().getElementName())) {
-                  
-                  Manifest manifest = null;
-                  for (Object obj : iPackageFragment.getNonJavaResources()) {
-                    if (obj instanceof JarEntryDirectory) {
-                      final JarEntryDirectory jarEntryDirectory = (JarEntryDirectory) obj;
-                      final IJarEntryResource[] jarEntryResources = jarEntryDirectory.getChildren();
-                      for (IJarEntryResource jarEntryResource : jarEntryResources) {
-                        if ("MANIFEST.MF".equals(jarEntryResource.getName())) {
-                          try {
-                            final InputStream stream = jarEntryResource.getContents();
-                            manifest = new Manifest(stream);
-                            
-                          } catch (Exception e) {
-                            // no manifest as result
-                          }
-                        }
-                      }
-                    }
-                  }
-                  
-                  final IJavaElement[] javaElements = iPackageFragment.getChildren();
-                  
-                  String classPathFilename = null;
-                  if (classpathEntry.getPath().toFile().exists()) {
-                    classPathFilename = classpathEntry.getPath().toPortableString();
-                  } else {
-                    classPathFilename = root.getLocation().toPortableString() + classpathEntry.getPath().toPortableString();
-                  }
-                  
-                  JarClassLoader cl = new JarClassLoader(classPathFilename);
-                  
-                  // Determine the name of the extension
-                  String extensionName = null;
-                  if (manifest != null) {
-                    extensionName = manifest.getMainAttributes().getValue(CustomServiceTask.MANIFEST_EXTENSION_NAME);
-                  }
-                  // If there is no manifest or the property wasn't
-                  // defined, use the jar's name as extension name
-                  // instead
-                  if (extensionName == null) {
-                    extensionName = classpathEntry.getPath().lastSegment();
-                  }
-                  
-                  for (final IJavaElement javaElement : javaElements) {
-                    if (javaElement.getElementType() == IJavaElement.CLASS_FILE) {
-                      IClassFile classFile = (IClassFile) javaElement;
-                      if (classFile.isClass()) {
-
-                        final IType type = classFile.getType();
-
-                        if (!isConcreteCustomUserTask(type)) {
-                          continue;
-                        }
-                        
-                        try {
-                          Class<CustomUserTask> clazz = (Class<CustomUserTask>) cl.loadClass(type.getFullyQualifiedName());
-
-                          // Filter if the class is abstract: this probably means it is extended by concrete classes in the
-                          // extension and will have any properties applied in that way; we can't instantiate the class anyway
-                          if (!Modifier.isAbstract(clazz.getModifiers()) && CustomUserTask.class.isAssignableFrom(clazz)) {
-                            try {
-                              CustomUserTask customUserTask = (CustomUserTask) clazz.newInstance();
-                              // Add this CustomServiceTask to the result, wrapped in its context
-                              result.add(new CustomUserTaskContextImpl(customUserTask, extensionName, classPathFilename));
-                              
-                            } catch (Exception e) {
-                              e.printStackTrace();
-                            }
-
-                          }
-                        } catch (ClassNotFoundException e) {
-                          e.printStackTrace();
-                        }
-                      }
-                    }
-                  }
-                }
+        for (final String className : extensionJar.getCustomUserTaskClassNames()) {
+          try {
+            Class< ? > clazz = cl.loadClass(className);
+
+            // Filter if the class is abstract: this probably means it is extended by concrete classes in the
+            // extension and will have any properties applied in that way; we can't instantiate the class anyway
+            if (!Modifier.isAbstract(clazz.getModifiers()) && CustomUserTask.class.isAssignableFrom(clazz)) {
+              try {
+                CustomUserTask customUserTask = (CustomUserTask) clazz.newInstance();
+                // Add this CustomUserTask to the result, wrapped in its context
+                result.add(new CustomUserTaskContextImpl(customUserTask, extensionName, classPathFilename));
+
+              } catch (Exception e) {
+                e.printStackTrace();
               }
+
             }
+          } catch (ClassNotFoundException e) {
+            e.printStackTrace();
           }
         }
-      } catch (JavaModelException e) {
-        showExtensionExceptionMessage(String.format("There was a technical error when processing an extension to Activiti Designer: %s", e.getMessage()));
-        e.printStackTrace();
       }
+    } catch (JavaModelException e) {
+      showExtensionExceptionMessage(String.format("There was a technical error when processing an extension to Activiti Designer: %s", e.getMessage()));
+      e.printStackTrace();
+      return false;
     }
 
-    return result;
+    return true;
   }
 
   private static void showExtensionExceptionMessage(final String detailMessage) {
@@ -1,129 +1,270 @@
-/**
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- * http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package org.activiti.designer.util.extension;
-
-import java.io.DataInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
-
-import org.activiti.designer.integration.Activator;
-
-/**
- * Loads classes from jar files in the path provided.
- * 
- * @author Tiese Barrell
- * @since 0.5.1
- * @version 1
- * 
- */
-public class JarClassLoader extends ClassLoader {
-
-  private String jarFilePath;
-
-  public JarClassLoader(final String jarFilePath) {
-    if (jarFilePath == null)
-      throw new IllegalArgumentException("Null jarFilePath");
-    this.jarFilePath = jarFilePath;
-  }
-
-  @SuppressWarnings({ "rawtypes", "unchecked" })
-  protected Class loadClass(String name, boolean resolve) throws ClassNotFoundException {
-
-    // Since all support classes of loaded class use same class loader
-    // must check subclass cache of classes for things like Object
-    Class c = null;
-
-    // First check with the parent class loader
-    try {
-      c = super.getParent().loadClass(name);
-    } catch (ClassNotFoundException e) {
-      // fail silently
-    }
-
-    c = findLoadedClass(name);
-
-    if (c == null) {
-      // first, delegate to the integration bundle's class loader
-      try {
-        c = Activator.class.getClassLoader().loadClass(name);
-      } catch (ClassNotFoundException e) {
-        // fail silently
-      }
-    }
-
-    if (c == null) {
-      // Convert class name argument to filename
-      // Convert package names into subdirectories
-      String className = name.replace('.', '/') + ".class";
-
-      try {
-        // Load class data from file and save in byte array
-        byte data[] = loadClassData(jarFilePath, className);
-
-        // Convert byte array to Class
-        c = defineClass(name, data, 0, data.length);
-
-        // If failed, throw exception
-        if (c == null)
-          throw new ClassNotFoundException(name);
-
-      } catch (IOException e) {
-        throw new ClassNotFoundException("Error reading file: " + className, e);
-      }
-    }
-
-    // Resolve class definition if appropriate
-    if (resolve)
-      resolveClass(c);
-
-    // Return class just created
-    return c;
-  }
-
-  private byte[] loadClassData(String jarFilePath, String className) throws IOException {
-
-    if (className == null) {
-      throw new IOException("Unable to load classes with null className");
-    }
-
-    // Get jar file from the provided path
-    JarFile file = new JarFile(jarFilePath);
-    JarEntry entry = file.getJarEntry(className);
-    InputStream is = file.getInputStream(entry);
-
-    if (is == null) {
-      throw new IOException("Unable to load class with name " + className + " because the inputstream was null");
-    }
-
-    // Get size of class file
-    int size = (int) entry.getSize();
-
-    // Reserve space to read
-    byte buff[] = new byte[size];
-
-    // Get stream to read from
-    DataInputStream dis = new DataInputStream(is);
-
-    // Read in data
-    dis.readFully(buff);
-
-    // close stream
-    dis.close();
-
-    // return data
-    return buff;
-  }
-}
\ No newline at end of file
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.util.extension;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.activiti.designer.integration.Activator;
+
+/**
+ * Loads classes from jar files in the path provided.
+ *
+ * The jar file is opened once and kept open until {@link #close()} is called. Classes that were defined by this
+ * loader are returned from the loader's cache. After the loader was closed, a class that is still needed by the
+ * classes already loaded is read by opening the jar file just for that class. A class that isn't in the jar, like a
+ * base class shared by several extensions, is read from the other extension jars.
+ * One loader is shared by all lookups in the same extension jar, see {@link ExtensionRegistry}.
+ *
+ * @author Tiese Barrell
+ * @since 0.5.1
+ * @version 1
+ *
+ */
+public class JarClassLoader extends ClassLoader {
+
+  private String jarFilePath;
+
+  private List<String> otherJarFilePaths = new ArrayList<String>();
+
+  private JarFile jarFile;
+
+  private boolean closed;
+
+  private int definedClassCount;
+  private int delegatedClassCount;
+  private int jarOpenCount;
+  private long bytesRead;
+  private long defineTime;
+
+  public JarClassLoader(final String jarFilePath) {
+    this(jarFilePath, null);
+  }
+
+  /**
+   * @param extensionJarFilePaths
+   *          the paths of the extension jars in which classes that aren't in the jar are looked up, may be null
+   */
+  public JarClassLoader(final String jarFilePath, final List<String> extensionJarFilePaths) {
+    if (jarFilePath == null)
+      throw new IllegalArgumentException("Null jarFilePath");
+    this.jarFilePath = jarFilePath;
+    if (extensionJarFilePaths != null) {
+      for (final String extensionJarFilePath : extensionJarFilePaths) {
+        if (!jarFilePath.equals(extensionJarFilePath)) {
+          otherJarFilePaths.add(extensionJarFilePath);
+        }
+      }
+    }
+  }
+
+  @SuppressWarnings({ "rawtypes", "unchecked" })
+  protected synchronized Class loadClass(String name, boolean resolve) throws ClassNotFoundException {
+
+    // Classes defined before are cached by the VM for this loader
+    Class c = findLoadedClass(name);
+
+    if (c == null) {
+      // first, delegate to the integration bundle's class loader, which
+      // also provides the JDK classes
+      try {
+        c = Activator.class.getClassLoader().loadClass(name);
+        delegatedClassCount++;
+      } catch (ClassNotFoundException e) {
+        // fail silently
+      }
+    }
+
+    if (c == null) {
+      // Convert class name argument to filename
+      // Convert package names into subdirectories
+      String className = name.replace('.', '/') + ".class";
+
+      try {
+        final long start = System.nanoTime();
+
+        // Load class data from file and save in byte array
+        byte data[] = loadClassData(className);
+
+        // Convert byte array to Class
+        c = defineClass(name, data, 0, data.length);
+
+        // If failed, throw exception
+        if (c == null)
+          throw new ClassNotFoundException(name);
+
+        definedClassCount++;
+        bytesRead += data.length;
+        defineTime += System.nanoTime() - start;
+
+      } catch (IOException e) {
+        throw new ClassNotFoundException("Error reading file: " + className, e);
+      }
+    }
+
+    // Resolve class definition if appropriate
+    if (resolve)
+      resolveClass(c);
+
+    // Return class just created
+    return c;
+  }
+
+  private byte[] loadClassData(String className) throws IOException {
+
+    if (className == null) {
+      throw new IOException("Unable to load classes with null className");
+    }
+
+    byte[] result = null;
+    final JarFile file = getJarFile();
+    try {
+      result = readClassData(file, className);
+    } finally {
+      // a jar file opened after close() is only kept for this class
+      if (file != jarFile) {
+        file.close();
+      }
+    }
+
+    // a supertype or other class the jar needs from another extension jar, which is only opened for this class
+    for (int i = 0; result == null && i < otherJarFilePaths.size(); i++) {
+      final JarFile otherFile = new JarFile(otherJarFilePaths.get(i));
+      try {
+        result = readClassData(otherFile, className);
+      } finally {
+        otherFile.close();
+      }
+    }
+
+    if (result == null) {
+      throw new IOException("Unable to load class with name " + className + " because it isn't in " + jarFilePath
+              + " or the other extension jars");
+    }
+    return result;
+  }
+
+  /**
+   * @return the class file, or null if it isn't in the jar file
+   */
+  private byte[] readClassData(final JarFile file, final String className) throws IOException {
+    JarEntry entry = file.getJarEntry(className);
+    if (entry == null) {
+      return null;
+    }
+    InputStream is = file.getInputStream(entry);
+
+    if (is == null) {
+      throw new IOException("Unable to load class with name " + className + " because the inputstream was null");
+    }
+
+    // Get size of class file
+    int size = (int) entry.getSize();
+
+    // Reserve space to read
+    byte buff[] = new byte[size];
+
+    // Get stream to read from
+    DataInputStream dis = new DataInputStream(is);
+
+    try {
+      // Read in data
+      dis.readFully(buff);
+    } finally {
+      // close stream
+      dis.close();
+    }
+
+    // return data
+    return buff;
+  }
+
+  private synchronized JarFile getJarFile() throws IOException {
+    if (closed) {
+      jarOpenCount++;
+      return new JarFile(jarFilePath);
+    }
+    if (jarFile == null) {
+      jarFile = new JarFile(jarFilePath);
+      jarOpenCount++;
+    }
+    return jarFile;
+  }
+
+  /**
+   * Closes the jar file. Classes that were loaded remain usable, a class they still need is read by opening the
+   * jar file just for that class.
+   */
+  public synchronized void close() {
+    closed = true;
+    if (jarFile != null) {
+      try {
+        jarFile.close();
+      } catch (IOException e) {
+        // intentionally ignored
+      }
+      jarFile = null;
+    }
+  }
+
+  public String getJarFilePath() {
+    return jarFilePath;
+  }
+
+  /**
+   * @return the number of classes this loader defined from the jar file
+   */
+  public synchronized int getDefinedClassCount() {
+    return definedClassCount;
+  }
+
+  /**
+   * @return the number of classes this loader got from the integration bundle
+   */
+  public synchronized int getDelegatedClassCount() {
+    return delegatedClassCount;
+  }
+
+  /**
+   * @return the number of times the jar file was opened
+   */
+  public synchronized int getJarOpenCount() {
+    return jarOpenCount;
+  }
+
+  /**
+   * @return the number of class file bytes read from the jar file
+   */
+  public synchronized long getBytesRead() {
+    return bytesRead;
+  }
+
+  /**
+   * @return the time spent reading and defining classes, in milliseconds
+   */
+  public synchronized long getDefineTimeMillis() {
+    return defineTime / 1000000;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format("JarClassLoader[%s: %d classes defined (%d bytes, %d ms), %d delegated, jar opened %d times]",
+            jarFilePath, definedClassCount, bytesRead, getDefineTimeMillis(), delegatedClassCount, jarOpenCount);
+  }
+}
@@ -0,0 +1,310 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.util.workspace;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.activiti.bpmn.converter.BpmnXMLConverter;
+import org.activiti.bpmn.model.BpmnModel;
+import org.activiti.designer.util.ActivitiConstants;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Caches the parsed {@link BpmnModel} of diagram data files, so a file that is shown in the Project Explorer,
+ * opened in an editor and scanned for process IDs is only parsed once. A cached model is valid as long as the
+ * modification stamp of its file and the form types it was parsed with didn't change. Entries are dropped as
+ * soon as a resource delta reports a change of their file.
+ *
+ * At most {@link #MAX_ENTRIES} models are kept, the least recently used one is dropped first. All models are
+ * held by soft references, so the garbage collector can reclaim them when memory runs low.
+ *
+ * The models returned by {@link #getModel} are shared and must be treated as read-only. A consumer that
+ * modifies the model, like the diagram editor, uses {@link #getPrivateModel} instead, which returns a copy of the
+ * cached model, or parses the file when no valid model is cached.
+ */
+public class BpmnModelCache {
+
+  public static final int MAX_ENTRIES = 16;
+
+  private static BpmnModelCache instance;
+
+  private final Map<IFile, SoftReference<CacheEntry>> entries = new LinkedHashMap<IFile, SoftReference<CacheEntry>>(
+          MAX_ENTRIES, 0.75f, true) {
+
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<IFile, SoftReference<CacheEntry>> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+
+  private final IResourceChangeListener invalidationListener = new IResourceChangeListener() {
+
+    @Override
+    public void resourceChanged(IResourceChangeEvent event) {
+      if (event.getDelta() == null) {
+        return;
+      }
+      try {
+        event.getDelta().accept(new InvalidationVisitor());
+      } catch (CoreException e) {
+        clear();
+      }
+    }
+  };
+
+  private int hits;
+  private int misses;
+
+  private BpmnModelCache() {
+    ResourcesPlugin.getWorkspace().addResourceChangeListener(invalidationListener, IResourceChangeEvent.POST_CHANGE);
+  }
+
+  public static synchronized BpmnModelCache getInstance() {
+    if (instance == null) {
+      instance = new BpmnModelCache();
+    }
+    return instance;
+  }
+
+  /**
+   * Stops listening to resource changes and drops all cached models.
+   */
+  public static synchronized void shutdown() {
+    if (instance != null) {
+      ResourcesPlugin.getWorkspace().removeResourceChangeListener(instance.invalidationListener);
+      instance.clear();
+      instance = null;
+    }
+  }
+
+  /**
+   * Returns the shared model of the data file, parsing the file when no valid model is cached. The model must not
+   * be modified.
+   *
+   * @param userTaskFormTypes the form types of user tasks to parse, or null for none
+   * @param startEventFormTypes the form types of start events to parse, or null for none
+   * @throws Exception when the file can't be read or converted
+   */
+  public BpmnModel getModel(final IFile dataFile, final List<String> userTaskFormTypes,
+          final List<String> startEventFormTypes) throws Exception {
+
+    final ParseOptions options = new ParseOptions(userTaskFormTypes, startEventFormTypes);
+    final long modificationStamp = dataFile.getModificationStamp();
+
+    BpmnModel bpmnModel = lookup(dataFile, modificationStamp, options);
+    if (bpmnModel == null) {
+      bpmnModel = parse(dataFile, options);
+      store(dataFile, new CacheEntry(bpmnModel, modificationStamp, options));
+    }
+    return bpmnModel;
+  }
+
+  /**
+   * Returns a model of the data file that is owned by the caller and may be modified. When a valid model is cached,
+   * the caller gets a copy of it, so the read-only consumers of the cached model never see the changes of the caller.
+   * Otherwise the file is parsed and the model isn't cached.
+   *
+   * @throws Exception when the file can't be read or converted
+   */
+  public BpmnModel getPrivateModel(final IFile dataFile, final List<String> userTaskFormTypes,
+          final List<String> startEventFormTypes) throws Exception {
+
+    final ParseOptions options = new ParseOptions(userTaskFormTypes, startEventFormTypes);
+    final BpmnModel cachedModel = lookup(dataFile, dataFile.getModificationStamp(), options);
+    if (cachedModel != null) {
+      final BpmnModel copy = BpmnModelCopier.copy(cachedModel);
+      if (copy != null) {
+        return copy;
+      }
+    }
+    return parse(dataFile, options);
+  }
+
+  /**
+   * @return the cached model of the data file when it is still valid, regardless of the form types it was parsed
+   *         with, or null. The file is never parsed by this method.
+   */
+  public BpmnModel getCachedModel(final IFile dataFile) {
+    return lookup(dataFile, dataFile.getModificationStamp(), null);
+  }
+
+  public synchronized void invalidate(final IFile dataFile) {
+    entries.remove(dataFile);
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  public synchronized int getHits() {
+    return hits;
+  }
+
+  public synchronized int getMisses() {
+    return misses;
+  }
+
+  private synchronized BpmnModel lookup(final IFile dataFile, final long modificationStamp, final ParseOptions options) {
+
+    final SoftReference<CacheEntry> reference = entries.get(dataFile);
+    final CacheEntry entry = reference != null ? reference.get() : null;
+
+    if (entry == null || entry.modificationStamp != modificationStamp || modificationStamp == IResource.NULL_STAMP) {
+      if (reference != null) {
+        entries.remove(dataFile);
+      }
+      misses++;
+      return null;
+    }
+    if (options != null && !entry.options.equals(options)) {
+      misses++;
+      return null;
+    }
+
+    hits++;
+    return entry.bpmnModel;
+  }
+
+  private synchronized void store(final IFile dataFile, final CacheEntry entry) {
+    // the file may have changed while it was parsed, the model is of no use then
+    if (entry.modificationStamp != IResource.NULL_STAMP && entry.modificationStamp == dataFile.getModificationStamp()) {
+      entries.put(dataFile, new SoftReference<CacheEntry>(entry));
+    }
+  }
+
+  private synchronized void invalidateProject(final IProject project) {
+    final Iterator<IFile> iterator = entries.keySet().iterator();
+    while (iterator.hasNext()) {
+      if (project.equals(iterator.next().getProject())) {
+        iterator.remove();
+      }
+    }
+  }
+
+  private BpmnModel parse(final IFile dataFile, final ParseOptions options) throws Exception {
+    final InputStream inputStream = dataFile.getContents(true);
+    try {
+      final XMLInputFactory xif = XMLInputFactory.newInstance();
+      final InputStreamReader in = new InputStreamReader(inputStream, "UTF-8");
+      final XMLStreamReader xtr = xif.createXMLStreamReader(in);
+      final BpmnXMLConverter bpmnConverter = new BpmnXMLConverter();
+      bpmnConverter.setUserTaskFormTypes(options.userTaskFormTypes);
+      bpmnConverter.setStartEventFormTypes(options.startEventFormTypes);
+      return bpmnConverter.convertToBpmnModel(xtr);
+    } finally {
+      try {
+        inputStream.close();
+      } catch (IOException e) {
+        // intentionally ignored
+      }
+    }
+  }
+
+  /**
+   * Drops the entries of data files that were changed, moved or deleted, and of projects that were closed.
+   */
+  private class InvalidationVisitor implements IResourceDeltaVisitor {
+
+    @Override
+    public boolean visit(IResourceDelta delta) throws CoreException {
+      final IResource resource = delta.getResource();
+
+      if (resource instanceof IProject) {
+        if (delta.getKind() == IResourceDelta.REMOVED || (delta.getFlags() & IResourceDelta.OPEN) != 0) {
+          invalidateProject((IProject) resource);
+          return false;
+        }
+
+      } else if (resource instanceof IFile) {
+        if (resource.getName().endsWith(ActivitiConstants.DATA_FILE_EXTENSION)
+                && (delta.getKind() == IResourceDelta.REMOVED
+                || (delta.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED)) != 0)) {
+          invalidate((IFile) resource);
+        }
+        return false;
+      }
+      return true;
+    }
+  }
+
+  private static class CacheEntry {
+
+    private final BpmnModel bpmnModel;
+    private final long modificationStamp;
+    private final ParseOptions options;
+
+    public CacheEntry(final BpmnModel bpmnModel, final long modificationStamp, final ParseOptions options) {
+      this.bpmnModel = bpmnModel;
+      this.modificationStamp = modificationStamp;
+      this.options = options;
+    }
+  }
+
+  /**
+   * The form types a model was parsed with, as they change how form properties are converted.
+   */
+  private static class ParseOptions {
+
+    private final List<String> userTaskFormTypes;
+    private final List<String> startEventFormTypes;
+
+    public ParseOptions(final List<String> userTaskFormTypes, final List<String> startEventFormTypes) {
+      this.userTaskFormTypes = copy(userTaskFormTypes);
+      this.startEventFormTypes = copy(startEventFormTypes);
+    }
+
+    private static List<String> copy(final List<String> formTypes) {
+      if (formTypes == null) {
+        return Collections.emptyList();
+      }
+      return Collections.unmodifiableList(new ArrayList<String>(formTypes));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj instanceof ParseOptions == false) {
+        return false;
+      }
+      final ParseOptions other = (ParseOptions) obj;
+      return userTaskFormTypes.equals(other.userTaskFormTypes) && startEventFormTypes.equals(other.startEventFormTypes);
+    }
+
+    @Override
+    public int hashCode() {
+      return userTaskFormTypes.hashCode() * 31 + startEventFormTypes.hashCode();
+    }
+  }
+}
@@ -0,0 +1,257 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.util.workspace;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.activiti.bpmn.model.Activity;
+import org.activiti.bpmn.model.Artifact;
+import org.activiti.bpmn.model.BoundaryEvent;
+import org.activiti.bpmn.model.BpmnModel;
+import org.activiti.bpmn.model.DataStore;
+import org.activiti.bpmn.model.ExtensionAttribute;
+import org.activiti.bpmn.model.FlowElement;
+import org.activiti.bpmn.model.FlowElementsContainer;
+import org.activiti.bpmn.model.FlowNode;
+import org.activiti.bpmn.model.GraphicInfo;
+import org.activiti.bpmn.model.Import;
+import org.activiti.bpmn.model.Interface;
+import org.activiti.bpmn.model.ItemDefinition;
+import org.activiti.bpmn.model.Lane;
+import org.activiti.bpmn.model.Message;
+import org.activiti.bpmn.model.MessageFlow;
+import org.activiti.bpmn.model.Pool;
+import org.activiti.bpmn.model.Process;
+import org.activiti.bpmn.model.Resource;
+import org.activiti.bpmn.model.SequenceFlow;
+import org.activiti.bpmn.model.Signal;
+import org.activiti.bpmn.model.SubProcess;
+import org.activiti.bpmn.model.ValuedDataObject;
+
+/**
+ * Copies a {@link BpmnModel}, so a consumer that modifies the model doesn't have to parse the file of a model that is
+ * cached already. The copy shares no elements with the original: the elements are copied with their clone() methods,
+ * and the references between the elements, which the clones don't have, are set up the way the BpmnXMLConverter does.
+ */
+final class BpmnModelCopier {
+
+  private BpmnModelCopier() {
+  }
+
+  /**
+   * @return the copy of the model, or null when an element can't be copied without changing its type
+   */
+  static BpmnModel copy(final BpmnModel model) {
+    final BpmnModel result = new BpmnModel();
+
+    for (final Process process : model.getProcesses()) {
+      final Process processCopy = process.clone();
+      if (!copyContents(process, processCopy)) {
+        return null;
+      }
+      for (final Lane lane : process.getLanes()) {
+        final Lane laneCopy = lane.clone();
+        laneCopy.setParentProcess(processCopy);
+        processCopy.getLanes().add(laneCopy);
+      }
+      link(processCopy);
+      result.addProcess(processCopy);
+    }
+
+    for (final Pool pool : model.getPools()) {
+      result.getPools().add(pool.clone());
+    }
+    for (final MessageFlow messageFlow : model.getMessageFlows().values()) {
+      result.addMessageFlow(messageFlow.clone());
+    }
+    for (final Message message : model.getMessages()) {
+      result.addMessage(message.clone());
+    }
+    for (final Signal signal : model.getSignals()) {
+      result.addSignal(signal.clone());
+    }
+    for (final Entry<String, String> error : model.getErrors().entrySet()) {
+      result.addError(error.getKey(), error.getValue());
+    }
+    for (final Entry<String, ItemDefinition> itemDefinition : model.getItemDefinitions().entrySet()) {
+      result.addItemDefinition(itemDefinition.getKey(), itemDefinition.getValue().clone());
+    }
+    for (final Entry<String, DataStore> dataStore : model.getDataStores().entrySet()) {
+      result.addDataStore(dataStore.getKey(), dataStore.getValue().clone());
+    }
+    for (final Import modelImport : model.getImports()) {
+      result.getImports().add(modelImport.clone());
+    }
+    for (final Interface modelInterface : model.getInterfaces()) {
+      result.getInterfaces().add(modelInterface.clone());
+    }
+    for (final Artifact artifact : model.getGlobalArtifacts()) {
+      result.getGlobalArtifacts().add(artifact.clone());
+    }
+    for (final Resource resource : model.getResources()) {
+      result.addResource(new Resource(resource.getId(), resource.getName()));
+    }
+    for (final Entry<String, String> namespace : model.getNamespaces().entrySet()) {
+      result.addNamespace(namespace.getKey(), namespace.getValue());
+    }
+    for (final List<ExtensionAttribute> attributes : model.getDefinitionsAttributes().values()) {
+      for (final ExtensionAttribute attribute : attributes) {
+        result.addDefinitionsAttribute(attribute.clone());
+      }
+    }
+    result.setTargetNamespace(model.getTargetNamespace());
+    result.setUserTaskFormTypes(copyList(model.getUserTaskFormTypes()));
+    result.setStartEventFormTypes(copyList(model.getStartEventFormTypes()));
+
+    for (final Entry<String, GraphicInfo> location : model.getLocationMap().entrySet()) {
+      result.addGraphicInfo(location.getKey(), copyGraphicInfo(location.getValue(), result));
+    }
+    for (final Entry<String, GraphicInfo> labelLocation : model.getLabelLocationMap().entrySet()) {
+      result.addLabelGraphicInfo(labelLocation.getKey(), copyGraphicInfo(labelLocation.getValue(), result));
+    }
+    for (final Entry<String, List<GraphicInfo>> flowLocation : model.getFlowLocationMap().entrySet()) {
+      final List<GraphicInfo> graphicInfoList = new ArrayList<GraphicInfo>(flowLocation.getValue().size());
+      for (final GraphicInfo graphicInfo : flowLocation.getValue()) {
+        graphicInfoList.add(copyGraphicInfo(graphicInfo, result));
+      }
+      result.addFlowGraphicInfoList(flowLocation.getKey(), graphicInfoList);
+    }
+    return result;
+  }
+
+  /**
+   * Replaces the flow elements and artifacts of the copy of a container, which are either missing or shared with the
+   * original, by copies of the elements of the original. Data objects are already copied with the container.
+   */
+  private static boolean copyContents(final FlowElementsContainer original, final FlowElementsContainer copy) {
+    final List<ValuedDataObject> dataObjectCopies = getDataObjects(copy);
+    copy.getFlowElements().clear();
+    copy.getArtifacts().clear();
+
+    for (final FlowElement element : original.getFlowElements()) {
+      FlowElement elementCopy = null;
+      if (element instanceof ValuedDataObject) {
+        for (final ValuedDataObject dataObjectCopy : dataObjectCopies) {
+          if (dataObjectCopy.getId() != null && dataObjectCopy.getId().equals(element.getId())) {
+            elementCopy = dataObjectCopy;
+          }
+        }
+      }
+      if (elementCopy == null) {
+        elementCopy = copyFlowElement(element);
+      }
+      if (elementCopy == null) {
+        return false;
+      }
+      copy.addFlowElement(elementCopy);
+    }
+    for (final Artifact artifact : original.getArtifacts()) {
+      copy.addArtifact(artifact.clone());
+    }
+    return true;
+  }
+
+  private static FlowElement copyFlowElement(final FlowElement element) {
+    if (element instanceof SubProcess) {
+      // transactions and event sub processes don't override clone()
+      final SubProcess subProcessCopy;
+      try {
+        subProcessCopy = (SubProcess) element.getClass().newInstance();
+      } catch (final Exception e) {
+        return null;
+      }
+      subProcessCopy.setValues((SubProcess) element);
+      return copyContents((SubProcess) element, subProcessCopy) ? subProcessCopy : null;
+    }
+    final FlowElement elementCopy = element.clone();
+    return elementCopy != null && elementCopy.getClass() == element.getClass() ? elementCopy : null;
+  }
+
+  /**
+   * Connects the flow nodes of the container with their sequence flows and the activities with their boundary events,
+   * like the BpmnXMLConverter does after parsing.
+   */
+  private static void link(final FlowElementsContainer container) {
+    for (final FlowElement element : container.getFlowElements()) {
+      if (element instanceof FlowNode) {
+        ((FlowNode) element).getIncomingFlows().clear();
+        ((FlowNode) element).getOutgoingFlows().clear();
+      }
+      if (element instanceof Activity) {
+        ((Activity) element).getBoundaryEvents().clear();
+      }
+    }
+
+    for (final FlowElement element : container.getFlowElements()) {
+      if (element instanceof SequenceFlow) {
+        final SequenceFlow sequenceFlow = (SequenceFlow) element;
+        final FlowElement source = getFlowElement(container, sequenceFlow.getSourceRef());
+        if (source instanceof FlowNode) {
+          ((FlowNode) source).getOutgoingFlows().add(sequenceFlow);
+        }
+        final FlowElement target = getFlowElement(container, sequenceFlow.getTargetRef());
+        if (target instanceof FlowNode) {
+          ((FlowNode) target).getIncomingFlows().add(sequenceFlow);
+        }
+      } else if (element instanceof BoundaryEvent) {
+        final BoundaryEvent boundaryEvent = (BoundaryEvent) element;
+        final FlowElement attachedTo = getFlowElement(container, boundaryEvent.getAttachedToRefId());
+        if (attachedTo instanceof Activity) {
+          boundaryEvent.setAttachedToRef((Activity) attachedTo);
+          ((Activity) attachedTo).getBoundaryEvents().add(boundaryEvent);
+        } else {
+          boundaryEvent.setAttachedToRef(null);
+        }
+      } else if (element instanceof SubProcess) {
+        link((SubProcess) element);
+      }
+    }
+  }
+
+  private static FlowElement getFlowElement(final FlowElementsContainer container, final String id) {
+    return id == null || id.length() == 0 ? null : container.getFlowElement(id);
+  }
+
+  private static List<ValuedDataObject> getDataObjects(final FlowElementsContainer container) {
+    if (container instanceof Process) {
+      return ((Process) container).getDataObjects();
+    } else if (container instanceof SubProcess) {
+      return ((SubProcess) container).getDataObjects();
+    }
+    return Collections.emptyList();
+  }
+
+  private static GraphicInfo copyGraphicInfo(final GraphicInfo graphicInfo, final BpmnModel model) {
+    final GraphicInfo result = new GraphicInfo();
+    result.setX(graphicInfo.getX());
+    result.setY(graphicInfo.getY());
+    result.setWidth(graphicInfo.getWidth());
+    result.setHeight(graphicInfo.getHeight());
+    result.setExpanded(graphicInfo.getExpanded());
+    result.setXmlRowNumber(graphicInfo.getXmlRowNumber());
+    result.setXmlColumnNumber(graphicInfo.getXmlColumnNumber());
+    if (graphicInfo.getElement() != null) {
+      result.setElement(model.getFlowElement(graphicInfo.getElement().getId()));
+    }
+    return result;
+  }
+
+  private static List<String> copyList(final Collection<String> list) {
+    return list != null ? new ArrayList<String>(list) : null;
+  }
+}
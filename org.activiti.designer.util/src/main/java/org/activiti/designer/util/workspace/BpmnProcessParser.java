@@ -33,11 +33,13 @@ import java.util.Set;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamReader;
 
+import org.activiti.bpmn.model.BpmnModel;
 import org.activiti.bpmn.model.Process;
 import org.eclipse.core.resources.IFile;
 
 /**
- * Parses BPMN files for process elements.
+ * Parses BPMN files for process elements. When the {@link BpmnModelCache} holds a valid model of the file, the
+ * processes are taken from that model instead.
  * 
  * @author tiesebarrell
  */
@@ -54,6 +56,17 @@ public class BpmnProcessParser {
 
     final Set<Process> result = new HashSet<Process>();
 
+    // a model that was parsed completely already has them
+    final BpmnModel cachedModel = BpmnModelCache.getInstance().getCachedModel(bpmnFile);
+    if (cachedModel != null) {
+      for (final Process process : cachedModel.getProcesses()) {
+        final Process processElement = new Process();
+        processElement.setId(process.getId());
+        result.add(processElement);
+      }
+      return result;
+    }
+
     try {
       XMLInputFactory xif = XMLInputFactory.newInstance();
       InputStreamReader in = new InputStreamReader(bpmnFile.getContents(), "UTF-8");
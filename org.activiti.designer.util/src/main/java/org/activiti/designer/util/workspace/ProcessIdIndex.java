@@ -0,0 +1,447 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.util.workspace;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Set;
+
+import org.activiti.bpmn.model.Process;
+import org.activiti.designer.util.Activator;
+import org.activiti.designer.util.ActivitiConstants;
+import org.apache.commons.lang.StringUtils;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * An index of the process IDs of all diagram data files in the open Activiti projects. The index is kept up to date
+ * by a resource change listener, so looking up the data files of a process ID doesn't visit the workspace.
+ *
+ * The index is stored in the state location of the plug-in. After a restart the stored index is used right away:
+ * the entries of files that changed in the meantime are updated, and a background job walks the workspace once to
+ * pick up files that were added while the workbench wasn't running. Without a stored index, the index is empty until
+ * the job walked the workspace for the first time.
+ *
+ * Lookups only read the index, they never walk the workspace or parse data files. Data files reported by resource
+ * deltas and projects that are opened are indexed by the background job, so a lookup can miss the changes of the last
+ * UPDATE_DELAY milliseconds and of a job that is still running.
+ */
+public class ProcessIdIndex {
+
+  protected static final String STORE_FILE_NAME = "processIdIndex.properties";
+  protected static final String STAMP_SEPARATOR = "|";
+  protected static final String ID_SEPARATOR = ",";
+  protected static final long UPDATE_DELAY = 500;
+
+  private static ProcessIdIndex instance;
+
+  /** The indexed data files with their modification stamp and process IDs. */
+  private final Map<IFile, IndexEntry> entriesByDataFile = new HashMap<IFile, IndexEntry>();
+
+  /** The data files per process ID. */
+  private final Map<String, Set<IFile>> dataFilesByProcessId = new HashMap<String, Set<IFile>>();
+
+  /** Data files that were added or changed and still need to be scanned. */
+  private final Set<IFile> pendingDataFiles = new LinkedHashSet<IFile>();
+
+  /** Projects that were opened or got the Activiti nature and still need to be walked. */
+  private final Set<IProject> pendingProjects = new LinkedHashSet<IProject>();
+
+  private boolean changedSinceSave;
+
+  private final IResourceChangeListener resourceChangeListener = new IResourceChangeListener() {
+
+    @Override
+    public void resourceChanged(IResourceChangeEvent event) {
+      if (event.getDelta() == null) {
+        return;
+      }
+      try {
+        event.getDelta().accept(new IndexUpdateVisitor());
+      } catch (CoreException e) {
+        // the workspace is walked again to be sure nothing was missed
+        for (final IProject project : ActivitiWorkspaceUtil.getOpenProjects()) {
+          addPendingProject(project);
+        }
+      }
+      scheduleUpdate(UPDATE_DELAY);
+    }
+  };
+
+  private final Job updateJob = new Job("Updating process ID index") {
+
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+      walkPendingProjects();
+      scanPendingDataFiles();
+      save();
+      return Status.OK_STATUS;
+    }
+  };
+
+  private ProcessIdIndex() {
+    updateJob.setSystem(true);
+    updateJob.setPriority(Job.DECORATE);
+  }
+
+  public static synchronized ProcessIdIndex getInstance() {
+    if (instance == null) {
+      instance = new ProcessIdIndex();
+      instance.initialize();
+    }
+    return instance;
+  }
+
+  /**
+   * Stops listening to resource changes and stores the index.
+   */
+  public static synchronized void shutdown() {
+    if (instance != null) {
+      ResourcesPlugin.getWorkspace().removeResourceChangeListener(instance.resourceChangeListener);
+      instance.updateJob.cancel();
+      instance.save();
+      instance = null;
+    }
+  }
+
+  /**
+   * @return the diagram data files that contain a process with the given ID, or an empty set
+   */
+  public synchronized Set<IFile> getDataFiles(final String processId) {
+    final Set<IFile> dataFiles = dataFilesByProcessId.get(processId);
+    if (dataFiles == null) {
+      return new HashSet<IFile>();
+    }
+    return new HashSet<IFile>(dataFiles);
+  }
+
+  /**
+   * @return all indexed diagram data files with the process IDs they contain
+   */
+  public synchronized Map<IFile, Set<String>> getProcessIdsByDataFile() {
+    final Map<IFile, Set<String>> result = new HashMap<IFile, Set<String>>();
+    for (final Entry<IFile, IndexEntry> entry : entriesByDataFile.entrySet()) {
+      result.put(entry.getKey(), new HashSet<String>(entry.getValue().processIds));
+    }
+    return result;
+  }
+
+  private void initialize() {
+    final boolean loaded = load();
+
+    ResourcesPlugin.getWorkspace().addResourceChangeListener(resourceChangeListener, IResourceChangeEvent.POST_CHANGE);
+
+    for (final IProject project : ActivitiWorkspaceUtil.getOpenProjects()) {
+      addPendingProject(project);
+    }
+    // without a stored index there is nothing to show until the job ran, so it isn't delayed
+    scheduleUpdate(loaded ? UPDATE_DELAY : 0);
+  }
+
+  /**
+   * Walks the pending projects, their data files become pending data files.
+   */
+  private void walkPendingProjects() {
+    final Set<IProject> projects;
+    synchronized (this) {
+      projects = new LinkedHashSet<IProject>(pendingProjects);
+      pendingProjects.clear();
+    }
+    for (final IProject project : projects) {
+      final ActivitiWorkspaceUtil.DiagramDataFileFinder finder = new ActivitiWorkspaceUtil.DiagramDataFileFinder();
+      try {
+        project.accept(finder);
+      } catch (CoreException exception) {
+        // intentionally ignored
+      }
+      synchronized (this) {
+        pendingDataFiles.addAll(finder.getResources());
+      }
+    }
+  }
+
+  /**
+   * Scans the pending data files for process IDs, unless they didn't change since they were indexed.
+   */
+  private void scanPendingDataFiles() {
+    final Set<IFile> dataFiles;
+    synchronized (this) {
+      dataFiles = new LinkedHashSet<IFile>(pendingDataFiles);
+      pendingDataFiles.clear();
+    }
+    for (final IFile dataFile : dataFiles) {
+      final long modificationStamp = dataFile.getModificationStamp();
+      synchronized (this) {
+        final IndexEntry entry = entriesByDataFile.get(dataFile);
+        if (entry != null && entry.modificationStamp == modificationStamp) {
+          continue;
+        }
+      }
+      if (!dataFile.exists()) {
+        remove(dataFile);
+        continue;
+      }
+      final Set<String> processIds = new HashSet<String>();
+      for (final Process process : new BpmnProcessParser(dataFile).getProcesses()) {
+        if (process != null && process.getId() != null) {
+          processIds.add(process.getId());
+        }
+      }
+      put(dataFile, new IndexEntry(modificationStamp, processIds));
+    }
+  }
+
+  private synchronized void put(final IFile dataFile, final IndexEntry entry) {
+    remove(dataFile);
+    entriesByDataFile.put(dataFile, entry);
+    for (final String processId : entry.processIds) {
+      Set<IFile> dataFiles = dataFilesByProcessId.get(processId);
+      if (dataFiles == null) {
+        dataFiles = new HashSet<IFile>();
+        dataFilesByProcessId.put(processId, dataFiles);
+      }
+      dataFiles.add(dataFile);
+    }
+    changedSinceSave = true;
+  }
+
+  private synchronized void remove(final IFile dataFile) {
+    pendingDataFiles.remove(dataFile);
+    final IndexEntry entry = entriesByDataFile.remove(dataFile);
+    if (entry == null) {
+      return;
+    }
+    for (final String processId : entry.processIds) {
+      final Set<IFile> dataFiles = dataFilesByProcessId.get(processId);
+      if (dataFiles != null) {
+        dataFiles.remove(dataFile);
+        if (dataFiles.isEmpty()) {
+          dataFilesByProcessId.remove(processId);
+        }
+      }
+    }
+    changedSinceSave = true;
+  }
+
+  private synchronized void removeProject(final IProject project) {
+    pendingProjects.remove(project);
+    for (final IFile dataFile : new HashSet<IFile>(entriesByDataFile.keySet())) {
+      if (project.equals(dataFile.getProject())) {
+        remove(dataFile);
+      }
+    }
+  }
+
+  private synchronized void addPendingDataFile(final IFile dataFile) {
+    pendingDataFiles.add(dataFile);
+  }
+
+  private synchronized void addPendingProject(final IProject project) {
+    pendingProjects.add(project);
+  }
+
+  private void scheduleUpdate(final long delay) {
+    synchronized (this) {
+      if (pendingDataFiles.isEmpty() && pendingProjects.isEmpty()) {
+        return;
+      }
+    }
+    updateJob.schedule(delay);
+  }
+
+  private static boolean isActivitiProject(final IProject project) {
+    try {
+      return project.isOpen() && project.hasNature(ActivitiConstants.NATURE_ID);
+    } catch (CoreException e) {
+      return false;
+    }
+  }
+
+  private static File getStoreFile() {
+    if (Activator.getDefault() == null) {
+      return null;
+    }
+    return Activator.getDefault().getStateLocation().append(STORE_FILE_NAME).toFile();
+  }
+
+  /**
+   * Loads the stored index. Entries of data files that no longer exist are skipped, the entries of data files of
+   * which the modification stamp changed are scanned again.
+   *
+   * @return true, when a stored index was found
+   */
+  private boolean load() {
+    final File storeFile = getStoreFile();
+    if (storeFile == null || !storeFile.exists()) {
+      return false;
+    }
+
+    final Properties properties = new Properties();
+    InputStream inputStream = null;
+    try {
+      inputStream = new FileInputStream(storeFile);
+      properties.load(inputStream);
+    } catch (IOException e) {
+      return false;
+    } finally {
+      closeQuietly(inputStream);
+    }
+
+    final IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+    for (final String path : properties.stringPropertyNames()) {
+      final String value = properties.getProperty(path);
+      final int separatorIndex = value.indexOf(STAMP_SEPARATOR);
+      if (separatorIndex < 0) {
+        continue;
+      }
+
+      final IFile dataFile = root.getFile(new Path(path));
+      if (!dataFile.exists() || !isActivitiProject(dataFile.getProject())) {
+        continue;
+      }
+      try {
+        final long modificationStamp = Long.parseLong(value.substring(0, separatorIndex));
+        final Set<String> processIds = new HashSet<String>();
+        for (final String processId : StringUtils.split(value.substring(separatorIndex + 1), ID_SEPARATOR)) {
+          processIds.add(processId);
+        }
+        put(dataFile, new IndexEntry(modificationStamp, processIds));
+        if (modificationStamp != dataFile.getModificationStamp()) {
+          addPendingDataFile(dataFile);
+        }
+      } catch (NumberFormatException e) {
+        addPendingDataFile(dataFile);
+      }
+    }
+    return true;
+  }
+
+  private void save() {
+    final File storeFile = getStoreFile();
+    if (storeFile == null) {
+      return;
+    }
+
+    final Properties properties = new Properties();
+    synchronized (this) {
+      if (!changedSinceSave) {
+        return;
+      }
+      for (final Entry<IFile, IndexEntry> entry : entriesByDataFile.entrySet()) {
+        properties.setProperty(entry.getKey().getFullPath().toPortableString(), entry.getValue().modificationStamp
+                + STAMP_SEPARATOR + StringUtils.join(entry.getValue().processIds, ID_SEPARATOR));
+      }
+      changedSinceSave = false;
+    }
+
+    OutputStream outputStream = null;
+    try {
+      final ByteArrayOutputStream content = new ByteArrayOutputStream();
+      properties.store(content, null);
+      outputStream = new FileOutputStream(storeFile);
+      outputStream.write(content.toByteArray());
+    } catch (IOException e) {
+      // the index is built again on the next start
+      storeFile.delete();
+    } finally {
+      closeQuietly(outputStream);
+    }
+  }
+
+  private static void closeQuietly(final Closeable closeable) {
+    if (closeable != null) {
+      try {
+        closeable.close();
+      } catch (IOException e) {
+        // intentionally ignored
+      }
+    }
+  }
+
+  /**
+   * Collects the data files and projects that need to be indexed again from a resource delta.
+   */
+  private class IndexUpdateVisitor implements IResourceDeltaVisitor {
+
+    @Override
+    public boolean visit(IResourceDelta delta) throws CoreException {
+      final IResource resource = delta.getResource();
+
+      if (resource instanceof IProject) {
+        final IProject project = (IProject) resource;
+        if (delta.getKind() == IResourceDelta.REMOVED || !isActivitiProject(project)) {
+          removeProject(project);
+          return false;
+        }
+        if ((delta.getFlags() & (IResourceDelta.OPEN | IResourceDelta.DESCRIPTION)) != 0
+                || delta.getKind() == IResourceDelta.ADDED) {
+          addPendingProject(project);
+          return false;
+        }
+
+      } else if (ActivitiWorkspaceUtil.DiagramDataFileFinder.isIgnoredResource(resource)) {
+        return false;
+
+      } else if (resource instanceof IFile) {
+        if (resource.getName().endsWith(ActivitiConstants.DATA_FILE_EXTENSION)) {
+          if (delta.getKind() == IResourceDelta.REMOVED) {
+            remove((IFile) resource);
+          } else if (delta.getKind() == IResourceDelta.ADDED
+                  || (delta.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED)) != 0) {
+            addPendingDataFile((IFile) resource);
+          }
+        }
+        return false;
+      }
+      return true;
+    }
+  }
+
+  private static class IndexEntry {
+
+    private final long modificationStamp;
+    private final Set<String> processIds;
+
+    public IndexEntry(final long modificationStamp, final Set<String> processIds) {
+      this.modificationStamp = modificationStamp;
+      this.processIds = Collections.unmodifiableSet(processIds);
+    }
+  }
+}
@@ -0,0 +1,51 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.validation.bpmn20.batch;
+
+import java.io.File;
+
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+
+/**
+ * Headless Eclipse application for the batch validation, see {@link BatchValidationMain} for the arguments. Without
+ * files or folders in the arguments all diagrams in the workspace are validated.
+ *
+ * <pre>
+ * eclipse -nosplash -data &lt;workspace&gt; -application org.activiti.designer.validation.bpmn20.batchValidation [-report &lt;file&gt;]
+ * </pre>
+ */
+public class BatchValidationApplication implements IApplication {
+
+  @Override
+  public Object start(final IApplicationContext context) throws Exception {
+    final Object args = context.getArguments().get(IApplicationContext.APPLICATION_ARGS);
+    final String[] arguments = args instanceof String[] ? (String[]) args : new String[0];
+
+    File workspaceRoot = null;
+    final IPath workspaceLocation = ResourcesPlugin.getWorkspace().getRoot().getLocation();
+    if (workspaceLocation != null) {
+      workspaceRoot = workspaceLocation.toFile();
+    }
+
+    return Integer.valueOf(BatchValidationMain.run(arguments, workspaceRoot));
+  }
+
+  @Override
+  public void stop() {
+    // the validation can't be stopped, it ends by itself
+  }
+}
@@ -0,0 +1,119 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.validation.bpmn20.batch;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Validates all diagrams in the given files and folders and writes a JSON report, see {@link BatchValidationReport}.
+ * Runs as a plain Java program with the bundle and its libraries on the class path, or as the Eclipse application
+ * {@link BatchValidationApplication}.
+ *
+ * <pre>
+ * BatchValidationMain [-threads &lt;count&gt;] [-report &lt;file&gt;] &lt;file or folder&gt;...
+ * </pre>
+ *
+ * Without a report file the report is written to standard out. The exit code is 0 if all diagrams are valid, 1 if
+ * there are diagrams with errors or diagrams that couldn't be read and 2 if the arguments are wrong.
+ */
+public class BatchValidationMain {
+
+  public static final int EXIT_OK = 0;
+  public static final int EXIT_ERRORS = 1;
+  public static final int EXIT_USAGE = 2;
+
+  private static final String USAGE = "Usage: BatchValidationMain [-threads <count>] [-report <file>] <file or folder>...";
+
+  public static void main(final String[] args) {
+    System.exit(run(args, null));
+  }
+
+  /**
+   * Runs the batch validation.
+   *
+   * @param defaultRoot
+   *          the folder to validate when the arguments don't name files or folders, may be null
+   * @return the exit code
+   */
+  public static int run(final String[] args, final File defaultRoot) {
+    int threadCount = Runtime.getRuntime().availableProcessors();
+    File reportFile = null;
+    final List<File> roots = new ArrayList<File>();
+
+    try {
+      for (int i = 0; i < args.length; i++) {
+        if ("-threads".equals(args[i]) && i + 1 < args.length) {
+          threadCount = Integer.parseInt(args[++i]);
+        } else if ("-report".equals(args[i]) && i + 1 < args.length) {
+          reportFile = new File(args[++i]);
+        } else if (args[i].startsWith("-")) {
+          System.err.println("Unknown option " + args[i]);
+          System.err.println(USAGE);
+          return EXIT_USAGE;
+        } else {
+          roots.add(new File(args[i]));
+        }
+      }
+    } catch (NumberFormatException e) {
+      System.err.println("Invalid thread count: " + e.getMessage());
+      System.err.println(USAGE);
+      return EXIT_USAGE;
+    }
+
+    if (roots.isEmpty() && defaultRoot != null) {
+      roots.add(defaultRoot);
+    }
+    if (roots.isEmpty()) {
+      System.err.println(USAGE);
+      return EXIT_USAGE;
+    }
+
+    final BatchValidator validator = new BatchValidator(threadCount);
+    final long start = System.nanoTime();
+    final List<BatchValidationResult> results;
+    try {
+      results = validator.validate(BatchValidator.findDiagramFiles(roots));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      System.err.println("Validation was interrupted");
+      return EXIT_ERRORS;
+    }
+    final BatchValidationReport report = new BatchValidationReport(results, (System.nanoTime() - start) / 1000000L, threadCount);
+
+    try {
+      if (reportFile != null) {
+        final OutputStream outputStream = new FileOutputStream(reportFile);
+        try {
+          report.write(outputStream);
+        } finally {
+          outputStream.close();
+        }
+        System.out.println("Validated " + results.size() + " diagrams, " + report.getFilesWithErrorsCount() + " with errors. Report written to "
+                + reportFile.getPath());
+      } else {
+        report.write(System.out);
+      }
+    } catch (IOException e) {
+      System.err.println("Unable to write the report: " + e.getMessage());
+      return EXIT_ERRORS;
+    }
+
+    return report.getFilesWithErrorsCount() > 0 ? EXIT_ERRORS : EXIT_OK;
+  }
+}
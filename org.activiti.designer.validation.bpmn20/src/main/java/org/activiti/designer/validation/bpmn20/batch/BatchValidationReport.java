@@ -0,0 +1,119 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.validation.bpmn20.batch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.activiti.designer.validation.bpmn20.validation.worker.ProcessValidationWorkerMarker;
+import org.eclipse.core.resources.IMarker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * The JSON report of a batch validation: totals, and per file the timings and the markers.
+ */
+public class BatchValidationReport {
+
+  private final List<BatchValidationResult> results;
+  private final long totalMillis;
+  private final int threadCount;
+
+  public BatchValidationReport(final List<BatchValidationResult> results, final long totalMillis, final int threadCount) {
+    this.results = results;
+    this.totalMillis = totalMillis;
+    this.threadCount = threadCount;
+  }
+
+  /**
+   * @return the number of files that couldn't be validated or have error markers
+   */
+  public int getFilesWithErrorsCount() {
+    int result = 0;
+    for (final BatchValidationResult fileResult : results) {
+      if (fileResult.hasErrors()) {
+        result++;
+      }
+    }
+    return result;
+  }
+
+  public ObjectNode toJson(final ObjectMapper objectMapper) {
+    final ObjectNode reportNode = objectMapper.createObjectNode();
+    reportNode.put("fileCount", results.size());
+    reportNode.put("filesWithErrorsCount", getFilesWithErrorsCount());
+    reportNode.put("threadCount", threadCount);
+    reportNode.put("totalMillis", totalMillis);
+
+    int errorCount = 0;
+    int warningCount = 0;
+    int infoCount = 0;
+    int failedCount = 0;
+
+    final ArrayNode filesNode = reportNode.putArray("files");
+    for (final BatchValidationResult result : results) {
+      final ObjectNode fileNode = filesNode.addObject();
+      fileNode.put("path", result.getFile().getPath());
+      fileNode.put("parseMillis", result.getParseMillis());
+      fileNode.put("validationMillis", result.getValidationMillis());
+      if (result.getFailure() != null) {
+        fileNode.put("failure", result.getFailure());
+        failedCount++;
+      }
+
+      final ArrayNode markersNode = fileNode.putArray("markers");
+      for (final ProcessValidationWorkerMarker marker : result.getMarkers()) {
+        final ObjectNode markerNode = markersNode.addObject();
+        markerNode.put("severity", getSeverityName(marker.getSeverity()));
+        markerNode.put("code", marker.getCode() != null ? marker.getCode().getDisplayName() : null);
+        markerNode.put("nodeId", marker.getNodeId());
+        markerNode.put("message", marker.getMessage());
+      }
+
+      errorCount += result.getMarkerCount(IMarker.SEVERITY_ERROR);
+      warningCount += result.getMarkerCount(IMarker.SEVERITY_WARNING);
+      infoCount += result.getMarkerCount(IMarker.SEVERITY_INFO);
+    }
+
+    reportNode.put("failedCount", failedCount);
+    reportNode.put("errorCount", errorCount);
+    reportNode.put("warningCount", warningCount);
+    reportNode.put("infoCount", infoCount);
+    return reportNode;
+  }
+
+  /**
+   * Writes the report as UTF-8 JSON. The stream is flushed, but not closed.
+   */
+  public void write(final OutputStream outputStream) throws IOException {
+    final ObjectMapper objectMapper = new ObjectMapper();
+    final String json = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(toJson(objectMapper));
+    outputStream.write(json.getBytes("UTF-8"));
+    outputStream.flush();
+  }
+
+  private String getSeverityName(final int severity) {
+    switch (severity) {
+    case IMarker.SEVERITY_ERROR:
+      return "error";
+    case IMarker.SEVERITY_WARNING:
+      return "warning";
+    default:
+      return "info";
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.validation.bpmn20.batch;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import org.activiti.designer.validation.bpmn20.validation.worker.ProcessValidationWorkerMarker;
+import org.eclipse.core.resources.IMarker;
+
+/**
+ * The result of the validation of one diagram file by the {@link BatchValidator}.
+ */
+public class BatchValidationResult {
+
+  private final File file;
+  private final List<ProcessValidationWorkerMarker> markers;
+  private final String failure;
+  private final long parseMillis;
+  private final long validationMillis;
+
+  public BatchValidationResult(final File file, final List<ProcessValidationWorkerMarker> markers, final long parseMillis, final long validationMillis) {
+    this(file, markers, null, parseMillis, validationMillis);
+  }
+
+  private BatchValidationResult(final File file, final List<ProcessValidationWorkerMarker> markers, final String failure, final long parseMillis,
+          final long validationMillis) {
+    this.file = file;
+    this.markers = Collections.unmodifiableList(markers);
+    this.failure = failure;
+    this.parseMillis = parseMillis;
+    this.validationMillis = validationMillis;
+  }
+
+  /**
+   * @return the result of a file that couldn't be read or validated
+   */
+  public static BatchValidationResult failed(final File file, final Throwable cause, final long parseMillis, final long validationMillis) {
+    final String failure = cause.getMessage() != null ? cause.getClass().getName() + ": " + cause.getMessage() : cause.getClass().getName();
+    return new BatchValidationResult(file, Collections.<ProcessValidationWorkerMarker> emptyList(), failure, parseMillis, validationMillis);
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  public List<ProcessValidationWorkerMarker> getMarkers() {
+    return markers;
+  }
+
+  /**
+   * @return the reason the file couldn't be validated, or null if it was validated
+   */
+  public String getFailure() {
+    return failure;
+  }
+
+  public long getParseMillis() {
+    return parseMillis;
+  }
+
+  public long getValidationMillis() {
+    return validationMillis;
+  }
+
+  /**
+   * @return true if the file couldn't be validated or has error markers
+   */
+  public boolean hasErrors() {
+    return failure != null || getMarkerCount(IMarker.SEVERITY_ERROR) > 0;
+  }
+
+  /**
+   * @return the number of markers with the severity
+   */
+  public int getMarkerCount(final int severity) {
+    int result = 0;
+    for (final ProcessValidationWorkerMarker marker : markers) {
+      if (marker.getSeverity() == severity) {
+        result++;
+      }
+    }
+    return result;
+  }
+}
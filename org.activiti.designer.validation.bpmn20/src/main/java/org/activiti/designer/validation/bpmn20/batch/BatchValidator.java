@@ -0,0 +1,184 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.validation.bpmn20.batch;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.activiti.bpmn.converter.BpmnXMLConverter;
+import org.activiti.bpmn.model.BpmnModel;
+import org.activiti.designer.util.ActivitiConstants;
+import org.activiti.designer.validation.bpmn20.validation.BPMN20ValidationWorkers;
+import org.activiti.designer.validation.bpmn20.validation.worker.ProcessValidationWorkerInfo;
+import org.activiti.designer.validation.bpmn20.validation.worker.ProcessValidationWorkerMarker;
+
+/**
+ * Validates diagram files with the workers of the BPMN 2.0 validator, without a workspace, an editor or a UI. The
+ * files are parsed and validated in parallel, every file gets its own model and its own worker instances.
+ */
+public class BatchValidator {
+
+  /**
+   * The suffixes of the files that are validated when a folder is validated.
+   */
+  public static final List<String> DIAGRAM_FILE_SUFFIXES = Arrays.asList(ActivitiConstants.DATA_FILE_EXTENSION, ".bpmn20.xml");
+
+  private final int threadCount;
+
+  /**
+   * @param threadCount
+   *          the number of files that are validated at the same time
+   */
+  public BatchValidator(final int threadCount) {
+    this.threadCount = Math.max(1, threadCount);
+  }
+
+  /**
+   * @return the diagram files in the folders, searched recursively, and the files themselves. Hidden folders are
+   *         skipped.
+   */
+  public static List<File> findDiagramFiles(final List<File> filesAndFolders) {
+    final List<File> result = new ArrayList<File>();
+    for (final File file : filesAndFolders) {
+      if (file.isDirectory()) {
+        addDiagramFiles(file, result);
+      } else if (file.isFile()) {
+        result.add(file);
+      }
+    }
+    return result;
+  }
+
+  private static void addDiagramFiles(final File folder, final List<File> result) {
+    final File[] files = folder.listFiles();
+    if (files == null) {
+      return;
+    }
+    Arrays.sort(files);
+    for (final File file : files) {
+      if (file.isDirectory()) {
+        if (!file.getName().startsWith(".")) {
+          addDiagramFiles(file, result);
+        }
+      } else if (isDiagramFile(file)) {
+        result.add(file);
+      }
+    }
+  }
+
+  private static boolean isDiagramFile(final File file) {
+    for (final String suffix : DIAGRAM_FILE_SUFFIXES) {
+      if (file.getName().endsWith(suffix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Validates the files in parallel.
+   *
+   * @return the results, in the order of the files
+   */
+  public List<BatchValidationResult> validate(final List<File> files) throws InterruptedException {
+    final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadCount, Math.max(1, files.size())));
+    try {
+      final List<Future<BatchValidationResult>> futures = new ArrayList<Future<BatchValidationResult>>(files.size());
+      for (final File file : files) {
+        futures.add(executor.submit(new Callable<BatchValidationResult>() {
+
+          @Override
+          public BatchValidationResult call() throws Exception {
+            return validate(file);
+          }
+        }));
+      }
+
+      final List<BatchValidationResult> result = new ArrayList<BatchValidationResult>(files.size());
+      for (int i = 0; i < futures.size(); i++) {
+        try {
+          result.add(futures.get(i).get());
+        } catch (ExecutionException e) {
+          result.add(BatchValidationResult.failed(files.get(i), e.getCause(), 0, 0));
+        }
+      }
+      return result;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Parses and validates one file. Problems reading or validating the file are part of the result.
+   */
+  public BatchValidationResult validate(final File file) {
+    final long parseStart = System.nanoTime();
+    final BpmnModel bpmnModel;
+    try {
+      bpmnModel = parse(file);
+    } catch (Throwable e) {
+      return BatchValidationResult.failed(file, e, toMillis(System.nanoTime() - parseStart), 0);
+    }
+    final long parseMillis = toMillis(System.nanoTime() - parseStart);
+
+    final long validationStart = System.nanoTime();
+    try {
+      final Map<String, List<Object>> processNodes = BPMN20ValidationWorkers.extractProcessConstructs(bpmnModel);
+      final List<ProcessValidationWorkerMarker> markers = new ArrayList<ProcessValidationWorkerMarker>();
+      for (final ProcessValidationWorkerInfo worker : BPMN20ValidationWorkers.createWorkers()) {
+        // there is no diagram without an editor, the workers only use the process nodes
+        markers.addAll(worker.getProcessValidationWorker().validate(null, processNodes));
+      }
+      return new BatchValidationResult(file, markers, parseMillis, toMillis(System.nanoTime() - validationStart));
+    } catch (Throwable e) {
+      return BatchValidationResult.failed(file, e, parseMillis, toMillis(System.nanoTime() - validationStart));
+    }
+  }
+
+  private BpmnModel parse(final File file) throws Exception {
+    final InputStream inputStream = new BufferedInputStream(new FileInputStream(file));
+    try {
+      final XMLInputFactory xif = XMLInputFactory.newInstance();
+      final InputStreamReader in = new InputStreamReader(inputStream, "UTF-8");
+      final XMLStreamReader xtr = xif.createXMLStreamReader(in);
+      return new BpmnXMLConverter().convertToBpmnModel(xtr);
+    } finally {
+      try {
+        inputStream.close();
+      } catch (IOException e) {
+        // intentionally ignored
+      }
+    }
+  }
+
+  private static long toMillis(final long nanos) {
+    return nanos / 1000000L;
+  }
+}
@@ -13,6 +13,7 @@
  */
 package org.activiti.designer.validation.bpmn20.bundle;
 
+import org.activiti.designer.validation.bpmn20.validation.IncrementalValidationEngine;
 import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
 
@@ -47,6 +48,7 @@ public class Activator implements BundleActivator {
    * org.osgi.framework.BundleActivator#stop(org.osgi.framework.BundleContext)
    */
   public void stop(BundleContext bundleContext) throws Exception {
+    IncrementalValidationEngine.shutdown();
     Activator.context = null;
   }
 
@@ -17,37 +17,33 @@
 package org.activiti.designer.validation.bpmn20.validation;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
-import org.activiti.bpmn.model.FlowElement;
+import org.activiti.designer.eclipse.extension.DiagramMarker;
+import org.activiti.designer.eclipse.extension.DiagramWorkerContext;
 import org.activiti.designer.eclipse.extension.validation.AbstractProcessValidator;
 import org.activiti.designer.util.ActivitiConstants;
+import org.activiti.designer.util.editor.BpmnMemoryModel;
+import org.activiti.designer.util.editor.ModelHandler;
 import org.activiti.designer.validation.bpmn20.bundle.PluginConstants;
 import org.activiti.designer.validation.bpmn20.validation.worker.ProcessValidationWorkerInfo;
 import org.activiti.designer.validation.bpmn20.validation.worker.ProcessValidationWorkerMarker;
-import org.activiti.designer.validation.bpmn20.validation.worker.impl.ScriptTaskValidationWorker;
-import org.activiti.designer.validation.bpmn20.validation.worker.impl.SequenceFlowValidationWorker;
-import org.activiti.designer.validation.bpmn20.validation.worker.impl.ServiceTaskValidationWorker;
-import org.activiti.designer.validation.bpmn20.validation.worker.impl.SubProcessValidationWorker;
-import org.activiti.designer.validation.bpmn20.validation.worker.impl.UserTaskValidationWorker;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.transaction.RunnableWithResult;
+import org.eclipse.emf.transaction.TransactionalEditingDomain;
+import org.eclipse.emf.transaction.util.TransactionUtil;
 import org.eclipse.graphiti.mm.pictograms.Diagram;
 
 /**
  * @author Tiese Barrell
  * @since 0.6.1
- * @version 2
+ * @version 3
  * 
  */
 public class BPMN20ProcessValidator extends AbstractProcessValidator {
 
-  private static final int EXTRACTION_WORK_UNIT = 10;
-
   private boolean overallResult;
 
   /**
@@ -78,78 +74,91 @@ public class BPMN20ProcessValidator extends AbstractProcessValidator {
 
     monitor.beginTask("", PluginConstants.WORK_TOTAL);
 
-    // Clear problems for this diagram first
-    clearMarkers(getDiagramResource());
-
-    final Map<String, List<Object>> processNodes = extractProcessConstructs(new SubProgressMonitor(monitor, PluginConstants.WORK_EXTRACT_CONSTRUCTS));
-
-    final List<ProcessValidationWorkerInfo> workers = getWorkers();
-
-    for (final ProcessValidationWorkerInfo worker : workers) {
-
-      Collection<ProcessValidationWorkerMarker> result = worker.getProcessValidationWorker().validate(diagram, processNodes);
-      if (result.size() > 0) {
-        for (final ProcessValidationWorkerMarker marker : result) {
-          final String markerMessage = String.format(PluginConstants.MARKER_MESSAGE_PATTERN, marker.getCode().getDisplayName(), marker.getMessage());
-          switch (marker.getSeverity()) {
-          case IMarker.SEVERITY_ERROR:
-            addProblemToDiagram(markerMessage, marker.getNodeId());
-            break;
-          case IMarker.SEVERITY_WARNING:
-            addWarningToDiagram(markerMessage, marker.getNodeId());
-            break;
-          case IMarker.SEVERITY_INFO:
-            addInfoToDiagram(markerMessage, marker.getNodeId());
-            break;
-          }
-        }
-      }
-      monitor.worked(worker.getWork());
+    final BpmnMemoryModel model = ModelHandler.getModel(EcoreUtil.getURI(diagram));
+    if (model == null) {
+      // without a model there is nothing to validate and no file to put markers on
+      monitor.done();
+      return false;
     }
+    setDiagramWorkerContext(createDiagramWorkerContext(model, monitor));
+
+    final TransactionalEditingDomain editingDomain = TransactionUtil.getEditingDomain(diagram);
+    final IncrementalValidationEngine engine = IncrementalValidationEngine.forModel(model);
+    engine.listenTo(editingDomain);
+    final List<ProcessValidationWorkerMarker> markers = validateExclusive(editingDomain, engine, model, diagram, monitor);
+
+    updateMarkers(markers);
 
     monitor.done();
     return overallResult;
   }
 
-  private Map<String, List<Object>> extractProcessConstructs(final IProgressMonitor monitor) {
-
-    Collection<FlowElement> flowElements = getDiagramWorkerContext().getBpmnModel().getBpmnModel().getMainProcess().getFlowElements();
-    monitor.beginTask("Analyzing process constructs", flowElements.size() * EXTRACTION_WORK_UNIT);
-
-    final Map<String, List<Object>> result = new HashMap<String, List<Object>>();
-
-    for (final FlowElement object : flowElements) {
-
-      String nodeType = null;
-
-      nodeType = object.getClass().getCanonicalName();
-
-      if (nodeType != null) {
-        if (!result.containsKey(nodeType)) {
-          result.put(nodeType, new ArrayList<Object>());
-        }
-        result.get(nodeType).add(object);
+  /**
+   * Runs the validation in a read-only transaction of the editing domain. The model is changed by commands, which
+   * wait until the validation is done, so the workers, some of which run on other threads, never see a model that is
+   * being changed.
+   */
+  private List<ProcessValidationWorkerMarker> validateExclusive(final TransactionalEditingDomain editingDomain,
+          final IncrementalValidationEngine engine, final BpmnMemoryModel model, final Diagram diagram, final IProgressMonitor monitor) {
+
+    final RunnableWithResult<List<ProcessValidationWorkerMarker>> validation = new RunnableWithResult.Impl<List<ProcessValidationWorkerMarker>>() {
+
+      @Override
+      public void run() {
+        setResult(engine.validate(diagram, model.getBpmnModel(), getWorkers(), monitor,
+                PluginConstants.WORK_EXTRACT_CONSTRUCTS));
+      }
+    };
+
+    if (editingDomain == null) {
+      validation.run();
+    } else {
+      try {
+        editingDomain.runExclusive(validation);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting to validate the diagram", e);
       }
-
-      monitor.worked(EXTRACTION_WORK_UNIT);
     }
+    return validation.getResult();
+  }
 
-    monitor.done();
+  /**
+   * Updates the markers of the diagram to the markers of the validation, only
+   * the markers that changed are touched.
+   */
+  private void updateMarkers(final List<ProcessValidationWorkerMarker> markers) {
+
+    final List<DiagramMarker> diagramMarkers = new ArrayList<DiagramMarker>(markers.size());
+    for (final ProcessValidationWorkerMarker marker : markers) {
+      final String markerMessage = String.format(PluginConstants.MARKER_MESSAGE_PATTERN, marker.getCode().getDisplayName(), marker.getMessage());
+      diagramMarkers.add(new DiagramMarker(markerMessage, marker.getNodeId(), marker.getSeverity()));
+
+      if (marker.getSeverity() == IMarker.SEVERITY_ERROR) {
+        overallResult = false;
+      }
+    }
 
-    return result;
+    updateMarkers(diagramMarkers);
   }
-  private List<ProcessValidationWorkerInfo> getWorkers() {
 
-    List<ProcessValidationWorkerInfo> result = new ArrayList<ProcessValidationWorkerInfo>();
+  private DiagramWorkerContext createDiagramWorkerContext(final BpmnMemoryModel model, final IProgressMonitor monitor) {
+    return new DiagramWorkerContext() {
 
-    result.add(new ProcessValidationWorkerInfo(new UserTaskValidationWorker(), PluginConstants.WORK_USER_TASK));
-    result.add(new ProcessValidationWorkerInfo(new ScriptTaskValidationWorker(), PluginConstants.WORK_SCRIPT_TASK));
-    result.add(new ProcessValidationWorkerInfo(new ServiceTaskValidationWorker(), PluginConstants.WORK_SERVICE_TASK));
-    result.add(new ProcessValidationWorkerInfo(new SequenceFlowValidationWorker(), PluginConstants.WORK_SEQUENCE_FLOW));
-    result.add(new ProcessValidationWorkerInfo(new SubProcessValidationWorker(), PluginConstants.WORK_SUB_PROCESS));
+      @Override
+      public IProgressMonitor getProgressMonitor() {
+        return monitor;
+      }
 
-    return result;
+      @Override
+      public BpmnMemoryModel getBpmnModel() {
+        return model;
+      }
+    };
+  }
 
+  private List<ProcessValidationWorkerInfo> getWorkers() {
+    return BPMN20ValidationWorkers.createWorkers();
   }
 
   @Override
@@ -0,0 +1,100 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.validation.bpmn20.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.activiti.bpmn.model.BpmnModel;
+import org.activiti.bpmn.model.FlowElement;
+import org.activiti.bpmn.model.FlowElementsContainer;
+import org.activiti.bpmn.model.Process;
+import org.activiti.bpmn.model.ScriptTask;
+import org.activiti.bpmn.model.SequenceFlow;
+import org.activiti.bpmn.model.ServiceTask;
+import org.activiti.bpmn.model.SubProcess;
+import org.activiti.bpmn.model.UserTask;
+import org.activiti.designer.validation.bpmn20.bundle.PluginConstants;
+import org.activiti.designer.validation.bpmn20.validation.worker.ProcessValidationWorkerInfo;
+import org.activiti.designer.validation.bpmn20.validation.worker.impl.ScriptTaskValidationWorker;
+import org.activiti.designer.validation.bpmn20.validation.worker.impl.SequenceFlowValidationWorker;
+import org.activiti.designer.validation.bpmn20.validation.worker.impl.ServiceTaskValidationWorker;
+import org.activiti.designer.validation.bpmn20.validation.worker.impl.SubProcessValidationWorker;
+import org.activiti.designer.validation.bpmn20.validation.worker.impl.UserTaskValidationWorker;
+
+/**
+ * The workers of the BPMN 2.0 validator and the extraction of the process nodes they validate. Used by the validator
+ * in the editor and by the batch validation, which runs without a workspace or an editor.
+ */
+public final class BPMN20ValidationWorkers {
+
+  private BPMN20ValidationWorkers() {
+  }
+
+  /**
+   * @return new instances of the workers of the BPMN 2.0 validator
+   */
+  public static List<ProcessValidationWorkerInfo> createWorkers() {
+
+    final List<ProcessValidationWorkerInfo> result = new ArrayList<ProcessValidationWorkerInfo>();
+
+    result.add(new ProcessValidationWorkerInfo(new UserTaskValidationWorker(), PluginConstants.WORK_USER_TASK, UserTask.class));
+    result.add(new ProcessValidationWorkerInfo(new ScriptTaskValidationWorker(), PluginConstants.WORK_SCRIPT_TASK, ScriptTask.class));
+    result.add(new ProcessValidationWorkerInfo(new ServiceTaskValidationWorker(), PluginConstants.WORK_SERVICE_TASK, ServiceTask.class));
+    result.add(new ProcessValidationWorkerInfo(new SequenceFlowValidationWorker(), PluginConstants.WORK_SEQUENCE_FLOW, SequenceFlow.class));
+    result.add(new ProcessValidationWorkerInfo(new SubProcessValidationWorker(), PluginConstants.WORK_SUB_PROCESS, SubProcess.class));
+
+    return result;
+  }
+
+  /**
+   * Collects the flow elements of all processes and of the containers nested in them, by the canonical name of their
+   * type. The lists are a snapshot that isn't changed by later changes of the model and can't be changed by the
+   * workers.
+   */
+  public static Map<String, List<Object>> extractProcessConstructs(final BpmnModel bpmnModel) {
+    final Map<String, List<Object>> nodes = new HashMap<String, List<Object>>();
+    for (final Process process : bpmnModel.getProcesses()) {
+      addFlowElements(process, nodes);
+    }
+
+    final Map<String, List<Object>> result = new HashMap<String, List<Object>>();
+    for (final Entry<String, List<Object>> entry : nodes.entrySet()) {
+      result.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+    }
+    return result;
+  }
+
+  private static void addFlowElements(final FlowElementsContainer container, final Map<String, List<Object>> result) {
+    for (final FlowElement flowElement : container.getFlowElements()) {
+      final String nodeType = flowElement.getClass().getCanonicalName();
+      if (nodeType != null) {
+        List<Object> nodes = result.get(nodeType);
+        if (nodes == null) {
+          nodes = new ArrayList<Object>();
+          result.put(nodeType, nodes);
+        }
+        nodes.add(flowElement);
+      }
+
+      if (flowElement instanceof FlowElementsContainer) {
+        addFlowElements((FlowElementsContainer) flowElement, result);
+      }
+    }
+  }
+}
@@ -0,0 +1,460 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.validation.bpmn20.validation;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.activiti.bpmn.model.BaseElement;
+import org.activiti.bpmn.model.BpmnModel;
+import org.activiti.bpmn.model.FlowElementsContainer;
+import org.activiti.bpmn.model.SubProcess;
+import org.activiti.designer.util.editor.BpmnMemoryModel;
+import org.activiti.designer.util.editor.BpmnMemoryModel.BpmnModelListener;
+import org.activiti.designer.util.editor.BpmnModelIndex;
+import org.activiti.designer.validation.bpmn20.validation.worker.ProcessValidationWorkerInfo;
+import org.activiti.designer.validation.bpmn20.validation.worker.ProcessValidationWorkerMarker;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.transaction.ResourceSetChangeEvent;
+import org.eclipse.emf.transaction.ResourceSetListener;
+import org.eclipse.emf.transaction.ResourceSetListenerImpl;
+import org.eclipse.emf.transaction.TransactionalEditingDomain;
+import org.eclipse.graphiti.features.IFeatureProvider;
+import org.eclipse.graphiti.mm.pictograms.Anchor;
+import org.eclipse.graphiti.mm.pictograms.ConnectionDecorator;
+import org.eclipse.graphiti.mm.pictograms.Diagram;
+import org.eclipse.graphiti.mm.pictograms.PictogramElement;
+
+/**
+ * Validates the processes of one model and keeps the results of the validation workers, so a following validation
+ * only runs the workers for the node types that changed in the mean time.
+ *
+ * The engine listens to the updates of the {@link BpmnMemoryModel} and to the changes of the diagram in its editing
+ * domain, see {@link #listenTo(TransactionalEditingDomain)}, and marks the types of the changed objects as changed.
+ * Changes that keep the same instances, like reconnecting a sequence flow or editing a name in the diagram, are found
+ * through the pictogram elements they change. A change of a node also marks the sub processes that contain it. Nodes
+ * that were added or removed are found by comparing the nodes of the model with the ones of the previous validation.
+ * The nodes of all processes are validated, including the nodes nested in sub processes.
+ *
+ * The workers get a read-only snapshot of the nodes, taken before the workers run. The nodes are the instances of the
+ * model, so the caller makes sure the model isn't changed during the validation, see
+ * {@link BPMN20ProcessValidator}. Workers that are
+ * {@link org.activiti.designer.validation.bpmn20.validation.worker.ThreadSafeProcessValidationWorker thread-safe} run
+ * in parallel on a pool that is shared by all engines and created when it's needed first, so no threads are started
+ * while the model is locked. Their markers are merged in the order of the workers.
+ *
+ * There is one engine per model, see {@link #forModel(BpmnMemoryModel)}.
+ */
+public class IncrementalValidationEngine implements BpmnModelListener {
+
+  private static final Map<BpmnMemoryModel, IncrementalValidationEngine> ENGINES = new WeakHashMap<BpmnMemoryModel, IncrementalValidationEngine>();
+
+  private static ExecutorService workerExecutor;
+
+  private final WeakReference<BpmnMemoryModel> model;
+  private final Set<String> changedNodeTypes = new HashSet<String>();
+  private boolean fullValidationRequired = true;
+
+  private TransactionalEditingDomain editingDomain;
+  private final ResourceSetListener diagramListener = new ResourceSetListenerImpl() {
+
+    @Override
+    public boolean isPostcommitOnly() {
+      return true;
+    }
+
+    @Override
+    public void resourceSetChanged(final ResourceSetChangeEvent event) {
+      diagramChanged(event.getNotifications());
+    }
+  };
+
+  private Map<String, List<Object>> processNodes = Collections.emptyMap();
+  private final Map<String, Collection<ProcessValidationWorkerMarker>> workerResults = new HashMap<String, Collection<ProcessValidationWorkerMarker>>();
+
+  private long validationCount;
+  private long workerRunCount;
+
+  private IncrementalValidationEngine(final BpmnMemoryModel model) {
+    // the engine is the value of a weak map keyed by the model, so it mustn't keep the model alive
+    this.model = new WeakReference<BpmnMemoryModel>(model);
+  }
+
+  /**
+   * Stops the threads of the shared pool of the thread-safe workers, called when the bundle stops.
+   */
+  public static synchronized void shutdown() {
+    if (workerExecutor != null) {
+      workerExecutor.shutdownNow();
+      workerExecutor = null;
+    }
+  }
+
+  /**
+   * @return the pool for the thread-safe workers, with a daemon thread per processor that is started when it's needed
+   *         first and then kept
+   */
+  private static synchronized ExecutorService getWorkerExecutor() {
+    if (workerExecutor == null) {
+      workerExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+          final Thread thread = new Thread(runnable, "Activiti validation worker " + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return workerExecutor;
+  }
+
+  /**
+   * @return the engine of the model. The engine is created and registered as listener of the model the first time.
+   */
+  public static IncrementalValidationEngine forModel(final BpmnMemoryModel model) {
+    synchronized (ENGINES) {
+      IncrementalValidationEngine engine = ENGINES.get(model);
+      if (engine == null) {
+        engine = new IncrementalValidationEngine(model);
+        model.addModelListener(engine);
+        ENGINES.put(model, engine);
+      }
+      return engine;
+    }
+  }
+
+  /**
+   * Listens to the changes of the diagram in the editing domain, which replaces the editing domain listened to before.
+   */
+  public synchronized void listenTo(final TransactionalEditingDomain editingDomain) {
+    if (editingDomain == this.editingDomain) {
+      return;
+    }
+    if (this.editingDomain != null) {
+      this.editingDomain.removeResourceSetListener(diagramListener);
+    }
+    this.editingDomain = editingDomain;
+    if (editingDomain != null) {
+      editingDomain.addResourceSetListener(diagramListener);
+    }
+    // changes made before the engine listened weren't seen
+    invalidate();
+  }
+
+  @Override
+  public void objectUpdated(final Object object) {
+    if (object != null) {
+      markChanged(object);
+    }
+  }
+
+  /**
+   * Marks the types of the business objects of the pictogram elements that were changed, added or removed.
+   */
+  private void diagramChanged(final List<Notification> notifications) {
+    final BpmnMemoryModel bpmnMemoryModel = model.get();
+    final IFeatureProvider featureProvider = bpmnMemoryModel != null ? bpmnMemoryModel.getFeatureProvider() : null;
+    if (featureProvider == null) {
+      invalidate();
+      return;
+    }
+
+    final Set<PictogramElement> changedElements = new HashSet<PictogramElement>();
+    for (final Notification notification : notifications) {
+      if (notification.isTouch()) {
+        continue;
+      }
+      // the old and new values are the anchors of a reconnected flow and the shapes that were added or removed
+      addPictogramElement(changedElements, notification.getNotifier());
+      addPictogramElement(changedElements, notification.getOldValue());
+      addPictogramElement(changedElements, notification.getNewValue());
+    }
+    for (final PictogramElement pictogramElement : changedElements) {
+      for (final Object businessObject : featureProvider.getAllBusinessObjectsForPictogramElement(pictogramElement)) {
+        markChanged(businessObject);
+      }
+    }
+  }
+
+  private void addPictogramElement(final Set<PictogramElement> pictogramElements, final Object value) {
+    if (value instanceof Collection) {
+      for (final Object element : (Collection<?>) value) {
+        addPictogramElement(pictogramElements, element);
+      }
+      return;
+    }
+    if (value instanceof EObject == false) {
+      return;
+    }
+
+    EObject current = (EObject) value;
+    while (current != null && current instanceof PictogramElement == false) {
+      current = current.eContainer();
+    }
+    if (current instanceof ConnectionDecorator) {
+      current = ((ConnectionDecorator) current).getConnection();
+    } else if (current instanceof Anchor) {
+      current = ((Anchor) current).getParent();
+    }
+    if (current != null && current instanceof Diagram == false) {
+      pictogramElements.add((PictogramElement) current);
+    }
+  }
+
+  /**
+   * Marks the type of the object as changed, together with the types of the sub processes that contain it.
+   */
+  private void markChanged(final Object object) {
+    final Set<String> nodeTypes = new HashSet<String>();
+    nodeTypes.add(object.getClass().getCanonicalName());
+
+    if (object instanceof BaseElement) {
+      final BpmnMemoryModel bpmnMemoryModel = model.get();
+      final BpmnModelIndex modelIndex = bpmnMemoryModel != null ? bpmnMemoryModel.getModelIndex() : null;
+      FlowElementsContainer container = modelIndex != null ? modelIndex.getContainer(((BaseElement) object).getId()) : null;
+      if (container == null) {
+        // a removed node, or one the index doesn't know, can have been in any sub process
+        nodeTypes.add(SubProcess.class.getCanonicalName());
+      }
+      while (container instanceof SubProcess) {
+        nodeTypes.add(container.getClass().getCanonicalName());
+        nodeTypes.add(SubProcess.class.getCanonicalName());
+        container = modelIndex.getContainer(((SubProcess) container).getId());
+      }
+    }
+
+    synchronized (changedNodeTypes) {
+      if (nodeTypes.contains(null)) {
+        fullValidationRequired = true;
+      } else {
+        changedNodeTypes.addAll(nodeTypes);
+      }
+    }
+  }
+
+  /**
+   * Makes the next validation run all workers.
+   */
+  public void invalidate() {
+    synchronized (changedNodeTypes) {
+      fullValidationRequired = true;
+    }
+  }
+
+  /**
+   * Runs the workers affected by the changes since the previous validation and returns the markers of all workers.
+   * The monitor is expected to be started by the caller with at least
+   * {@link org.activiti.designer.validation.bpmn20.bundle.PluginConstants#WORK_EXTRACT_CONSTRUCTS} plus the work of
+   * the workers.
+   *
+   * @param extractionWork
+   *          the work reported for the extraction of the process nodes
+   * @return the markers of all workers, in the order of the workers
+   */
+  public synchronized List<ProcessValidationWorkerMarker> validate(final Diagram diagram, final BpmnModel bpmnModel,
+          final List<ProcessValidationWorkerInfo> workers, final IProgressMonitor monitor, final int extractionWork) {
+
+    final Set<String> changedTypes;
+    final boolean fullValidation;
+    synchronized (changedNodeTypes) {
+      changedTypes = new HashSet<String>(changedNodeTypes);
+      fullValidation = fullValidationRequired;
+      changedNodeTypes.clear();
+      fullValidationRequired = false;
+    }
+
+    boolean completed = false;
+    try {
+      final Map<String, List<Object>> currentNodes = BPMN20ValidationWorkers.extractProcessConstructs(bpmnModel);
+      changedTypes.addAll(getChangedNodeTypes(processNodes, currentNodes));
+      monitor.worked(extractionWork);
+
+      final Set<String> workerIds = new HashSet<String>();
+      final List<ProcessValidationWorkerInfo> affectedWorkers = new ArrayList<ProcessValidationWorkerInfo>();
+      for (final ProcessValidationWorkerInfo worker : workers) {
+        final String workerId = getWorkerId(worker);
+        workerIds.add(workerId);
+
+        if (fullValidation || !workerResults.containsKey(workerId) || worker.isAffectedBy(changedTypes)) {
+          affectedWorkers.add(worker);
+        } else {
+          monitor.worked(worker.getWork());
+        }
+      }
+
+      runWorkers(diagram, Collections.unmodifiableMap(currentNodes), affectedWorkers, monitor);
+      workerResults.keySet().retainAll(workerIds);
+
+      processNodes = currentNodes;
+      validationCount++;
+      completed = true;
+    } finally {
+      if (!completed) {
+        invalidate();
+      }
+    }
+
+    final List<ProcessValidationWorkerMarker> result = new ArrayList<ProcessValidationWorkerMarker>();
+    for (final ProcessValidationWorkerInfo worker : workers) {
+      final Collection<ProcessValidationWorkerMarker> workerResult = workerResults.get(getWorkerId(worker));
+      if (workerResult != null) {
+        result.addAll(workerResult);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Runs the workers and stores their results. Thread-safe workers run in parallel on the shared pool, the other
+   * workers run one after another on the calling thread in the mean time.
+   */
+  private void runWorkers(final Diagram diagram, final Map<String, List<Object>> nodes, final List<ProcessValidationWorkerInfo> workers,
+          final IProgressMonitor monitor) {
+
+    final List<ProcessValidationWorkerInfo> threadSafeWorkers = new ArrayList<ProcessValidationWorkerInfo>();
+    final List<ProcessValidationWorkerInfo> serialWorkers = new ArrayList<ProcessValidationWorkerInfo>();
+    for (final ProcessValidationWorkerInfo worker : workers) {
+      if (worker.isThreadSafe()) {
+        threadSafeWorkers.add(worker);
+      } else {
+        serialWorkers.add(worker);
+      }
+    }
+
+    final int threadCount = Math.min(threadSafeWorkers.size(), Runtime.getRuntime().availableProcessors());
+    if (threadCount <= 1) {
+      // not worth a pool
+      serialWorkers.addAll(0, threadSafeWorkers);
+      threadSafeWorkers.clear();
+    }
+
+    final ExecutorService executor = threadSafeWorkers.isEmpty() ? null : getWorkerExecutor();
+    final Map<ProcessValidationWorkerInfo, Future<Collection<ProcessValidationWorkerMarker>>> results = new LinkedHashMap<ProcessValidationWorkerInfo, Future<Collection<ProcessValidationWorkerMarker>>>();
+    try {
+      for (final ProcessValidationWorkerInfo worker : threadSafeWorkers) {
+        results.put(worker, executor.submit(new Callable<Collection<ProcessValidationWorkerMarker>>() {
+
+          @Override
+          public Collection<ProcessValidationWorkerMarker> call() throws Exception {
+            return worker.getProcessValidationWorker().validate(diagram, nodes);
+          }
+        }));
+      }
+
+      for (final ProcessValidationWorkerInfo worker : serialWorkers) {
+        storeResult(worker, worker.getProcessValidationWorker().validate(diagram, nodes));
+        monitor.worked(worker.getWork());
+      }
+
+      for (final Entry<ProcessValidationWorkerInfo, Future<Collection<ProcessValidationWorkerMarker>>> result : results.entrySet()) {
+        try {
+          storeResult(result.getKey(), result.getValue().get());
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof RuntimeException) {
+            throw (RuntimeException) e.getCause();
+          }
+          if (e.getCause() instanceof Error) {
+            throw (Error) e.getCause();
+          }
+          throw new IllegalStateException("Validation worker " + getWorkerId(result.getKey()) + " failed", e.getCause());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Interrupted while waiting for validation worker " + getWorkerId(result.getKey()), e);
+        }
+        monitor.worked(result.getKey().getWork());
+      }
+    } finally {
+      // the workers that still run when a worker failed mustn't outlive the lock on the model
+      for (final Future<Collection<ProcessValidationWorkerMarker>> result : results.values()) {
+        result.cancel(true);
+      }
+    }
+  }
+
+  private void storeResult(final ProcessValidationWorkerInfo worker, final Collection<ProcessValidationWorkerMarker> result) {
+    workerResults.put(getWorkerId(worker), new ArrayList<ProcessValidationWorkerMarker>(result));
+    workerRunCount++;
+  }
+
+  private String getWorkerId(final ProcessValidationWorkerInfo worker) {
+    return worker.getProcessValidationWorker().getClass().getName();
+  }
+
+  /**
+   * @return the number of validations
+   */
+  public synchronized long getValidationCount() {
+    return validationCount;
+  }
+
+  /**
+   * @return the number of times a worker was run, over all validations
+   */
+  public synchronized long getWorkerRunCount() {
+    return workerRunCount;
+  }
+
+  /**
+   * @return the node types of which nodes were added or removed, or replaced by other instances
+   */
+  private static Set<String> getChangedNodeTypes(final Map<String, List<Object>> previousNodes, final Map<String, List<Object>> currentNodes) {
+    final Set<String> result = new HashSet<String>();
+    final Set<String> nodeTypes = new HashSet<String>(previousNodes.keySet());
+    nodeTypes.addAll(currentNodes.keySet());
+
+    for (final String nodeType : nodeTypes) {
+      if (!isSameNodes(previousNodes.get(nodeType), currentNodes.get(nodeType))) {
+        result.add(nodeType);
+      }
+    }
+    return result;
+  }
+
+  private static boolean isSameNodes(final List<Object> nodes, final List<Object> otherNodes) {
+    if (nodes == null || otherNodes == null) {
+      return nodes == otherNodes;
+    }
+    if (nodes.size() != otherNodes.size()) {
+      return false;
+    }
+    for (int i = 0; i < nodes.size(); i++) {
+      if (nodes.get(i) != otherNodes.get(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -13,22 +13,36 @@
  */
 package org.activiti.designer.validation.bpmn20.validation.worker;
 
-/**
- * Container object for {@link ProcessValidationWorker}s and their work units.
- * 
- * @author Tiese Barrell
- * @since 5.6
- * @version 1
- */
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 public class ProcessValidationWorkerInfo {
 
   private final ProcessValidationWorker processValidationWorker;
   private final int work;
+  private final Set<String> nodeTypes;
 
   public ProcessValidationWorkerInfo(ProcessValidationWorker processValidationWorker, int work) {
+    this(processValidationWorker, work, new Class< ? >[0]);
+  }
+
+  /**
+   * @param nodeTypes
+   *          the types of process nodes the worker validates. A worker without
+   *          node types is run whenever the process is validated.
+   */
+  public ProcessValidationWorkerInfo(ProcessValidationWorker processValidationWorker, int work, Class< ? >... nodeTypes) {
     super();
     this.processValidationWorker = processValidationWorker;
     this.work = work;
+
+    final Set<String> typeNames = new LinkedHashSet<String>();
+    for (final Class< ? > nodeType : nodeTypes) {
+      typeNames.add(nodeType.getCanonicalName());
+    }
+    this.nodeTypes = Collections.unmodifiableSet(typeNames);
   }
 
   public ProcessValidationWorker getProcessValidationWorker() {
@@ -39,4 +53,35 @@ public class ProcessValidationWorkerInfo {
     return work;
   }
 
+  /**
+   * @return true if the worker can run concurrently with other workers
+   * @see ThreadSafeProcessValidationWorker
+   */
+  public boolean isThreadSafe() {
+    return processValidationWorker instanceof ThreadSafeProcessValidationWorker;
+  }
+
+  /**
+   * @return the canonical names of the node types the worker validates
+   */
+  public Set<String> getNodeTypes() {
+    return nodeTypes;
+  }
+
+  /**
+   * @return true if the result of the worker can change when nodes of the
+   *         given types changed
+   */
+  public boolean isAffectedBy(Collection<String> changedNodeTypes) {
+    if (nodeTypes.isEmpty()) {
+      return true;
+    }
+    for (final String changedNodeType : changedNodeTypes) {
+      if (nodeTypes.contains(changedNodeType)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
 }
@@ -0,0 +1,25 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.designer.validation.bpmn20.validation.worker;
+
+/**
+ * Marks a {@link ProcessValidationWorker} that can validate concurrently with other workers. Workers implementing
+ * this interface are run in parallel on a thread pool, the other workers one after another on the validating thread.
+ *
+ * A thread-safe worker doesn't keep state between or during validations that isn't safe for concurrent use and only
+ * reads the process nodes, it never changes them.
+ */
+public interface ThreadSafeProcessValidationWorker extends ProcessValidationWorker {
+
+}
@@ -19,8 +19,8 @@ import java.util.List;
 import java.util.Map;
 
 import org.activiti.bpmn.model.ScriptTask;
-import org.activiti.designer.validation.bpmn20.validation.worker.ProcessValidationWorker;
 import org.activiti.designer.validation.bpmn20.validation.worker.ProcessValidationWorkerMarker;
+import org.activiti.designer.validation.bpmn20.validation.worker.ThreadSafeProcessValidationWorker;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.graphiti.mm.pictograms.Diagram;
 
@@ -32,7 +32,7 @@ import org.eclipse.graphiti.mm.pictograms.Diagram;
  * @since 5.6
  * @version 1
  */
-public class ScriptTaskValidationWorker implements ProcessValidationWorker {
+public class ScriptTaskValidationWorker implements ThreadSafeProcessValidationWorker {
 
   private static final String NO_FORMAT_EXCEPTION_MESSAGE_PATTERN = "ScriptTask '%s' has no format specified";
   private static final String NO_SCRIPT_EXCEPTION_MESSAGE_PATTERN = "ScriptTask '%s' has no format specified";
@@ -19,8 +19,8 @@ import java.util.List;
 import java.util.Map;
 
 import org.activiti.bpmn.model.SequenceFlow;
-import org.activiti.designer.validation.bpmn20.validation.worker.ProcessValidationWorker;
 import org.activiti.designer.validation.bpmn20.validation.worker.ProcessValidationWorkerMarker;
+import org.activiti.designer.validation.bpmn20.validation.worker.ThreadSafeProcessValidationWorker;
 import org.apache.commons.lang.StringUtils;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.graphiti.mm.pictograms.Diagram;
@@ -33,7 +33,7 @@ import org.eclipse.graphiti.mm.pictograms.Diagram;
  * @since 5.6
  * @version 1
  */
-public class SequenceFlowValidationWorker implements ProcessValidationWorker {
+public class SequenceFlowValidationWorker implements ThreadSafeProcessValidationWorker {
 
   private static final String NO_SOURCE_ACTIVITY_EXCEPTION_MESSAGE_PATTERN = "SequenceFlow '%s' has no source activity";
   private static final String NO_TARGET_ACTIVITY_EXCEPTION_MESSAGE_PATTERN = "SequenceFlow '%s' has no target activity";
@@ -15,15 +15,12 @@ package org.activiti.designer.validation.bpmn20.validation.worker.impl;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.activiti.bpmn.model.FlowElement;
 import org.activiti.bpmn.model.ServiceTask;
-import org.activiti.bpmn.model.SubProcess;
-import org.activiti.designer.validation.bpmn20.validation.worker.ProcessValidationWorker;
 import org.activiti.designer.validation.bpmn20.validation.worker.ProcessValidationWorkerMarker;
+import org.activiti.designer.validation.bpmn20.validation.worker.ThreadSafeProcessValidationWorker;
 import org.eclipse.graphiti.mm.pictograms.Diagram;
 
 /**
@@ -33,7 +30,7 @@ import org.eclipse.graphiti.mm.pictograms.Diagram;
  * @since 5.6
  * @version 1
  */
-public class ServiceTaskValidationWorker implements ProcessValidationWorker {
+public class ServiceTaskValidationWorker implements ThreadSafeProcessValidationWorker {
 
   private static final String NO_CLASS_EXCEPTION_MESSAGE_PATTERN = "ServiceTask '%s' has no class specified";
 
@@ -50,31 +47,6 @@ public class ServiceTaskValidationWorker implements ProcessValidationWorker {
         
       }
     }
-    
-    final List<Object> subProcesses = processNodes.get(SubProcess.class.getCanonicalName());
-
-    if (subProcesses != null && !subProcesses.isEmpty()) {
-      for (final Object object : subProcesses) {
-
-        final SubProcess subProcess = (SubProcess) object;
-        
-        final Map<String, List<Object>> subElementsMap = new HashMap<String, List<Object>>();
-
-        for (final FlowElement subElement : subProcess.getFlowElements()) {
-
-          String nodeType = subElement.getClass().getCanonicalName();
-
-          if (nodeType != null) {
-            if (!subElementsMap.containsKey(nodeType)) {
-            	subElementsMap.put(nodeType, new ArrayList<Object>());
-            }
-            subElementsMap.get(nodeType).add(subElement);
-          }
-        }
-        
-        result.addAll(validate(diagram, subElementsMap));
-      }
-    }
 
     return result;
   }
@@ -19,8 +19,8 @@ import java.util.List;
 import java.util.Map;
 
 import org.activiti.bpmn.model.SubProcess;
-import org.activiti.designer.validation.bpmn20.validation.worker.ProcessValidationWorker;
 import org.activiti.designer.validation.bpmn20.validation.worker.ProcessValidationWorkerMarker;
+import org.activiti.designer.validation.bpmn20.validation.worker.ThreadSafeProcessValidationWorker;
 import org.eclipse.graphiti.mm.pictograms.Diagram;
 
 /**
@@ -30,7 +30,7 @@ import org.eclipse.graphiti.mm.pictograms.Diagram;
  * @since 5.6
  * @version 1
  */
-public class SubProcessValidationWorker implements ProcessValidationWorker {
+public class SubProcessValidationWorker implements ThreadSafeProcessValidationWorker {
 
   @Override
   public Collection<ProcessValidationWorkerMarker> validate(final Diagram diagram, final Map<String, List<Object>> processNodes) {
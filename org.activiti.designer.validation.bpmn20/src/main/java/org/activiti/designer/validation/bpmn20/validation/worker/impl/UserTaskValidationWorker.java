@@ -19,8 +19,8 @@ import java.util.List;
 import java.util.Map;
 
 import org.activiti.bpmn.model.UserTask;
-import org.activiti.designer.validation.bpmn20.validation.worker.ProcessValidationWorker;
 import org.activiti.designer.validation.bpmn20.validation.worker.ProcessValidationWorkerMarker;
+import org.activiti.designer.validation.bpmn20.validation.worker.ThreadSafeProcessValidationWorker;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.graphiti.mm.pictograms.Diagram;
 
@@ -31,7 +31,7 @@ import org.eclipse.graphiti.mm.pictograms.Diagram;
  * @since 5.6
  * @version 1
  */
-public class UserTaskValidationWorker implements ProcessValidationWorker {
+public class UserTaskValidationWorker implements ThreadSafeProcessValidationWorker {
 
   private static final String POTENTIAL_OWNER_EXCEPTION_MESSAGE_PATTERN = "UserTask '%s' has no assignee, candidate users, candidate groups set";
 